@@ -0,0 +1,90 @@
+package com.corentingambier.treenode.benchmark;
+
+import com.corentingambier.treenode.NaryTreeNode;
+import com.corentingambier.treenode.TreeAggregate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * A weighted sum kept up to date after the change of the value of a leaf: fold of the whole tree against the query of
+ * an aggregate, which only combines the changed leaf and its ancestors.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AggregateBenchmark {
+    private static final BiFunction<Integer, List<Long>, Long> WEIGHTED_SUM = (value, children) -> {
+        long sum = value;
+        for (int i = 0; i < children.size(); i++) {
+            sum += (i + 1) * children.get(i);
+        }
+        return sum;
+    };
+
+    /**
+     * The number of nodes of the tree.
+     */
+    @Param({"1000000"})
+    public int size;
+
+    private NaryTreeNode<Integer> tree;
+    private List<NaryTreeNode<Integer>> leaves;
+    private TreeAggregate<Integer, Long> aggregate;
+    private int next;
+
+    /**
+     * Generate the tree and its aggregate.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.tree = TreeGenerator.balanced(this.size, 8);
+        this.leaves = this.tree.nodeStream(NaryTreeNode.Order.PREFIX).filter(NaryTreeNode::isLeaf).toList();
+        this.aggregate = this.tree.aggregate(AggregateBenchmark.WEIGHTED_SUM);
+        this.aggregate.get();
+    }
+
+    private void changeLeaf() {
+        final NaryTreeNode<Integer> leaf = this.leaves.get(this.next);
+        this.next = (this.next + 7919) % this.leaves.size();
+        leaf.setValue(leaf.getValue() + 1);
+    }
+
+    /**
+     * Benchmark a change followed by the fold of the whole tree.
+     *
+     * @return the sum
+     */
+    @Benchmark
+    public Long fold() {
+        this.changeLeaf();
+        return this.tree.fold(AggregateBenchmark.WEIGHTED_SUM);
+    }
+
+    /**
+     * Benchmark a change followed by the query of the aggregate.
+     *
+     * @return the sum
+     */
+    @Benchmark
+    public Long aggregate() {
+        this.changeLeaf();
+        return this.aggregate.get();
+    }
+}
@@ -0,0 +1,131 @@
+package com.corentingambier.treenode.benchmark;
+
+import com.corentingambier.treenode.NaryTreeNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ancestry queries between random pairs of nodes, walking up the parents against the ancestry index.
+ * <p>
+ * Every operation is one query, averaged over {@code PAIRS} pairs of nodes drawn once per trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AncestryBenchmark {
+    private static final int PAIRS = 1024;
+
+    /**
+     * The shape of the tree.
+     */
+    @Param({"ZIPF", "CHAIN"})
+    public TreeShape shape;
+
+    /**
+     * The number of nodes of the tree.
+     */
+    @Param({"100000"})
+    public int size;
+
+    private NaryTreeNode<Integer>[] plainPairs;
+    private NaryTreeNode<Integer>[] indexedPairs;
+
+    /**
+     * Generate two copies of the tree, one of them indexed, and draw the pairs.
+     */
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        final NaryTreeNode<Integer> plain = TreeGenerator.generate(this.shape, this.size, 8, 42L);
+        final NaryTreeNode<Integer> indexed = TreeGenerator.generate(this.shape, this.size, 8, 42L);
+        indexed.enableAncestryIndex();
+        final List<NaryTreeNode<Integer>> plainNodes = plain.nodeStream(NaryTreeNode.Order.PREFIX).toList();
+        final List<NaryTreeNode<Integer>> indexedNodes = indexed.nodeStream(NaryTreeNode.Order.PREFIX).toList();
+        final Random random = new Random(42L);
+        this.plainPairs = new NaryTreeNode[2 * AncestryBenchmark.PAIRS];
+        this.indexedPairs = new NaryTreeNode[2 * AncestryBenchmark.PAIRS];
+        for (int i = 0; i < this.plainPairs.length; i++) {
+            final int node = random.nextInt(plainNodes.size());
+            this.plainPairs[i] = plainNodes.get(node);
+            this.indexedPairs[i] = indexedNodes.get(node);
+        }
+    }
+
+    private static int isAncestorOf(final NaryTreeNode<Integer>[] pairs) {
+        int count = 0;
+        for (int i = 0; i < pairs.length; i += 2) {
+            count += pairs[i].isAncestorOf(pairs[i + 1]) ? 1 : 0;
+        }
+        return count;
+    }
+
+    private static int lowestCommonAncestor(final NaryTreeNode<Integer>[] pairs) {
+        int sum = 0;
+        for (int i = 0; i < pairs.length; i += 2) {
+            sum += pairs[i].lowestCommonAncestor(pairs[i + 1]).orElseThrow().getValue();
+        }
+        return sum;
+    }
+
+    /**
+     * Benchmark isAncestorOf, walking up the parents.
+     *
+     * @return the number of ancestors
+     */
+    @Benchmark
+    @OperationsPerInvocation(AncestryBenchmark.PAIRS)
+    public int isAncestorOfWalk() {
+        return AncestryBenchmark.isAncestorOf(this.plainPairs);
+    }
+
+    /**
+     * Benchmark isAncestorOf with the ancestry index.
+     *
+     * @return the number of ancestors
+     */
+    @Benchmark
+    @OperationsPerInvocation(AncestryBenchmark.PAIRS)
+    public int isAncestorOfIndexed() {
+        return AncestryBenchmark.isAncestorOf(this.indexedPairs);
+    }
+
+    /**
+     * Benchmark lowestCommonAncestor, walking up the parents.
+     *
+     * @return the sum of the values of the ancestors
+     */
+    @Benchmark
+    @OperationsPerInvocation(AncestryBenchmark.PAIRS)
+    public int lowestCommonAncestorWalk() {
+        return AncestryBenchmark.lowestCommonAncestor(this.plainPairs);
+    }
+
+    /**
+     * Benchmark lowestCommonAncestor with the ancestry index.
+     *
+     * @return the sum of the values of the ancestors
+     */
+    @Benchmark
+    @OperationsPerInvocation(AncestryBenchmark.PAIRS)
+    public int lowestCommonAncestorIndexed() {
+        return AncestryBenchmark.lowestCommonAncestor(this.indexedPairs);
+    }
+}
@@ -0,0 +1,137 @@
+package com.corentingambier.treenode.benchmark;
+
+import com.corentingambier.treenode.NaryTreeNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Building a tree from rows of {@code (id, parentId, value)}: one {@code addChild} per row with a map from the ids to
+ * the nodes, against the bulk builders of {@link NaryTreeNode}.
+ * <p>
+ * The rows describe a random tree, every node having a random earlier node as parent, with sparse ids.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BuildBenchmark {
+    /**
+     * The number of nodes of the tree.
+     */
+    @Param({"1000000"})
+    public int size;
+
+    private long[][] rows;
+    private List<Integer> values;
+    private int[] parents;
+    private int[] prefixChildrenCounts;
+    private List<Integer> prefixValues;
+
+    /**
+     * Generate the rows.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Random random = new Random(42L);
+        this.rows = new long[this.size][];
+        this.parents = new int[this.size];
+        this.parents[0] = -1;
+        this.rows[0] = new long[]{BuildBenchmark.id(0), -1L, 0L};
+        for (int i = 1; i < this.size; i++) {
+            this.parents[i] = random.nextInt(i);
+            this.rows[i] = new long[]{BuildBenchmark.id(i), BuildBenchmark.id(this.parents[i]), i};
+        }
+        this.values = Arrays.asList(IntStream.range(0, this.size).boxed().toArray(Integer[]::new));
+        final NaryTreeNode<Integer> tree = NaryTreeNode.fromParentArray(this.values, this.parents);
+        this.prefixValues = tree.toPrefixList();
+        this.prefixChildrenCounts = tree.nodeStream(NaryTreeNode.Order.PREFIX)
+                .mapToInt(NaryTreeNode::getChildrenCount).toArray();
+    }
+
+    private static long id(final int index) {
+        return index * 7_919L + 1_000_000_007L;
+    }
+
+    /**
+     * Benchmark one addChild per row, finding the parent in a map.
+     *
+     * @return the root
+     */
+    @Benchmark
+    public NaryTreeNode<Integer> addChildWithMap() {
+        final Map<Long, NaryTreeNode<Integer>> nodes = new HashMap<>();
+        NaryTreeNode<Integer> root = null;
+        for (final long[] row : this.rows) {
+            final NaryTreeNode<Integer> node = new NaryTreeNode<>((int) row[2]);
+            nodes.put(row[0], node);
+            final NaryTreeNode<Integer> parent = nodes.get(row[1]);
+            if (parent == null) {
+                root = node;
+            } else {
+                parent.addChild(node);
+            }
+        }
+        return root;
+    }
+
+    /**
+     * Benchmark fromRows.
+     *
+     * @return the root
+     */
+    @Benchmark
+    public NaryTreeNode<Integer> fromRows() {
+        return NaryTreeNode.fromRows(Arrays.stream(this.rows), row -> row[0], row -> row[1], row -> (int) row[2]);
+    }
+
+    /**
+     * Benchmark fromParentArray.
+     *
+     * @return the root
+     */
+    @Benchmark
+    public NaryTreeNode<Integer> fromParentArray() {
+        return NaryTreeNode.fromParentArray(this.values, this.parents);
+    }
+
+    /**
+     * Benchmark fromParentArray in the common pool.
+     *
+     * @return the root
+     */
+    @Benchmark
+    public NaryTreeNode<Integer> fromParentArrayParallel() {
+        return NaryTreeNode.fromParentArray(this.values, this.parents, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Benchmark fromPrefix.
+     *
+     * @return the root
+     */
+    @Benchmark
+    public NaryTreeNode<Integer> fromPrefix() {
+        return NaryTreeNode.fromPrefix(this.prefixValues, this.prefixChildrenCounts);
+    }
+}
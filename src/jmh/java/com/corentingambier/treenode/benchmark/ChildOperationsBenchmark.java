@@ -0,0 +1,121 @@
+package com.corentingambier.treenode.benchmark;
+
+import com.corentingambier.treenode.NaryTreeNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pruning and moving the children of a wide node of {@link NaryTreeNode}: one {@code removeChild} or {@code addChild}
+ * per child, against the batch operations.
+ * <p>
+ * The wide node has {@code width} children and statistics enabled, and is rebuilt before every operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChildOperationsBenchmark {
+    /**
+     * The number of children of the wide node.
+     */
+    @Param({"100000"})
+    public int width;
+
+    private NaryTreeNode<Integer> wide;
+    private List<NaryTreeNode<Integer>> even;
+
+    /**
+     * Build the wide node.
+     */
+    @Setup(Level.Invocation)
+    public void setUp() {
+        this.wide = new NaryTreeNode<>(-1);
+        this.wide.enableStatistics();
+        this.even = new ArrayList<>(this.width / 2 + 1);
+        for (int i = 0; i < this.width; i++) {
+            final NaryTreeNode<Integer> child = new NaryTreeNode<>(i);
+            this.wide.addChild(child);
+            if (i % 2 == 0) {
+                this.even.add(child);
+            }
+        }
+    }
+
+    /**
+     * Benchmark removing the even children one at a time.
+     *
+     * @return the wide node
+     */
+    @Benchmark
+    public NaryTreeNode<Integer> pruneOneByOne() {
+        for (final NaryTreeNode<Integer> child : this.even) {
+            this.wide.removeChild(child);
+        }
+        return this.wide;
+    }
+
+    /**
+     * Benchmark removing the even children with a predicate.
+     *
+     * @return the wide node
+     */
+    @Benchmark
+    public NaryTreeNode<Integer> pruneRemoveIf() {
+        this.wide.removeChildrenIf(child -> child.getValue() % 2 == 0);
+        return this.wide;
+    }
+
+    /**
+     * Benchmark moving the even children to another node one at a time.
+     *
+     * @return the node receiving the children
+     */
+    @Benchmark
+    public NaryTreeNode<Integer> moveOneByOne() {
+        final NaryTreeNode<Integer> target = new NaryTreeNode<>(-2);
+        for (final NaryTreeNode<Integer> child : this.even) {
+            target.addChild(child);
+        }
+        return target;
+    }
+
+    /**
+     * Benchmark moving the even children to another node in one call.
+     *
+     * @return the node receiving the children
+     */
+    @Benchmark
+    public NaryTreeNode<Integer> moveAddChildren() {
+        final NaryTreeNode<Integer> target = new NaryTreeNode<>(-2);
+        target.addChildren(this.even);
+        return target;
+    }
+
+    /**
+     * Benchmark moving all the children to another node with a splice.
+     *
+     * @return the node receiving the children
+     */
+    @Benchmark
+    public NaryTreeNode<Integer> moveAllSplice() {
+        final NaryTreeNode<Integer> target = new NaryTreeNode<>(-2);
+        target.spliceChildren(0, this.wide);
+        return target;
+    }
+}
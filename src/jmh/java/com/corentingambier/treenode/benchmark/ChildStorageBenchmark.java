@@ -0,0 +1,115 @@
+package com.corentingambier.treenode.benchmark;
+
+import com.corentingambier.treenode.NaryTreeNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the child storage of {@link NaryTreeNode}.
+ * <p>
+ * The {@code build*} benchmarks allocate a whole tree per operation, so {@code gc.alloc.rate.norm} divided by the
+ * {@code size} parameter is the per-node footprint. The {@code wide*} benchmarks walk the children of a single node
+ * of {@code width} children.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChildStorageBenchmark {
+    /**
+     * The number of nodes of the built trees.
+     */
+    @Param({"100000"})
+    public int size;
+
+    /**
+     * The number of children of the wide node.
+     */
+    @Param({"10000"})
+    public int width;
+
+    private NaryTreeNode<Integer> wide;
+
+    /**
+     * Build the wide node.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.wide = new NaryTreeNode<>(0);
+        for (int i = 0; i < this.width; i++) {
+            this.wide.addChild(i);
+        }
+    }
+
+    /**
+     * Build a balanced tree of fan-out 8.
+     *
+     * @return the root
+     */
+    @Benchmark
+    public NaryTreeNode<Integer> buildBalanced() {
+        return TreeGenerator.balanced(this.size, 8);
+    }
+
+    /**
+     * Build a balanced binary tree, where the per-child overhead dominates.
+     *
+     * @return the root
+     */
+    @Benchmark
+    public NaryTreeNode<Integer> buildBinary() {
+        return TreeGenerator.balanced(this.size, 2);
+    }
+
+    /**
+     * Build a chain, where every node holds a single child.
+     *
+     * @return the root
+     */
+    @Benchmark
+    public NaryTreeNode<Integer> buildChain() {
+        return TreeGenerator.chain(this.size);
+    }
+
+    /**
+     * Read every child of the wide node by index.
+     *
+     * @return the sum of the values
+     */
+    @Benchmark
+    public long wideGetChild() {
+        long sum = 0;
+        for (int i = 0; i < this.wide.getChildrenCount(); i++) {
+            sum += this.wide.getChild(i).getValue();
+        }
+        return sum;
+    }
+
+    /**
+     * Iterate over the children view of the wide node.
+     *
+     * @return the sum of the values
+     */
+    @Benchmark
+    public long wideIterate() {
+        long sum = 0;
+        for (final NaryTreeNode<Integer> child : this.wide.getChildren()) {
+            sum += child.getValue();
+        }
+        return sum;
+    }
+}
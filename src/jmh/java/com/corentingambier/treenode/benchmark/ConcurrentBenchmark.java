@@ -0,0 +1,193 @@
+package com.corentingambier.treenode.benchmark;
+
+import com.corentingambier.treenode.ConcurrentNaryTreeNode;
+import com.corentingambier.treenode.NaryTreeNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Mixed reads and writes on a shared tree: {@link ConcurrentNaryTreeNode} against a {@link NaryTreeNode} guarded by
+ * a tree-wide read-write lock.
+ * <p>
+ * A read walks a random path from the root to a leaf, a write adds a child to a random child of the root then removes
+ * it, leaving the tree unchanged. Each group runs readers and writers in the ratio of its name.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Group)
+public class ConcurrentBenchmark {
+    /**
+     * The number of nodes of the tree.
+     */
+    @Param({"10000"})
+    public int size;
+
+    private NaryTreeNode<Integer> locked;
+    private ReadWriteLock lock;
+    private ConcurrentNaryTreeNode<Integer> concurrent;
+
+    /**
+     * Build the trees.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.locked = TreeGenerator.balanced(this.size, 8);
+        this.lock = new ReentrantReadWriteLock();
+        this.concurrent = ConcurrentNaryTreeNode.copyOf(this.locked);
+    }
+
+    private int readLocked() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        this.lock.readLock().lock();
+        try {
+            NaryTreeNode<Integer> node = this.locked;
+            while (!node.isLeaf()) {
+                node = node.getChild(random.nextInt(node.getChildrenCount()));
+            }
+            return node.getValue();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    private void writeLocked() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        this.lock.writeLock().lock();
+        try {
+            final NaryTreeNode<Integer> parent = this.locked.getChild(random.nextInt(this.locked.getChildrenCount()));
+            parent.addChild(-1);
+            parent.removeChild(parent.getChildrenCount() - 1);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    private int readConcurrent() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        ConcurrentNaryTreeNode<Integer> node = this.concurrent;
+        while (true) {
+            // One snapshot per node, so that a concurrent removal cannot make the index stale
+            final List<ConcurrentNaryTreeNode<Integer>> children = node.getChildren();
+            if (children.isEmpty()) {
+                return node.getValue();
+            }
+            node = children.get(random.nextInt(children.size()));
+        }
+    }
+
+    private void writeConcurrent() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final ConcurrentNaryTreeNode<Integer> parent =
+                this.concurrent.getChild(random.nextInt(this.concurrent.getChildrenCount()));
+        parent.removeChild(parent.addChild(-1));
+    }
+
+    /**
+     * Benchmark the reads of the locked tree, three readers for one writer.
+     *
+     * @return the value of the leaf
+     */
+    @Benchmark
+    @Group("locked3To1")
+    @GroupThreads(3)
+    public int locked3To1Read() {
+        return this.readLocked();
+    }
+
+    /**
+     * Benchmark the writes of the locked tree, three readers for one writer.
+     */
+    @Benchmark
+    @Group("locked3To1")
+    @GroupThreads(1)
+    public void locked3To1Write() {
+        this.writeLocked();
+    }
+
+    /**
+     * Benchmark the reads of the locked tree, one reader for one writer.
+     *
+     * @return the value of the leaf
+     */
+    @Benchmark
+    @Group("locked1To1")
+    @GroupThreads(1)
+    public int locked1To1Read() {
+        return this.readLocked();
+    }
+
+    /**
+     * Benchmark the writes of the locked tree, one reader for one writer.
+     */
+    @Benchmark
+    @Group("locked1To1")
+    @GroupThreads(1)
+    public void locked1To1Write() {
+        this.writeLocked();
+    }
+
+    /**
+     * Benchmark the reads of the concurrent tree, three readers for one writer.
+     *
+     * @return the value of the leaf
+     */
+    @Benchmark
+    @Group("concurrent3To1")
+    @GroupThreads(3)
+    public int concurrent3To1Read() {
+        return this.readConcurrent();
+    }
+
+    /**
+     * Benchmark the writes of the concurrent tree, three readers for one writer.
+     */
+    @Benchmark
+    @Group("concurrent3To1")
+    @GroupThreads(1)
+    public void concurrent3To1Write() {
+        this.writeConcurrent();
+    }
+
+    /**
+     * Benchmark the reads of the concurrent tree, one reader for one writer.
+     *
+     * @return the value of the leaf
+     */
+    @Benchmark
+    @Group("concurrent1To1")
+    @GroupThreads(1)
+    public int concurrent1To1Read() {
+        return this.readConcurrent();
+    }
+
+    /**
+     * Benchmark the writes of the concurrent tree, one reader for one writer.
+     */
+    @Benchmark
+    @Group("concurrent1To1")
+    @GroupThreads(1)
+    public void concurrent1To1Write() {
+        this.writeConcurrent();
+    }
+}
@@ -0,0 +1,141 @@
+package com.corentingambier.treenode.benchmark;
+
+import com.corentingambier.treenode.NaryTreeNode;
+import com.corentingambier.treenode.TreePatch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Sending the changes of a tree: the json of the whole tree against the json of the patch computed by {@code diff},
+ * with the subtree hashes computed by every diff, cached with the statistics, and cached and trusted.
+ * <p>
+ * The changed tree differs from the original one by {@code changes} edits, half of them value updates and half of
+ * them moves of leaves.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DiffBenchmark {
+    private static final ToLongFunction<Integer> VALUE_HASHER = Integer::longValue;
+
+    /**
+     * The number of nodes of the tree.
+     */
+    @Param({"1000000"})
+    public int size;
+
+    /**
+     * The number of edits.
+     */
+    @Param({"16"})
+    public int changes;
+
+    private NaryTreeNode<Integer> source;
+    private NaryTreeNode<Integer> target;
+    private NaryTreeNode<Integer> cachedSource;
+    private NaryTreeNode<Integer> cachedTarget;
+    private NaryTreeNode<Integer> trustedSource;
+    private NaryTreeNode<Integer> trustedTarget;
+
+    /**
+     * Generate the tree and its changed copy, and a copy of both with the statistics enabled.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.source = TreeGenerator.balanced(this.size, 8);
+        this.target = this.source.map(Function.identity());
+        final List<NaryTreeNode<Integer>> nodes = this.target.nodeStream(NaryTreeNode.Order.PREFIX).toList();
+        final Random random = new Random(42L);
+        for (int i = 0; i < this.changes; i++) {
+            NaryTreeNode<Integer> node = nodes.get(1 + random.nextInt(nodes.size() - 1));
+            if (i % 2 == 0) {
+                node.setValue(-node.getValue());
+                continue;
+            }
+            while (!node.isLeaf()) {
+                node = node.getChild(0);
+            }
+            final NaryTreeNode<Integer> newParent = nodes.get(random.nextInt(nodes.size()));
+            if (newParent != node) {
+                node.moveTo(newParent);
+            }
+        }
+        this.cachedSource = this.source.map(Function.identity());
+        this.cachedTarget = this.target.map(Function.identity());
+        this.cachedSource.enableStatistics();
+        this.cachedTarget.enableStatistics();
+        this.trustedSource = this.source.map(Function.identity());
+        this.trustedTarget = this.target.map(Function.identity());
+        this.trustedSource.enableStatistics();
+        this.trustedTarget.enableStatistics();
+    }
+
+    /**
+     * Benchmark toJson of the whole changed tree.
+     *
+     * @return the json
+     */
+    @Benchmark
+    public String toJson() {
+        return this.target.toJson();
+    }
+
+    /**
+     * Benchmark diff, hashing both trees.
+     *
+     * @return the patch
+     */
+    @Benchmark
+    public TreePatch<Integer> diff() {
+        return this.source.diff(this.target);
+    }
+
+    /**
+     * Benchmark diff with the hashes cached with the statistics.
+     *
+     * @return the patch
+     */
+    @Benchmark
+    public TreePatch<Integer> diffCached() {
+        return this.cachedSource.diff(this.cachedTarget);
+    }
+
+    /**
+     * Benchmark diff with the cached hashes of the values themselves, trusted without comparing the subtrees.
+     *
+     * @return the patch
+     */
+    @Benchmark
+    public TreePatch<Integer> diffTrusted() {
+        return this.trustedSource.diff(this.trustedTarget, DiffBenchmark.VALUE_HASHER);
+    }
+
+    /**
+     * Benchmark diff with the cached hashes, then toJson of the patch.
+     *
+     * @return the json
+     */
+    @Benchmark
+    public String diffCachedToJson() {
+        return this.cachedSource.diff(this.cachedTarget).toJson();
+    }
+}
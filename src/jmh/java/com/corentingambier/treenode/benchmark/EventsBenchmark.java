@@ -0,0 +1,106 @@
+package com.corentingambier.treenode.benchmark;
+
+import com.corentingambier.treenode.NaryTreeNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of the change events on the mutations: {@code size} value changes and child additions on a tree without
+ * listener, with a listener called for every change, and with the same listener inside a single batch, and the move
+ * of a subtree of an eighth of the tree with the listener.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventsBenchmark {
+    /**
+     * The number of nodes of the tree.
+     */
+    @Param({"10000"})
+    public int size;
+
+    private NaryTreeNode<Integer> plain;
+    private NaryTreeNode<Integer> listened;
+    private List<NaryTreeNode<Integer>> plainNodes;
+    private List<NaryTreeNode<Integer>> listenedNodes;
+    private Blackhole blackhole;
+
+    /**
+     * Generate the trees, one of them with a listener.
+     *
+     * @param blackhole the blackhole consuming the events
+     */
+    @Setup(Level.Trial)
+    public void setUp(final Blackhole blackhole) {
+        this.blackhole = blackhole;
+        this.plain = TreeGenerator.balanced(this.size, 8);
+        this.listened = TreeGenerator.balanced(this.size, 8);
+        this.listened.addTreeListener(events -> this.blackhole.consume(events));
+        this.plainNodes = this.plain.nodeStream(NaryTreeNode.Order.PREFIX).toList();
+        this.listenedNodes = this.listened.nodeStream(NaryTreeNode.Order.PREFIX).toList();
+    }
+
+    private static void mutate(final List<NaryTreeNode<Integer>> nodes) {
+        for (final NaryTreeNode<Integer> node : nodes) {
+            node.setValue(node.getValue() + 1);
+        }
+        final NaryTreeNode<Integer> leaf = nodes.get(nodes.size() - 1);
+        for (int i = 0; i < 64; i++) {
+            leaf.addChild(i);
+        }
+        for (int i = 0; i < 64; i++) {
+            leaf.removeChild(leaf.getChildrenCount() - 1);
+        }
+    }
+
+    /**
+     * Benchmark the mutations of a tree without listener.
+     */
+    @Benchmark
+    public void withoutListener() {
+        EventsBenchmark.mutate(this.plainNodes);
+    }
+
+    /**
+     * Benchmark the mutations of a tree with a listener called for every change.
+     */
+    @Benchmark
+    public void withListener() {
+        EventsBenchmark.mutate(this.listenedNodes);
+    }
+
+    /**
+     * Benchmark the mutations of a tree with a listener called once for the whole batch.
+     */
+    @Benchmark
+    public void batched() {
+        this.listened.beginBatch();
+        EventsBenchmark.mutate(this.listenedNodes);
+        this.listened.commit();
+    }
+
+    /**
+     * Benchmark moving the first child of the root of a tree with a listener after its last child.
+     */
+    @Benchmark
+    public void moveWithListener() {
+        this.listened.addChild(this.listened.getChild(0));
+    }
+}
@@ -0,0 +1,154 @@
+package com.corentingambier.treenode.benchmark;
+
+import com.corentingambier.treenode.FrozenNaryTree;
+import com.corentingambier.treenode.NaryTreeNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read operations on a {@link FrozenNaryTree} against the {@link NaryTreeNode} it was taken from.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FrozenBenchmark {
+    /**
+     * The shape of the tree.
+     */
+    @Param({"BALANCED", "ZIPF"})
+    public TreeShape shape;
+
+    /**
+     * The number of nodes of the tree.
+     */
+    @Param({"100000"})
+    public int size;
+
+    private NaryTreeNode<Integer> root;
+    private FrozenNaryTree<Integer> frozen;
+
+    /**
+     * Generate and freeze the tree.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.root = TreeGenerator.generate(this.shape, this.size, 8, 42L);
+        this.frozen = this.root.freeze();
+    }
+
+    /**
+     * Benchmark freezing the tree.
+     *
+     * @return the snapshot
+     */
+    @Benchmark
+    public FrozenNaryTree<Integer> freeze() {
+        return this.root.freeze();
+    }
+
+    /**
+     * Benchmark contains on a missing value, on the tree.
+     *
+     * @return the result
+     */
+    @Benchmark
+    public boolean containsTree() {
+        return this.root.contains(-1);
+    }
+
+    /**
+     * Benchmark contains on a missing value, on the snapshot.
+     *
+     * @return the result
+     */
+    @Benchmark
+    public boolean containsFrozen() {
+        return this.frozen.contains(-1);
+    }
+
+    /**
+     * Benchmark getHeight on the tree.
+     *
+     * @return the height
+     */
+    @Benchmark
+    public int heightTree() {
+        return this.root.getHeight();
+    }
+
+    /**
+     * Benchmark the height of the root subtree of the snapshot, scanning the depths.
+     *
+     * @return the height
+     */
+    @Benchmark
+    public int heightFrozen() {
+        return this.frozen.getHeight(0);
+    }
+
+    /**
+     * Benchmark toPostfixList on the tree.
+     *
+     * @return the values
+     */
+    @Benchmark
+    public List<Integer> postfixTree() {
+        return this.root.toPostfixList();
+    }
+
+    /**
+     * Benchmark toPostfixList on the snapshot.
+     *
+     * @return the values
+     */
+    @Benchmark
+    public List<Integer> postfixFrozen() {
+        return this.frozen.toPostfixList();
+    }
+
+    /**
+     * Benchmark toByWidthList on the tree.
+     *
+     * @return the values
+     */
+    @Benchmark
+    public List<Integer> byWidthTree() {
+        return this.root.toByWidthList();
+    }
+
+    /**
+     * Benchmark toByWidthList on the snapshot.
+     *
+     * @return the values
+     */
+    @Benchmark
+    public List<Integer> byWidthFrozen() {
+        return this.frozen.toByWidthList();
+    }
+
+    /**
+     * Benchmark toJson on the snapshot, to compare with {@code NaryTreeNodeBenchmark.toJson}.
+     *
+     * @return the json
+     */
+    @Benchmark
+    public String toJsonFrozen() {
+        return this.frozen.toJson();
+    }
+}
@@ -0,0 +1,106 @@
+package com.corentingambier.treenode.benchmark;
+
+import com.corentingambier.treenode.NaryTreeNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Value lookups scanning the tree against lookups through the value index.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IndexBenchmark {
+    /**
+     * The shape of the tree.
+     */
+    @Param({"BALANCED", "ZIPF"})
+    public TreeShape shape;
+
+    /**
+     * The number of nodes of the tree.
+     */
+    @Param({"1000", "100000"})
+    public int size;
+
+    /**
+     * Whether the value index is enabled.
+     */
+    @Param({"false", "true"})
+    public boolean index;
+
+    private NaryTreeNode<Integer> root;
+    private int next;
+
+    /**
+     * Generate the tree.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.root = TreeGenerator.generate(this.shape, this.size, 8, 42L);
+        if (this.index) {
+            this.root.enableIndex();
+        }
+    }
+
+    /**
+     * Benchmark contains on values spread over the whole tree.
+     *
+     * @return the boolean
+     */
+    @Benchmark
+    public boolean containsPresent() {
+        this.next = (this.next + 7919) % this.size;
+        return this.root.contains(this.next);
+    }
+
+    /**
+     * Benchmark contains on a missing value.
+     *
+     * @return the boolean
+     */
+    @Benchmark
+    public boolean containsMissing() {
+        return this.root.contains(-1);
+    }
+
+    /**
+     * Benchmark pathTo on values spread over the whole tree.
+     *
+     * @return the path
+     */
+    @Benchmark
+    public List<NaryTreeNode<Integer>> pathTo() {
+        this.next = (this.next + 7919) % this.size;
+        return this.root.pathTo(this.next);
+    }
+
+    /**
+     * Benchmark setValue, which moves the node in the index when it is enabled.
+     *
+     * @return the node
+     */
+    @Benchmark
+    public NaryTreeNode<Integer> setValue() {
+        final NaryTreeNode<Integer> node = this.root.getChild(0);
+        node.setValue(node.getValue() + this.size);
+        node.setValue(node.getValue() - this.size);
+        return node;
+    }
+}
@@ -0,0 +1,104 @@
+package com.corentingambier.treenode.benchmark;
+
+import com.corentingambier.treenode.JmxTreeMetrics;
+import com.corentingambier.treenode.NaryTreeNode;
+import com.corentingambier.treenode.TreeMetrics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of the operation metrics: the same operations without sink, and with the sink aggregating the samples for
+ * JMX.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsBenchmark {
+    /**
+     * The number of nodes of the tree.
+     */
+    @Param({"100000"})
+    public int size;
+
+    /**
+     * Whether the operations are measured.
+     */
+    @Param({"false", "true"})
+    public boolean measured;
+
+    private NaryTreeNode<Integer> tree;
+
+    /**
+     * Generate the tree and set the sink.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.tree = TreeGenerator.balanced(this.size, 8);
+        NaryTreeNode.setMetrics(this.measured ? new JmxTreeMetrics() : TreeMetrics.NONE);
+    }
+
+    /**
+     * Reset the sink.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        NaryTreeNode.setMetrics(TreeMetrics.NONE);
+    }
+
+    /**
+     * Benchmark contains of a value missing from the tree.
+     *
+     * @return the boolean
+     */
+    @Benchmark
+    public boolean containsMissing() {
+        return this.tree.contains(-1);
+    }
+
+    /**
+     * Benchmark contains of the value of the root, measuring a single node.
+     *
+     * @return the boolean
+     */
+    @Benchmark
+    public boolean containsRoot() {
+        return this.tree.contains(0);
+    }
+
+    /**
+     * Benchmark toByWidthList.
+     *
+     * @return the list
+     */
+    @Benchmark
+    public List<Integer> toByWidthList() {
+        return this.tree.toByWidthList();
+    }
+
+    /**
+     * Benchmark toJson.
+     *
+     * @return the json
+     */
+    @Benchmark
+    public String toJson() {
+        return this.tree.toJson();
+    }
+}
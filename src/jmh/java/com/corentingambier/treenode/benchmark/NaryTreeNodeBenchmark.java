@@ -0,0 +1,239 @@
+package com.corentingambier.treenode.benchmark;
+
+import com.corentingambier.treenode.NaryTreeNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of every read operation of {@link NaryTreeNode} across tree shapes.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args=NaryTreeNodeBenchmark}; the GC profiler
+ * reports the allocation rate of every operation next to its throughput.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NaryTreeNodeBenchmark {
+    /**
+     * Benchmark getSize.
+     *
+     * @param state the state
+     * @return the size
+     */
+    @Benchmark
+    public int getSize(final TreeState state) {
+        return state.root.getSize();
+    }
+
+    /**
+     * Benchmark getHeight.
+     *
+     * @param state the state
+     * @return the height
+     */
+    @Benchmark
+    public int getHeight(final TreeState state) {
+        return state.root.getHeight();
+    }
+
+    /**
+     * Benchmark getNumberOfLeaves.
+     *
+     * @param state the state
+     * @return the number of leaves
+     */
+    @Benchmark
+    public int getNumberOfLeaves(final TreeState state) {
+        return state.root.getNumberOfLeaves();
+    }
+
+    /**
+     * Benchmark contains on a missing value, which visits the whole tree.
+     *
+     * @param state the state
+     * @return the boolean
+     */
+    @Benchmark
+    public boolean containsMissing(final TreeState state) {
+        return state.root.contains(-1);
+    }
+
+    /**
+     * Benchmark contains on the last value in breadth-first order.
+     *
+     * @param state the state
+     * @return the boolean
+     */
+    @Benchmark
+    public boolean containsLast(final TreeState state) {
+        return state.root.contains(state.size - 1);
+    }
+
+    /**
+     * Benchmark toJson.
+     *
+     * @param state the state
+     * @return the json
+     */
+    @Benchmark
+    public String toJson(final TreeState state) {
+        return state.root.toJson();
+    }
+
+    /**
+     * Benchmark writeJson to an output stream discarding the bytes, which measures the serializer alone.
+     *
+     * @param state the state
+     * @throws IOException never
+     */
+    @Benchmark
+    public void writeJson(final TreeState state) throws IOException {
+        state.root.writeJson(OutputStream.nullOutputStream());
+    }
+
+    /**
+     * Benchmark toPrettyText.
+     *
+     * @param state the state
+     * @return the text
+     */
+    @Benchmark
+    public String toPrettyText(final TreeState state) {
+        return state.root.toPrettyText();
+    }
+
+    /**
+     * Benchmark generateText.
+     *
+     * @param state the state
+     * @return the text
+     */
+    @Benchmark
+    public String generateText(final TreeState state) {
+        return state.root.generateText();
+    }
+
+    /**
+     * Benchmark toString.
+     *
+     * @param state the state
+     * @return the text
+     */
+    @Benchmark
+    public String debugString(final TreeState state) {
+        return state.root.toString();
+    }
+
+    /**
+     * Benchmark writePrettyText to a writer discarding the text, limited to the first 100 nodes.
+     *
+     * @param state the state
+     * @throws IOException never
+     */
+    @Benchmark
+    public void writePrettyTextTruncated(final TreeState state) throws IOException {
+        state.root.writePrettyText(Writer.nullWriter(), Integer.MAX_VALUE, 100);
+    }
+
+    /**
+     * Benchmark toPrefixList.
+     *
+     * @param state the state
+     * @return the list
+     */
+    @Benchmark
+    public List<Integer> toPrefixList(final TreeState state) {
+        return state.root.toPrefixList();
+    }
+
+    /**
+     * Benchmark toPostfixList.
+     *
+     * @param state the state
+     * @return the list
+     */
+    @Benchmark
+    public List<Integer> toPostfixList(final TreeState state) {
+        return state.root.toPostfixList();
+    }
+
+    /**
+     * Benchmark toByWidthList.
+     *
+     * @param state the state
+     * @return the list
+     */
+    @Benchmark
+    public List<Integer> toByWidthList(final TreeState state) {
+        return state.root.toByWidthList();
+    }
+
+    /**
+     * Benchmark a full lazy prefix iteration.
+     *
+     * @param state     the state
+     * @param blackhole the blackhole
+     */
+    @Benchmark
+    public void prefixIterator(final TreeState state, final Blackhole blackhole) {
+        final Iterator<Integer> iterator = state.root.prefixIterator();
+        while (iterator.hasNext()) {
+            blackhole.consume(iterator.next());
+        }
+    }
+
+    /**
+     * Benchmark a full lazy postfix iteration.
+     *
+     * @param state     the state
+     * @param blackhole the blackhole
+     */
+    @Benchmark
+    public void postfixIterator(final TreeState state, final Blackhole blackhole) {
+        final Iterator<Integer> iterator = state.root.postfixIterator();
+        while (iterator.hasNext()) {
+            blackhole.consume(iterator.next());
+        }
+    }
+
+    /**
+     * Benchmark a full lazy breadth-first iteration.
+     *
+     * @param state     the state
+     * @param blackhole the blackhole
+     */
+    @Benchmark
+    public void breadthFirstIterator(final TreeState state, final Blackhole blackhole) {
+        final Iterator<Integer> iterator = state.root.breadthFirstIterator();
+        while (iterator.hasNext()) {
+            blackhole.consume(iterator.next());
+        }
+    }
+
+    /**
+     * Benchmark a prefix stream stopping at the first value greater than a hundredth of the size.
+     *
+     * @param state the state
+     * @return the value found
+     */
+    @Benchmark
+    public Integer streamFindFirst(final TreeState state) {
+        final int threshold = state.size / 100;
+        return state.root.stream(NaryTreeNode.Order.PREFIX).filter(v -> v > threshold).findFirst().orElse(null);
+    }
+}
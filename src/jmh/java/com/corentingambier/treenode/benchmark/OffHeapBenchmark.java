@@ -0,0 +1,152 @@
+package com.corentingambier.treenode.benchmark;
+
+import com.corentingambier.treenode.LongNaryTreeNode;
+import com.corentingambier.treenode.NaryTreeNode;
+import com.corentingambier.treenode.OffHeapNaryTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link OffHeapNaryTree} against {@link LongNaryTreeNode}, on balanced trees of fan-out 8.
+ * <p>
+ * Only the tree of the {@code storage} parameter is kept alive, so {@link #fullGc()} measures the collection of a heap
+ * retaining that tree: the cost the off-heap storage removes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-XX:MaxDirectMemorySize=1g")
+@State(Scope.Benchmark)
+public class OffHeapBenchmark {
+    /**
+     * The number of nodes of the tree.
+     */
+    @Param({"1000000"})
+    public int size;
+
+    /**
+     * Where the tree is stored.
+     */
+    @Param({"HEAP", "OFF_HEAP"})
+    public Storage storage;
+
+    private LongNaryTreeNode heap;
+    private OffHeapNaryTree offHeap;
+
+    private static LongNaryTreeNode buildHeap(final int size) {
+        final LongNaryTreeNode[] nodes = new LongNaryTreeNode[size];
+        nodes[0] = new LongNaryTreeNode(0L);
+        for (int i = 1; i < size; i++) {
+            nodes[i] = new LongNaryTreeNode(i);
+            nodes[(i - 1) / 8].addChild(nodes[i]);
+        }
+        return nodes[0];
+    }
+
+    private static OffHeapNaryTree buildOffHeap(final int size) {
+        final OffHeapNaryTree tree = new OffHeapNaryTree(0L);
+        // Handles are allocated in order, so node i is the child of node (i - 1) / 8
+        for (int i = 1; i < size; i++) {
+            tree.addChild((i - 1) / 8, i);
+        }
+        return tree;
+    }
+
+    /**
+     * Build the tree of the storage.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (this.storage == Storage.HEAP) {
+            this.heap = OffHeapBenchmark.buildHeap(this.size);
+        } else {
+            this.offHeap = OffHeapBenchmark.buildOffHeap(this.size);
+        }
+    }
+
+    /**
+     * Release the off-heap tree.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (this.offHeap != null) {
+            this.offHeap.close();
+        }
+    }
+
+    /**
+     * Benchmark building a tree, then releasing it.
+     *
+     * @return the number of nodes
+     */
+    @Benchmark
+    public int build() {
+        if (this.storage == Storage.HEAP) {
+            return OffHeapBenchmark.buildHeap(this.size).getSize();
+        }
+        try (OffHeapNaryTree tree = OffHeapBenchmark.buildOffHeap(this.size)) {
+            return tree.size();
+        }
+    }
+
+    /**
+     * Benchmark summing the values in pre-order.
+     *
+     * @return the sum
+     */
+    @Benchmark
+    public long sum() {
+        if (this.storage == Storage.HEAP) {
+            return this.heap.stream(NaryTreeNode.Order.PREFIX).sum();
+        }
+        final long[] sum = new long[1];
+        this.offHeap.forEach(NaryTreeNode.Order.PREFIX, value -> sum[0] += value);
+        return sum[0];
+    }
+
+    /**
+     * Benchmark contains on a missing value.
+     *
+     * @return the result
+     */
+    @Benchmark
+    public boolean contains() {
+        return this.storage == Storage.HEAP ? this.heap.contains(-1L) : this.offHeap.contains(-1L);
+    }
+
+    /**
+     * Benchmark a full collection with the tree alive.
+     */
+    @Benchmark
+    public void fullGc() {
+        System.gc();
+    }
+
+    /**
+     * The storages of the tree.
+     */
+    public enum Storage {
+        /**
+         * A {@link LongNaryTreeNode} tree.
+         */
+        HEAP,
+        /**
+         * An {@link OffHeapNaryTree}.
+         */
+        OFF_HEAP
+    }
+}
@@ -0,0 +1,105 @@
+package com.corentingambier.treenode.benchmark;
+
+import com.corentingambier.treenode.NaryTreeNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sequential against fork-join aggregations.
+ * <p>
+ * A {@code threshold} of 0 runs the sequential operation, any other value the parallel one on the common pool with
+ * that sequential cutoff, so that one table shows the speedup and the tree size where parallelism starts to pay off.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParallelBenchmark {
+    /**
+     * The shape of the tree.
+     */
+    @Param({"BALANCED", "ZIPF"})
+    public TreeShape shape;
+
+    /**
+     * The number of nodes of the tree.
+     */
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    /**
+     * The sequential cutoff of the parallel tasks, 0 for the sequential operation.
+     */
+    @Param({"0", "1024", "8192", "65536"})
+    public int threshold;
+
+    private NaryTreeNode<Integer> root;
+
+    /**
+     * Generate the tree.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.root = TreeGenerator.generate(this.shape, this.size, 8, 42L);
+    }
+
+    /**
+     * Benchmark getSize.
+     *
+     * @return the size
+     */
+    @Benchmark
+    public int getSize() {
+        return this.threshold == 0 ? this.root.getSize() :
+                this.root.getSizeParallel(ForkJoinPool.commonPool(), this.threshold);
+    }
+
+    /**
+     * Benchmark getHeight.
+     *
+     * @return the height
+     */
+    @Benchmark
+    public int getHeight() {
+        return this.threshold == 0 ? this.root.getHeight() :
+                this.root.getHeightParallel(ForkJoinPool.commonPool(), this.threshold);
+    }
+
+    /**
+     * Benchmark contains on a missing value, which visits the whole tree.
+     *
+     * @return the boolean
+     */
+    @Benchmark
+    public boolean containsMissing() {
+        return this.threshold == 0 ? this.root.contains(-1) :
+                this.root.containsParallel(-1, ForkJoinPool.commonPool(), this.threshold);
+    }
+
+    /**
+     * Benchmark a user-defined reduction: the sequential prefix stream against the parallel stream. The threshold
+     * only selects the stream, the parallel stream splits on its own.
+     *
+     * @return the sum of the values
+     */
+    @Benchmark
+    public long streamSum() {
+        return (this.threshold == 0 ? this.root.stream(NaryTreeNode.Order.PREFIX) : this.root.parallelStream())
+                .mapToLong(Integer::longValue).sum();
+    }
+}
@@ -0,0 +1,127 @@
+package com.corentingambier.treenode.benchmark;
+
+import com.corentingambier.treenode.NaryTreeNode;
+import com.corentingambier.treenode.PersistentNaryTreeNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Making a new version of a tree with one leaf changed: path copying of a {@link PersistentNaryTreeNode} against a
+ * deep copy of a {@link NaryTreeNode}.
+ * <p>
+ * {@code gc.alloc.rate.norm} is the memory cost of one version.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PersistentBenchmark {
+    private static final int PATHS = 1024;
+
+    /**
+     * The number of nodes of the tree.
+     */
+    @Param({"100000"})
+    public int size;
+
+    private NaryTreeNode<Integer> mutable;
+    private PersistentNaryTreeNode<Integer> persistent;
+    /**
+     * Random paths from the root to a leaf, as child indexes.
+     */
+    private int[][] paths;
+    private int next;
+
+    /**
+     * Deep copy a tree, the way versions are kept without a persistent tree.
+     *
+     * @param root the root
+     * @return the copy
+     */
+    static NaryTreeNode<Integer> deepCopy(final NaryTreeNode<Integer> root) {
+        final NaryTreeNode<Integer> copy = new NaryTreeNode<>(root.getValue(), root.getChildrenCount());
+        final ArrayDeque<NaryTreeNode<Integer>> pending = new ArrayDeque<>();
+        final ArrayDeque<NaryTreeNode<Integer>> copies = new ArrayDeque<>();
+        pending.push(root);
+        copies.push(copy);
+        while (!pending.isEmpty()) {
+            final NaryTreeNode<Integer> node = pending.pop();
+            final NaryTreeNode<Integer> nodeCopy = copies.pop();
+            for (final NaryTreeNode<Integer> child : node.getChildren()) {
+                final NaryTreeNode<Integer> childCopy = new NaryTreeNode<>(child.getValue(), child.getChildrenCount());
+                nodeCopy.addChild(childCopy);
+                pending.push(child);
+                copies.push(childCopy);
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Build the trees and the paths.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.mutable = TreeGenerator.balanced(this.size, 8);
+        this.persistent = PersistentNaryTreeNode.copyOf(this.mutable);
+        final Random random = new Random(42L);
+        this.paths = new int[PersistentBenchmark.PATHS][];
+        for (int i = 0; i < PersistentBenchmark.PATHS; i++) {
+            final int[] path = new int[this.persistent.getHeight()];
+            int length = 0;
+            for (PersistentNaryTreeNode<Integer> node = this.persistent; !node.isLeaf(); length++) {
+                path[length] = random.nextInt(node.getChildrenCount());
+                node = node.getChild(path[length]);
+            }
+            this.paths[i] = Arrays.copyOf(path, length);
+        }
+    }
+
+    private int[] nextPath() {
+        this.next = (this.next + 1) & (PersistentBenchmark.PATHS - 1);
+        return this.paths[this.next];
+    }
+
+    /**
+     * Benchmark a new version by path copying.
+     *
+     * @return the new root
+     */
+    @Benchmark
+    public PersistentNaryTreeNode<Integer> pathCopy() {
+        return this.persistent.withValue(this.nextPath(), -1);
+    }
+
+    /**
+     * Benchmark a new version by deep copy, then edit.
+     *
+     * @return the new root
+     */
+    @Benchmark
+    public NaryTreeNode<Integer> deepCopy() {
+        final NaryTreeNode<Integer> copy = PersistentBenchmark.deepCopy(this.mutable);
+        NaryTreeNode<Integer> node = copy;
+        for (final int index : this.nextPath()) {
+            node = node.getChild(index);
+        }
+        node.setValue(-1);
+        return copy;
+    }
+}
@@ -0,0 +1,155 @@
+package com.corentingambier.treenode.benchmark;
+
+import com.corentingambier.treenode.IntNaryTreeNode;
+import com.corentingambier.treenode.NaryTreeNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link IntNaryTreeNode} against {@code NaryTreeNode<Integer>}, on balanced trees of fan-out 8.
+ * <p>
+ * The {@code build*} benchmarks allocate a whole tree per operation, so {@code gc.alloc.rate.norm} divided by the
+ * {@code size} parameter is the per-node footprint, boxed values included.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PrimitiveBenchmark {
+    /**
+     * The number of nodes of the trees.
+     */
+    @Param({"100000"})
+    public int size;
+
+    private NaryTreeNode<Integer> boxed;
+    private IntNaryTreeNode primitive;
+
+    /**
+     * Build an int tree of the same shape as {@link TreeGenerator#balanced(int, int)}.
+     *
+     * @param size   the number of nodes
+     * @param fanOut the number of children of every internal node
+     * @return the root
+     */
+    static IntNaryTreeNode balanced(final int size, final int fanOut) {
+        final ArrayDeque<IntNaryTreeNode> queue = new ArrayDeque<>();
+        final IntNaryTreeNode root = new IntNaryTreeNode(0);
+        queue.add(root);
+        int next = 1;
+        while (next < size) {
+            final IntNaryTreeNode parent = queue.poll();
+            for (int i = 0; i < fanOut && next < size; i++) {
+                final IntNaryTreeNode child = new IntNaryTreeNode(next++);
+                parent.addChild(child);
+                queue.add(child);
+            }
+        }
+        return root;
+    }
+
+    /**
+     * Build the trees.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.boxed = TreeGenerator.balanced(this.size, 8);
+        this.primitive = PrimitiveBenchmark.balanced(this.size, 8);
+    }
+
+    /**
+     * Benchmark building a generic tree.
+     *
+     * @return the root
+     */
+    @Benchmark
+    public NaryTreeNode<Integer> buildBoxed() {
+        return TreeGenerator.balanced(this.size, 8);
+    }
+
+    /**
+     * Benchmark building an int tree.
+     *
+     * @return the root
+     */
+    @Benchmark
+    public IntNaryTreeNode buildPrimitive() {
+        return PrimitiveBenchmark.balanced(this.size, 8);
+    }
+
+    /**
+     * Benchmark contains on a missing value, on a generic tree.
+     *
+     * @return the result
+     */
+    @Benchmark
+    public boolean containsBoxed() {
+        return this.boxed.contains(-1);
+    }
+
+    /**
+     * Benchmark contains on a missing value, on an int tree.
+     *
+     * @return the result
+     */
+    @Benchmark
+    public boolean containsPrimitive() {
+        return this.primitive.contains(-1);
+    }
+
+    /**
+     * Benchmark toPrefixList on a generic tree.
+     *
+     * @return the values
+     */
+    @Benchmark
+    public List<Integer> prefixBoxed() {
+        return this.boxed.toPrefixList();
+    }
+
+    /**
+     * Benchmark toPrefixArray on an int tree.
+     *
+     * @return the values
+     */
+    @Benchmark
+    public int[] prefixPrimitive() {
+        return this.primitive.toPrefixArray();
+    }
+
+    /**
+     * Benchmark summing the values of a generic tree through its stream.
+     *
+     * @return the sum
+     */
+    @Benchmark
+    public long sumBoxed() {
+        return this.boxed.stream(NaryTreeNode.Order.PREFIX).mapToLong(Integer::longValue).sum();
+    }
+
+    /**
+     * Benchmark summing the values of an int tree through its stream.
+     *
+     * @return the sum
+     */
+    @Benchmark
+    public long sumPrimitive() {
+        return this.primitive.stream(NaryTreeNode.Order.PREFIX).asLongStream().sum();
+    }
+}
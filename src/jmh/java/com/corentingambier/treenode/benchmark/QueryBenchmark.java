@@ -0,0 +1,85 @@
+package com.corentingambier.treenode.benchmark;
+
+import com.corentingambier.treenode.NaryTreeNode;
+import com.corentingambier.treenode.TreeLevelCursor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serving a page of 50 nodes of a level of a large tree: from the whole breadth-first list, from a bounded query, and
+ * from a level cursor resuming in the middle of the level.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QueryBenchmark {
+    private static final int PAGE = 50;
+    /**
+     * The middle of the third level of a balanced tree of fan-out 8.
+     */
+    private static final int[] POSITION = {4, 0, 0};
+
+    /**
+     * The number of nodes of the tree.
+     */
+    @Param({"1000000"})
+    public int size;
+
+    private NaryTreeNode<Integer> tree;
+
+    /**
+     * Generate the tree.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.tree = TreeGenerator.balanced(this.size, 8);
+    }
+
+    /**
+     * Benchmark the first page of the tree read by width, taken from toByWidthList.
+     *
+     * @return the page
+     */
+    @Benchmark
+    public List<Integer> byWidthList() {
+        return this.tree.toByWidthList().subList(0, QueryBenchmark.PAGE);
+    }
+
+    /**
+     * Benchmark the first page of the tree read by width, from a bounded query.
+     *
+     * @return the page
+     */
+    @Benchmark
+    public List<NaryTreeNode<Integer>> query() {
+        return this.tree.query(NaryTreeNode.Order.BY_WIDTH, Integer.MAX_VALUE, QueryBenchmark.PAGE, 0,
+                Integer.MAX_VALUE);
+    }
+
+    /**
+     * Benchmark a page in the middle of the third level, from a level cursor resuming at a position.
+     *
+     * @return the page
+     */
+    @Benchmark
+    public List<NaryTreeNode<Integer>> levelCursor() {
+        final TreeLevelCursor<Integer> cursor = this.tree.levelCursor(0, Integer.MAX_VALUE, QueryBenchmark.POSITION);
+        return cursor.nextPage(QueryBenchmark.PAGE);
+    }
+}
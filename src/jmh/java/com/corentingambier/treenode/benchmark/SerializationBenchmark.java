@@ -0,0 +1,162 @@
+package com.corentingambier.treenode.benchmark;
+
+import com.corentingambier.treenode.BinaryTreeView;
+import com.corentingambier.treenode.BinaryValueCodec;
+import com.corentingambier.treenode.NaryTreeNode;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading a tree from its serialized form, json or binary.
+ * <p>
+ * {@code gsonTreeModel} is the hand-rolled loading the streaming parser replaces: the whole json document is parsed
+ * into a Gson tree model before the nodes are built from it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+    /**
+     * The shape of the tree.
+     */
+    @Param({"BALANCED", "ZIPF"})
+    public TreeShape shape;
+
+    /**
+     * The number of nodes of the tree.
+     */
+    @Param({"100000"})
+    public int size;
+
+    private byte[] json;
+    private byte[] binary;
+    private Path file;
+
+    /**
+     * Generate and serialize the tree.
+     *
+     * @throws IOException if the temporary file cannot be written
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        final NaryTreeNode<Integer> root = TreeGenerator.generate(this.shape, this.size, 8, 42L);
+        this.json = root.toJson().getBytes(StandardCharsets.UTF_8);
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        root.writeBinary(Channels.newChannel(outputStream), BinaryValueCodec.INTEGER);
+        this.binary = outputStream.toByteArray();
+        this.file = Files.createTempFile("tree", ".bin");
+        root.writeBinary(this.file, BinaryValueCodec.INTEGER);
+    }
+
+    /**
+     * Delete the temporary file.
+     *
+     * @throws IOException if the file cannot be deleted
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(this.file);
+    }
+
+    /**
+     * Benchmark the streaming json parser.
+     *
+     * @return the root
+     * @throws IOException never
+     */
+    @Benchmark
+    public NaryTreeNode<Integer> fromJson() throws IOException {
+        return NaryTreeNode.fromJson(new ByteArrayInputStream(this.json), Integer.class);
+    }
+
+    /**
+     * Benchmark reading the binary format from memory.
+     *
+     * @return the root
+     * @throws IOException never
+     */
+    @Benchmark
+    public NaryTreeNode<Integer> readBinary() throws IOException {
+        return NaryTreeNode.readBinary(ByteBuffer.wrap(this.binary), BinaryValueCodec.INTEGER);
+    }
+
+    /**
+     * Benchmark reading the binary format from a memory-mapped file.
+     *
+     * @return the root
+     * @throws IOException if the file cannot be mapped
+     */
+    @Benchmark
+    public NaryTreeNode<Integer> readBinaryMapped() throws IOException {
+        return NaryTreeNode.readBinary(this.file, BinaryValueCodec.INTEGER);
+    }
+
+    /**
+     * Benchmark opening a lazy view of a memory-mapped file.
+     *
+     * @return the view
+     * @throws IOException if the file cannot be mapped
+     */
+    @Benchmark
+    public BinaryTreeView<Integer> mapView() throws IOException {
+        return BinaryTreeView.map(this.file, BinaryValueCodec.INTEGER);
+    }
+
+    /**
+     * Benchmark parsing the json into a Gson tree model, then building the nodes from it.
+     *
+     * @return the root
+     */
+    @Benchmark
+    public NaryTreeNode<Integer> gsonTreeModel() {
+        final JsonObject document = JsonParser.parseReader(new InputStreamReader(new ByteArrayInputStream(this.json),
+                StandardCharsets.UTF_8)).getAsJsonObject();
+        final NaryTreeNode<Integer> root = new NaryTreeNode<>(document.get("value").getAsInt());
+        final ArrayDeque<Object[]> pending = new ArrayDeque<>();
+        pending.push(new Object[]{root, document});
+        while (!pending.isEmpty()) {
+            final Object[] entry = pending.pop();
+            @SuppressWarnings("unchecked") final NaryTreeNode<Integer> node = (NaryTreeNode<Integer>) entry[0];
+            final JsonArray children = ((JsonObject) entry[1]).getAsJsonArray("children");
+            if (children != null) {
+                for (final JsonElement element : children) {
+                    final JsonObject childObject = element.getAsJsonObject();
+                    final NaryTreeNode<Integer> child = new NaryTreeNode<>(childObject.get("value").getAsInt());
+                    node.addChild(child);
+                    pending.push(new Object[]{child, childObject});
+                }
+            }
+        }
+        return root;
+    }
+}
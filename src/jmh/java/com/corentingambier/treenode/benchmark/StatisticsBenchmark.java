@@ -0,0 +1,96 @@
+package com.corentingambier.treenode.benchmark;
+
+import com.corentingambier.treenode.NaryTreeNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queries and mutations with and without the incrementally maintained subtree statistics.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StatisticsBenchmark {
+    /**
+     * The shape of the tree.
+     */
+    @Param({"BALANCED", "CHAIN"})
+    public TreeShape shape;
+
+    /**
+     * The number of nodes of the tree.
+     */
+    @Param({"100000"})
+    public int size;
+
+    /**
+     * Whether the statistics are enabled.
+     */
+    @Param({"false", "true"})
+    public boolean statistics;
+
+    private NaryTreeNode<Integer> root;
+    private NaryTreeNode<Integer> deepest;
+
+    /**
+     * Generate the tree and find its deepest node.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.root = TreeGenerator.generate(this.shape, this.size, 8, 42L);
+        this.deepest = this.root;
+        while (!this.deepest.isLeaf()) {
+            this.deepest = this.deepest.getChild(this.deepest.getChildrenCount() - 1);
+        }
+        if (this.statistics) {
+            this.root.enableStatistics();
+        }
+    }
+
+    /**
+     * Benchmark getSize.
+     *
+     * @return the size
+     */
+    @Benchmark
+    public int getSize() {
+        return this.root.getSize();
+    }
+
+    /**
+     * Benchmark getHeight.
+     *
+     * @return the height
+     */
+    @Benchmark
+    public int getHeight() {
+        return this.root.getHeight();
+    }
+
+    /**
+     * Benchmark adding then removing a leaf under the deepest node, which changes the height of the tree.
+     *
+     * @return the children count of the deepest node
+     */
+    @Benchmark
+    public int addRemoveDeepLeaf() {
+        this.deepest.addChild(-1);
+        this.deepest.removeChild(0);
+        return this.deepest.getChildrenCount();
+    }
+}
@@ -0,0 +1,131 @@
+package com.corentingambier.treenode.benchmark;
+
+import com.corentingambier.treenode.NaryTreeNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transformed copies of a tree: a hand-written walk calling {@code addChild} against {@code map}, {@code prune} and
+ * {@code fold}, sequential and on the common pool.
+ * <p>
+ * {@code gc.alloc.rate.norm} divided by the {@code size} parameter is the per-node cost of the copy.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransformBenchmark {
+    /**
+     * The number of nodes of the tree.
+     */
+    @Param({"1000000"})
+    public int size;
+
+    private NaryTreeNode<Integer> root;
+
+    /**
+     * Generate the tree.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.root = TreeGenerator.balanced(this.size, 8);
+    }
+
+    /**
+     * Benchmark copying the tree with a walk over pairs of nodes and their copies, calling addChild.
+     *
+     * @return the root of the copy
+     */
+    @Benchmark
+    public NaryTreeNode<Long> mapByHand() {
+        final NaryTreeNode<Long> copy = new NaryTreeNode<>(this.root.getValue().longValue());
+        final Deque<Object[]> pending = new ArrayDeque<>();
+        pending.push(new Object[]{this.root, copy});
+        while (!pending.isEmpty()) {
+            final Object[] pair = pending.pop();
+            @SuppressWarnings("unchecked") final NaryTreeNode<Integer> node = (NaryTreeNode<Integer>) pair[0];
+            @SuppressWarnings("unchecked") final NaryTreeNode<Long> nodeCopy = (NaryTreeNode<Long>) pair[1];
+            for (final NaryTreeNode<Integer> child : node.getChildren()) {
+                final NaryTreeNode<Long> childCopy = new NaryTreeNode<>(child.getValue().longValue());
+                nodeCopy.addChild(childCopy);
+                pending.push(new Object[]{child, childCopy});
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Benchmark map.
+     *
+     * @return the root of the copy
+     */
+    @Benchmark
+    public NaryTreeNode<Long> map() {
+        return this.root.map(Integer::longValue);
+    }
+
+    /**
+     * Benchmark mapParallel.
+     *
+     * @return the root of the copy
+     */
+    @Benchmark
+    public NaryTreeNode<Long> mapParallel() {
+        return this.root.mapParallel(Integer::longValue);
+    }
+
+    /**
+     * Benchmark prune, dropping the subtrees of a quarter of the nodes.
+     *
+     * @return the root of the copy
+     */
+    @Benchmark
+    public NaryTreeNode<Integer> prune() {
+        return this.root.prune(value -> (value & 3) != 3).orElseThrow();
+    }
+
+    /**
+     * Benchmark fold, computing the height.
+     *
+     * @return the height
+     */
+    @Benchmark
+    public int foldHeight() {
+        return this.root.<Integer>fold(TransformBenchmark::height);
+    }
+
+    /**
+     * Benchmark foldParallel, computing the height.
+     *
+     * @return the height
+     */
+    @Benchmark
+    public int foldHeightParallel() {
+        return this.root.<Integer>foldParallel(TransformBenchmark::height);
+    }
+
+    private static Integer height(final Integer value, final List<Integer> heights) {
+        int height = 0;
+        for (final Integer childHeight : heights) {
+            height = Math.max(height, childHeight);
+        }
+        return height + 1;
+    }
+}
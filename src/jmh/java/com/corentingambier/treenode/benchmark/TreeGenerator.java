@@ -0,0 +1,122 @@
+package com.corentingambier.treenode.benchmark;
+
+import com.corentingambier.treenode.NaryTreeNode;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Generates trees of a given shape for the benchmarks.
+ * <p>
+ * Every generator is iterative so that degenerate shapes of any depth can be built, and values are the integers
+ * {@code 0..size-1} in breadth-first order.
+ */
+public final class TreeGenerator {
+    private static final double ZIPF_EXPONENT = 1.2;
+
+    private TreeGenerator() {
+    }
+
+    /**
+     * Generate a tree.
+     *
+     * @param shape  the shape of the tree
+     * @param size   the number of nodes
+     * @param fanOut the fan-out of a balanced tree, or the maximum fan-out of a Zipf tree
+     * @param seed   the seed of the random generator used by random shapes
+     * @return the root of the tree
+     */
+    public static NaryTreeNode<Integer> generate(final TreeShape shape, final int size, final int fanOut,
+                                                 final long seed) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size must be positive: " + size);
+        }
+        return switch (shape) {
+            case BALANCED -> TreeGenerator.balanced(size, fanOut);
+            case CHAIN -> TreeGenerator.chain(size);
+            case ZIPF -> TreeGenerator.zipf(size, fanOut, seed);
+        };
+    }
+
+    /**
+     * Generate a balanced k-ary tree.
+     *
+     * @param size   the number of nodes
+     * @param fanOut the number of children of every internal node
+     * @return the root of the tree
+     */
+    public static NaryTreeNode<Integer> balanced(final int size, final int fanOut) {
+        final ArrayDeque<NaryTreeNode<Integer>> queue = new ArrayDeque<>();
+        final NaryTreeNode<Integer> root = new NaryTreeNode<>(0);
+        queue.add(root);
+        int next = 1;
+        while (next < size) {
+            final NaryTreeNode<Integer> parent = queue.poll();
+            for (int i = 0; i < fanOut && next < size; i++) {
+                final NaryTreeNode<Integer> child = new NaryTreeNode<>(next++);
+                parent.addChild(child);
+                queue.add(child);
+            }
+        }
+        return root;
+    }
+
+    /**
+     * Generate a degenerate chain.
+     *
+     * @param size the number of nodes
+     * @return the root of the chain
+     */
+    public static NaryTreeNode<Integer> chain(final int size) {
+        final NaryTreeNode<Integer> root = new NaryTreeNode<>(0);
+        NaryTreeNode<Integer> last = root;
+        for (int i = 1; i < size; i++) {
+            final NaryTreeNode<Integer> child = new NaryTreeNode<>(i);
+            last.addChild(child);
+            last = child;
+        }
+        return root;
+    }
+
+    /**
+     * Generate a random tree whose fan-out follows a Zipf distribution over {@code 1..maxFanOut}.
+     *
+     * @param size      the number of nodes
+     * @param maxFanOut the maximum fan-out
+     * @param seed      the seed of the random generator
+     * @return the root of the tree
+     */
+    public static NaryTreeNode<Integer> zipf(final int size, final int maxFanOut, final long seed) {
+        final double[] cumulative = TreeGenerator.zipfCumulative(maxFanOut);
+        final Random random = new Random(seed);
+        final ArrayDeque<NaryTreeNode<Integer>> queue = new ArrayDeque<>();
+        final NaryTreeNode<Integer> root = new NaryTreeNode<>(0);
+        queue.add(root);
+        int next = 1;
+        while (next < size) {
+            final NaryTreeNode<Integer> parent = queue.poll();
+            final int drawn = Arrays.binarySearch(cumulative, random.nextDouble());
+            final int fanOut = (drawn < 0 ? -drawn - 1 : drawn) + 1;
+            for (int i = 0; i < fanOut && next < size; i++) {
+                final NaryTreeNode<Integer> child = new NaryTreeNode<>(next++);
+                parent.addChild(child);
+                queue.add(child);
+            }
+        }
+        return root;
+    }
+
+    private static double[] zipfCumulative(final int maxFanOut) {
+        final double[] cumulative = new double[maxFanOut];
+        double sum = 0;
+        for (int k = 1; k <= maxFanOut; k++) {
+            sum += 1 / Math.pow(k, TreeGenerator.ZIPF_EXPONENT);
+            cumulative[k - 1] = sum;
+        }
+        for (int k = 0; k < maxFanOut; k++) {
+            cumulative[k] /= sum;
+        }
+        return cumulative;
+    }
+}
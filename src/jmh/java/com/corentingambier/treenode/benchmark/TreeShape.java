@@ -0,0 +1,19 @@
+package com.corentingambier.treenode.benchmark;
+
+/**
+ * The shapes of tree generated for the benchmarks.
+ */
+public enum TreeShape {
+    /**
+     * Balanced k-ary tree: every internal node has the same fan-out.
+     */
+    BALANCED,
+    /**
+     * Degenerate chain: every node has exactly one child, the height equals the size.
+     */
+    CHAIN,
+    /**
+     * Random tree whose fan-out follows a Zipf distribution: mostly narrow nodes and a few very wide ones.
+     */
+    ZIPF
+}
@@ -0,0 +1,49 @@
+package com.corentingambier.treenode.benchmark;
+
+import com.corentingambier.treenode.NaryTreeNode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Shared benchmark state: a tree generated once per trial from the {@code shape}, {@code size} and {@code fanOut}
+ * parameters.
+ * <p>
+ * Larger trees are benchmarked by overriding the parameters on the command line, e.g.
+ * {@code -Djmh.args="NaryTreeNodeBenchmark -p size=10000000 -p shape=BALANCED"}.
+ */
+@State(Scope.Benchmark)
+public class TreeState {
+    /**
+     * The shape of the tree.
+     */
+    @Param({"BALANCED", "CHAIN", "ZIPF"})
+    public TreeShape shape;
+
+    /**
+     * The number of nodes of the tree.
+     */
+    @Param({"1000", "10000"})
+    public int size;
+
+    /**
+     * The fan-out of balanced trees, the maximum fan-out of Zipf trees.
+     */
+    @Param({"8"})
+    public int fanOut;
+
+    /**
+     * The generated tree.
+     */
+    public NaryTreeNode<Integer> root;
+
+    /**
+     * Generate the tree.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.root = TreeGenerator.generate(this.shape, this.size, this.fanOut, 42L);
+    }
+}
@@ -0,0 +1,129 @@
+package com.corentingambier.treenode;
+
+/**
+ * Ancestry index of a tree of {@link NaryTreeNode}, built in one pass and read-only afterwards.
+ * <p>
+ * Every node is numbered in pre-order, so that the subtree of a node is the interval of numbers from its own to the
+ * end of its subtree: ancestry is a comparison of numbers. Every node also holds a skew-binary jump pointer to one
+ * of its ancestors, computed in constant time from the pointer of its parent, which lets the search for the lowest
+ * common ancestor climb in a logarithmic number of steps with linear memory, where a sparse table or binary lifting
+ * would need {@code n log n}.
+ *
+ * @param <E> the type parameter
+ */
+final class AncestryIndex<E> {
+    private static final int NO_PARENT = -1;
+
+    private final NaryTreeNode<E>[] nodes;
+    private final int[] parents;
+    private final int[] jumps;
+    private final int[] depths;
+    /**
+     * The number after the last node of the subtree of every node.
+     */
+    private final int[] ends;
+
+    @SuppressWarnings("unchecked")
+    private AncestryIndex(final int size) {
+        this.nodes = new NaryTreeNode[size];
+        this.parents = new int[size];
+        this.jumps = new int[size];
+        this.depths = new int[size];
+        this.ends = new int[size];
+    }
+
+    /**
+     * Build the index of a subtree.
+     *
+     * @param <E>  the type parameter
+     * @param root the root of the subtree
+     * @return the index
+     */
+    static <E> AncestryIndex<E> build(final NaryTreeNode<E> root) {
+        final AncestryIndex<E> index = new AncestryIndex<>(root.getSize());
+        final TreeCursor<E> cursor = TreeCursor.depthFirst(root);
+        int count = 0;
+        while (cursor.next()) {
+            final NaryTreeNode<E> node = cursor.node();
+            if (!cursor.isEntering()) {
+                index.ends[node.getAncestryNumber()] = count;
+                continue;
+            }
+            final int number = count++;
+            node.setAncestryNumber(number);
+            index.nodes[number] = node;
+            index.depths[number] = cursor.depth();
+            if (node == root) {
+                index.parents[number] = AncestryIndex.NO_PARENT;
+                index.jumps[number] = number;
+            } else {
+                final int parent = node.getParent().getAncestryNumber();
+                index.parents[number] = parent;
+                final int jump = index.jumps[parent];
+                // Two jumps of the same length merge into one twice as long, otherwise jump to the parent
+                index.jumps[number] = index.depths[parent] - index.depths[jump]
+                        == index.depths[jump] - index.depths[index.jumps[jump]] ? index.jumps[jump] : parent;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Gets the number of a node.
+     *
+     * @param node the node
+     * @return the number, -1 if the node is not indexed
+     */
+    int numberOf(final NaryTreeNode<E> node) {
+        final int number = node.getAncestryNumber();
+        return number < this.nodes.length && this.nodes[number] == node ? number : -1;
+    }
+
+    /**
+     * Gets the node of a number.
+     *
+     * @param number the number
+     * @return the node
+     */
+    NaryTreeNode<E> node(final int number) {
+        return this.nodes[number];
+    }
+
+    /**
+     * Gets the depth of a node in the indexed subtree.
+     *
+     * @param number the number of the node
+     * @return the depth, 0 for the root of the indexed subtree
+     */
+    int depth(final int number) {
+        return this.depths[number];
+    }
+
+    /**
+     * Is a node an ancestor of another node, or that node itself.
+     *
+     * @param ancestor   the number of the ancestor
+     * @param descendant the number of the descendant
+     * @return the boolean
+     */
+    boolean isAncestorOrSelf(final int ancestor, final int descendant) {
+        return ancestor <= descendant && descendant < this.ends[ancestor];
+    }
+
+    /**
+     * Gets the lowest common ancestor of two nodes.
+     *
+     * @param first  the number of the first node
+     * @param second the number of the second node
+     * @return the number of the lowest common ancestor
+     */
+    int lowestCommonAncestor(final int first, final int second) {
+        int ancestor = first;
+        // The root jumps to itself and is an ancestor of every node, so the climb stops
+        while (!this.isAncestorOrSelf(ancestor, second)) {
+            final int jump = this.jumps[ancestor];
+            ancestor = this.isAncestorOrSelf(jump, second) ? this.parents[ancestor] : jump;
+        }
+        return ancestor;
+    }
+}
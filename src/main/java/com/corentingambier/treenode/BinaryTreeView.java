@@ -0,0 +1,244 @@
+package com.corentingambier.treenode;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Read-only view of a tree in the binary format of
+ * {@link NaryTreeNode#writeBinary(java.nio.channels.WritableByteChannel, BinaryValueCodec)}, without materializing
+ * its nodes.
+ * <p>
+ * Nodes are identified by their index in pre-order, the root being 0, so the descendants of a node {@code n} are the
+ * nodes from {@code n + 1} to {@code n + getSubtreeSize(n) - 1}. Opening a view scans the structure once, without
+ * decoding the values, and keeps five ints per node. Values are decoded on each call to {@link #getValue(int)}.
+ * A view is immutable and may be shared by several threads, as long as the underlying buffer is not modified.
+ *
+ * @param <E> the type parameter
+ */
+public final class BinaryTreeView<E> {
+    private static final int INITIAL_STACK_CAPACITY = 16;
+
+    private final ByteBuffer buffer;
+    private final BinaryValueCodec<E> codec;
+    private final int[] childrenCounts;
+    private final int[] parents;
+    private final int[] subtreeSizes;
+    private final int[] valueOffsets;
+    /**
+     * The length of the encoded value of every node, -1 for a null value.
+     */
+    private final int[] valueLengths;
+
+    private BinaryTreeView(final ByteBuffer buffer, final BinaryValueCodec<E> codec) throws IOException {
+        this.buffer = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+        this.codec = codec;
+        try {
+            final int size = NaryTreeBinary.readHeader(this.buffer);
+            this.childrenCounts = new int[size];
+            this.parents = new int[size];
+            this.subtreeSizes = new int[size];
+            this.valueOffsets = new int[size];
+            this.valueLengths = new int[size];
+            this.scan(size);
+        } catch (final BufferUnderflowException e) {
+            throw (EOFException) new EOFException("Truncated binary tree").initCause(e);
+        }
+    }
+
+    /**
+     * View the tree at the position of a buffer.
+     *
+     * @param <E>    the type parameter
+     * @param buffer the buffer
+     * @param codec  the codec of the values
+     * @return the view
+     * @throws IOException if the buffer does not hold a tree in the binary format
+     */
+    public static <E> BinaryTreeView<E> of(final ByteBuffer buffer, final BinaryValueCodec<E> codec)
+            throws IOException {
+        return new BinaryTreeView<>(buffer, codec);
+    }
+
+    /**
+     * View the tree of a file, memory-mapped. The mapping lasts as long as the view is reachable.
+     *
+     * @param <E>   the type parameter
+     * @param path  the path of the file
+     * @param codec the codec of the values
+     * @return the view
+     * @throws IOException if the file cannot be mapped or does not hold a tree in the binary format
+     */
+    public static <E> BinaryTreeView<E> map(final Path path, final BinaryValueCodec<E> codec) throws IOException {
+        return new BinaryTreeView<>(NaryTreeBinary.map(path), codec);
+    }
+
+    private void scan(final int size) throws IOException {
+        int[] open = new int[BinaryTreeView.INITIAL_STACK_CAPACITY];
+        int[] remaining = new int[BinaryTreeView.INITIAL_STACK_CAPACITY];
+        int top = -1;
+        for (int i = 0; i < size; i++) {
+            if (i > 0 && top < 0) {
+                throw new StreamCorruptedException("Node " + i + " is outside of the tree");
+            }
+            final int childrenCount = NaryTreeBinary.readChildrenCount(this.buffer, size - i - 1);
+            final int length = NaryTreeBinary.getVarint(this.buffer) - 1;
+            this.childrenCounts[i] = childrenCount;
+            this.valueLengths[i] = length;
+            this.valueOffsets[i] = length < 0 ? this.buffer.position() : NaryTreeBinary.skip(this.buffer, length);
+            this.subtreeSizes[i] = 1;
+            if (top < 0) {
+                this.parents[i] = -1;
+            } else {
+                this.parents[i] = open[top];
+                if (--remaining[top] == 0) {
+                    top--;
+                }
+            }
+            if (childrenCount > 0) {
+                if (++top == open.length) {
+                    open = Arrays.copyOf(open, top << 1);
+                    remaining = Arrays.copyOf(remaining, top << 1);
+                }
+                open[top] = i;
+                remaining[top] = childrenCount;
+            }
+        }
+        if (top >= 0) {
+            throw new StreamCorruptedException("The tree misses nodes");
+        }
+        // Children come after their parent in pre-order
+        for (int i = size - 1; i > 0; i--) {
+            this.subtreeSizes[this.parents[i]] += this.subtreeSizes[i];
+        }
+    }
+
+    /**
+     * Gets the number of nodes of the tree.
+     *
+     * @return the size
+     */
+    public int size() {
+        return this.childrenCounts.length;
+    }
+
+    /**
+     * Gets the value of a node, decoded from the buffer.
+     *
+     * @param node the node
+     * @return the value
+     */
+    public E getValue(final int node) {
+        Objects.checkIndex(node, this.size());
+        final int length = this.valueLengths[node];
+        return length < 0 ? null : this.codec.decode(this.buffer, this.valueOffsets[node], length);
+    }
+
+    /**
+     * Gets the parent of a node.
+     *
+     * @param node the node
+     * @return the parent, -1 for the root
+     */
+    public int getParent(final int node) {
+        Objects.checkIndex(node, this.size());
+        return this.parents[node];
+    }
+
+    /**
+     * Gets children count.
+     *
+     * @param node the node
+     * @return the children count
+     */
+    public int getChildrenCount(final int node) {
+        Objects.checkIndex(node, this.size());
+        return this.childrenCounts[node];
+    }
+
+    /**
+     * Is the node a leaf.
+     *
+     * @param node the node
+     * @return the boolean
+     */
+    public boolean isLeaf(final int node) {
+        return this.getChildrenCount(node) == 0;
+    }
+
+    /**
+     * Gets a child of a node, in time proportional to its index.
+     *
+     * @param node  the node
+     * @param index the index of the child
+     * @return the child
+     */
+    public int getChild(final int node, final int index) {
+        Objects.checkIndex(index, this.getChildrenCount(node));
+        int child = node + 1;
+        for (int i = 0; i < index; i++) {
+            child += this.subtreeSizes[child];
+        }
+        return child;
+    }
+
+    /**
+     * Gets the number of nodes of the subtree of a node, the node included.
+     *
+     * @param node the node
+     * @return the subtree size
+     */
+    public int getSubtreeSize(final int node) {
+        Objects.checkIndex(node, this.size());
+        return this.subtreeSizes[node];
+    }
+
+    /**
+     * Materialize the whole tree.
+     *
+     * @return the root
+     */
+    public NaryTreeNode<E> toNaryTreeNode() {
+        return this.toNaryTreeNode(0);
+    }
+
+    /**
+     * Materialize the subtree of a node. Every node is created with the exact capacity for its children.
+     *
+     * @param node the node
+     * @return the root of the subtree
+     */
+    @SuppressWarnings("unchecked")
+    public NaryTreeNode<E> toNaryTreeNode(final int node) {
+        final int end = node + this.getSubtreeSize(node);
+        final NaryTreeNode<E> root = new NaryTreeNode<>(this.getValue(node), this.childrenCounts[node]);
+        // The copy of every node of the subtree still missing children, by depth
+        NaryTreeNode<E>[] open = new NaryTreeNode[BinaryTreeView.INITIAL_STACK_CAPACITY];
+        int[] ends = new int[BinaryTreeView.INITIAL_STACK_CAPACITY];
+        int top = 0;
+        open[0] = root;
+        ends[0] = end;
+        for (int i = node + 1; i < end; i++) {
+            while (i >= ends[top]) {
+                open[top--] = null;
+            }
+            final NaryTreeNode<E> copy = new NaryTreeNode<>(this.getValue(i), this.childrenCounts[i]);
+            open[top].appendNewChild(copy);
+            if (this.childrenCounts[i] > 0) {
+                if (++top == open.length) {
+                    open = Arrays.copyOf(open, top << 1);
+                    ends = Arrays.copyOf(ends, top << 1);
+                }
+                open[top] = copy;
+                ends[top] = i + this.subtreeSizes[i];
+            }
+        }
+        return root;
+    }
+}
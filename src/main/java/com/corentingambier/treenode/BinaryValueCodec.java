@@ -0,0 +1,147 @@
+package com.corentingambier.treenode;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encoding of the values of a tree of {@link NaryTreeNode} in the binary format of
+ * {@link NaryTreeNode#writeBinary(java.nio.channels.WritableByteChannel, BinaryValueCodec)}.
+ * <p>
+ * The format stores the length of every encoded value, so a codec does not need to delimit its values. Null values
+ * are handled by the format and never reach the codec.
+ *
+ * @param <E> the type parameter
+ */
+public interface BinaryValueCodec<E> {
+    /**
+     * Codec of integers, as 4 big-endian bytes.
+     */
+    BinaryValueCodec<Integer> INTEGER = new BinaryValueCodec<>() {
+        @Override
+        public int encodedSize(final Integer value) {
+            return Integer.BYTES;
+        }
+
+        @Override
+        public void encode(final Integer value, final ByteBuffer buffer) {
+            buffer.putInt(value);
+        }
+
+        @Override
+        public Integer decode(final ByteBuffer buffer, final int offset, final int length) {
+            return buffer.getInt(offset);
+        }
+    };
+
+    /**
+     * Codec of longs, as 8 big-endian bytes.
+     */
+    BinaryValueCodec<Long> LONG = new BinaryValueCodec<>() {
+        @Override
+        public int encodedSize(final Long value) {
+            return Long.BYTES;
+        }
+
+        @Override
+        public void encode(final Long value, final ByteBuffer buffer) {
+            buffer.putLong(value);
+        }
+
+        @Override
+        public Long decode(final ByteBuffer buffer, final int offset, final int length) {
+            return buffer.getLong(offset);
+        }
+    };
+
+    /**
+     * Codec of doubles, as the 8 big-endian bytes of their IEEE 754 representation.
+     */
+    BinaryValueCodec<Double> DOUBLE = new BinaryValueCodec<>() {
+        @Override
+        public int encodedSize(final Double value) {
+            return Double.BYTES;
+        }
+
+        @Override
+        public void encode(final Double value, final ByteBuffer buffer) {
+            buffer.putDouble(value);
+        }
+
+        @Override
+        public Double decode(final ByteBuffer buffer, final int offset, final int length) {
+            return buffer.getDouble(offset);
+        }
+    };
+
+    /**
+     * Codec of strings, in UTF-8.
+     */
+    BinaryValueCodec<String> STRING = new BinaryValueCodec<>() {
+        @Override
+        public int encodedSize(final String value) {
+            int size = 0;
+            for (int i = 0; i < value.length(); i++) {
+                final char c = value.charAt(i);
+                if (c < 0x80) {
+                    size++;
+                } else if (c < 0x800) {
+                    size += 2;
+                } else if (Character.isSurrogate(c)) {
+                    // A surrogate pair takes 4 bytes, a lone surrogate is replaced by '?'
+                    if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                            && Character.isLowSurrogate(value.charAt(i + 1))) {
+                        size += 4;
+                        i++;
+                    } else {
+                        size++;
+                    }
+                } else {
+                    size += 3;
+                }
+            }
+            return size;
+        }
+
+        @Override
+        public void encode(final String value, final ByteBuffer buffer) {
+            buffer.put(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public String decode(final ByteBuffer buffer, final int offset, final int length) {
+            if (buffer.hasArray()) {
+                return new String(buffer.array(), buffer.arrayOffset() + offset, length, StandardCharsets.UTF_8);
+            }
+            final byte[] bytes = new byte[length];
+            buffer.get(offset, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+
+    /**
+     * Gets the number of bytes {@link #encode(Object, ByteBuffer)} writes for a value.
+     *
+     * @param value the value, not null
+     * @return the encoded size
+     */
+    int encodedSize(E value);
+
+    /**
+     * Write a value at the position of a buffer, which has at least {@link #encodedSize(Object)} bytes remaining.
+     *
+     * @param value  the value, not null
+     * @param buffer the buffer
+     */
+    void encode(E value, ByteBuffer buffer);
+
+    /**
+     * Read a value at an absolute offset of a buffer, without moving its position. The buffer may be shared by
+     * several threads, as it is when it maps a file.
+     *
+     * @param buffer the buffer
+     * @param offset the offset of the encoded value
+     * @param length the length of the encoded value
+     * @return the value
+     */
+    E decode(ByteBuffer buffer, int offset, int length);
+}
@@ -0,0 +1,467 @@
+package com.corentingambier.treenode;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Thread-safe nary tree node, whose reads never block.
+ * <p>
+ * The children of a node are an immutable array, replaced by a copy on every change, so a reader sees a consistent
+ * snapshot of the children of every node it visits without taking a lock, and no iteration ever throws a
+ * {@link java.util.ConcurrentModificationException}. Writers lock the node whose children they change, so writers on
+ * different nodes do not contend. Moving a node locks its old and its new parent one after the other, never both.
+ * <p>
+ * A traversal is weakly consistent: it reflects the children of every node as they were when it reached the node, and
+ * may or may not see changes made to the tree since it started.
+ *
+ * @param <E> the type parameter
+ */
+public final class ConcurrentNaryTreeNode<E> {
+    private static final ConcurrentNaryTreeNode<?>[] EMPTY_CHILDREN = {};
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<ConcurrentNaryTreeNode, ConcurrentNaryTreeNode> PARENT =
+            AtomicReferenceFieldUpdater.newUpdater(ConcurrentNaryTreeNode.class, ConcurrentNaryTreeNode.class,
+                    "parent");
+
+    /**
+     * The children, never modified once published.
+     */
+    private volatile ConcurrentNaryTreeNode<E>[] children;
+    /**
+     * The parent, only set from null by the new parent and back to null by the old one, each holding its own lock.
+     */
+    private volatile ConcurrentNaryTreeNode<E> parent;
+    private volatile E value;
+
+    /**
+     * Instantiates a new concurrent nary tree node, of null value.
+     */
+    public ConcurrentNaryTreeNode() {
+        this(null);
+    }
+
+    /**
+     * Instantiates a new concurrent nary tree node.
+     *
+     * @param value the value
+     */
+    @SuppressWarnings("unchecked")
+    public ConcurrentNaryTreeNode(final E value) {
+        this.children = (ConcurrentNaryTreeNode<E>[]) ConcurrentNaryTreeNode.EMPTY_CHILDREN;
+        this.value = value;
+    }
+
+    /**
+     * Copy a tree of {@link NaryTreeNode}.
+     *
+     * @param <E>  the type parameter
+     * @param root the root
+     * @return the root of the copy
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> ConcurrentNaryTreeNode<E> copyOf(final NaryTreeNode<E> root) {
+        final ConcurrentNaryTreeNode<E> copy = new ConcurrentNaryTreeNode<>(root.getValue());
+        // The copy is not shared before it is complete, so it needs no lock
+        final ArrayDeque<NaryTreeNode<E>> pending = new ArrayDeque<>();
+        final ArrayDeque<ConcurrentNaryTreeNode<E>> copies = new ArrayDeque<>();
+        pending.push(root);
+        copies.push(copy);
+        while (!pending.isEmpty()) {
+            final NaryTreeNode<E> node = pending.pop();
+            final ConcurrentNaryTreeNode<E> nodeCopy = copies.pop();
+            final ConcurrentNaryTreeNode<E>[] children = new ConcurrentNaryTreeNode[node.getChildrenCount()];
+            for (int i = 0; i < children.length; i++) {
+                final NaryTreeNode<E> child = node.getChild(i);
+                children[i] = new ConcurrentNaryTreeNode<>(child.getValue());
+                children[i].parent = nodeCopy;
+                pending.push(child);
+                copies.push(children[i]);
+            }
+            nodeCopy.children = children;
+        }
+        return copy;
+    }
+
+    /**
+     * Gets value.
+     *
+     * @return the value
+     */
+    public E getValue() {
+        return this.value;
+    }
+
+    /**
+     * Sets value.
+     *
+     * @param value the value
+     */
+    public void setValue(final E value) {
+        this.value = value;
+    }
+
+    /**
+     * Gets parent.
+     *
+     * @return the parent, null for a root
+     */
+    public ConcurrentNaryTreeNode<E> getParent() {
+        return this.parent;
+    }
+
+    /**
+     * Gets child.
+     *
+     * @param index the index
+     * @return the child
+     */
+    public ConcurrentNaryTreeNode<E> getChild(final int index) {
+        final ConcurrentNaryTreeNode<E>[] snapshot = this.children;
+        Objects.checkIndex(index, snapshot.length);
+        return snapshot[index];
+    }
+
+    /**
+     * Gets a snapshot of the children, unaffected by later changes.
+     *
+     * @return the children
+     */
+    public List<ConcurrentNaryTreeNode<E>> getChildren() {
+        return Collections.unmodifiableList(Arrays.asList(this.children));
+    }
+
+    /**
+     * Gets children count.
+     *
+     * @return the children count
+     */
+    public int getChildrenCount() {
+        return this.children.length;
+    }
+
+    /**
+     * Is leaf boolean.
+     *
+     * @return the boolean
+     */
+    public boolean isLeaf() {
+        return this.children.length == 0;
+    }
+
+    /**
+     * Add child.
+     *
+     * @param childValue the child value
+     * @return the child
+     */
+    public ConcurrentNaryTreeNode<E> addChild(final E childValue) {
+        final ConcurrentNaryTreeNode<E> child = new ConcurrentNaryTreeNode<>(childValue);
+        this.addChild(child);
+        return child;
+    }
+
+    /**
+     * Add child, after the last one. A child that already has a parent is removed from it first. Adding a node to
+     * its own subtree is refused, but the check does not hold against concurrent moves of its ancestors.
+     *
+     * @param child the child
+     */
+    public void addChild(final ConcurrentNaryTreeNode<E> child) {
+        for (ConcurrentNaryTreeNode<E> node = this; node != null; node = node.parent) {
+            if (node == child) {
+                throw new IllegalArgumentException("A node cannot be added to its own subtree");
+            }
+        }
+        while (true) {
+            final ConcurrentNaryTreeNode<E> oldParent = child.parent;
+            if (oldParent != null) {
+                oldParent.removeChild(child);
+                continue;
+            }
+            synchronized (this) {
+                if (ConcurrentNaryTreeNode.PARENT.compareAndSet(child, null, this)) {
+                    final ConcurrentNaryTreeNode<E>[] snapshot = this.children;
+                    final ConcurrentNaryTreeNode<E>[] copy = Arrays.copyOf(snapshot, snapshot.length + 1);
+                    copy[snapshot.length] = child;
+                    this.children = copy;
+                    return;
+                }
+            }
+            // Another writer adopted the child in the meantime
+        }
+    }
+
+    /**
+     * Remove child.
+     *
+     * @param child the child
+     * @return true if the child was a child of this node
+     */
+    public boolean removeChild(final ConcurrentNaryTreeNode<E> child) {
+        synchronized (this) {
+            final ConcurrentNaryTreeNode<E>[] snapshot = this.children;
+            for (int i = 0; i < snapshot.length; i++) {
+                if (snapshot[i] == child) {
+                    this.removeChildLocked(snapshot, i);
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Remove child.
+     *
+     * @param index the index
+     * @return the removed child
+     */
+    public ConcurrentNaryTreeNode<E> removeChild(final int index) {
+        synchronized (this) {
+            final ConcurrentNaryTreeNode<E>[] snapshot = this.children;
+            Objects.checkIndex(index, snapshot.length);
+            return this.removeChildLocked(snapshot, index);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private ConcurrentNaryTreeNode<E> removeChildLocked(final ConcurrentNaryTreeNode<E>[] snapshot, final int index) {
+        final ConcurrentNaryTreeNode<E> child = snapshot[index];
+        final ConcurrentNaryTreeNode<E>[] copy;
+        if (snapshot.length == 1) {
+            copy = (ConcurrentNaryTreeNode<E>[]) ConcurrentNaryTreeNode.EMPTY_CHILDREN;
+        } else {
+            copy = Arrays.copyOf(snapshot, snapshot.length - 1);
+            System.arraycopy(snapshot, index + 1, copy, index, snapshot.length - index - 1);
+        }
+        this.children = copy;
+        child.parent = null;
+        return child;
+    }
+
+    /**
+     * Contains boolean.
+     *
+     * @param value the value
+     * @return the boolean
+     */
+    public boolean contains(final E value) {
+        final Iterator<ConcurrentNaryTreeNode<E>> nodes = this.nodeIterator(NaryTreeNode.Order.PREFIX);
+        while (nodes.hasNext()) {
+            if (Objects.equals(nodes.next().value, value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the number of nodes of the tree.
+     *
+     * @return the size
+     */
+    public int getSize() {
+        int size = 0;
+        final Iterator<ConcurrentNaryTreeNode<E>> nodes = this.nodeIterator(NaryTreeNode.Order.PREFIX);
+        while (nodes.hasNext()) {
+            nodes.next();
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * Gets the height of the tree.
+     *
+     * @return the height
+     */
+    public int getHeight() {
+        final ArrayDeque<ConcurrentNaryTreeNode<E>> level = new ArrayDeque<>();
+        level.add(this);
+        int height = 0;
+        while (!level.isEmpty()) {
+            height++;
+            for (int i = level.size(); i > 0; i--) {
+                Collections.addAll(level, level.poll().children);
+            }
+        }
+        return height;
+    }
+
+    /**
+     * Return a prefix list of all values.
+     *
+     * @return the list
+     */
+    public List<E> toPrefixList() {
+        return this.toList(NaryTreeNode.Order.PREFIX);
+    }
+
+    /**
+     * Return a postfix list of all values.
+     *
+     * @return the list
+     */
+    public List<E> toPostfixList() {
+        return this.toList(NaryTreeNode.Order.POSTFIX);
+    }
+
+    /**
+     * Return a by width list of all values.
+     *
+     * @return the list
+     */
+    public List<E> toByWidthList() {
+        return this.toList(NaryTreeNode.Order.BY_WIDTH);
+    }
+
+    /**
+     * Weakly consistent iterator over the nodes of the tree in a given order.
+     *
+     * @param order the order
+     * @return the iterator
+     */
+    public Iterator<ConcurrentNaryTreeNode<E>> nodeIterator(final NaryTreeNode.Order order) {
+        return new SnapshotIterator<>(this, order);
+    }
+
+    /**
+     * Weakly consistent stream of the values of the tree in a given order.
+     *
+     * @param order the order
+     * @return the stream
+     */
+    public Stream<E> stream(final NaryTreeNode.Order order) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this.nodeIterator(order),
+                Spliterator.ORDERED | Spliterator.NONNULL), false).map(ConcurrentNaryTreeNode::getValue);
+    }
+
+    /**
+     * Copy the tree into a {@link NaryTreeNode}, as seen by a weakly consistent traversal.
+     *
+     * @return the root of the copy
+     */
+    public NaryTreeNode<E> toNaryTreeNode() {
+        // The children of every node are read once, to size its copy and to copy them
+        final ArrayDeque<ConcurrentNaryTreeNode<E>[]> pending = new ArrayDeque<>();
+        final ArrayDeque<NaryTreeNode<E>> copies = new ArrayDeque<>();
+        final ConcurrentNaryTreeNode<E>[] rootChildren = this.children;
+        final NaryTreeNode<E> root = new NaryTreeNode<>(this.value, rootChildren.length);
+        pending.push(rootChildren);
+        copies.push(root);
+        while (!pending.isEmpty()) {
+            final ConcurrentNaryTreeNode<E>[] snapshot = pending.pop();
+            final NaryTreeNode<E> copy = copies.pop();
+            for (final ConcurrentNaryTreeNode<E> child : snapshot) {
+                final ConcurrentNaryTreeNode<E>[] grandChildren = child.children;
+                final NaryTreeNode<E> childCopy = new NaryTreeNode<>(child.value, grandChildren.length);
+                copy.appendNewChild(childCopy);
+                pending.push(grandChildren);
+                copies.push(childCopy);
+            }
+        }
+        return root;
+    }
+
+    private List<E> toList(final NaryTreeNode.Order order) {
+        final List<E> list = new ArrayList<>();
+        final Iterator<ConcurrentNaryTreeNode<E>> nodes = this.nodeIterator(order);
+        while (nodes.hasNext()) {
+            list.add(nodes.next().value);
+        }
+        return list;
+    }
+
+    /**
+     * Iterator reading the children of every node once, when it reaches the node.
+     *
+     * @param <E> the type parameter
+     */
+    private static final class SnapshotIterator<E> implements Iterator<ConcurrentNaryTreeNode<E>> {
+        private final NaryTreeNode.Order order;
+        /**
+         * The pending nodes: a stack in pre-order and post-order, a queue in by width order.
+         */
+        private final ArrayDeque<ConcurrentNaryTreeNode<E>> pending = new ArrayDeque<>();
+        /**
+         * In post-order, the snapshot of the children of every node of the stack, and the index of the next one.
+         */
+        private final ArrayDeque<ConcurrentNaryTreeNode<E>[]> snapshots = new ArrayDeque<>();
+        private final ArrayDeque<int[]> indexes = new ArrayDeque<>();
+
+        private SnapshotIterator(final ConcurrentNaryTreeNode<E> root, final NaryTreeNode.Order order) {
+            this.order = order;
+            if (order == NaryTreeNode.Order.POSTFIX) {
+                this.descend(root);
+            } else {
+                this.pending.add(root);
+            }
+        }
+
+        private void descend(final ConcurrentNaryTreeNode<E> node) {
+            ConcurrentNaryTreeNode<E> current = node;
+            while (true) {
+                final ConcurrentNaryTreeNode<E>[] snapshot = current.children;
+                this.pending.push(current);
+                this.snapshots.push(snapshot);
+                this.indexes.push(new int[]{1});
+                if (snapshot.length == 0) {
+                    return;
+                }
+                current = snapshot[0];
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !this.pending.isEmpty();
+        }
+
+        @Override
+        public ConcurrentNaryTreeNode<E> next() {
+            if (this.pending.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            switch (this.order) {
+                case PREFIX -> {
+                    final ConcurrentNaryTreeNode<E> node = this.pending.pop();
+                    final ConcurrentNaryTreeNode<E>[] snapshot = node.children;
+                    for (int i = snapshot.length - 1; i >= 0; i--) {
+                        this.pending.push(snapshot[i]);
+                    }
+                    return node;
+                }
+                case POSTFIX -> {
+                    // The top of the stack has returned all its children
+                    final ConcurrentNaryTreeNode<E> node = this.pending.pop();
+                    this.snapshots.pop();
+                    this.indexes.pop();
+                    if (!this.pending.isEmpty()) {
+                        final ConcurrentNaryTreeNode<E>[] siblings = this.snapshots.peek();
+                        final int[] index = this.indexes.peek();
+                        if (index[0] < siblings.length) {
+                            this.descend(siblings[index[0]++]);
+                        }
+                    }
+                    return node;
+                }
+                default -> {
+                    final ConcurrentNaryTreeNode<E> node = this.pending.poll();
+                    Collections.addAll(this.pending, node.children);
+                    return node;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.corentingambier.treenode;
+
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Iterator;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.DoubleStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Nary tree node holding an unboxed double value.
+ * <p>
+ * The counterpart of {@code NaryTreeNode<Double>} without a boxed object per value: traversals return {@code double[]},
+ * {@link PrimitiveIterator.OfDouble} and {@link DoubleStream}, and {@link #contains(double)} compares doubles.
+ */
+public final class DoubleNaryTreeNode extends PrimitiveNaryTreeNode<DoubleNaryTreeNode> {
+    private double value;
+
+    /**
+     * Instantiates a new double nary tree node, of value 0.0.
+     */
+    public DoubleNaryTreeNode() {
+        this(0.0);
+    }
+
+    /**
+     * Instantiates a new double nary tree node.
+     *
+     * @param value the value
+     */
+    public DoubleNaryTreeNode(final double value) {
+        this(value, 0);
+    }
+
+    /**
+     * Instantiates a new double nary tree node with room for a given number of children.
+     *
+     * @param value           the value
+     * @param initialCapacity the number of children the node can hold before its child storage grows
+     */
+    public DoubleNaryTreeNode(final double value, final int initialCapacity) {
+        super(initialCapacity);
+        this.value = value;
+    }
+
+    /**
+     * Gets value.
+     *
+     * @return the value
+     */
+    public double getValue() {
+        return this.value;
+    }
+
+    /**
+     * Sets value.
+     *
+     * @param value the value
+     */
+    public void setValue(final double value) {
+        this.value = value;
+    }
+
+    /**
+     * Add child.
+     *
+     * @param childValue the child value
+     */
+    public void addChild(final double childValue) {
+        this.addChild(new DoubleNaryTreeNode(childValue));
+    }
+
+    /**
+     * Contains boolean. Values are compared like {@link Double#equals(Object)} does: {@code NaN} is contained if a
+     * node holds {@code NaN}, and {@code 0.0} and {@code -0.0} are different.
+     *
+     * @param value the value
+     * @return the boolean
+     */
+    public boolean contains(final double value) {
+        final Iterator<DoubleNaryTreeNode> nodes = this.nodeIterator(NaryTreeNode.Order.PREFIX);
+        while (nodes.hasNext()) {
+            if (Double.compare(nodes.next().value, value) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Return the values of the tree in a given order.
+     *
+     * @param order the order
+     * @return the values
+     */
+    public double[] toArray(final NaryTreeNode.Order order) {
+        final double[] values = new double[this.getSize()];
+        this.traverse(order, (node, index) -> values[index] = node.value);
+        return values;
+    }
+
+    /**
+     * Return a prefix array of all values.
+     *
+     * @return the values
+     */
+    public double[] toPrefixArray() {
+        return this.toArray(NaryTreeNode.Order.PREFIX);
+    }
+
+    /**
+     * Return a postfix array of all values.
+     *
+     * @return the values
+     */
+    public double[] toPostfixArray() {
+        return this.toArray(NaryTreeNode.Order.POSTFIX);
+    }
+
+    /**
+     * Return a by width array of all values.
+     *
+     * @return the values
+     */
+    public double[] toByWidthArray() {
+        return this.toArray(NaryTreeNode.Order.BY_WIDTH);
+    }
+
+    /**
+     * Lazy iterator over the values of the tree in a given order.
+     *
+     * @param order the order
+     * @return the iterator
+     */
+    public PrimitiveIterator.OfDouble iterator(final NaryTreeNode.Order order) {
+        final Iterator<DoubleNaryTreeNode> nodes = this.nodeIterator(order);
+        return new PrimitiveIterator.OfDouble() {
+            @Override
+            public boolean hasNext() {
+                return nodes.hasNext();
+            }
+
+            @Override
+            public double nextDouble() {
+                return nodes.next().value;
+            }
+        };
+    }
+
+    /**
+     * Lazy sequential stream of the values of the tree in a given order.
+     *
+     * @param order the order
+     * @return the stream
+     */
+    public DoubleStream stream(final NaryTreeNode.Order order) {
+        return StreamSupport.doubleStream(Spliterators.spliteratorUnknownSize(this.iterator(order), Spliterator.ORDERED),
+                false);
+    }
+
+    /**
+     * Read a tree in the format of {@link #toJson()}.
+     *
+     * @param reader the reader
+     * @return the root
+     * @throws IOException if the reader fails, the json is malformed or a value is not a double
+     */
+    public static DoubleNaryTreeNode fromJson(final Reader reader) throws IOException {
+        return NaryTreeJson.readDocument(reader, DoubleNaryTreeNode::new);
+    }
+
+    /**
+     * Append the value as a json number.
+     *
+     * @param out the output
+     * @throws IOException              if the output fails
+     * @throws IllegalArgumentException if the value is NaN or infinite, as json has no such numbers
+     */
+    @Override
+    void appendValue(final Appendable out) throws IOException {
+        if (!Double.isFinite(this.value)) {
+            throw new IllegalArgumentException("Numeric values must be finite, but was " + this.value);
+        }
+        if (out instanceof StringBuilder builder) {
+            builder.append(this.value);
+        } else {
+            out.append(Double.toString(this.value));
+        }
+    }
+
+    @Override
+    void readValue(final JsonReader reader) throws IOException {
+        this.value = reader.nextDouble();
+    }
+}
@@ -0,0 +1,427 @@
+package com.corentingambier.treenode;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Immutable snapshot of a tree of {@link NaryTreeNode}, stored as arrays, see {@link NaryTreeNode#freeze()}.
+ * <p>
+ * Nodes are identified by their index in pre-order, the root being 0, so the subtree of a node {@code n} is the range
+ * of nodes from {@code n} to {@code n + getSubtreeSize(n) - 1}, and the values are an array in pre-order. The parent,
+ * depth and subtree size of every node are int arrays, and the children of every node are a contiguous range of an
+ * int array. Aggregates and searches are linear scans of these arrays, and {@link #getChild(int, int)} is a constant
+ * time lookup. The snapshot holds the same value objects as the tree it was taken from.
+ *
+ * @param <E> the type parameter
+ */
+public final class FrozenNaryTree<E> {
+    private static final int INITIAL_STACK_CAPACITY = 16;
+
+    private final Object[] values;
+    private final int[] parents;
+    private final int[] depths;
+    private final int[] subtreeSizes;
+    /**
+     * The children of node {@code n} are {@code children[childrenStart[n]]} to
+     * {@code children[childrenStart[n + 1] - 1]}.
+     */
+    private final int[] childrenStart;
+    private final int[] children;
+    private final int height;
+
+    private FrozenNaryTree(final Object[] values, final int[] parents, final int[] depths) {
+        this.values = values;
+        this.parents = parents;
+        this.depths = depths;
+        final int size = values.length;
+        this.subtreeSizes = new int[size];
+        this.childrenStart = new int[size + 1];
+        this.children = new int[size - 1];
+        int height = 0;
+        Arrays.fill(this.subtreeSizes, 1);
+        // Children come after their parent in pre-order
+        for (int i = size - 1; i > 0; i--) {
+            this.subtreeSizes[parents[i]] += this.subtreeSizes[i];
+            this.childrenStart[parents[i] + 1]++;
+        }
+        for (int i = 0; i < size; i++) {
+            this.childrenStart[i + 1] += this.childrenStart[i];
+            height = Math.max(height, depths[i] + 1);
+        }
+        this.height = height;
+        // The children of a node are met in order in pre-order
+        final int[] next = Arrays.copyOf(this.childrenStart, size);
+        for (int i = 1; i < size; i++) {
+            this.children[next[parents[i]]++] = i;
+        }
+    }
+
+    /**
+     * Take a snapshot of a tree.
+     *
+     * @param <E>  the type parameter
+     * @param root the root
+     * @return the snapshot
+     */
+    static <E> FrozenNaryTree<E> of(final NaryTreeNode<E> root) {
+        final int size = root.getSize();
+        final Object[] values = new Object[size];
+        final int[] parents = new int[size];
+        final int[] depths = new int[size];
+        // The index of the open nodes, by depth
+        int[] path = new int[FrozenNaryTree.INITIAL_STACK_CAPACITY];
+        final TreeCursor<E> cursor = TreeCursor.preOrder(root);
+        int index = 0;
+        while (cursor.next()) {
+            final int depth = cursor.depth();
+            if (depth == path.length) {
+                path = Arrays.copyOf(path, depth << 1);
+            }
+            path[depth] = index;
+            values[index] = cursor.node().getValue();
+            parents[index] = depth == 0 ? -1 : path[depth - 1];
+            depths[index++] = depth;
+        }
+        return new FrozenNaryTree<>(values, parents, depths);
+    }
+
+    /**
+     * Gets the size of the tree.
+     *
+     * @return the size
+     */
+    public int getSize() {
+        return this.values.length;
+    }
+
+    /**
+     * Gets the height of the tree.
+     *
+     * @return the height
+     */
+    public int getHeight() {
+        return this.height;
+    }
+
+    /**
+     * Gets the height of the subtree of a node.
+     *
+     * @param node the node
+     * @return the height
+     */
+    public int getHeight(final int node) {
+        final int end = node + this.getSubtreeSize(node);
+        int deepest = this.depths[node];
+        for (int i = node + 1; i < end; i++) {
+            deepest = Math.max(deepest, this.depths[i]);
+        }
+        return deepest - this.depths[node] + 1;
+    }
+
+    /**
+     * Gets the number of leaves in the tree.
+     *
+     * @return the number of leaves
+     */
+    public int getNumberOfLeaves() {
+        int leaves = 0;
+        for (int i = 0; i < this.values.length; i++) {
+            if (this.childrenStart[i] == this.childrenStart[i + 1]) {
+                leaves++;
+            }
+        }
+        return leaves;
+    }
+
+    /**
+     * Gets the value of a node.
+     *
+     * @param node the node
+     * @return the value
+     */
+    @SuppressWarnings("unchecked")
+    public E getValue(final int node) {
+        Objects.checkIndex(node, this.values.length);
+        return (E) this.values[node];
+    }
+
+    /**
+     * Gets the parent of a node.
+     *
+     * @param node the node
+     * @return the parent, -1 for the root
+     */
+    public int getParent(final int node) {
+        Objects.checkIndex(node, this.values.length);
+        return this.parents[node];
+    }
+
+    /**
+     * Gets the depth of a node, 0 for the root.
+     *
+     * @param node the node
+     * @return the depth
+     */
+    public int getDepth(final int node) {
+        Objects.checkIndex(node, this.values.length);
+        return this.depths[node];
+    }
+
+    /**
+     * Gets children count.
+     *
+     * @param node the node
+     * @return the children count
+     */
+    public int getChildrenCount(final int node) {
+        Objects.checkIndex(node, this.values.length);
+        return this.childrenStart[node + 1] - this.childrenStart[node];
+    }
+
+    /**
+     * Is the node a leaf.
+     *
+     * @param node the node
+     * @return the boolean
+     */
+    public boolean isLeaf(final int node) {
+        return this.getChildrenCount(node) == 0;
+    }
+
+    /**
+     * Gets a child of a node.
+     *
+     * @param node  the node
+     * @param index the index of the child
+     * @return the child
+     */
+    public int getChild(final int node, final int index) {
+        Objects.checkIndex(index, this.getChildrenCount(node));
+        return this.children[this.childrenStart[node] + index];
+    }
+
+    /**
+     * Gets the number of nodes of the subtree of a node, the node included.
+     *
+     * @param node the node
+     * @return the subtree size
+     */
+    public int getSubtreeSize(final int node) {
+        Objects.checkIndex(node, this.values.length);
+        return this.subtreeSizes[node];
+    }
+
+    /**
+     * Contains boolean.
+     *
+     * @param value the value, possibly null
+     * @return the boolean
+     */
+    public boolean contains(final E value) {
+        return this.indexOf(value) >= 0;
+    }
+
+    /**
+     * Gets the first node, in pre-order, holding a value.
+     *
+     * @param value the value, possibly null
+     * @return the node, -1 if none
+     */
+    public int indexOf(final E value) {
+        for (int i = 0; i < this.values.length; i++) {
+            if (Objects.equals(this.values[i], value)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Return a prefix list of all values.
+     *
+     * @return the list
+     */
+    public List<E> toPrefixList() {
+        return this.toList(NaryTreeNode.Order.PREFIX);
+    }
+
+    /**
+     * Return a postfix list of all values.
+     *
+     * @return the list
+     */
+    public List<E> toPostfixList() {
+        return this.toList(NaryTreeNode.Order.POSTFIX);
+    }
+
+    /**
+     * Return a by width list of all values.
+     *
+     * @return the list
+     */
+    public List<E> toByWidthList() {
+        return this.toList(NaryTreeNode.Order.BY_WIDTH);
+    }
+
+    /**
+     * Return a list of all values in a given order.
+     *
+     * @param order the order
+     * @return the list
+     */
+    @SuppressWarnings("unchecked")
+    public List<E> toList(final NaryTreeNode.Order order) {
+        if (order == NaryTreeNode.Order.PREFIX) {
+            return (List<E>) Arrays.asList(this.values.clone());
+        }
+        final int[] nodes = this.nodes(order);
+        final Object[] ordered = new Object[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            ordered[i] = this.values[nodes[i]];
+        }
+        return (List<E>) Arrays.asList(ordered);
+    }
+
+    /**
+     * Iterator over the values of the tree in a given order.
+     *
+     * @param order the order
+     * @return the iterator
+     */
+    public Iterator<E> iterator(final NaryTreeNode.Order order) {
+        final int[] nodes = order == NaryTreeNode.Order.PREFIX ? null : this.nodes(order);
+        return new Iterator<>() {
+            private int position;
+
+            @Override
+            public boolean hasNext() {
+                return this.position < FrozenNaryTree.this.values.length;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final int node = nodes == null ? this.position : nodes[this.position];
+                this.position++;
+                return (E) FrozenNaryTree.this.values[node];
+            }
+        };
+    }
+
+    /**
+     * Stream of the values of the tree in a given order.
+     *
+     * @param order the order
+     * @return the stream
+     */
+    public Stream<E> stream(final NaryTreeNode.Order order) {
+        return StreamSupport.stream(Spliterators.spliterator(this.iterator(order), this.values.length,
+                Spliterator.ORDERED), false);
+    }
+
+    /**
+     * Gets the nodes in a given order.
+     *
+     * @param order the order
+     * @return the nodes
+     */
+    public int[] nodes(final NaryTreeNode.Order order) {
+        final int size = this.values.length;
+        final int[] nodes = new int[size];
+        switch (order) {
+            case PREFIX -> {
+                for (int i = 0; i < size; i++) {
+                    nodes[i] = i;
+                }
+            }
+            case POSTFIX -> {
+                // The nodes before a node in post-order are those before it in pre-order, but its ancestors, plus
+                // its descendants
+                for (int i = 0; i < size; i++) {
+                    nodes[i + this.subtreeSizes[i] - 1 - this.depths[i]] = i;
+                }
+            }
+            case BY_WIDTH -> {
+                int tail = 1;
+                for (int head = 0; head < tail; head++) {
+                    final int node = nodes[head];
+                    final int start = this.childrenStart[node];
+                    final int count = this.childrenStart[node + 1] - start;
+                    System.arraycopy(this.children, start, nodes, tail, count);
+                    tail += count;
+                }
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * To json string, in the format of {@link NaryTreeNode#toJson()}.
+     *
+     * @return the string
+     */
+    public String toJson() {
+        final StringBuilder builder = new StringBuilder();
+        try {
+            NaryTreeJson.write(this, new NaryTreeJson.AppendableWriter(builder));
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Write the json of {@link #toJson()} to an appendable, without building it in memory.
+     *
+     * @param appendable the appendable
+     * @throws IOException if the appendable fails
+     */
+    public void writeJson(final Appendable appendable) throws IOException {
+        final Writer writer = appendable instanceof Writer w ? w : new NaryTreeJson.AppendableWriter(appendable);
+        NaryTreeJson.write(this, writer);
+        writer.flush();
+    }
+
+    /**
+     * Build a mutable copy of the tree.
+     *
+     * @return the root
+     */
+    public NaryTreeNode<E> thaw() {
+        return this.thaw(0);
+    }
+
+    /**
+     * Build a mutable copy of the subtree of a node. Every node is created with the exact capacity for its children.
+     *
+     * @param node the node
+     * @return the root of the copy
+     */
+    @SuppressWarnings("unchecked")
+    public NaryTreeNode<E> thaw(final int node) {
+        final int size = this.getSubtreeSize(node);
+        final NaryTreeNode<E>[] copies = new NaryTreeNode[size];
+        for (int i = 0; i < size; i++) {
+            final int original = node + i;
+            copies[i] = new NaryTreeNode<>((E) this.values[original],
+                    this.childrenStart[original + 1] - this.childrenStart[original]);
+            if (i > 0) {
+                copies[this.parents[original] - node].appendNewChild(copies[i]);
+            }
+        }
+        return copies[0];
+    }
+}
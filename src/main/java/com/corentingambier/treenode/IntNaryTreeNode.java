@@ -0,0 +1,188 @@
+package com.corentingambier.treenode;
+
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Iterator;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Nary tree node holding an unboxed int value.
+ * <p>
+ * The counterpart of {@code NaryTreeNode<Integer>} without a boxed object per value: traversals return {@code int[]},
+ * {@link PrimitiveIterator.OfInt} and {@link IntStream}, and {@link #contains(int)} compares ints.
+ */
+public final class IntNaryTreeNode extends PrimitiveNaryTreeNode<IntNaryTreeNode> {
+    private int value;
+
+    /**
+     * Instantiates a new int nary tree node, of value 0.
+     */
+    public IntNaryTreeNode() {
+        this(0);
+    }
+
+    /**
+     * Instantiates a new int nary tree node.
+     *
+     * @param value the value
+     */
+    public IntNaryTreeNode(final int value) {
+        this(value, 0);
+    }
+
+    /**
+     * Instantiates a new int nary tree node with room for a given number of children.
+     *
+     * @param value           the value
+     * @param initialCapacity the number of children the node can hold before its child storage grows
+     */
+    public IntNaryTreeNode(final int value, final int initialCapacity) {
+        super(initialCapacity);
+        this.value = value;
+    }
+
+    /**
+     * Gets value.
+     *
+     * @return the value
+     */
+    public int getValue() {
+        return this.value;
+    }
+
+    /**
+     * Sets value.
+     *
+     * @param value the value
+     */
+    public void setValue(final int value) {
+        this.value = value;
+    }
+
+    /**
+     * Add child.
+     *
+     * @param childValue the child value
+     */
+    public void addChild(final int childValue) {
+        this.addChild(new IntNaryTreeNode(childValue));
+    }
+
+    /**
+     * Contains boolean.
+     *
+     * @param value the value
+     * @return the boolean
+     */
+    public boolean contains(final int value) {
+        final Iterator<IntNaryTreeNode> nodes = this.nodeIterator(NaryTreeNode.Order.PREFIX);
+        while (nodes.hasNext()) {
+            if (nodes.next().value == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Return the values of the tree in a given order.
+     *
+     * @param order the order
+     * @return the values
+     */
+    public int[] toArray(final NaryTreeNode.Order order) {
+        final int[] values = new int[this.getSize()];
+        this.traverse(order, (node, index) -> values[index] = node.value);
+        return values;
+    }
+
+    /**
+     * Return a prefix array of all values.
+     *
+     * @return the values
+     */
+    public int[] toPrefixArray() {
+        return this.toArray(NaryTreeNode.Order.PREFIX);
+    }
+
+    /**
+     * Return a postfix array of all values.
+     *
+     * @return the values
+     */
+    public int[] toPostfixArray() {
+        return this.toArray(NaryTreeNode.Order.POSTFIX);
+    }
+
+    /**
+     * Return a by width array of all values.
+     *
+     * @return the values
+     */
+    public int[] toByWidthArray() {
+        return this.toArray(NaryTreeNode.Order.BY_WIDTH);
+    }
+
+    /**
+     * Lazy iterator over the values of the tree in a given order.
+     *
+     * @param order the order
+     * @return the iterator
+     */
+    public PrimitiveIterator.OfInt iterator(final NaryTreeNode.Order order) {
+        final Iterator<IntNaryTreeNode> nodes = this.nodeIterator(order);
+        return new PrimitiveIterator.OfInt() {
+            @Override
+            public boolean hasNext() {
+                return nodes.hasNext();
+            }
+
+            @Override
+            public int nextInt() {
+                return nodes.next().value;
+            }
+        };
+    }
+
+    /**
+     * Lazy sequential stream of the values of the tree in a given order.
+     *
+     * @param order the order
+     * @return the stream
+     */
+    public IntStream stream(final NaryTreeNode.Order order) {
+        return StreamSupport.intStream(Spliterators.spliteratorUnknownSize(this.iterator(order), Spliterator.ORDERED),
+                false);
+    }
+
+    /**
+     * Read a tree in the format of {@link #toJson()}.
+     *
+     * @param reader the reader
+     * @return the root
+     * @throws IOException if the reader fails, the json is malformed or a value is not an int
+     */
+    public static IntNaryTreeNode fromJson(final Reader reader) throws IOException {
+        return NaryTreeJson.readDocument(reader, IntNaryTreeNode::new);
+    }
+
+    @Override
+    void appendValue(final Appendable out) throws IOException {
+        if (out instanceof StringBuilder builder) {
+            builder.append(this.value);
+        } else {
+            out.append(Integer.toString(this.value));
+        }
+    }
+
+    @Override
+    void readValue(final JsonReader reader) throws IOException {
+        this.value = reader.nextInt();
+    }
+}
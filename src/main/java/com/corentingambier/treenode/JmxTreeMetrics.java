@@ -0,0 +1,102 @@
+package com.corentingambier.treenode;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Sink aggregating the samples of every operation in a {@link TreeOperationStats}, which can be registered as MXBeans
+ * named {@code com.corentingambier.treenode:type=TreeMetrics,operation=<operation>}.
+ * <p>
+ * Typical use:
+ * <pre>{@code
+ * JmxTreeMetrics metrics = new JmxTreeMetrics();
+ * metrics.register();
+ * NaryTreeNode.setMetrics(metrics);
+ * }</pre>
+ */
+public final class JmxTreeMetrics implements TreeMetrics {
+    private static final String DOMAIN = "com.corentingambier.treenode";
+
+    private final Map<Operation, TreeOperationStats> stats = new EnumMap<>(Operation.class);
+
+    /**
+     * Instantiates new metrics, with empty statistics for every operation.
+     */
+    public JmxTreeMetrics() {
+        for (final Operation operation : Operation.values()) {
+            this.stats.put(operation, new TreeOperationStats());
+        }
+    }
+
+    @Override
+    public void record(final TreeOperationSample sample) {
+        this.stats.get(sample.getOperation()).add(sample);
+    }
+
+    /**
+     * Gets the statistics of an operation.
+     *
+     * @param operation the operation
+     * @return the statistics
+     */
+    public TreeOperationStats getStats(final Operation operation) {
+        return this.stats.get(operation);
+    }
+
+    /**
+     * Gets the name of the MXBean of an operation.
+     *
+     * @param operation the operation
+     * @return the name
+     * @throws JMException if the name is malformed
+     */
+    public static ObjectName getObjectName(final Operation operation) throws JMException {
+        return new ObjectName(JmxTreeMetrics.DOMAIN + ":type=TreeMetrics,operation=" + operation.name());
+    }
+
+    /**
+     * Register the statistics of every operation to the platform MBean server.
+     *
+     * @throws JMException if an MXBean cannot be registered, for instance when another metrics is registered
+     */
+    public void register() throws JMException {
+        this.register(ManagementFactory.getPlatformMBeanServer());
+    }
+
+    /**
+     * Register the statistics of every operation to an MBean server.
+     *
+     * @param server the server
+     * @throws JMException if an MXBean cannot be registered, for instance when another metrics is registered
+     */
+    public void register(final MBeanServer server) throws JMException {
+        for (final Map.Entry<Operation, TreeOperationStats> entry : this.stats.entrySet()) {
+            server.registerMBean(entry.getValue(), JmxTreeMetrics.getObjectName(entry.getKey()));
+        }
+    }
+
+    /**
+     * Unregister the statistics of every operation from the platform MBean server.
+     *
+     * @throws JMException if an MXBean cannot be unregistered
+     */
+    public void unregister() throws JMException {
+        this.unregister(ManagementFactory.getPlatformMBeanServer());
+    }
+
+    /**
+     * Unregister the statistics of every operation from an MBean server.
+     *
+     * @param server the server
+     * @throws JMException if an MXBean cannot be unregistered
+     */
+    public void unregister(final MBeanServer server) throws JMException {
+        for (final Operation operation : this.stats.keySet()) {
+            server.unregisterMBean(JmxTreeMetrics.getObjectName(operation));
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.corentingambier.treenode;
+
+import java.util.ArrayDeque;
+
+/**
+ * Queue-based level-order cursor over a tree of {@link NaryTreeNode}.
+ * <p>
+ * The working memory is proportional to the width of the tree.
+ *
+ * @param <E> the type parameter
+ */
+class LevelOrderCursor<E> implements NodeCursor<E> {
+    private final ArrayDeque<NaryTreeNode<E>> queue = new ArrayDeque<>();
+    private NaryTreeNode<E> node;
+    private int depth = -1;
+    private int remainingInLevel;
+
+    /**
+     * Instantiates a new level-order cursor.
+     *
+     * @param root the root
+     */
+    LevelOrderCursor(final NaryTreeNode<E> root) {
+        this.queue.add(root);
+    }
+
+    /**
+     * Level-order cursor reporting its visits and its frontier to a sample.
+     *
+     * @param <E>    the type parameter
+     * @param root   the root
+     * @param sample the sample, null to report nothing
+     * @return the cursor
+     */
+    static <E> LevelOrderCursor<E> of(final NaryTreeNode<E> root, final TreeOperationSample sample) {
+        return sample == null ? new LevelOrderCursor<>(root) : new Probed<>(root, sample);
+    }
+
+    /**
+     * Move to the next node.
+     *
+     * @return false once the traversal is over
+     */
+    @Override
+    public boolean next() {
+        this.node = this.queue.poll();
+        if (this.node == null) {
+            return false;
+        }
+        if (this.remainingInLevel == 0) {
+            this.depth++;
+            this.remainingInLevel = this.queue.size() + 1;
+        }
+        this.remainingInLevel--;
+        for (int i = 0; i < this.node.getChildrenCount(); i++) {
+            this.queue.add(this.node.getChild(i));
+        }
+        return true;
+    }
+
+    /**
+     * Gets the current node.
+     *
+     * @return the node
+     */
+    @Override
+    public NaryTreeNode<E> node() {
+        return this.node;
+    }
+
+    /**
+     * Gets the depth of the current node, 0 for the root.
+     *
+     * @return the depth
+     */
+    @Override
+    public int depth() {
+        return this.depth;
+    }
+
+    /**
+     * Gets the number of nodes waiting in the queue.
+     *
+     * @return the frontier size
+     */
+    int frontier() {
+        return this.queue.size();
+    }
+
+    /**
+     * Cursor reporting every node it visits, and the size of its queue, to a sample.
+     */
+    private static final class Probed<E> extends LevelOrderCursor<E> {
+        private final TreeOperationSample sample;
+
+        Probed(final NaryTreeNode<E> root, final TreeOperationSample sample) {
+            super(root);
+            this.sample = sample;
+        }
+
+        @Override
+        public boolean next() {
+            if (!super.next()) {
+                return false;
+            }
+            this.sample.visit(this.depth());
+            this.sample.frontier(this.frontier());
+            return true;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.corentingambier.treenode;
+
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Iterator;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Nary tree node holding an unboxed long value.
+ * <p>
+ * The counterpart of {@code NaryTreeNode<Long>} without a boxed object per value: traversals return {@code long[]},
+ * {@link PrimitiveIterator.OfLong} and {@link LongStream}, and {@link #contains(long)} compares longs.
+ */
+public final class LongNaryTreeNode extends PrimitiveNaryTreeNode<LongNaryTreeNode> {
+    private long value;
+
+    /**
+     * Instantiates a new long nary tree node, of value 0.
+     */
+    public LongNaryTreeNode() {
+        this(0L);
+    }
+
+    /**
+     * Instantiates a new long nary tree node.
+     *
+     * @param value the value
+     */
+    public LongNaryTreeNode(final long value) {
+        this(value, 0);
+    }
+
+    /**
+     * Instantiates a new long nary tree node with room for a given number of children.
+     *
+     * @param value           the value
+     * @param initialCapacity the number of children the node can hold before its child storage grows
+     */
+    public LongNaryTreeNode(final long value, final int initialCapacity) {
+        super(initialCapacity);
+        this.value = value;
+    }
+
+    /**
+     * Gets value.
+     *
+     * @return the value
+     */
+    public long getValue() {
+        return this.value;
+    }
+
+    /**
+     * Sets value.
+     *
+     * @param value the value
+     */
+    public void setValue(final long value) {
+        this.value = value;
+    }
+
+    /**
+     * Add child.
+     *
+     * @param childValue the child value
+     */
+    public void addChild(final long childValue) {
+        this.addChild(new LongNaryTreeNode(childValue));
+    }
+
+    /**
+     * Contains boolean.
+     *
+     * @param value the value
+     * @return the boolean
+     */
+    public boolean contains(final long value) {
+        final Iterator<LongNaryTreeNode> nodes = this.nodeIterator(NaryTreeNode.Order.PREFIX);
+        while (nodes.hasNext()) {
+            if (nodes.next().value == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Return the values of the tree in a given order.
+     *
+     * @param order the order
+     * @return the values
+     */
+    public long[] toArray(final NaryTreeNode.Order order) {
+        final long[] values = new long[this.getSize()];
+        this.traverse(order, (node, index) -> values[index] = node.value);
+        return values;
+    }
+
+    /**
+     * Return a prefix array of all values.
+     *
+     * @return the values
+     */
+    public long[] toPrefixArray() {
+        return this.toArray(NaryTreeNode.Order.PREFIX);
+    }
+
+    /**
+     * Return a postfix array of all values.
+     *
+     * @return the values
+     */
+    public long[] toPostfixArray() {
+        return this.toArray(NaryTreeNode.Order.POSTFIX);
+    }
+
+    /**
+     * Return a by width array of all values.
+     *
+     * @return the values
+     */
+    public long[] toByWidthArray() {
+        return this.toArray(NaryTreeNode.Order.BY_WIDTH);
+    }
+
+    /**
+     * Lazy iterator over the values of the tree in a given order.
+     *
+     * @param order the order
+     * @return the iterator
+     */
+    public PrimitiveIterator.OfLong iterator(final NaryTreeNode.Order order) {
+        final Iterator<LongNaryTreeNode> nodes = this.nodeIterator(order);
+        return new PrimitiveIterator.OfLong() {
+            @Override
+            public boolean hasNext() {
+                return nodes.hasNext();
+            }
+
+            @Override
+            public long nextLong() {
+                return nodes.next().value;
+            }
+        };
+    }
+
+    /**
+     * Lazy sequential stream of the values of the tree in a given order.
+     *
+     * @param order the order
+     * @return the stream
+     */
+    public LongStream stream(final NaryTreeNode.Order order) {
+        return StreamSupport.longStream(Spliterators.spliteratorUnknownSize(this.iterator(order), Spliterator.ORDERED),
+                false);
+    }
+
+    /**
+     * Read a tree in the format of {@link #toJson()}.
+     *
+     * @param reader the reader
+     * @return the root
+     * @throws IOException if the reader fails, the json is malformed or a value is not a long
+     */
+    public static LongNaryTreeNode fromJson(final Reader reader) throws IOException {
+        return NaryTreeJson.readDocument(reader, LongNaryTreeNode::new);
+    }
+
+    @Override
+    void appendValue(final Appendable out) throws IOException {
+        if (out instanceof StringBuilder builder) {
+            builder.append(this.value);
+        } else {
+            out.append(Long.toString(this.value));
+        }
+    }
+
+    @Override
+    void readValue(final JsonReader reader) throws IOException {
+        this.value = reader.nextLong();
+    }
+}
@@ -0,0 +1,297 @@
+package com.corentingambier.treenode;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Binary serialization of trees of {@link NaryTreeNode}.
+ * <p>
+ * The format is a header, made of the {@link #MAGIC} number, the {@link #VERSION} byte and the number of nodes as a
+ * big-endian int, followed by the nodes in pre-order. Each node is its number of children as an unsigned varint, the
+ * length of its encoded value plus one as an unsigned varint, 0 standing for a null value, and the bytes of its value
+ * as written by a {@link BinaryValueCodec}. The structure needs no delimiters: the children of a node are the subtrees
+ * that follow it.
+ */
+final class NaryTreeBinary {
+    /**
+     * The magic number opening the format, "NTRE" in ASCII.
+     */
+    static final int MAGIC = 0x4E545245;
+    /**
+     * The version of the format.
+     */
+    static final byte VERSION = 1;
+    private static final int HEADER_SIZE = Integer.BYTES + 1 + Integer.BYTES;
+    private static final int MAX_VARINT_SIZE = 5;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int INITIAL_STACK_CAPACITY = 16;
+
+    private NaryTreeBinary() {
+    }
+
+    /**
+     * Write a tree to a channel, through a bounded direct buffer.
+     *
+     * @param <E>     the type parameter
+     * @param root    the root
+     * @param channel the channel
+     * @param codec   the codec of the values
+     * @param sample  the sample of the operation, null if not measured
+     * @throws IOException if the channel fails
+     */
+    static <E> void write(final NaryTreeNode<E> root, final WritableByteChannel channel,
+                          final BinaryValueCodec<? super E> codec, final TreeOperationSample sample)
+            throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(NaryTreeBinary.BUFFER_SIZE);
+        buffer.putInt(NaryTreeBinary.MAGIC).put(NaryTreeBinary.VERSION).putInt(root.getSize());
+        final TreeCursor<E> cursor = TreeCursor.preOrder(root, sample);
+        while (cursor.next()) {
+            final NaryTreeNode<E> node = cursor.node();
+            final E value = node.getValue();
+            final int length = value == null ? -1 : codec.encodedSize(value);
+            if (buffer.remaining() < 2 * NaryTreeBinary.MAX_VARINT_SIZE + Math.max(length, 0)) {
+                NaryTreeBinary.drain(buffer, channel);
+            }
+            NaryTreeBinary.putVarint(buffer, node.getChildrenCount());
+            NaryTreeBinary.putVarint(buffer, length + 1);
+            if (length > buffer.remaining()) {
+                // The value does not fit the buffer, even empty
+                NaryTreeBinary.drain(buffer, channel);
+                final ByteBuffer large = ByteBuffer.allocate(length);
+                NaryTreeBinary.encode(codec, value, large, length);
+                NaryTreeBinary.writeFully(large.flip(), channel);
+            } else if (length > 0) {
+                NaryTreeBinary.encode(codec, value, buffer, length);
+            }
+        }
+        NaryTreeBinary.drain(buffer, channel);
+    }
+
+    /**
+     * Read a tree from the position of a buffer, which is then moved after the tree. Every node is created with the
+     * exact capacity for its children.
+     *
+     * @param <E>    the type parameter
+     * @param buffer the buffer
+     * @param codec  the codec of the values
+     * @return the root
+     * @throws IOException if the buffer does not hold a tree in the binary format
+     */
+    @SuppressWarnings("unchecked")
+    static <E> NaryTreeNode<E> read(final ByteBuffer buffer, final BinaryValueCodec<E> codec) throws IOException {
+        final ByteBuffer in = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+        try {
+            final int size = NaryTreeBinary.readHeader(in);
+            NaryTreeNode<E>[] open = new NaryTreeNode[NaryTreeBinary.INITIAL_STACK_CAPACITY];
+            int[] remaining = new int[NaryTreeBinary.INITIAL_STACK_CAPACITY];
+            int top = -1;
+            NaryTreeNode<E> root = null;
+            for (int i = 0; i < size; i++) {
+                final int childrenCount = NaryTreeBinary.readChildrenCount(in, size - i - 1);
+                final int length = NaryTreeBinary.getVarint(in) - 1;
+                final E value;
+                if (length < 0) {
+                    value = null;
+                } else {
+                    final int offset = NaryTreeBinary.skip(in, length);
+                    value = codec.decode(in, offset, length);
+                }
+                final NaryTreeNode<E> node = new NaryTreeNode<>(value, childrenCount);
+                if (root == null) {
+                    root = node;
+                } else if (top < 0) {
+                    throw new StreamCorruptedException("Node " + i + " is outside of the tree");
+                } else {
+                    open[top].appendNewChild(node);
+                    if (--remaining[top] == 0) {
+                        open[top--] = null;
+                    }
+                }
+                if (childrenCount > 0) {
+                    if (++top == open.length) {
+                        open = Arrays.copyOf(open, top << 1);
+                        remaining = Arrays.copyOf(remaining, top << 1);
+                    }
+                    open[top] = node;
+                    remaining[top] = childrenCount;
+                }
+            }
+            if (top >= 0) {
+                throw new StreamCorruptedException("The tree misses nodes");
+            }
+            buffer.position(in.position());
+            return root;
+        } catch (final BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw (EOFException) new EOFException("Truncated binary tree").initCause(e);
+        }
+    }
+
+    /**
+     * Read a tree from a channel. A file channel is memory-mapped from its position, which is then moved after the
+     * tree, other channels are read to their end.
+     *
+     * @param <E>     the type parameter
+     * @param channel the channel
+     * @param codec   the codec of the values
+     * @return the root
+     * @throws IOException if the channel fails or does not hold a tree in the binary format
+     */
+    static <E> NaryTreeNode<E> read(final ReadableByteChannel channel, final BinaryValueCodec<E> codec)
+            throws IOException {
+        if (channel instanceof FileChannel fileChannel) {
+            final long position = fileChannel.position();
+            final ByteBuffer buffer = NaryTreeBinary.map(fileChannel, position);
+            final NaryTreeNode<E> root = NaryTreeBinary.read(buffer, codec);
+            fileChannel.position(position + buffer.position());
+            return root;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(NaryTreeBinary.BUFFER_SIZE);
+        while (channel.read(buffer) >= 0) {
+            if (!buffer.hasRemaining()) {
+                buffer = ByteBuffer.allocate(buffer.capacity() << 1).put(buffer.flip());
+            }
+        }
+        return NaryTreeBinary.read(buffer.flip(), codec);
+    }
+
+    /**
+     * Map a file read-only.
+     *
+     * @param path the path of the file
+     * @return the buffer
+     * @throws IOException if the file cannot be mapped
+     */
+    static ByteBuffer map(final Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return NaryTreeBinary.map(channel, 0);
+        }
+    }
+
+    private static ByteBuffer map(final FileChannel channel, final long position) throws IOException {
+        final long size = channel.size() - position;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Cannot map more than " + Integer.MAX_VALUE + " bytes: " + size);
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+    }
+
+    /**
+     * Read the header and check the magic number and version.
+     *
+     * @param in the buffer, positioned at the header
+     * @return the number of nodes
+     * @throws IOException if the header is not valid
+     */
+    static int readHeader(final ByteBuffer in) throws IOException {
+        if (in.remaining() < NaryTreeBinary.HEADER_SIZE) {
+            throw new EOFException("Truncated binary tree header");
+        }
+        final int magic = in.getInt();
+        if (magic != NaryTreeBinary.MAGIC) {
+            throw new StreamCorruptedException("Not a binary tree, bad magic number: " + Integer.toHexString(magic));
+        }
+        final byte version = in.get();
+        if (version != NaryTreeBinary.VERSION) {
+            throw new StreamCorruptedException("Unsupported binary tree version: " + version);
+        }
+        final int size = in.getInt();
+        // Every node takes at least two bytes
+        if (size < 1 || size > in.remaining() / 2) {
+            throw new StreamCorruptedException("Invalid number of nodes: " + size);
+        }
+        return size;
+    }
+
+    /**
+     * Read the children count of a node.
+     *
+     * @param in        the buffer
+     * @param available the number of nodes left to read after this one
+     * @return the children count
+     * @throws IOException if the count is not valid
+     */
+    static int readChildrenCount(final ByteBuffer in, final int available) throws IOException {
+        final int childrenCount = NaryTreeBinary.getVarint(in);
+        if (childrenCount < 0 || childrenCount > available) {
+            throw new StreamCorruptedException("Invalid children count: " + childrenCount);
+        }
+        return childrenCount;
+    }
+
+    /**
+     * Skip the bytes of a value.
+     *
+     * @param in     the buffer
+     * @param length the length of the value
+     * @return the offset of the value
+     * @throws IOException if the buffer is too short
+     */
+    static int skip(final ByteBuffer in, final int length) throws IOException {
+        final int offset = in.position();
+        if (length > in.remaining()) {
+            throw new EOFException("Truncated value at " + offset);
+        }
+        in.position(offset + length);
+        return offset;
+    }
+
+    /**
+     * Read an unsigned varint.
+     *
+     * @param in the buffer
+     * @return the value
+     * @throws IOException if the varint is longer than an int
+     */
+    static int getVarint(final ByteBuffer in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 7 * NaryTreeBinary.MAX_VARINT_SIZE; shift += 7) {
+            final byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("Varint too long at " + in.position());
+    }
+
+    private static void putVarint(final ByteBuffer out, final int value) {
+        int v = value;
+        while ((v & ~0x7F) != 0) {
+            out.put((byte) (v & 0x7F | 0x80));
+            v >>>= 7;
+        }
+        out.put((byte) v);
+    }
+
+    private static <E> void encode(final BinaryValueCodec<? super E> codec, final E value, final ByteBuffer buffer,
+                                   final int length) {
+        final int start = buffer.position();
+        codec.encode(value, buffer);
+        if (buffer.position() - start != length) {
+            throw new IllegalStateException("The codec wrote " + (buffer.position() - start)
+                    + " bytes instead of its encoded size " + length + " for " + value);
+        }
+    }
+
+    private static void drain(final ByteBuffer buffer, final WritableByteChannel channel) throws IOException {
+        buffer.flip();
+        NaryTreeBinary.writeFully(buffer, channel);
+        buffer.clear();
+    }
+
+    private static void writeFully(final ByteBuffer buffer, final WritableByteChannel channel) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
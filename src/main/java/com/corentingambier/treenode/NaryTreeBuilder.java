@@ -0,0 +1,258 @@
+package com.corentingambier.treenode;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Bulk construction of trees of {@link NaryTreeNode} from flat descriptions: parent arrays, edge lists, pre-order
+ * children counts and rows of ids.
+ * <p>
+ * Every builder counts the children of every node first, so that each node is created with the exact capacity for
+ * its children and linked without any of the bookkeeping of {@link NaryTreeNode#addChild(NaryTreeNode)}. The nodes are
+ * identified by their index, and the children of a node are in the order of their indexes.
+ */
+final class NaryTreeBuilder {
+    private static final int NO_PARENT = -1;
+    private static final int INITIAL_CAPACITY = 1 << 10;
+    private static final int INITIAL_STACK_CAPACITY = 16;
+
+    private NaryTreeBuilder() {
+    }
+
+    /**
+     * Build a tree from the parent of every node.
+     *
+     * @param <E>     the type parameter
+     * @param values  the value of every node
+     * @param parents the index of the parent of every node, -1 for the root
+     * @param pool    the pool creating and linking the nodes in parallel, null to build them in the calling thread
+     * @return the root
+     */
+    @SuppressWarnings("unchecked")
+    static <E> NaryTreeNode<E> fromParentArray(final List<? extends E> values, final int[] parents,
+                                               final ForkJoinPool pool) {
+        final int size = parents.length;
+        if (values.size() != size) {
+            throw new IllegalArgumentException("Got " + values.size() + " values for " + size + " parents");
+        }
+        // The children of node p are order[start[p]] to order[start[p + 1] - 1]
+        final int[] start = new int[size + 1];
+        int root = NaryTreeBuilder.NO_PARENT;
+        for (int i = 0; i < size; i++) {
+            final int parent = parents[i];
+            if (parent == NaryTreeBuilder.NO_PARENT) {
+                if (root != NaryTreeBuilder.NO_PARENT) {
+                    throw new IllegalArgumentException("Two roots: " + root + " and " + i);
+                }
+                root = i;
+            } else if (parent < 0 || parent >= size || parent == i) {
+                throw new IllegalArgumentException("Invalid parent of node " + i + ": " + parent);
+            } else {
+                start[parent + 1]++;
+            }
+        }
+        if (root == NaryTreeBuilder.NO_PARENT) {
+            throw new IllegalArgumentException("No root");
+        }
+        for (int i = 0; i < size; i++) {
+            start[i + 1] += start[i];
+        }
+        final int[] order = new int[size - 1];
+        final int[] next = Arrays.copyOf(start, size);
+        for (int i = 0; i < size; i++) {
+            if (parents[i] != NaryTreeBuilder.NO_PARENT) {
+                order[next[parents[i]]++] = i;
+            }
+        }
+        final NaryTreeNode<E>[] nodes = new NaryTreeNode[size];
+        // Every node only writes its own slot, then only its own children and their parent links
+        final Runnable build = () -> {
+            NaryTreeBuilder.range(size, pool != null).forEach(i ->
+                    nodes[i] = new NaryTreeNode<>(values.get(i), start[i + 1] - start[i]));
+            NaryTreeBuilder.range(size, pool != null).forEach(p -> {
+                for (int k = start[p]; k < start[p + 1]; k++) {
+                    nodes[p].appendNewChild(nodes[order[k]]);
+                }
+            });
+        };
+        if (pool == null) {
+            build.run();
+        } else {
+            pool.submit(build).join();
+        }
+        // Nodes on a cycle are out of the subtree of the root
+        if (nodes[root].getSize() != size) {
+            throw new IllegalArgumentException("The parents form a cycle");
+        }
+        return nodes[root];
+    }
+
+    /**
+     * Build a tree from its edges.
+     *
+     * @param <E>      the type parameter
+     * @param values   the value of every node
+     * @param parents  the parent of every edge
+     * @param children the child of every edge
+     * @return the root
+     */
+    static <E> NaryTreeNode<E> fromEdges(final List<? extends E> values, final int[] parents, final int[] children) {
+        if (parents.length != children.length) {
+            throw new IllegalArgumentException("Got " + parents.length + " parents for " + children.length
+                    + " children");
+        }
+        final int[] parentArray = new int[values.size()];
+        Arrays.fill(parentArray, NaryTreeBuilder.NO_PARENT);
+        for (int i = 0; i < children.length; i++) {
+            final int child = children[i];
+            if (parents[i] < 0) {
+                throw new IllegalArgumentException("Invalid parent of edge " + i + ": " + parents[i]);
+            }
+            if (child < 0 || child >= parentArray.length) {
+                throw new IllegalArgumentException("Invalid child of edge " + i + ": " + child);
+            }
+            if (parentArray[child] != NaryTreeBuilder.NO_PARENT) {
+                throw new IllegalArgumentException("Two parents for node " + child);
+            }
+            parentArray[child] = parents[i];
+        }
+        return NaryTreeBuilder.fromParentArray(values, parentArray, null);
+    }
+
+    /**
+     * Build a tree from its values and children counts in pre-order.
+     *
+     * @param <E>            the type parameter
+     * @param values         the values, in pre-order
+     * @param childrenCounts the children count of every node, in pre-order
+     * @return the root
+     */
+    @SuppressWarnings("unchecked")
+    static <E> NaryTreeNode<E> fromPrefix(final List<? extends E> values, final int[] childrenCounts) {
+        final int size = childrenCounts.length;
+        if (values.size() != size) {
+            throw new IllegalArgumentException("Got " + values.size() + " values for " + size + " children counts");
+        }
+        if (size == 0) {
+            throw new IllegalArgumentException("No root");
+        }
+        // The nodes still missing children, with the number they miss
+        NaryTreeNode<E>[] open = new NaryTreeNode[NaryTreeBuilder.INITIAL_STACK_CAPACITY];
+        int[] remaining = new int[NaryTreeBuilder.INITIAL_STACK_CAPACITY];
+        int top = -1;
+        NaryTreeNode<E> root = null;
+        for (int i = 0; i < size; i++) {
+            final int childrenCount = childrenCounts[i];
+            if (childrenCount < 0 || childrenCount > size - i - 1) {
+                throw new IllegalArgumentException("Invalid children count of node " + i + ": " + childrenCount);
+            }
+            final NaryTreeNode<E> node = new NaryTreeNode<>(values.get(i), childrenCount);
+            if (root == null) {
+                root = node;
+            } else if (top < 0) {
+                throw new IllegalArgumentException("Node " + i + " is outside of the tree");
+            } else {
+                open[top].appendNewChild(node);
+                if (--remaining[top] == 0) {
+                    open[top--] = null;
+                }
+            }
+            if (childrenCount > 0) {
+                if (++top == open.length) {
+                    open = Arrays.copyOf(open, top << 1);
+                    remaining = Arrays.copyOf(remaining, top << 1);
+                }
+                open[top] = node;
+                remaining[top] = childrenCount;
+            }
+        }
+        if (top >= 0) {
+            throw new IllegalArgumentException("The tree misses nodes");
+        }
+        return root;
+    }
+
+    /**
+     * Build a tree from rows holding the id of a node, the id of its parent and its value. The root is the only row
+     * whose parent id is not the id of a row. The ids are matched by sorting them, without boxing them into a map.
+     *
+     * @param <R>      the type of the rows
+     * @param <E>      the type parameter
+     * @param rows     the rows, the children of a node being in the order of the stream
+     * @param id       the id of a row
+     * @param parentId the id of the parent of a row
+     * @param value    the value of a row
+     * @return the root
+     */
+    @SuppressWarnings("unchecked")
+    static <R, E> NaryTreeNode<E> fromRows(final Stream<R> rows, final ToLongFunction<? super R> id,
+                                           final ToLongFunction<? super R> parentId,
+                                           final Function<? super R, ? extends E> value) {
+        // A sized stream, such as that of a list, fills columns of the exact size
+        final Spliterator<R> spliterator = rows.spliterator();
+        final long knownSize = spliterator.getExactSizeIfKnown();
+        final Rows collected = new Rows(knownSize > 0 && knownSize <= Integer.MAX_VALUE ? (int) knownSize :
+                NaryTreeBuilder.INITIAL_CAPACITY);
+        spliterator.forEachRemaining(row -> collected.add(id.applyAsLong(row), parentId.applyAsLong(row),
+                value.apply(row)));
+        final int size = collected.size;
+        final long[] sortedIds = Arrays.copyOf(collected.ids, size);
+        Arrays.sort(sortedIds);
+        for (int i = 1; i < size; i++) {
+            if (sortedIds[i] == sortedIds[i - 1]) {
+                throw new IllegalArgumentException("Duplicate id: " + sortedIds[i]);
+            }
+        }
+        // The row of every id, by rank of the id
+        final int[] rowOfRank = new int[size];
+        for (int i = 0; i < size; i++) {
+            rowOfRank[Arrays.binarySearch(sortedIds, collected.ids[i])] = i;
+        }
+        final int[] parents = new int[size];
+        for (int i = 0; i < size; i++) {
+            final int rank = Arrays.binarySearch(sortedIds, collected.parentIds[i]);
+            parents[i] = rank < 0 ? NaryTreeBuilder.NO_PARENT : rowOfRank[rank];
+        }
+        return NaryTreeBuilder.fromParentArray((List<E>) Arrays.asList(collected.values).subList(0, size), parents,
+                null);
+    }
+
+    private static IntStream range(final int size, final boolean parallel) {
+        final IntStream range = IntStream.range(0, size);
+        return parallel ? range.parallel() : range;
+    }
+
+    /**
+     * The columns of the rows, grown on demand.
+     */
+    private static final class Rows {
+        private long[] ids;
+        private long[] parentIds;
+        private Object[] values;
+        private int size;
+
+        private Rows(final int capacity) {
+            this.ids = new long[capacity];
+            this.parentIds = new long[capacity];
+            this.values = new Object[capacity];
+        }
+
+        private void add(final long id, final long parentId, final Object value) {
+            if (this.size == this.ids.length) {
+                final int capacity = Math.max(this.size << 1, NaryTreeBuilder.INITIAL_CAPACITY);
+                this.ids = Arrays.copyOf(this.ids, capacity);
+                this.parentIds = Arrays.copyOf(this.parentIds, capacity);
+                this.values = Arrays.copyOf(this.values, capacity);
+            }
+            this.ids[this.size] = id;
+            this.parentIds[this.size] = parentId;
+            this.values[this.size++] = value;
+        }
+    }
+}
@@ -0,0 +1,655 @@
+package com.corentingambier.treenode;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * JSON serialization and deserialization of trees of {@link NaryTreeNode} in the {@code {"value":..,"children":[..]}} format.
+ * <p>
+ * The tree is walked once with a {@link TreeCursor}. Values are written by the adapters of a shared {@link Gson}
+ * instance, with the settings {@link Gson#toJson(Object)} uses, so the output is the same as serializing every value
+ * on its own. When writing to a {@link Writer}, the structure of the tree is written as literals and the values go
+ * through a single lenient {@link JsonWriter} on the same writer, which accepts one top-level value after the other.
+ */
+final class NaryTreeJson {
+    private static final Gson GSON = new Gson();
+    private static final String VALUE = "value";
+    private static final String CHILDREN = "children";
+    private static final String PATHS = "paths";
+    private static final String OPERATIONS = "operations";
+    private static final String KIND = "kind";
+    private static final String NODE = "node";
+    private static final String PARENT = "parent";
+    private static final String INDEX = "index";
+    private static final String SUBTREE = "subtree";
+    private static final String OPEN_VALUE = "{\"value\":";
+    private static final String OPEN_CHILDREN = ",\"children\":[";
+    private static final int INITIAL_STACK_CAPACITY = 16;
+
+    private NaryTreeJson() {
+    }
+
+    /**
+     * Write a tree to a writer. The writer is not flushed.
+     *
+     * @param <E>    the type parameter
+     * @param root   the root
+     * @param out    the writer
+     * @param sample the sample of the operation, null if not measured
+     * @throws IOException if the writer fails
+     */
+    static <E> void write(final NaryTreeNode<E> root, final Writer out, final TreeOperationSample sample)
+            throws IOException {
+        final ValueWriter valueWriter = new ValueWriter(out);
+        final TreeCursor<E> cursor = TreeCursor.depthFirst(root, sample);
+        while (cursor.next()) {
+            final NaryTreeNode<E> node = cursor.node();
+            if (cursor.isEntering()) {
+                if (cursor.index() > 0) {
+                    out.write(',');
+                }
+                out.write(NaryTreeJson.OPEN_VALUE);
+                valueWriter.write(node.getValue());
+                if (!node.isLeaf()) {
+                    out.write(NaryTreeJson.OPEN_CHILDREN);
+                }
+            } else {
+                if (!node.isLeaf()) {
+                    out.write(']');
+                }
+                out.write('}');
+            }
+        }
+    }
+
+    /**
+     * Write a frozen tree to a writer, as {@link #write(NaryTreeNode, Writer)} does. The nodes are closed when the
+     * pre-order scan leaves their subtree. The writer is not flushed.
+     *
+     * @param <E>  the type parameter
+     * @param tree the tree
+     * @param out  the writer
+     * @throws IOException if the writer fails
+     */
+    static <E> void write(final FrozenNaryTree<E> tree, final Writer out) throws IOException {
+        final ValueWriter valueWriter = new ValueWriter(out);
+        final int size = tree.getSize();
+        // The open nodes, by depth
+        int[] open = new int[NaryTreeJson.INITIAL_STACK_CAPACITY];
+        int top = -1;
+        for (int i = 0; i <= size; i++) {
+            while (top >= 0 && open[top] + tree.getSubtreeSize(open[top]) <= i) {
+                if (!tree.isLeaf(open[top--])) {
+                    out.write(']');
+                }
+                out.write('}');
+            }
+            if (i == size) {
+                break;
+            }
+            if (i > 0 && tree.getParent(i) != i - 1) {
+                out.write(',');
+            }
+            out.write(NaryTreeJson.OPEN_VALUE);
+            valueWriter.write(tree.getValue(i));
+            if (!tree.isLeaf(i)) {
+                out.write(NaryTreeJson.OPEN_CHILDREN);
+            }
+            if (++top == open.length) {
+                open = Arrays.copyOf(open, top << 1);
+            }
+            open[top] = i;
+        }
+    }
+
+    /**
+     * Write a tree to a json writer, token by token. The writer is flushed.
+     *
+     * @param <E>    the type parameter
+     * @param root   the root
+     * @param writer the writer
+     * @param sample the sample of the operation, null if not measured
+     * @throws IOException if the writer fails
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static <E> void write(final NaryTreeNode<E> root, final JsonWriter writer, final TreeOperationSample sample)
+            throws IOException {
+        final boolean lenient = writer.isLenient();
+        final boolean htmlSafe = writer.isHtmlSafe();
+        final boolean serializeNulls = writer.getSerializeNulls();
+        writer.setLenient(true);
+        writer.setHtmlSafe(NaryTreeJson.GSON.htmlSafe());
+        writer.setSerializeNulls(NaryTreeJson.GSON.serializeNulls());
+        try {
+            Class<?> adapterType = null;
+            TypeAdapter adapter = null;
+            final TreeCursor<E> cursor = TreeCursor.depthFirst(root, sample);
+            while (cursor.next()) {
+                final NaryTreeNode<E> node = cursor.node();
+                if (cursor.isEntering()) {
+                    writer.beginObject().name(NaryTreeJson.VALUE);
+                    final E value = node.getValue();
+                    if (value == null) {
+                        writer.setSerializeNulls(true);
+                        writer.nullValue();
+                        writer.setSerializeNulls(NaryTreeJson.GSON.serializeNulls());
+                    } else {
+                        if (value.getClass() != adapterType) {
+                            adapterType = value.getClass();
+                            adapter = NaryTreeJson.GSON.getAdapter(adapterType);
+                        }
+                        adapter.write(writer, value);
+                    }
+                    if (!node.isLeaf()) {
+                        writer.name(NaryTreeJson.CHILDREN).beginArray();
+                    }
+                } else {
+                    if (!node.isLeaf()) {
+                        writer.endArray();
+                    }
+                    writer.endObject();
+                }
+            }
+            writer.flush();
+        } finally {
+            writer.setLenient(lenient);
+            writer.setHtmlSafe(htmlSafe);
+            writer.setSerializeNulls(serializeNulls);
+        }
+    }
+
+    /**
+     * Read a document holding a tree, as {@link #read(JsonReader, TypeAdapter)} does, then check that only whitespace
+     * follows the root.
+     *
+     * @param <E>     the type parameter
+     * @param reader  the reader
+     * @param adapter the adapter of the values
+     * @return the root
+     * @throws IOException if the reader fails or the json is malformed
+     */
+    static <E> NaryTreeNode<E> readDocument(final Reader reader, final TypeAdapter<E> adapter) throws IOException {
+        final JsonReader jsonReader = new JsonReader(reader);
+        final NaryTreeNode<E> root = NaryTreeJson.read(jsonReader, adapter);
+        NaryTreeJson.endDocument(jsonReader);
+        return root;
+    }
+
+    /**
+     * Check that a reader is at the end of its document, as {@code Gson.fromJson} does once it read its value.
+     *
+     * @param reader the reader, after the root
+     * @throws IOException         if the reader fails
+     * @throws JsonSyntaxException if anything but whitespace follows the root
+     */
+    static void endDocument(final JsonReader reader) throws IOException {
+        final boolean lenient = reader.isLenient();
+        reader.setLenient(true);
+        try {
+            if (reader.peek() != JsonToken.END_DOCUMENT) {
+                throw new JsonSyntaxException("The json document was not fully consumed at " + reader.getPath());
+            }
+        } catch (final MalformedJsonException e) {
+            throw new JsonSyntaxException(e);
+        } finally {
+            reader.setLenient(lenient);
+        }
+    }
+
+    /**
+     * Read a tree written in the {@code {"value":..,"children":[..]}} format, token by token. Nodes are built as soon
+     * as their object starts, with an explicit stack of the open nodes, so the depth of the tree is not limited and
+     * the memory is proportional to the resulting tree. Unknown properties are skipped, and the properties of a node
+     * can come in any order. The reader is left after the root object.
+     *
+     * @param <E>     the type parameter
+     * @param reader  the reader
+     * @param adapter the adapter of the values
+     * @return the root
+     * @throws IOException if the reader fails or the json is malformed
+     */
+    static <E> NaryTreeNode<E> read(final JsonReader reader, final TypeAdapter<E> adapter) throws IOException {
+        final boolean lenient = reader.isLenient();
+        reader.setLenient(true);
+        try {
+            final NaryTreeNode<E> root = new NaryTreeNode<>();
+            final ArrayDeque<NaryTreeNode<E>> open = new ArrayDeque<>();
+            // Whether the reader is in the children array of the open node rather than in its object
+            final BitSet inChildren = new BitSet();
+            reader.beginObject();
+            open.push(root);
+            while (!open.isEmpty()) {
+                final NaryTreeNode<E> node = open.peek();
+                final int depth = open.size() - 1;
+                if (inChildren.get(depth)) {
+                    if (reader.hasNext()) {
+                        reader.beginObject();
+                        final NaryTreeNode<E> child = new NaryTreeNode<>();
+                        node.addChild(child);
+                        open.push(child);
+                        inChildren.clear(depth + 1);
+                    } else {
+                        reader.endArray();
+                        node.trimToSize();
+                        inChildren.clear(depth);
+                    }
+                } else if (reader.hasNext()) {
+                    final String name = reader.nextName();
+                    if (NaryTreeJson.VALUE.equals(name)) {
+                        if (reader.peek() == JsonToken.NULL) {
+                            reader.nextNull();
+                            node.setValue(null);
+                        } else {
+                            node.setValue(adapter.read(reader));
+                        }
+                    } else if (NaryTreeJson.CHILDREN.equals(name) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                        reader.beginArray();
+                        inChildren.set(depth);
+                    } else {
+                        reader.skipValue();
+                    }
+                } else {
+                    reader.endObject();
+                    open.pop();
+                }
+            }
+            return root;
+        } catch (final IllegalStateException | NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        } finally {
+            reader.setLenient(lenient);
+        }
+    }
+
+    /**
+     * Write a patch to a json writer: an object with the {@code "paths"} of the handles, null for inserted subtrees,
+     * and the {@code "operations"}, every operation an object with its {@code "kind"}, the handles and index it uses,
+     * and its {@code "value"} or {@code "subtree"}. The writer is flushed.
+     *
+     * @param <E>    the type parameter
+     * @param patch  the patch
+     * @param writer the writer
+     * @throws IOException if the writer fails
+     */
+    static <E> void write(final TreePatch<E> patch, final JsonWriter writer) throws IOException {
+        writer.beginObject().name(NaryTreeJson.PATHS).beginArray();
+        for (int handle = 0; handle < patch.getHandleCount(); handle++) {
+            final int[] path = patch.getPath(handle);
+            if (path == null) {
+                writer.nullValue();
+                continue;
+            }
+            writer.beginArray();
+            for (final int index : path) {
+                writer.value(index);
+            }
+            writer.endArray();
+        }
+        writer.endArray().name(NaryTreeJson.OPERATIONS).beginArray();
+        for (final TreePatch.Operation<E> operation : patch.getOperations()) {
+            writer.beginObject().name(NaryTreeJson.KIND).value(operation.getKind().name())
+                    .name(NaryTreeJson.NODE).value(operation.getNode());
+            switch (operation.getKind()) {
+                case UPDATE -> {
+                    writer.name(NaryTreeJson.VALUE);
+                    NaryTreeJson.writeValue(writer, operation.getValue());
+                }
+                case INSERT, MOVE -> {
+                    writer.name(NaryTreeJson.PARENT).value(operation.getParent())
+                            .name(NaryTreeJson.INDEX).value(operation.getIndex());
+                    if (operation.getKind() == TreePatch.Kind.INSERT) {
+                        writer.name(NaryTreeJson.SUBTREE);
+                        NaryTreeJson.write(operation.getSubtree(), writer, null);
+                    }
+                }
+                case DELETE -> {
+                }
+            }
+            writer.endObject();
+        }
+        writer.endArray().endObject();
+        writer.flush();
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static void writeValue(final JsonWriter writer, final Object value) throws IOException {
+        if (value == null) {
+            writer.nullValue();
+            return;
+        }
+        final boolean htmlSafe = writer.isHtmlSafe();
+        final boolean serializeNulls = writer.getSerializeNulls();
+        writer.setHtmlSafe(NaryTreeJson.GSON.htmlSafe());
+        writer.setSerializeNulls(NaryTreeJson.GSON.serializeNulls());
+        try {
+            ((TypeAdapter) NaryTreeJson.GSON.getAdapter(value.getClass())).write(writer, value);
+        } finally {
+            writer.setHtmlSafe(htmlSafe);
+            writer.setSerializeNulls(serializeNulls);
+        }
+    }
+
+    /**
+     * Read a patch written by {@link #write(TreePatch, JsonWriter)}. Unknown properties are skipped. The reader is
+     * left after the patch object.
+     *
+     * @param <E>     the type parameter
+     * @param reader  the reader
+     * @param adapter the adapter of the values
+     * @return the patch
+     * @throws IOException if the reader fails or the json is malformed
+     */
+    static <E> TreePatch<E> readPatch(final JsonReader reader, final TypeAdapter<E> adapter) throws IOException {
+        final List<int[]> paths = new ArrayList<>();
+        final List<TreePatch.Operation<E>> operations = new ArrayList<>();
+        try {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                final String name = reader.nextName();
+                if (NaryTreeJson.PATHS.equals(name)) {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        paths.add(NaryTreeJson.readPath(reader));
+                    }
+                    reader.endArray();
+                } else if (NaryTreeJson.OPERATIONS.equals(name)) {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        operations.add(NaryTreeJson.readOperation(reader, adapter, paths.size()));
+                    }
+                    reader.endArray();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (final IllegalStateException | IllegalArgumentException e) {
+            throw new JsonSyntaxException(e);
+        }
+        return new TreePatch<>(paths, operations);
+    }
+
+    private static int[] readPath(final JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        int[] path = new int[NaryTreeJson.INITIAL_STACK_CAPACITY];
+        int length = 0;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (length == path.length) {
+                path = Arrays.copyOf(path, length << 1);
+            }
+            path[length++] = reader.nextInt();
+        }
+        reader.endArray();
+        return Arrays.copyOf(path, length);
+    }
+
+    private static <E> TreePatch.Operation<E> readOperation(final JsonReader reader, final TypeAdapter<E> adapter,
+                                                            final int handles) throws IOException {
+        TreePatch.Kind kind = null;
+        int node = -1;
+        int parent = -1;
+        int index = -1;
+        E value = null;
+        NaryTreeNode<E> subtree = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case NaryTreeJson.KIND -> kind = TreePatch.Kind.valueOf(reader.nextString());
+                case NaryTreeJson.NODE -> node = reader.nextInt();
+                case NaryTreeJson.PARENT -> parent = reader.nextInt();
+                case NaryTreeJson.INDEX -> index = reader.nextInt();
+                case NaryTreeJson.VALUE -> {
+                    if (reader.peek() == JsonToken.NULL) {
+                        reader.nextNull();
+                    } else {
+                        value = adapter.read(reader);
+                    }
+                }
+                case NaryTreeJson.SUBTREE -> subtree = NaryTreeJson.read(reader, adapter);
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        if (kind == null || node < 0 || node >= handles
+                || (kind == TreePatch.Kind.INSERT || kind == TreePatch.Kind.MOVE) && (parent < 0 || parent >= handles
+                || index < 0) || kind == TreePatch.Kind.INSERT && subtree == null) {
+            throw new JsonSyntaxException("Malformed operation of kind " + kind + " at " + reader.getPath());
+        }
+        return new TreePatch.Operation<>(kind, node, parent, index, value, subtree);
+    }
+
+    /**
+     * Write a primitive-specialized tree to an appendable, the values being written as json numbers.
+     *
+     * @param root the root
+     * @param out  the appendable
+     * @throws IOException if the appendable fails
+     */
+    static void write(final PrimitiveNaryTreeNode<?> root, final Appendable out) throws IOException {
+        PrimitiveNaryTreeNode<?>[] path = new PrimitiveNaryTreeNode[NaryTreeJson.INITIAL_STACK_CAPACITY];
+        int[] nextChild = new int[NaryTreeJson.INITIAL_STACK_CAPACITY];
+        int top = 0;
+        path[0] = root;
+        NaryTreeJson.open(root, out);
+        while (top >= 0) {
+            final PrimitiveNaryTreeNode<?> node = path[top];
+            final int index = nextChild[top];
+            if (index < node.getChildrenCount()) {
+                if (index > 0) {
+                    out.append(',');
+                }
+                nextChild[top] = index + 1;
+                final PrimitiveNaryTreeNode<?> child = node.getChild(index);
+                NaryTreeJson.open(child, out);
+                if (++top == path.length) {
+                    path = Arrays.copyOf(path, top << 1);
+                    nextChild = Arrays.copyOf(nextChild, top << 1);
+                }
+                path[top] = child;
+                nextChild[top] = 0;
+            } else {
+                if (!node.isLeaf()) {
+                    out.append(']');
+                }
+                out.append('}');
+                path[top--] = null;
+            }
+        }
+    }
+
+    private static void open(final PrimitiveNaryTreeNode<?> node, final Appendable out) throws IOException {
+        out.append(NaryTreeJson.OPEN_VALUE);
+        node.appendValue(out);
+        if (!node.isLeaf()) {
+            out.append(NaryTreeJson.OPEN_CHILDREN);
+        }
+    }
+
+    /**
+     * Read a document holding a primitive-specialized tree, as {@link #readDocument(Reader, TypeAdapter)} reads a tree
+     * of {@link NaryTreeNode}.
+     *
+     * @param <N>     the type of the nodes
+     * @param reader  the reader
+     * @param factory the factory of the nodes
+     * @return the root
+     * @throws IOException if the reader fails or the json is malformed
+     */
+    static <N extends PrimitiveNaryTreeNode<N>> N readDocument(final Reader reader, final Supplier<N> factory)
+            throws IOException {
+        final JsonReader jsonReader = new JsonReader(reader);
+        final N root = NaryTreeJson.read(jsonReader, factory);
+        NaryTreeJson.endDocument(jsonReader);
+        return root;
+    }
+
+    /**
+     * Read a primitive-specialized tree, as {@link #read(JsonReader, TypeAdapter)} reads a tree of
+     * {@link NaryTreeNode}.
+     *
+     * @param <N>     the type of the nodes
+     * @param reader  the reader
+     * @param factory the factory of the nodes
+     * @return the root
+     * @throws IOException if the reader fails or the json is malformed
+     */
+    static <N extends PrimitiveNaryTreeNode<N>> N read(final JsonReader reader, final Supplier<N> factory)
+            throws IOException {
+        final boolean lenient = reader.isLenient();
+        reader.setLenient(true);
+        try {
+            final N root = factory.get();
+            final ArrayDeque<N> open = new ArrayDeque<>();
+            // Whether the reader is in the children array of the open node rather than in its object
+            final BitSet inChildren = new BitSet();
+            reader.beginObject();
+            open.push(root);
+            while (!open.isEmpty()) {
+                final N node = open.peek();
+                final int depth = open.size() - 1;
+                if (inChildren.get(depth)) {
+                    if (reader.hasNext()) {
+                        reader.beginObject();
+                        final N child = factory.get();
+                        node.addChild(child);
+                        open.push(child);
+                        inChildren.clear(depth + 1);
+                    } else {
+                        reader.endArray();
+                        node.trimToSize();
+                        inChildren.clear(depth);
+                    }
+                } else if (reader.hasNext()) {
+                    final String name = reader.nextName();
+                    if (NaryTreeJson.VALUE.equals(name)) {
+                        node.readValue(reader);
+                    } else if (NaryTreeJson.CHILDREN.equals(name) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                        reader.beginArray();
+                        inChildren.set(depth);
+                    } else {
+                        reader.skipValue();
+                    }
+                } else {
+                    reader.endObject();
+                    open.pop();
+                }
+            }
+            return root;
+        } catch (final IllegalStateException | NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        } finally {
+            reader.setLenient(lenient);
+        }
+    }
+
+    /**
+     * Gets the adapter of a value type from the shared Gson instance.
+     *
+     * @param <E>  the type parameter
+     * @param type the type of the values
+     * @return the adapter
+     */
+    static <E> TypeAdapter<E> adapter(final Class<E> type) {
+        return NaryTreeJson.GSON.getAdapter(type);
+    }
+
+    /**
+     * Writer of the values, through the adapters of the shared Gson instance and a lenient json writer, which accepts
+     * one top-level value after the other. The adapter of the last class is cached.
+     */
+    private static final class ValueWriter {
+        private final JsonWriter writer;
+        private Class<?> adapterType;
+        @SuppressWarnings("rawtypes")
+        private TypeAdapter adapter;
+
+        ValueWriter(final Writer out) {
+            this.writer = new JsonWriter(out);
+            this.writer.setLenient(true);
+            this.writer.setHtmlSafe(NaryTreeJson.GSON.htmlSafe());
+            this.writer.setSerializeNulls(NaryTreeJson.GSON.serializeNulls());
+        }
+
+        @SuppressWarnings("unchecked")
+        void write(final Object value) throws IOException {
+            if (value == null) {
+                this.writer.nullValue();
+                return;
+            }
+            if (value.getClass() != this.adapterType) {
+                this.adapterType = value.getClass();
+                this.adapter = NaryTreeJson.GSON.getAdapter(this.adapterType);
+            }
+            this.adapter.write(this.writer, value);
+        }
+    }
+
+    /**
+     * Writer appending to an {@link Appendable}.
+     */
+    static final class AppendableWriter extends Writer {
+        private final Appendable appendable;
+
+        /**
+         * Instantiates a new appendable writer.
+         *
+         * @param appendable the appendable
+         */
+        AppendableWriter(final Appendable appendable) {
+            this.appendable = appendable;
+        }
+
+        @Override
+        public void write(final char[] buffer, final int offset, final int length) throws IOException {
+            this.appendable.append(CharBuffer.wrap(buffer, offset, length));
+        }
+
+        @Override
+        public void write(final int c) throws IOException {
+            this.appendable.append((char) c);
+        }
+
+        @Override
+        public void write(final String string, final int offset, final int length) throws IOException {
+            this.appendable.append(string, offset, offset + length);
+        }
+
+        @Override
+        public Writer append(final CharSequence sequence) throws IOException {
+            this.appendable.append(sequence);
+            return this;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (this.appendable instanceof Flushable flushable) {
+                flushable.flush();
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
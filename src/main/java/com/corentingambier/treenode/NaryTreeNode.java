@@ -1,12 +1,50 @@
 package com.corentingambier.treenode;
 
-import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonWriter;
 
-import java.text.MessageFormat;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.LinkedList;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * The type Nary tree node.
@@ -14,16 +52,40 @@ import java.util.stream.Collectors;
  * @param <E> the type parameter
  */
 public class NaryTreeNode<E> {
-    private static final String CHILDREN_SEPARATOR = ", ";
-    private static final String CHILDREN_PREFIX = "(";
-    private static final String CHILDREN_SUFFIX = ")";
-    private static final String VALUE_SEPARATOR = " ";
-    private static final String VALUE_PREFIX = "[";
-    private static final String VALUE_SUFFIX = "]";
-    private static final String VALUE_NULL = "null";
-    private static final String VALUE_PRETTY_DEPTH = "  ";
-    private static final String VALUE_PRETTY_CHILDREN_PREFIX = "|-";
-    private final LinkedList<NaryTreeNode<E>> children;
+    private static final int DEFAULT_CHILDREN_CAPACITY = 4;
+    private static final NaryTreeNode<?>[] EMPTY_CHILDREN = {};
+    private static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 13;
+    private static final int JSON_BUFFER_SIZE = 1 << 13;
+    private static final int DEFAULT_LISTENER_CAPACITY = 1 << 16;
+
+    /**
+     * The children, stored in the first {@code childrenCount} slots. Leaves share {@code EMPTY_CHILDREN} until their
+     * first child is added.
+     */
+    private NaryTreeNode<E>[] children;
+    private int childrenCount;
+    /**
+     * The number of structural changes of the children, so that the iterators of {@link #getChildren()} fail fast.
+     */
+    private int modCount;
+    private NaryTreeNode<E> parent;
+    /**
+     * The index of the node in the children of its parent, meaningless for a root.
+     */
+    private int indexInParent;
+    /**
+     * The cached statistics of the subtree, null unless enabled. When a node has statistics, so do all its
+     * descendants.
+     */
+    private SubtreeStatistics statistics;
+    /**
+     * The shared state of the tree, null unless a tree-wide feature such as the value index is enabled.
+     */
+    private TreeContext<E> context;
+    /**
+     * The pre-order number of the node in the ancestry index of its tree, meaningless unless the index is enabled.
+     */
+    private int ancestryNumber;
 
     private E value;
 
@@ -40,8 +102,23 @@ public class NaryTreeNode<E> {
      * @param value the value
      */
     public NaryTreeNode(final E value) {
+        this(value, 0);
+    }
+
+    /**
+     * Instantiates a new Nary tree node with room for a given number of children.
+     *
+     * @param value           the value
+     * @param initialCapacity the number of children the node can hold before its child storage grows
+     */
+    @SuppressWarnings("unchecked")
+    public NaryTreeNode(final E value, final int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal capacity: " + initialCapacity);
+        }
         this.value = value;
-        this.children = new LinkedList<>();
+        this.children = initialCapacity == 0 ? (NaryTreeNode<E>[]) NaryTreeNode.EMPTY_CHILDREN :
+                new NaryTreeNode[initialCapacity];
     }
 
     /**
@@ -59,7 +136,21 @@ public class NaryTreeNode<E> {
      * @param value the value
      */
     public void setValue(final E value) {
+        final E oldValue = this.value;
         this.value = value;
+        this.invalidateHashes();
+        if (this.context != null) {
+            this.context.valueChanged(this, oldValue, value);
+        }
+    }
+
+    /**
+     * Gets parent.
+     *
+     * @return the parent, null for a root
+     */
+    public NaryTreeNode<E> getParent() {
+        return this.parent;
     }
 
     /**
@@ -69,7 +160,8 @@ public class NaryTreeNode<E> {
      * @return the child
      */
     public NaryTreeNode<E> getChild(final int index) {
-        return this.children.get(index);
+        Objects.checkIndex(index, this.childrenCount);
+        return this.children[index];
     }
 
     /**
@@ -78,7 +170,23 @@ public class NaryTreeNode<E> {
      * @return the children
      */
     public List<NaryTreeNode<E>> getChildren() {
-        return Collections.unmodifiableList(this.children);
+        return new ChildrenView();
+    }
+
+    /**
+     * Gets a window of the children, copied so that paging does not go through the whole list.
+     *
+     * @param offset the index of the first child
+     * @param limit  the maximum number of children
+     * @return the unmodifiable list of the children, empty if the offset is after the last child
+     */
+    public List<NaryTreeNode<E>> getChildren(final int offset, final int limit) {
+        TreeWindow.checkWindow(offset, limit);
+        if (offset >= this.childrenCount) {
+            return Collections.emptyList();
+        }
+        final int end = TreeWindow.windowEnd(this, offset, limit);
+        return Collections.unmodifiableList(Arrays.asList(Arrays.copyOfRange(this.children, offset, end)));
     }
 
     /**
@@ -91,12 +199,130 @@ public class NaryTreeNode<E> {
     }
 
     /**
-     * Add child.
+     * Add child. A child that already has a parent is removed from it first.
      *
-     * @param child the child
+     * @param child the child, neither this node nor one of its ancestors
      */
     public void addChild(final NaryTreeNode<E> child) {
-        this.children.add(child);
+        this.checkNotInSubtreeOf(child);
+        this.detachForMove(child);
+        this.link(this.childrenCount, child);
+    }
+
+    /**
+     * Insert a child at an index. A child that already has a parent is removed from it first, the index being that
+     * of the child once removed.
+     *
+     * @param index the index, from 0 to the children count
+     * @param child the child
+     */
+    public void insertChild(final int index, final NaryTreeNode<E> child) {
+        Objects.checkIndex(index, this.childrenCount + (child.parent == this ? 0 : 1));
+        this.checkNotInSubtreeOf(child);
+        this.detachForMove(child);
+        this.link(index, child);
+    }
+
+    /**
+     * Add children after the last child, growing the child storage at most once. The children that already have a
+     * parent are removed from it first, in a single pass over the children of each former parent, and a node listed
+     * twice is added once.
+     *
+     * @param newChildren the children
+     */
+    @SuppressWarnings("unchecked")
+    public void addChildren(final Collection<? extends NaryTreeNode<E>> newChildren) {
+        // A copy, as the collection may be the children of a node they are detached from
+        final NaryTreeNode<E>[] added = newChildren.toArray(new NaryTreeNode[0]);
+        final Set<NaryTreeNode<E>> moved = Collections.newSetFromMap(new IdentityHashMap<>(added.length));
+        for (final NaryTreeNode<E> child : added) {
+            this.checkNotInSubtreeOf(child);
+            moved.add(child);
+        }
+        // Every former parent drops all its moved children in a single pass
+        for (final NaryTreeNode<E> child : added) {
+            final NaryTreeNode<E> oldParent = child.parent;
+            if (oldParent != null) {
+                oldParent.removeChildrenIf(moved::contains, oldParent.context != this.context);
+            }
+        }
+        if (this.childrenCount + added.length > this.children.length) {
+            this.children = Arrays.copyOf(this.children, this.childrenCount + added.length);
+        }
+        final int countBefore = this.childrenCount;
+        for (final NaryTreeNode<E> child : added) {
+            // Every child was detached, so a child with a parent was already added
+            if (child.parent == null) {
+                child.indexInParent = this.childrenCount;
+                this.children[this.childrenCount++] = child;
+                child.parent = this;
+                this.joinContextOf(child);
+            }
+        }
+        this.structureChanged();
+        this.childrenAdded(countBefore);
+        if (this.context != null) {
+            for (int i = countBefore; i < this.childrenCount; i++) {
+                this.context.childAdded(this, i, this.children[i]);
+            }
+        }
+    }
+
+    /**
+     * Move all the children of another node to this node, at an index, in one copy of the child storage.
+     *
+     * @param index  the index of the first moved child, from 0 to the children count
+     * @param source the node whose children are moved, neither this node nor one of its ancestors
+     */
+    public void spliceChildren(final int index, final NaryTreeNode<E> source) {
+        Objects.checkIndex(index, this.childrenCount + 1);
+        this.checkNotInSubtreeOf(source);
+        final int moved = source.childrenCount;
+        if (moved == 0) {
+            return;
+        }
+        final NaryTreeNode<E>[] taken = Arrays.copyOf(source.children, moved);
+        Arrays.fill(source.children, 0, moved, null);
+        source.childrenCount = 0;
+        final boolean sameContext = source.context == this.context;
+        int movedSize = 0;
+        int movedLeaves = 0;
+        for (final NaryTreeNode<E> child : taken) {
+            child.parent = null;
+            if (!sameContext && source.context != null && child.context == source.context) {
+                NaryTreeNode.leaveContext(source.context, child);
+            }
+            if (source.statistics != null) {
+                movedSize += child.statistics.size;
+                movedLeaves += child.statistics.leaves;
+            }
+        }
+        source.structureChanged();
+        source.childrenRemoved(movedSize, movedLeaves);
+        if (source.context != null) {
+            for (final NaryTreeNode<E> child : taken) {
+                source.context.childRemoved(source, 0, child);
+            }
+        }
+        if (this.childrenCount + moved > this.children.length) {
+            this.children = Arrays.copyOf(this.children, this.childrenCount + moved);
+        }
+        final int countBefore = this.childrenCount;
+        System.arraycopy(this.children, index, this.children, index + moved, countBefore - index);
+        System.arraycopy(taken, 0, this.children, index, moved);
+        this.childrenCount += moved;
+        this.renumberChildren(index);
+        for (final NaryTreeNode<E> child : taken) {
+            child.parent = this;
+            this.joinContextOf(child);
+        }
+        this.structureChanged();
+        this.childrenAdded(index, moved, countBefore);
+        if (this.context != null) {
+            for (int i = 0; i < moved; i++) {
+                this.context.childAdded(this, index + i, taken[i]);
+            }
+        }
     }
 
     /**
@@ -105,7 +331,10 @@ public class NaryTreeNode<E> {
      * @param child the child
      */
     public void removeChild(final NaryTreeNode<E> child) {
-        this.children.remove(child);
+        final int index = this.indexOfChild(child);
+        if (index >= 0) {
+            this.removeChild(index);
+        }
     }
 
     /**
@@ -114,7 +343,275 @@ public class NaryTreeNode<E> {
      * @param index the index
      */
     public void removeChild(final int index) {
-        this.children.remove(index);
+        Objects.checkIndex(index, this.childrenCount);
+        this.unlink(index, true);
+    }
+
+    /**
+     * Remove the children matching a predicate, in a single pass over the child storage once the predicate was
+     * evaluated on every child. If the predicate throws, no child is removed.
+     *
+     * @param filter the predicate
+     * @return true if any child was removed
+     */
+    public boolean removeChildrenIf(final Predicate<? super NaryTreeNode<E>> filter) {
+        return this.removeChildrenIf(filter, true);
+    }
+
+    private boolean removeChildrenIf(final Predicate<? super NaryTreeNode<E>> filter, final boolean leaveContext) {
+        boolean[] removed = null;
+        for (int i = 0; i < this.childrenCount; i++) {
+            if (filter.test(this.children[i])) {
+                if (removed == null) {
+                    removed = new boolean[this.childrenCount];
+                }
+                removed[i] = true;
+            }
+        }
+        if (removed == null) {
+            return false;
+        }
+        int kept = 0;
+        int removedSize = 0;
+        int removedLeaves = 0;
+        // The removed children, and the index each has when the ones before it are removed, for the listeners
+        final NaryTreeNode<E>[] removedChildren = this.context != null && this.context.events != null
+                ? Arrays.copyOf(this.children, this.childrenCount) : null;
+        final int[] removedIndices = removedChildren != null ? new int[this.childrenCount] : null;
+        for (int i = 0; i < this.childrenCount; i++) {
+            final NaryTreeNode<E> child = this.children[i];
+            if (!removed[i]) {
+                child.indexInParent = kept;
+                this.children[kept++] = child;
+                continue;
+            }
+            if (removedIndices != null) {
+                removedIndices[i] = kept;
+            }
+            child.parent = null;
+            if (leaveContext && this.context != null && child.context == this.context) {
+                NaryTreeNode.leaveContext(this.context, child);
+            }
+            if (this.statistics != null) {
+                removedSize += child.statistics.size;
+                removedLeaves += child.statistics.leaves;
+            }
+        }
+        final int countBefore = this.childrenCount;
+        Arrays.fill(this.children, kept, this.childrenCount, null);
+        this.childrenCount = kept;
+        this.structureChanged();
+        this.childrenRemoved(removedSize, removedLeaves);
+        if (removedChildren != null) {
+            for (int i = 0; i < countBefore; i++) {
+                if (removed[i]) {
+                    this.context.childRemoved(this, removedIndices[i], removedChildren[i]);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Remove the children that are not in a collection, in a single pass over the child storage.
+     *
+     * @param kept the children to keep, a set for large numbers of children
+     * @return true if any child was removed
+     */
+    public boolean retainChildren(final Collection<? extends NaryTreeNode<E>> kept) {
+        return this.removeChildrenIf(child -> !kept.contains(child));
+    }
+
+    /**
+     * Sort the children in place. The sort is stable.
+     *
+     * @param comparator the comparator
+     */
+    public void sortChildren(final Comparator<? super NaryTreeNode<E>> comparator) {
+        Arrays.sort(this.children, 0, this.childrenCount, comparator);
+        int[] permutation = null;
+        if (this.context != null && this.context.events != null) {
+            // Every child still holds its index from before the sort
+            permutation = new int[this.childrenCount];
+            for (int i = 0; i < this.childrenCount; i++) {
+                permutation[i] = this.children[i].indexInParent;
+            }
+        }
+        this.renumberChildren(0);
+        this.modCount++;
+        this.invalidateHashes();
+        if (this.context != null) {
+            this.context.childrenReordered(this, permutation);
+        }
+    }
+
+    /**
+     * Remove this node from its parent, if any.
+     */
+    public void detach() {
+        if (this.parent != null) {
+            this.parent.removeChild(this);
+        }
+    }
+
+    /**
+     * Move this node after the last child of another node. A node moved within a tree keeps its place in the value
+     * index, instead of leaving it and joining it again.
+     *
+     * @param newParent the new parent, not in the subtree of this node
+     */
+    public void moveTo(final NaryTreeNode<E> newParent) {
+        newParent.addChild(this);
+    }
+
+    /**
+     * Move this node to an index of the children of another node.
+     *
+     * @param newParent the new parent, not in the subtree of this node
+     * @param index     the index, from 0 to the children count of the new parent once this node is removed
+     * @see #moveTo(NaryTreeNode)
+     */
+    public void moveTo(final NaryTreeNode<E> newParent, final int index) {
+        newParent.insertChild(index, this);
+    }
+
+    /**
+     * Check that a node is not this node nor one of its ancestors, by walking up to the root unless the node is a
+     * leaf, as a leaf is only the ancestor of itself.
+     */
+    private void checkNotInSubtreeOf(final NaryTreeNode<E> node) {
+        if (node.childrenCount == 0) {
+            if (node == this) {
+                throw new IllegalArgumentException("Cannot move a node into its own subtree");
+            }
+            return;
+        }
+        for (NaryTreeNode<E> ancestor = this; ancestor != null; ancestor = ancestor.parent) {
+            if (ancestor == node) {
+                throw new IllegalArgumentException("Cannot move a node into its own subtree");
+            }
+        }
+    }
+
+    private int indexOfChild(final NaryTreeNode<E> child) {
+        return child.parent == this ? child.indexInParent : -1;
+    }
+
+    /**
+     * Remove a child from its parent before it is linked to this node. It only leaves the context of its tree if it
+     * does not stay in it.
+     */
+    private void detachForMove(final NaryTreeNode<E> child) {
+        final NaryTreeNode<E> oldParent = child.parent;
+        if (oldParent != null) {
+            oldParent.unlink(oldParent.indexOfChild(child), oldParent.context != this.context);
+        }
+    }
+
+    private void unlink(final int index, final boolean leaveContext) {
+        final NaryTreeNode<E> child = this.children[index];
+        System.arraycopy(this.children, index + 1, this.children, index, this.childrenCount - index - 1);
+        this.children[--this.childrenCount] = null;
+        this.renumberChildren(index);
+        child.parent = null;
+        if (leaveContext && this.context != null && child.context == this.context) {
+            NaryTreeNode.leaveContext(this.context, child);
+        }
+        this.structureChanged();
+        if (this.statistics != null) {
+            this.propagateStatistics(-child.statistics.size,
+                    (this.childrenCount == 0 ? 1 : 0) - child.statistics.leaves, child.statistics.height, 0);
+        }
+        if (this.context != null) {
+            this.context.childRemoved(this, index, child);
+        }
+    }
+
+    private void link(final int index, final NaryTreeNode<E> child) {
+        if (this.childrenCount == this.children.length) {
+            this.growChildren();
+        }
+        System.arraycopy(this.children, index, this.children, index + 1, this.childrenCount - index);
+        this.children[index] = child;
+        this.childrenCount++;
+        this.renumberChildren(index);
+        child.parent = this;
+        this.joinContextOf(child);
+        this.structureChanged();
+        if (this.statistics != null) {
+            child.enableStatistics();
+            this.propagateStatistics(child.statistics.size,
+                    child.statistics.leaves - (this.childrenCount == 1 ? 1 : 0), 0, child.statistics.height);
+        }
+        if (this.context != null) {
+            this.context.childAdded(this, index, child);
+        }
+    }
+
+    /**
+     * Set the index in this node of the children from an index on, once they were shifted.
+     */
+    private void renumberChildren(final int from) {
+        for (int i = from; i < this.childrenCount; i++) {
+            this.children[i].indexInParent = i;
+        }
+    }
+
+    private void structureChanged() {
+        this.modCount++;
+        if (this.context != null) {
+            this.context.childrenChanged(this);
+        }
+    }
+
+    private void joinContextOf(final NaryTreeNode<E> child) {
+        if (this.context != null && child.context != this.context) {
+            NaryTreeNode.joinContext(this.context, child);
+        }
+    }
+
+    /**
+     * Update the statistics once children were added at the end of the child storage.
+     */
+    private void childrenAdded(final int countBefore) {
+        this.childrenAdded(countBefore, this.childrenCount - countBefore, countBefore);
+    }
+
+    /**
+     * Update the statistics once children were added, from an index of the child storage.
+     */
+    private void childrenAdded(final int from, final int added, final int countBefore) {
+        if (this.statistics == null || added == 0) {
+            return;
+        }
+        int size = 0;
+        int leaves = 0;
+        int tallest = 0;
+        for (int i = from; i < from + added; i++) {
+            final NaryTreeNode<E> child = this.children[i];
+            child.enableStatistics();
+            size += child.statistics.size;
+            leaves += child.statistics.leaves;
+            tallest = Math.max(tallest, child.statistics.height);
+        }
+        final int tallestBefore = this.statistics.height - 1;
+        this.propagateStatistics(size, leaves - (countBefore == 0 ? 1 : 0), tallestBefore,
+                Math.max(tallestBefore, tallest));
+    }
+
+    /**
+     * Update the statistics once children were removed from the child storage.
+     */
+    private void childrenRemoved(final int removedSize, final int removedLeaves) {
+        if (this.statistics == null) {
+            return;
+        }
+        int tallest = 0;
+        for (int i = 0; i < this.childrenCount; i++) {
+            tallest = Math.max(tallest, this.children[i].statistics.height);
+        }
+        this.propagateStatistics(-removedSize, (this.childrenCount == 0 ? 1 : 0) - removedLeaves,
+                this.statistics.height - 1, tallest);
     }
 
     /**
@@ -123,7 +620,7 @@ public class NaryTreeNode<E> {
      * @return the children count
      */
     public int getChildrenCount() {
-        return this.children.size();
+        return this.childrenCount;
     }
 
     /**
@@ -132,174 +629,1796 @@ public class NaryTreeNode<E> {
      * @return the boolean
      */
     public boolean isLeaf() {
-        return this.children.isEmpty();
+        return this.childrenCount == 0;
     }
 
     /**
-     * Generate text string.
-     *
-     * @return the string
+     * Trims the child storage of this node to its children count.
      */
-    public String generateText() {
-        if (this.isLeaf()) {
-            return NaryTreeNode.VALUE_PREFIX + (this.value == null ? NaryTreeNode.VALUE_NULL : this.value.toString()) +
-                    NaryTreeNode.VALUE_SUFFIX;
+    @SuppressWarnings("unchecked")
+    public void trimToSize() {
+        if (this.childrenCount < this.children.length) {
+            this.children = this.childrenCount == 0 ? (NaryTreeNode<E>[]) NaryTreeNode.EMPTY_CHILDREN :
+                    Arrays.copyOf(this.children, this.childrenCount);
         }
-        return NaryTreeNode.VALUE_PREFIX + (this.value == null ? NaryTreeNode.VALUE_NULL : this.value.toString()) +
-                NaryTreeNode.VALUE_SUFFIX + NaryTreeNode.VALUE_SEPARATOR
-                + this.children.stream().map(NaryTreeNode::generateText).collect(Collectors.joining(
-                NaryTreeNode.CHILDREN_SEPARATOR,
-                NaryTreeNode.CHILDREN_PREFIX, NaryTreeNode.CHILDREN_SUFFIX));
     }
 
     /**
-     * Contains boolean.
+     * Append a child to a node being built by a reader. The child is a new node, and the node has neither context nor
+     * statistics, and room for the child, so none of the bookkeeping of {@link #addChild(NaryTreeNode)} is needed.
      *
-     * @param value the value
-     * @return the boolean
+     * @param child the child
      */
-    public boolean contains(final E value) {
-        if (this.value.equals(value)) {
-            return true;
+    void appendNewChild(final NaryTreeNode<E> child) {
+        child.indexInParent = this.childrenCount;
+        this.children[this.childrenCount++] = child;
+        child.parent = this;
+    }
+
+    private void growChildren() {
+        final int capacity = this.children.length;
+        this.children = Arrays.copyOf(this.children,
+                Math.max(capacity + (capacity >> 1), NaryTreeNode.DEFAULT_CHILDREN_CAPACITY));
+    }
+
+    /**
+     * Enable the statistics of this subtree. Every node of the subtree then caches its size, height and number of
+     * leaves, so that {@link #getSize()}, {@link #getHeight()}, {@link #getNumberOfLeaves()} and
+     * {@link #getNumberOfNodes()} answer in constant time, while {@link #addChild(NaryTreeNode)} and
+     * {@link #removeChild(int)} update the cached values of the ancestors in time proportional to the depth.
+     * Enabling costs a single scan of the nodes whose statistics are not enabled yet.
+     */
+    public void enableStatistics() {
+        if (this.statistics != null) {
+            return;
         }
-        for (final NaryTreeNode<E> child : this.children) {
-            if (child.contains(value)) {
-                return true;
+        final TreeCursor<E> cursor = TreeCursor.depthFirst(this);
+        while (cursor.next()) {
+            final NaryTreeNode<E> node = cursor.node();
+            if (cursor.isEntering()) {
+                if (node.statistics != null) {
+                    cursor.skipChildren();
+                }
+            } else if (node.statistics == null) {
+                int size = 1;
+                int height = 0;
+                int leaves = node.isLeaf() ? 1 : 0;
+                for (int i = 0; i < node.childrenCount; i++) {
+                    final SubtreeStatistics childStatistics = node.children[i].statistics;
+                    size += childStatistics.size;
+                    height = Math.max(height, childStatistics.height);
+                    leaves += childStatistics.leaves;
+                }
+                node.statistics = new SubtreeStatistics(size, height + 1, leaves);
             }
         }
-        return false;
     }
 
     /**
-     * Gets the height of the tree.
-     *
-     * @return the height
+     * Disable the statistics of this subtree. They cannot be disabled below a node whose statistics are enabled.
      */
-    public int getHeight() {
-        if (this.isLeaf() || this.children.isEmpty()) {
-            return 1;
+    public void disableStatistics() {
+        if (this.parent != null && this.parent.statistics != null) {
+            throw new IllegalStateException("The statistics of the parent are enabled");
+        }
+        final TreeCursor<E> cursor = TreeCursor.preOrder(this);
+        while (cursor.next()) {
+            if (cursor.node().statistics == null) {
+                cursor.skipChildren();
+            }
+            cursor.node().statistics = null;
         }
-        return 1 + this.children.stream().mapToInt(NaryTreeNode::getHeight).max().getAsInt();
     }
 
     /**
-     * Gets the size of the tree.
+     * Are the statistics of this subtree enabled.
      *
-     * @return the size
+     * @return the boolean
      */
-    public int getSize() {
-        if (this.isLeaf()) {
-            return 1;
+    public boolean isStatisticsEnabled() {
+        return this.statistics != null;
+    }
+
+    /**
+     * Apply a change of one child subtree to the statistics of this node and of its ancestors. The height of a node
+     * is only recomputed from all its children when its tallest child shrank, and the walk stops updating heights at
+     * the first ancestor whose height does not change.
+     */
+    private void propagateStatistics(final int sizeDelta, final int leavesDelta, final int childHeightBefore,
+                                     final int childHeightAfter) {
+        int before = childHeightBefore;
+        int after = childHeightAfter;
+        for (NaryTreeNode<E> node = this; node != null && node.statistics != null; node = node.parent) {
+            final SubtreeStatistics nodeStatistics = node.statistics;
+            nodeStatistics.hashed = false;
+            nodeStatistics.size += sizeDelta;
+            nodeStatistics.leaves += leavesDelta;
+            if (before != after) {
+                final int height = nodeStatistics.height;
+                if (after + 1 > height) {
+                    nodeStatistics.height = after + 1;
+                } else if (before + 1 == height && after < before) {
+                    int tallest = 0;
+                    for (int i = 0; i < node.childrenCount; i++) {
+                        tallest = Math.max(tallest, node.children[i].statistics.height);
+                    }
+                    nodeStatistics.height = tallest + 1;
+                }
+                before = height;
+                after = nodeStatistics.height;
+            }
         }
-        return 1 + this.children.stream().mapToInt(NaryTreeNode::getSize).sum();
     }
 
     /**
-     * Gets the number of leaves in the tree.
-     *
-     * @return the number of leaves
+     * Invalidate the cached subtree hashes of this node and of its ancestors, stopping at the first one already
+     * invalid.
      */
-    public int getNumberOfLeaves() {
-        if (this.isLeaf()) {
-            return 1;
+    private void invalidateHashes() {
+        for (NaryTreeNode<E> node = this; node != null && node.statistics != null && node.statistics.hashed;
+             node = node.parent) {
+            node.statistics.hashed = false;
         }
-        return this.children.stream().mapToInt(NaryTreeNode::getNumberOfLeaves).sum();
     }
 
     /**
-     * Gets the number of nodes in the tree.
+     * Gets the hash of this subtree, cached with the statistics, built from {@link Object#hashCode()}.
      *
-     * @return the number of nodes
+     * @return the hash
      */
-    public int getNumberOfNodes() {
-        if (this.isLeaf()) {
-            return 1;
-        }
-        return 1 + this.children.stream().mapToInt(NaryTreeNode::getNumberOfNodes).sum();
+    long getSubtreeHash() {
+        return this.getSubtreeHash(TreeDiff.HASH_CODE);
     }
 
     /**
-     * To json string.
+     * Gets the hash of this subtree, cached with the statistics. Only the nodes whose hash is not valid are hashed,
+     * the nodes changed since the last call and their ancestors, or every node when the values are hashed with
+     * another function than for the last call.
      *
-     * @return the string
+     * @param hasher the function hashing the values
+     * @return the hash
      */
-    public String toJson() {
-        if (this.isLeaf()) {
-            return "{\"value\":" + new Gson().toJson(this.value) + "}";
+    long getSubtreeHash(final ToLongFunction<? super E> hasher) {
+        if (!this.statistics.isHashedWith(hasher)) {
+            final TreeCursor<E> cursor = TreeCursor.depthFirst(this);
+            while (cursor.next()) {
+                final NaryTreeNode<E> node = cursor.node();
+                if (cursor.isEntering()) {
+                    if (node.statistics.isHashedWith(hasher)) {
+                        cursor.skipChildren();
+                    }
+                } else if (!node.statistics.isHashedWith(hasher)) {
+                    long hash = TreeDiff.valueHash(hasher, node.value);
+                    for (int i = 0; i < node.childrenCount; i++) {
+                        hash = TreeDiff.childHash(hash, node.children[i].statistics.hash);
+                    }
+                    node.statistics.hash = TreeDiff.finishHash(hash, node.childrenCount);
+                    node.statistics.hasher = hasher;
+                    node.statistics.hashed = true;
+                }
+            }
         }
-        return "{\"value\":" + new Gson().toJson(this.value) + ",\"children\":[" +
-                this.children.stream().map(NaryTreeNode::toJson).collect(Collectors.joining(",")) + "]}";
+        return this.statistics.hash;
     }
 
     /**
-     * To pretty text string.
+     * Gets the sink measuring the operations of all the trees.
+     *
+     * @return the sink, {@link TreeMetrics#NONE} by default
+     */
+    public static TreeMetrics getMetrics() {
+        return TreeOperationSample.getMetrics();
+    }
+
+    /**
+     * Sets the sink measuring the operations of all the trees: the searches, the lists, the serialisations and the
+     * renderings listed by {@link TreeMetrics.Operation}. Each of them then reports its duration, the nodes it
+     * visited, the deepest one, the largest breadth-first queue and the length of its output. Setting
+     * {@link TreeMetrics#NONE} stops measuring, at no cost for the operations.
+     *
+     * @param metrics the sink
+     */
+    public static void setMetrics(final TreeMetrics metrics) {
+        TreeOperationSample.setMetrics(metrics);
+    }
+
+    /**
+     * Generate text string.
      *
      * @return the string
      */
-    public String toPrettyText() {
-        return MessageFormat.format("{0}\n{1}",
-                this.value.toString(),
-                this.children.stream().map(n -> n.toPrettyText(1)).collect(Collectors.joining("")));
+    public String generateText() {
+        return this.render(TreeRenderer.Style.TEXT, TreeRenderer.UNLIMITED, TreeRenderer.UNLIMITED,
+                TreeMetrics.Operation.TO_TEXT);
     }
 
-    private String toPrettyText(final int depth) {
-        return MessageFormat.format("{0}{1}{2}\n{3}",
-                NaryTreeNode.VALUE_PRETTY_DEPTH.repeat(depth - 1),
-                NaryTreeNode.VALUE_PRETTY_CHILDREN_PREFIX,
-                this.value.toString(),
-                this.children.stream().map(n -> n.toPrettyText(depth + 1)).collect(Collectors.joining("")));
+    /**
+     * Generate the text of {@link #generateText()}, truncated. The children of the nodes at the maximum depth, and the
+     * nodes past the maximum number, are replaced by {@value TreeRenderer#ELLIPSIS}.
+     *
+     * @param maxDepth the depth of the deepest rendered nodes, 0 for the root
+     * @param maxNodes the maximum number of rendered nodes
+     * @return the string
+     */
+    public String generateText(final int maxDepth, final int maxNodes) {
+        return this.render(TreeRenderer.Style.TEXT, maxDepth, maxNodes, TreeMetrics.Operation.TO_TEXT);
     }
 
-    @Override
-    public String toString() {
-        return "NaryTreeNode{" +
-                "value=" + this.value.toString() +
-                ", children=" + this.children.toString() +
-                '}';
+    /**
+     * Write the text of {@link #generateText(int, int)} to an appendable, without building it in memory.
+     *
+     * @param appendable the appendable
+     * @param maxDepth   the depth of the deepest rendered nodes, 0 for the root
+     * @param maxNodes   the maximum number of rendered nodes
+     * @throws IOException if the appendable fails
+     */
+    public void writeText(final Appendable appendable, final int maxDepth, final int maxNodes) throws IOException {
+        this.render(TreeRenderer.Style.TEXT, appendable, maxDepth, maxNodes);
     }
 
     /**
-     * Return a postfix list of all values.
+     * Contains boolean. Null values are matched like any other value.
      *
-     * @return the list
+     * @param value the value
+     * @return the boolean
      */
-    public List<E> toPostfixList() {
-        List<E> list = new LinkedList<>();
-        for (NaryTreeNode<E> child : this.children) {
-            list.addAll(child.toPostfixList());
+    public boolean contains(final E value) {
+        final TreeOperationSample sample = TreeOperationSample.start(TreeMetrics.Operation.CONTAINS);
+        try {
+            return this.find(value, sample) != null;
+        } finally {
+            TreeOperationSample.stop(sample);
         }
-        list.add(this.value);
-        return list;
     }
 
     /**
-     * Return a prefix list of all values.
+     * Find a node holding a value in this subtree. Without index, it is the first one in prefix order; with the
+     * index enabled, it is the first one indexed.
      *
-     * @return the list
+     * @param value the value
+     * @return the node, empty if no node holds the value
      */
-    public List<E> toPrefixList() {
-        List<E> list = new LinkedList<>();
-        list.add(this.value);
-        for (NaryTreeNode<E> child : this.children) {
-            list.addAll(child.toPrefixList());
+    public Optional<NaryTreeNode<E>> findFirst(final E value) {
+        final TreeOperationSample sample = TreeOperationSample.start(TreeMetrics.Operation.FIND_FIRST);
+        try {
+            return Optional.ofNullable(this.find(value, sample));
+        } finally {
+            TreeOperationSample.stop(sample);
         }
-        return list;
+    }
+
+    private NaryTreeNode<E> find(final E value, final TreeOperationSample sample) {
+        if (this.isIndexEnabled()) {
+            for (final NaryTreeNode<E> node : this.context.valueIndex.get(value)) {
+                if (node.isInSubtreeOf(this)) {
+                    return node;
+                }
+            }
+            return null;
+        }
+        final TreeCursor<E> cursor = TreeCursor.preOrder(this, sample);
+        while (cursor.next()) {
+            if (Objects.equals(cursor.node().value, value)) {
+                return cursor.node();
+            }
+        }
+        return null;
     }
 
     /**
-     * Return a read by width list of all values.
+     * Find all the nodes holding a value in this subtree. Without index, they are listed in prefix order; with the
+     * index enabled, in the order they were indexed.
      *
-     * @return the list
+     * @param value the value
+     * @return the nodes
      */
-    public List<E> toByWidthList() {
-        List<E> list = new LinkedList<>();
-        LinkedList<NaryTreeNode<E>> queue = new LinkedList<>();
-        queue.add(this);
-        while (!queue.isEmpty()) {
-            NaryTreeNode<E> node = queue.poll();
-            list.add(node.value);
-            queue.addAll(node.children);
+    public List<NaryTreeNode<E>> findAll(final E value) {
+        final TreeOperationSample sample = TreeOperationSample.start(TreeMetrics.Operation.FIND_ALL);
+        final List<NaryTreeNode<E>> nodes = new ArrayList<>();
+        try {
+            if (this.isIndexEnabled()) {
+                for (final NaryTreeNode<E> node : this.context.valueIndex.get(value)) {
+                    if (node.isInSubtreeOf(this)) {
+                        nodes.add(node);
+                    }
+                }
+            } else {
+                final TreeCursor<E> cursor = TreeCursor.preOrder(this, sample);
+                while (cursor.next()) {
+                    if (Objects.equals(cursor.node().value, value)) {
+                        nodes.add(cursor.node());
+                    }
+                }
+            }
+        } finally {
+            TreeOperationSample.stop(sample);
+        }
+        return nodes;
+    }
+
+    /**
+     * Gets the path from this node down to the node returned by {@link #findFirst(Object)}.
+     *
+     * @param value the value
+     * @return the nodes of the path, starting with this node, empty if no node holds the value
+     */
+    public List<NaryTreeNode<E>> pathTo(final E value) {
+        final TreeOperationSample sample = TreeOperationSample.start(TreeMetrics.Operation.PATH_TO);
+        final List<NaryTreeNode<E>> path = new ArrayList<>();
+        try {
+            final NaryTreeNode<E> found = this.find(value, sample);
+            if (found != null) {
+                for (NaryTreeNode<E> node = found; node != this; node = node.parent) {
+                    path.add(node);
+                }
+                path.add(this);
+                Collections.reverse(path);
+            }
+        } finally {
+            TreeOperationSample.stop(sample);
+        }
+        return path;
+    }
+
+    /**
+     * Enable the value index of the tree this node belongs to. The index maps every value to the nodes holding it,
+     * so that {@link #contains(Object)}, {@link #findFirst(Object)}, {@link #findAll(Object)} and
+     * {@link #pathTo(Object)} no longer scan the tree. It is kept up to date by {@link #addChild(NaryTreeNode)},
+     * {@link #removeChild(int)} and {@link #setValue(Object)}; values must not change their hash code while indexed.
+     * A node added to an indexed tree leaves the index of its former tree. An index enabled on a subtree extends to
+     * the whole tree once an ancestor enables another tree-wide feature.
+     */
+    public void enableIndex() {
+        if (this.context == null) {
+            NaryTreeNode.joinContext(new TreeContext<>(this), this);
+        }
+        if (this.context.valueIndex == null) {
+            NaryTreeNode.indexValues(this.context);
+        }
+    }
+
+    private static <E> void indexValues(final TreeContext<E> context) {
+        final ValueIndex<E> valueIndex = new ValueIndex<>();
+        final TreeCursor<E> cursor = TreeCursor.preOrder(context.root);
+        while (cursor.next()) {
+            valueIndex.add(cursor.node().value, cursor.node());
+        }
+        context.valueIndex = valueIndex;
+    }
+
+    /**
+     * Disable the value index of the tree this node belongs to.
+     */
+    public void disableIndex() {
+        if (this.context != null) {
+            this.context.valueIndex = null;
+            if (!this.context.isUsed()) {
+                NaryTreeNode.leaveContext(this.context, this.context.root);
+            }
+        }
+    }
+
+    /**
+     * Is the value index of the tree this node belongs to enabled.
+     *
+     * @return the boolean
+     */
+    public boolean isIndexEnabled() {
+        return this.context != null && this.context.valueIndex != null;
+    }
+
+    /**
+     * Subscribe a listener to the changes of this subtree, called on the thread changing the tree. Every change of a
+     * value, every child added or removed, and every sorting of the children of a node of the subtree is reported,
+     * with the path from this node, once the change is done: moving a node is its removal followed by its addition.
+     * The listener follows this node, also when its tree is added to another one, until it is removed from its
+     * tree. A tree without listener pays a single check per change. If a listener throws, the other listeners still
+     * get the change, and the exception is thrown by the change once they were all called.
+     *
+     * @param listener the listener
+     * @see #beginBatch()
+     */
+    public void addTreeListener(final TreeListener<E> listener) {
+        this.subscribe(Objects.requireNonNull(listener), null, 0);
+    }
+
+    /**
+     * Subscribe a listener to the changes of this subtree, called on an executor, with a queue of 65536 changes, see
+     * {@link #addTreeListener(TreeListener, Executor, int)}.
+     *
+     * @param listener the listener
+     * @param executor the executor
+     * @see #addTreeListener(TreeListener)
+     */
+    public void addTreeListener(final TreeListener<E> listener, final Executor executor) {
+        this.addTreeListener(listener, executor, NaryTreeNode.DEFAULT_LISTENER_CAPACITY);
+    }
+
+    /**
+     * Subscribe a listener to the changes of this subtree, called on an executor. The changes are queued for the
+     * listener, with at most one task submitted to the executor at a time, which delivers all the changes queued so
+     * far in a single call: the listener is never called concurrently, and a bounded executor is never flooded. Once
+     * the queue is full, the queued changes are dropped and replaced by a single
+     * {@link TreeChangeEvent.Kind#RESYNC} change, after which the listener must read its subtree again. If the
+     * executor rejects the task, the exception is thrown to the thread changing the tree once the other listeners
+     * were called, and the changes stay queued until the next one. As the changes are delivered later, the subtree
+     * of an added child is copied when it is added, see {@link TreeChangeEvent#getAddedSubtree()}.
+     *
+     * @param listener the listener
+     * @param executor the executor
+     * @param capacity the maximum number of queued changes
+     * @see #addTreeListener(TreeListener)
+     */
+    public void addTreeListener(final TreeListener<E> listener, final Executor executor, final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.subscribe(Objects.requireNonNull(listener), Objects.requireNonNull(executor), capacity);
+    }
+
+    private void subscribe(final TreeListener<E> listener, final Executor executor, final int capacity) {
+        this.events().subscribe(listener, this, executor, capacity);
+    }
+
+    /**
+     * Unsubscribe a listener from all the subtrees of the tree this node belongs to.
+     *
+     * @param listener the listener
+     * @return true if the listener was subscribed
+     */
+    public boolean removeTreeListener(final TreeListener<E> listener) {
+        if (this.context == null || this.context.events == null) {
+            return false;
+        }
+        final boolean removed = this.context.events.unsubscribe(listener);
+        this.releaseEvents();
+        return removed;
+    }
+
+    /**
+     * Open a batch on the tree this node belongs to: the changes are kept until the batch is committed, and every
+     * listener then gets them in a single call, the value changes of a node coalesced into one, dropped if the value
+     * is back to the old one, and the sortings of the children of a node into one, dropped if the children are back
+     * in their order. Batches nest, the changes being delivered when the outermost one is committed. As the changes
+     * are delivered later, the subtree of an added child is copied when it is added, see
+     * {@link TreeChangeEvent#getAddedSubtree()}.
+     */
+    public void beginBatch() {
+        this.events().beginBatch();
+    }
+
+    /**
+     * Commit the batch opened by {@link #beginBatch()} on the tree this node belongs to.
+     *
+     * @throws IllegalStateException if no batch is open
+     */
+    public void commit() {
+        if (this.context == null || this.context.events == null) {
+            throw new IllegalStateException("No batch is open");
+        }
+        final TreeContext<E> treeContext = this.context;
+        try {
+            treeContext.events.commit();
+        } finally {
+            // A listener may have unsubscribed, or moved this node to another tree
+            if (this.context == treeContext && treeContext.events != null) {
+                this.releaseEvents();
+            }
+        }
+    }
+
+    private TreeEvents<E> events() {
+        if (this.context == null) {
+            NaryTreeNode.joinContext(new TreeContext<>(this), this);
+        }
+        if (this.context.events == null) {
+            this.context.events = new TreeEvents<>();
+        }
+        return this.context.events;
+    }
+
+    /**
+     * Drop the listeners of the tree once there is neither listener nor batch, and the context once it is unused.
+     */
+    private void releaseEvents() {
+        if (this.context.events.isEmpty()) {
+            this.context.events = null;
+            if (!this.context.isUsed()) {
+                NaryTreeNode.leaveContext(this.context, this.context.root);
+            }
+        }
+    }
+
+    /**
+     * Enable the ancestry index of the tree this node belongs to. The index numbers the nodes in pre-order and gives
+     * each a jump pointer to one of its ancestors, so that {@link #isAncestorOf(NaryTreeNode)} and
+     * {@link #getDepth()} take constant time, and {@link #lowestCommonAncestor(NaryTreeNode)} and
+     * {@link #pathBetween(NaryTreeNode)} a logarithmic number of steps, instead of walking up the parents. Adding,
+     * removing or moving nodes drops the index, which is rebuilt in a single pass by the next query: it suits trees
+     * queried much more often than their structure changes. Several threads may query an unchanging tree once the
+     * index was built, by this method or by a query after the last change.
+     */
+    public void enableAncestryIndex() {
+        if (this.context == null) {
+            NaryTreeNode.joinContext(new TreeContext<>(this), this);
+        }
+        this.context.ancestryIndexEnabled = true;
+        this.context.ancestryIndex();
+    }
+
+    /**
+     * Disable the ancestry index of the tree this node belongs to.
+     */
+    public void disableAncestryIndex() {
+        if (this.context != null) {
+            this.context.ancestryIndexEnabled = false;
+            this.context.structureChanged();
+            if (!this.context.isUsed()) {
+                NaryTreeNode.leaveContext(this.context, this.context.root);
+            }
+        }
+    }
+
+    /**
+     * Is the ancestry index of the tree this node belongs to enabled.
+     *
+     * @return the boolean
+     */
+    public boolean isAncestryIndexEnabled() {
+        return this.context != null && this.context.ancestryIndexEnabled;
+    }
+
+    /**
+     * Gets the depth of this node, 0 for a root.
+     *
+     * @return the depth
+     */
+    public int getDepth() {
+        final AncestryIndex<E> index = this.ancestryIndex();
+        if (index == null) {
+            return NaryTreeNode.depthOf(this);
+        }
+        // The index covers the subtree of the root of the context, which may itself have ancestors
+        return index.depth(index.numberOf(this)) + NaryTreeNode.depthOf(this.context.root);
+    }
+
+    /**
+     * Is this node a proper ancestor of another node.
+     *
+     * @param node the node
+     * @return true if this node is the parent of the node, or an ancestor of its parent
+     */
+    public boolean isAncestorOf(final NaryTreeNode<E> node) {
+        if (node == this) {
+            return false;
+        }
+        final AncestryIndex<E> index = this.ancestryIndex();
+        if (index != null && node.context == this.context) {
+            return index.isAncestorOrSelf(index.numberOf(this), index.numberOf(node));
+        }
+        for (NaryTreeNode<E> ancestor = node.parent; ancestor != null; ancestor = ancestor.parent) {
+            if (ancestor == this) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the lowest common ancestor of this node and another node: the deepest node having both in its subtree.
+     *
+     * @param other the other node
+     * @return the lowest common ancestor, empty if the nodes are in different trees
+     */
+    public Optional<NaryTreeNode<E>> lowestCommonAncestor(final NaryTreeNode<E> other) {
+        final AncestryIndex<E> index = this.ancestryIndex();
+        if (index != null && other.context == this.context) {
+            return Optional.of(index.node(index.lowestCommonAncestor(index.numberOf(this), index.numberOf(other))));
+        }
+        NaryTreeNode<E> first = this;
+        NaryTreeNode<E> second = other;
+        int firstDepth = NaryTreeNode.depthOf(first);
+        int secondDepth = NaryTreeNode.depthOf(second);
+        for (; firstDepth > secondDepth; firstDepth--) {
+            first = first.parent;
+        }
+        for (; secondDepth > firstDepth; secondDepth--) {
+            second = second.parent;
+        }
+        while (first != second) {
+            first = first.parent;
+            second = second.parent;
+        }
+        return Optional.ofNullable(first);
+    }
+
+    /**
+     * Gets the path from this node to another node, up to their lowest common ancestor then down to the other node.
+     *
+     * @param other the other node
+     * @return the nodes of the path, starting with this node and ending with the other node, empty if the nodes are
+     * in different trees
+     */
+    public List<NaryTreeNode<E>> pathBetween(final NaryTreeNode<E> other) {
+        final Optional<NaryTreeNode<E>> ancestor = this.lowestCommonAncestor(other);
+        final List<NaryTreeNode<E>> path = new ArrayList<>();
+        if (ancestor.isEmpty()) {
+            return path;
+        }
+        for (NaryTreeNode<E> node = this; node != ancestor.get(); node = node.parent) {
+            path.add(node);
+        }
+        path.add(ancestor.get());
+        final int turn = path.size();
+        for (NaryTreeNode<E> node = other; node != ancestor.get(); node = node.parent) {
+            path.add(node);
+        }
+        Collections.reverse(path.subList(turn, path.size()));
+        return path;
+    }
+
+    /**
+     * Gets the index of this node in the children of its parent, without searching them.
+     *
+     * @return the index, meaningless for a root
+     */
+    int getIndexInParent() {
+        return this.indexInParent;
+    }
+
+    /**
+     * Gets the pre-order number of this node in the ancestry index.
+     *
+     * @return the number
+     */
+    int getAncestryNumber() {
+        return this.ancestryNumber;
+    }
+
+    /**
+     * Sets the pre-order number of this node in the ancestry index.
+     *
+     * @param ancestryNumber the number
+     */
+    void setAncestryNumber(final int ancestryNumber) {
+        this.ancestryNumber = ancestryNumber;
+    }
+
+    /**
+     * Gets the ancestry index this node is numbered in, rebuilt if the tree changed.
+     *
+     * @return the index, null unless enabled
+     */
+    private AncestryIndex<E> ancestryIndex() {
+        return this.context != null && this.context.ancestryIndexEnabled ? this.context.ancestryIndex() : null;
+    }
+
+    private static int depthOf(final NaryTreeNode<?> node) {
+        int depth = 0;
+        for (NaryTreeNode<?> ancestor = node.parent; ancestor != null; ancestor = ancestor.parent) {
+            depth++;
+        }
+        return depth;
+    }
+
+    private static <E> void joinContext(final TreeContext<E> context, final NaryTreeNode<E> subtree) {
+        boolean indexValues = false;
+        final TreeCursor<E> cursor = TreeCursor.preOrder(subtree);
+        while (cursor.next()) {
+            final NaryTreeNode<E> node = cursor.node();
+            final TreeContext<E> former = node.context;
+            if (former != null && former != context && former.root == node) {
+                indexValues |= former.valueIndex != null && context.valueIndex == null;
+                NaryTreeNode.transferContext(former, context);
+            }
+            node.context = context;
+            context.attached(node);
+        }
+        if (indexValues) {
+            NaryTreeNode.indexValues(context);
+        }
+    }
+
+    /**
+     * Move the features of a former tree to the tree it joins: the listeners and the aggregates keep following their
+     * subtrees, and the indexes enabled on the former tree are enabled on the whole tree it joins. The value index is
+     * rebuilt by the caller once every node joined.
+     */
+    private static <E> void transferContext(final TreeContext<E> former, final TreeContext<E> context) {
+        context.ancestryIndexEnabled |= former.ancestryIndexEnabled;
+        if (former.events != null) {
+            if (context.events == null) {
+                context.events = new TreeEvents<>();
+            }
+            former.events.transferTo(context.events);
+        }
+        for (final TreeAggregate<E, ?> aggregate : former.aggregates) {
+            aggregate.moveTo(context);
+            context.aggregates.add(aggregate);
+        }
+        former.aggregates.clear();
+    }
+
+    private static <E> void leaveContext(final TreeContext<E> context, final NaryTreeNode<E> subtree) {
+        final TreeCursor<E> cursor = TreeCursor.preOrder(subtree);
+        while (cursor.next()) {
+            context.detached(cursor.node());
+            cursor.node().context = null;
+        }
+    }
+
+    private boolean isInSubtreeOf(final NaryTreeNode<E> ancestor) {
+        if (ancestor == this.context.root || ancestor == this) {
+            return true;
+        }
+        if (this.context.ancestryIndexEnabled) {
+            return ancestor.isAncestorOf(this);
+        }
+        for (NaryTreeNode<E> node = this; node != null; node = node.parent) {
+            if (node == ancestor) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the height of the tree.
+     *
+     * @return the height
+     */
+    public int getHeight() {
+        if (this.statistics != null) {
+            return this.statistics.height;
+        }
+        int maxDepth = 0;
+        final TreeCursor<E> cursor = TreeCursor.preOrder(this);
+        while (cursor.next()) {
+            if (cursor.node().isLeaf()) {
+                maxDepth = Math.max(maxDepth, cursor.depth());
+            }
+        }
+        return maxDepth + 1;
+    }
+
+    /**
+     * Gets the size of the tree.
+     *
+     * @return the size
+     */
+    public int getSize() {
+        if (this.statistics != null) {
+            return this.statistics.size;
+        }
+        int size = 0;
+        final TreeCursor<E> cursor = TreeCursor.preOrder(this);
+        while (cursor.next()) {
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * Gets the number of leaves in the tree.
+     *
+     * @return the number of leaves
+     */
+    public int getNumberOfLeaves() {
+        if (this.statistics != null) {
+            return this.statistics.leaves;
+        }
+        int leaves = 0;
+        final TreeCursor<E> cursor = TreeCursor.preOrder(this);
+        while (cursor.next()) {
+            if (cursor.node().isLeaf()) {
+                leaves++;
+            }
+        }
+        return leaves;
+    }
+
+    /**
+     * Gets the number of nodes in the tree.
+     *
+     * @return the number of nodes
+     */
+    public int getNumberOfNodes() {
+        return this.getSize();
+    }
+
+    /**
+     * Take an immutable snapshot of the tree, stored as arrays in pre-order for read-heavy workloads. The snapshot does
+     * not follow later changes of the tree, see {@link FrozenNaryTree#thaw()} to get a mutable tree back.
+     *
+     * @return the snapshot
+     */
+    public FrozenNaryTree<E> freeze() {
+        return FrozenNaryTree.of(this);
+    }
+
+    /**
+     * Compute the patch turning this tree into another one, made of value updates, insertions, moves and deletions
+     * of subtrees, see {@link TreePatch}. The identical subtrees are found by a Merkle hash of their values and shape,
+     * built from {@link Object#hashCode()}, and confirmed by comparing them: the size of the patch only depends on the
+     * changes, and the subtrees that are not equal are never compared node by node. With the statistics enabled, see
+     * {@link #enableStatistics()}, the hashes are cached and only the changed nodes and their ancestors are hashed
+     * again, otherwise both trees are hashed once per diff.
+     *
+     * @param target the root of the tree the patch produces, not modified
+     * @return the patch, to apply to this tree or to an equal tree
+     * @see #diff(NaryTreeNode, ToLongFunction)
+     */
+    public TreePatch<E> diff(final NaryTreeNode<E> target) {
+        return TreeDiff.diff(this, target, TreeDiff.HASH_CODE, true);
+    }
+
+    /**
+     * Compute the patch turning this tree into another one like {@link #diff(NaryTreeNode)}, trusting the Merkle hash
+     * built from a strong hash of the values: subtrees of equal hashes are taken as equal without comparing them.
+     * With the statistics enabled on both trees, the unchanged subtrees are then skipped in constant time, and a diff
+     * costs the number of changes times the depth instead of the size of the trees. The hashes are cached for one
+     * hash function at a time, the same function instance being passed to every diff.
+     *
+     * @param target      the root of the tree the patch produces, not modified
+     * @param valueHasher the hash of a value, equal for equal values and with negligible collisions, such as a 64-bit
+     *                    hash of its content
+     * @return the patch, to apply to this tree or to an equal tree
+     */
+    public TreePatch<E> diff(final NaryTreeNode<E> target, final ToLongFunction<? super E> valueHasher) {
+        return TreeDiff.diff(this, target, Objects.requireNonNull(valueHasher), false);
+    }
+
+    /**
+     * Apply a patch computed by {@link #diff(NaryTreeNode)} from a tree equal to this one. The nodes the patch does
+     * not name keep their identity.
+     *
+     * @param patch the patch
+     * @throws IllegalArgumentException if the patch names a node this tree does not have
+     */
+    public void apply(final TreePatch<E> patch) {
+        patch.applyTo(this);
+    }
+
+    /**
+     * To json string.
+     *
+     * @return the string
+     */
+    public String toJson() {
+        final TreeOperationSample sample = TreeOperationSample.start(TreeMetrics.Operation.TO_JSON);
+        final StringBuilder builder = new StringBuilder();
+        try {
+            NaryTreeJson.write(this, new NaryTreeJson.AppendableWriter(builder), sample);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (sample != null) {
+                sample.output(builder.length());
+            }
+            TreeOperationSample.stop(sample);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Write the json of {@link #toJson()} to an appendable, without building it in memory.
+     *
+     * @param appendable the appendable
+     * @throws IOException if the appendable fails
+     */
+    public void writeJson(final Appendable appendable) throws IOException {
+        final TreeOperationSample sample = TreeOperationSample.start(TreeMetrics.Operation.WRITE_JSON);
+        final Appendable out = sample == null ? appendable : sample.counting(appendable);
+        final Writer writer = out instanceof Writer w ? w : new NaryTreeJson.AppendableWriter(out);
+        try {
+            NaryTreeJson.write(this, writer, sample);
+            writer.flush();
+        } finally {
+            TreeOperationSample.stop(sample);
+        }
+    }
+
+    /**
+     * Write the json of {@link #toJson()} to an output stream in UTF-8, through a bounded buffer. The stream is
+     * flushed but not closed.
+     *
+     * @param outputStream the output stream
+     * @throws IOException if the output stream fails
+     */
+    public void writeJson(final OutputStream outputStream) throws IOException {
+        final TreeOperationSample sample = TreeOperationSample.start(TreeMetrics.Operation.WRITE_JSON);
+        final OutputStream out = sample == null ? outputStream : sample.counting(outputStream);
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8),
+                NaryTreeNode.JSON_BUFFER_SIZE);
+        try {
+            NaryTreeJson.write(this, writer, sample);
+            writer.flush();
+        } finally {
+            TreeOperationSample.stop(sample);
+        }
+    }
+
+    /**
+     * Write the json of {@link #toJson()} to a json writer. The writer is flushed but not closed, its indentation
+     * is honoured and its other settings are restored once the tree is written.
+     *
+     * @param writer the writer
+     * @throws IOException if the writer fails
+     */
+    public void writeJson(final JsonWriter writer) throws IOException {
+        final TreeOperationSample sample = TreeOperationSample.start(TreeMetrics.Operation.WRITE_JSON);
+        try {
+            NaryTreeJson.write(this, writer, sample);
+        } finally {
+            TreeOperationSample.stop(sample);
+        }
+    }
+
+    /**
+     * Read a tree in the format of {@link #toJson()}.
+     *
+     * @param <E>    the type parameter
+     * @param reader the reader
+     * @param type   the type of the values
+     * @return the root
+     * @throws IOException if the reader fails or the json is malformed
+     */
+    public static <E> NaryTreeNode<E> fromJson(final Reader reader, final Class<E> type) throws IOException {
+        return NaryTreeNode.fromJson(reader, NaryTreeJson.adapter(type));
+    }
+
+    /**
+     * Read a tree in the format of {@link #toJson()}. The tree is built while the json is read, so that the memory
+     * is proportional to the resulting tree, and its depth is not limited.
+     *
+     * @param <E>     the type parameter
+     * @param reader  the reader
+     * @param adapter the adapter reading the values
+     * @return the root
+     * @throws IOException if the reader fails or the json is malformed
+     */
+    public static <E> NaryTreeNode<E> fromJson(final Reader reader, final TypeAdapter<E> adapter) throws IOException {
+        return NaryTreeJson.readDocument(reader, adapter);
+    }
+
+    /**
+     * Read a tree in the format of {@link #toJson()}, encoded in UTF-8.
+     *
+     * @param <E>         the type parameter
+     * @param inputStream the input stream
+     * @param type        the type of the values
+     * @return the root
+     * @throws IOException if the input stream fails or the json is malformed
+     */
+    public static <E> NaryTreeNode<E> fromJson(final InputStream inputStream, final Class<E> type)
+            throws IOException {
+        return NaryTreeNode.fromJson(inputStream, NaryTreeJson.adapter(type));
+    }
+
+    /**
+     * Read a tree in the format of {@link #toJson()}, encoded in UTF-8.
+     *
+     * @param <E>         the type parameter
+     * @param inputStream the input stream
+     * @param adapter     the adapter reading the values
+     * @return the root
+     * @throws IOException if the input stream fails or the json is malformed
+     */
+    public static <E> NaryTreeNode<E> fromJson(final InputStream inputStream, final TypeAdapter<E> adapter)
+            throws IOException {
+        return NaryTreeNode.fromJson(new InputStreamReader(inputStream, StandardCharsets.UTF_8), adapter);
+    }
+
+    /**
+     * Write the tree in a compact binary format: a header, then every node in pre-order as its children count and the
+     * length of its value as varints, followed by the value encoded by a codec. The channel is not closed.
+     *
+     * @param channel the channel
+     * @param codec   the codec of the values
+     * @throws IOException if the channel fails
+     */
+    public void writeBinary(final WritableByteChannel channel, final BinaryValueCodec<? super E> codec)
+            throws IOException {
+        final TreeOperationSample sample = TreeOperationSample.start(TreeMetrics.Operation.WRITE_BINARY);
+        try {
+            NaryTreeBinary.write(this, sample == null ? channel : sample.counting(channel), codec, sample);
+        } finally {
+            TreeOperationSample.stop(sample);
+        }
+    }
+
+    /**
+     * Write the tree in the binary format of {@link #writeBinary(WritableByteChannel, BinaryValueCodec)} to a file,
+     * created or truncated.
+     *
+     * @param path  the path of the file
+     * @param codec the codec of the values
+     * @throws IOException if the file cannot be written
+     */
+    public void writeBinary(final Path path, final BinaryValueCodec<? super E> codec) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            final TreeOperationSample sample = TreeOperationSample.start(TreeMetrics.Operation.WRITE_BINARY);
+            try {
+                NaryTreeBinary.write(this, sample == null ? channel : sample.counting(channel), codec, sample);
+            } finally {
+                TreeOperationSample.stop(sample);
+            }
+        }
+    }
+
+    /**
+     * Read a tree in the format of {@link #writeBinary(WritableByteChannel, BinaryValueCodec)} from the position of a
+     * buffer, which is then moved after the tree.
+     *
+     * @param <E>    the type parameter
+     * @param buffer the buffer
+     * @param codec  the codec of the values
+     * @return the root
+     * @throws IOException if the buffer does not hold a tree in the binary format
+     */
+    public static <E> NaryTreeNode<E> readBinary(final ByteBuffer buffer, final BinaryValueCodec<E> codec)
+            throws IOException {
+        return NaryTreeBinary.read(buffer, codec);
+    }
+
+    /**
+     * Read a tree in the format of {@link #writeBinary(WritableByteChannel, BinaryValueCodec)} from a channel. A file
+     * channel is memory-mapped from its position, other channels are read to their end.
+     *
+     * @param <E>     the type parameter
+     * @param channel the channel
+     * @param codec   the codec of the values
+     * @return the root
+     * @throws IOException if the channel fails or does not hold a tree in the binary format
+     */
+    public static <E> NaryTreeNode<E> readBinary(final ReadableByteChannel channel, final BinaryValueCodec<E> codec)
+            throws IOException {
+        return NaryTreeBinary.read(channel, codec);
+    }
+
+    /**
+     * Read a tree in the format of {@link #writeBinary(WritableByteChannel, BinaryValueCodec)} from a file,
+     * memory-mapped. See {@link BinaryTreeView} to access the file without materializing the nodes.
+     *
+     * @param <E>   the type parameter
+     * @param path  the path of the file
+     * @param codec the codec of the values
+     * @return the root
+     * @throws IOException if the file cannot be mapped or does not hold a tree in the binary format
+     */
+    public static <E> NaryTreeNode<E> readBinary(final Path path, final BinaryValueCodec<E> codec)
+            throws IOException {
+        return NaryTreeBinary.read(NaryTreeBinary.map(path), codec);
+    }
+
+    /**
+     * Build a tree from the parent of every node, the children of a node being in the order of their indexes. Every
+     * node is created with the exact capacity for its children.
+     *
+     * @param <E>     the type parameter
+     * @param values  the value of every node, a random access list
+     * @param parents the index of the parent of every node, -1 for the root
+     * @return the root
+     */
+    public static <E> NaryTreeNode<E> fromParentArray(final List<? extends E> values, final int[] parents) {
+        return NaryTreeBuilder.fromParentArray(values, parents, null);
+    }
+
+    /**
+     * Build a tree from the parent of every node, creating and linking the nodes in parallel.
+     *
+     * @param <E>     the type parameter
+     * @param values  the value of every node, a random access list safe to read from several threads
+     * @param parents the index of the parent of every node, -1 for the root
+     * @param pool    the pool
+     * @return the root
+     * @see #fromParentArray(List, int[])
+     */
+    public static <E> NaryTreeNode<E> fromParentArray(final List<? extends E> values, final int[] parents,
+                                                      final ForkJoinPool pool) {
+        return NaryTreeBuilder.fromParentArray(values, parents, Objects.requireNonNull(pool, "pool"));
+    }
+
+    /**
+     * Build a tree from its edges, the children of a node being in the order of their indexes.
+     *
+     * @param <E>      the type parameter
+     * @param values   the value of every node, a random access list
+     * @param parents  the index of the parent of every edge
+     * @param children the index of the child of every edge
+     * @return the root
+     */
+    public static <E> NaryTreeNode<E> fromEdges(final List<? extends E> values, final int[] parents,
+                                                final int[] children) {
+        return NaryTreeBuilder.fromEdges(values, parents, children);
+    }
+
+    /**
+     * Build a tree from its values and children counts in pre-order, as listed by {@link #toPrefixList()}.
+     *
+     * @param <E>            the type parameter
+     * @param values         the values in pre-order, a random access list
+     * @param childrenCounts the children count of every node, in pre-order
+     * @return the root
+     */
+    public static <E> NaryTreeNode<E> fromPrefix(final List<? extends E> values, final int[] childrenCounts) {
+        return NaryTreeBuilder.fromPrefix(values, childrenCounts);
+    }
+
+    /**
+     * Build a tree from rows such as those of a table of {@code (id, parentId, value)}, without a map from the ids
+     * to the nodes. The root is the only row whose parent id is not the id of a row, and the children of a node are
+     * in the order of the stream.
+     *
+     * @param <R>      the type of the rows
+     * @param <E>      the type parameter
+     * @param rows     the rows
+     * @param id       the id of a row
+     * @param parentId the id of the parent of a row
+     * @param value    the value of a row
+     * @return the root
+     */
+    public static <R, E> NaryTreeNode<E> fromRows(final Stream<R> rows, final ToLongFunction<? super R> id,
+                                                  final ToLongFunction<? super R> parentId,
+                                                  final Function<? super R, ? extends E> value) {
+        return NaryTreeBuilder.fromRows(rows, id, parentId, value);
+    }
+
+    /**
+     * To pretty text string.
+     *
+     * @return the string
+     */
+    public String toPrettyText() {
+        return this.render(TreeRenderer.Style.PRETTY, TreeRenderer.UNLIMITED, TreeRenderer.UNLIMITED,
+                TreeMetrics.Operation.TO_TEXT);
+    }
+
+    /**
+     * To pretty text string, truncated. The children of the nodes at the maximum depth, and the nodes past the maximum
+     * number, are replaced by a {@value TreeRenderer#ELLIPSIS} line.
+     *
+     * @param maxDepth the depth of the deepest rendered nodes, 0 for the root
+     * @param maxNodes the maximum number of rendered nodes
+     * @return the string
+     */
+    public String toPrettyText(final int maxDepth, final int maxNodes) {
+        return this.render(TreeRenderer.Style.PRETTY, maxDepth, maxNodes, TreeMetrics.Operation.TO_TEXT);
+    }
+
+    /**
+     * Write the text of {@link #toPrettyText(int, int)} to an appendable, without building it in memory.
+     *
+     * @param appendable the appendable
+     * @param maxDepth   the depth of the deepest rendered nodes, 0 for the root
+     * @param maxNodes   the maximum number of rendered nodes
+     * @throws IOException if the appendable fails
+     */
+    public void writePrettyText(final Appendable appendable, final int maxDepth, final int maxNodes)
+            throws IOException {
+        this.render(TreeRenderer.Style.PRETTY, appendable, maxDepth, maxNodes);
+    }
+
+    @Override
+    public String toString() {
+        return this.render(TreeRenderer.Style.DEBUG, TreeRenderer.UNLIMITED, TreeRenderer.UNLIMITED, null);
+    }
+
+    private String render(final TreeRenderer.Style style, final int maxDepth, final int maxNodes,
+                          final TreeMetrics.Operation operation) {
+        final TreeOperationSample sample = operation == null ? null : TreeOperationSample.start(operation);
+        final StringBuilder builder = new StringBuilder();
+        try {
+            TreeRenderer.render(this, style, builder, maxDepth, maxNodes, sample);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (sample != null) {
+                sample.output(builder.length());
+            }
+            TreeOperationSample.stop(sample);
+        }
+        return builder.toString();
+    }
+
+    private void render(final TreeRenderer.Style style, final Appendable appendable, final int maxDepth,
+                        final int maxNodes) throws IOException {
+        final TreeOperationSample sample = TreeOperationSample.start(TreeMetrics.Operation.TO_TEXT);
+        try {
+            TreeRenderer.render(this, style, sample == null ? appendable : sample.counting(appendable), maxDepth,
+                    maxNodes, sample);
+        } finally {
+            TreeOperationSample.stop(sample);
+        }
+    }
+
+    /**
+     * Return a postfix list of all values.
+     *
+     * @return the list
+     */
+    public List<E> toPostfixList() {
+        final TreeOperationSample sample = TreeOperationSample.start(TreeMetrics.Operation.TO_POSTFIX_LIST);
+        return this.toList(TreeCursor.postOrder(this, sample), sample);
+    }
+
+    /**
+     * Return a prefix list of all values.
+     *
+     * @return the list
+     */
+    public List<E> toPrefixList() {
+        final TreeOperationSample sample = TreeOperationSample.start(TreeMetrics.Operation.TO_PREFIX_LIST);
+        return this.toList(TreeCursor.preOrder(this, sample), sample);
+    }
+
+    /**
+     * Return a read by width list of all values.
+     *
+     * @return the list
+     */
+    public List<E> toByWidthList() {
+        final TreeOperationSample sample = TreeOperationSample.start(TreeMetrics.Operation.TO_BY_WIDTH_LIST);
+        return this.toList(LevelOrderCursor.of(this, sample), sample);
+    }
+
+    /**
+     * Lazy iterator over the values in prefix order. The tree must not be modified during the iteration.
+     *
+     * @return the iterator
+     */
+    public Iterator<E> prefixIterator() {
+        return this.iterator(Order.PREFIX);
+    }
+
+    /**
+     * Lazy iterator over the values in postfix order. The tree must not be modified during the iteration.
+     *
+     * @return the iterator
+     */
+    public Iterator<E> postfixIterator() {
+        return this.iterator(Order.POSTFIX);
+    }
+
+    /**
+     * Lazy iterator over the values read by width. The tree must not be modified during the iteration.
+     *
+     * @return the iterator
+     */
+    public Iterator<E> breadthFirstIterator() {
+        return this.iterator(Order.BY_WIDTH);
+    }
+
+    /**
+     * Lazy iterator over the values in a given order. The tree must not be modified during the iteration.
+     *
+     * @param order the order
+     * @return the iterator
+     */
+    public Iterator<E> iterator(final Order order) {
+        return new TraversalIterator<>(this.cursor(order), node -> node.value);
+    }
+
+    /**
+     * Lazy iterator over the nodes in a given order. The tree must not be modified during the iteration.
+     *
+     * @param order the order
+     * @return the iterator
+     */
+    public Iterator<NaryTreeNode<E>> nodeIterator(final Order order) {
+        return new TraversalIterator<>(this.cursor(order), node -> node);
+    }
+
+    /**
+     * Lazy sequential stream of the values in a given order. The tree must not be modified while the stream is
+     * consumed.
+     *
+     * @param order the order
+     * @return the stream
+     */
+    public Stream<E> stream(final Order order) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this.iterator(order), Spliterator.ORDERED),
+                false);
+    }
+
+    /**
+     * Lazy sequential stream of the nodes in a given order. The tree must not be modified while the stream is
+     * consumed.
+     *
+     * @param order the order
+     * @return the stream
+     */
+    public Stream<NaryTreeNode<E>> nodeStream(final Order order) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this.nodeIterator(order),
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.DISTINCT), false);
+    }
+
+    /**
+     * Gets the size of the tree, computed in parallel on the common fork-join pool.
+     *
+     * @return the size
+     */
+    public int getSizeParallel() {
+        return this.getSizeParallel(ForkJoinPool.commonPool(), NaryTreeNode.DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Gets the size of the tree, computed in parallel.
+     *
+     * @param pool      the pool running the computation
+     * @param threshold the number of nodes a task visits sequentially before it may split
+     * @return the size
+     */
+    public int getSizeParallel(final ForkJoinPool pool, final int threshold) {
+        if (this.statistics != null) {
+            return this.statistics.size;
+        }
+        return (int) this.scanParallel(ParallelTreeScan.Kind.SIZE, null, pool, threshold);
+    }
+
+    /**
+     * Gets the height of the tree, computed in parallel on the common fork-join pool.
+     *
+     * @return the height
+     */
+    public int getHeightParallel() {
+        return this.getHeightParallel(ForkJoinPool.commonPool(), NaryTreeNode.DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Gets the height of the tree, computed in parallel.
+     *
+     * @param pool      the pool running the computation
+     * @param threshold the number of nodes a task visits sequentially before it may split
+     * @return the height
+     */
+    public int getHeightParallel(final ForkJoinPool pool, final int threshold) {
+        if (this.statistics != null) {
+            return this.statistics.height;
+        }
+        return (int) this.scanParallel(ParallelTreeScan.Kind.HEIGHT, null, pool, threshold);
+    }
+
+    /**
+     * Gets the number of leaves in the tree, computed in parallel on the common fork-join pool.
+     *
+     * @return the number of leaves
+     */
+    public int getNumberOfLeavesParallel() {
+        return this.getNumberOfLeavesParallel(ForkJoinPool.commonPool(), NaryTreeNode.DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Gets the number of leaves in the tree, computed in parallel.
+     *
+     * @param pool      the pool running the computation
+     * @param threshold the number of nodes a task visits sequentially before it may split
+     * @return the number of leaves
+     */
+    public int getNumberOfLeavesParallel(final ForkJoinPool pool, final int threshold) {
+        if (this.statistics != null) {
+            return this.statistics.leaves;
+        }
+        return (int) this.scanParallel(ParallelTreeScan.Kind.LEAVES, null, pool, threshold);
+    }
+
+    /**
+     * Gets the number of nodes in the tree, computed in parallel on the common fork-join pool.
+     *
+     * @return the number of nodes
+     */
+    public int getNumberOfNodesParallel() {
+        return this.getSizeParallel();
+    }
+
+    /**
+     * Gets the number of nodes in the tree, computed in parallel.
+     *
+     * @param pool      the pool running the computation
+     * @param threshold the number of nodes a task visits sequentially before it may split
+     * @return the number of nodes
+     */
+    public int getNumberOfNodesParallel(final ForkJoinPool pool, final int threshold) {
+        return this.getSizeParallel(pool, threshold);
+    }
+
+    /**
+     * Contains boolean, searched in parallel on the common fork-join pool.
+     *
+     * @param value the value
+     * @return the boolean
+     */
+    public boolean containsParallel(final E value) {
+        return this.containsParallel(value, ForkJoinPool.commonPool(), NaryTreeNode.DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Contains boolean, searched in parallel. All the tasks stop as soon as one of them finds the value.
+     *
+     * @param value     the value
+     * @param pool      the pool running the computation
+     * @param threshold the number of nodes a task visits sequentially before it may split
+     * @return the boolean
+     */
+    public boolean containsParallel(final E value, final ForkJoinPool pool, final int threshold) {
+        return this.scanParallel(ParallelTreeScan.Kind.CONTAINS, value, pool, threshold) != 0;
+    }
+
+    /**
+     * Parallel stream of the values. The stream is unordered: it splits the tree into subtrees, so that reductions
+     * over the values run in parallel. The tree must not be modified while the stream is consumed.
+     *
+     * @return the stream
+     */
+    public Stream<E> parallelStream() {
+        return StreamSupport.stream(new SubtreeSpliterator<>(this, node -> node.value, 0), true);
+    }
+
+    /**
+     * Parallel stream of the nodes. The stream is unordered: it splits the tree into subtrees, so that reductions
+     * over the nodes run in parallel. The tree must not be modified while the stream is consumed.
+     *
+     * @return the stream
+     */
+    public Stream<NaryTreeNode<E>> parallelNodeStream() {
+        return StreamSupport.stream(new SubtreeSpliterator<>(this, node -> node,
+                Spliterator.NONNULL | Spliterator.DISTINCT), true);
+    }
+
+    /**
+     * Copy the tree, mapping every value. Every copied node has the exact capacity for its children.
+     *
+     * @param <R>    the type parameter of the copy
+     * @param mapper the function mapping every value
+     * @return the root of the copy
+     */
+    public <R> NaryTreeNode<R> map(final Function<? super E, ? extends R> mapper) {
+        return TreeFold.map(this, mapper, null, 0);
+    }
+
+    /**
+     * Copy the tree, mapping every value, in parallel on the common fork-join pool.
+     *
+     * @param <R>    the type parameter of the copy
+     * @param mapper the function mapping every value, called from several threads
+     * @return the root of the copy
+     * @see #map(Function)
+     */
+    public <R> NaryTreeNode<R> mapParallel(final Function<? super E, ? extends R> mapper) {
+        return this.mapParallel(mapper, ForkJoinPool.commonPool(), NaryTreeNode.DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Copy the tree, mapping every value, in parallel.
+     *
+     * @param <R>       the type parameter of the copy
+     * @param mapper    the function mapping every value, called from several threads
+     * @param pool      the pool running the copy
+     * @param threshold the number of nodes a task visits sequentially before it may split
+     * @return the root of the copy
+     * @see #map(Function)
+     */
+    public <R> NaryTreeNode<R> mapParallel(final Function<? super E, ? extends R> mapper, final ForkJoinPool pool,
+                                           final int threshold) {
+        return TreeFold.map(this, mapper, pool, threshold);
+    }
+
+    /**
+     * Copy the tree without the subtrees whose root fails a predicate. The predicate is not called on the
+     * descendants of a node that fails it.
+     *
+     * @param keep whether the subtree of a node is kept
+     * @return the root of the copy, empty if this node fails the predicate
+     */
+    public Optional<NaryTreeNode<E>> prune(final Predicate<? super E> keep) {
+        return TreeFold.prune(this, keep, null, 0);
+    }
+
+    /**
+     * Copy the tree without the subtrees whose root fails a predicate, in parallel on the common fork-join pool.
+     *
+     * @param keep whether the subtree of a node is kept, called from several threads
+     * @return the root of the copy, empty if this node fails the predicate
+     * @see #prune(Predicate)
+     */
+    public Optional<NaryTreeNode<E>> pruneParallel(final Predicate<? super E> keep) {
+        return this.pruneParallel(keep, ForkJoinPool.commonPool(), NaryTreeNode.DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Copy the tree without the subtrees whose root fails a predicate, in parallel.
+     *
+     * @param keep      whether the subtree of a node is kept, called from several threads
+     * @param pool      the pool running the copy
+     * @param threshold the number of nodes a task visits sequentially before it may split
+     * @return the root of the copy, empty if this node fails the predicate
+     * @see #prune(Predicate)
+     */
+    public Optional<NaryTreeNode<E>> pruneParallel(final Predicate<? super E> keep, final ForkJoinPool pool,
+                                                   final int threshold) {
+        return TreeFold.prune(this, keep, pool, threshold);
+    }
+
+    /**
+     * Copy the nodes of the tree that match a predicate, with all their ancestors. The predicate is only called on
+     * the nodes with no matching descendant, as the others are kept anyway.
+     *
+     * @param filter the predicate
+     * @return the root of the copy, empty if no node matches
+     */
+    public Optional<NaryTreeNode<E>> filterKeepingAncestors(final Predicate<? super E> filter) {
+        return TreeFold.filterKeepingAncestors(this, filter, null, 0);
+    }
+
+    /**
+     * Copy the nodes of the tree that match a predicate, with all their ancestors, in parallel on the common
+     * fork-join pool.
+     *
+     * @param filter the predicate, called from several threads
+     * @return the root of the copy, empty if no node matches
+     * @see #filterKeepingAncestors(Predicate)
+     */
+    public Optional<NaryTreeNode<E>> filterKeepingAncestorsParallel(final Predicate<? super E> filter) {
+        return this.filterKeepingAncestorsParallel(filter, ForkJoinPool.commonPool(),
+                NaryTreeNode.DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Copy the nodes of the tree that match a predicate, with all their ancestors, in parallel.
+     *
+     * @param filter    the predicate, called from several threads
+     * @param pool      the pool running the copy
+     * @param threshold the number of nodes a task visits sequentially before it may split
+     * @return the root of the copy, empty if no node matches
+     * @see #filterKeepingAncestors(Predicate)
+     */
+    public Optional<NaryTreeNode<E>> filterKeepingAncestorsParallel(final Predicate<? super E> filter,
+                                                                    final ForkJoinPool pool, final int threshold) {
+        return TreeFold.filterKeepingAncestors(this, filter, pool, threshold);
+    }
+
+    /**
+     * Fold the tree bottom-up: the result of a node combines its value with the results of its children, in order.
+     * The fold is iterative, so it works on trees of any depth.
+     *
+     * @param <R>      the type of the results
+     * @param combiner the function combining the value of a node with the unmodifiable list of the results of its
+     *                 children
+     * @return the result of this node
+     */
+    public <R> R fold(final BiFunction<? super E, ? super List<R>, ? extends R> combiner) {
+        return TreeFold.fold(this, combiner, null, 0);
+    }
+
+    /**
+     * Create an aggregate of the tree this node belongs to: the fold of {@link #fold(BiFunction)}, with the result of
+     * every node cached and kept up to date by the changes of the tree. {@link #setValue(Object)}, adding, removing,
+     * moving and sorting children only drop the results of the changed node and of its ancestors, which the next
+     * query combines again, so that the aggregate follows small changes in the depth of the changed node instead of
+     * the size of the tree. The aggregate follows this node, also when its tree is added to another one, until it is
+     * closed or this node is removed from its tree.
+     *
+     * @param <R>      the type of the results
+     * @param combiner the function combining the value of a node with the unmodifiable list of the results of its
+     *                 children, without side effect on the tree
+     * @return the aggregate
+     */
+    public <R> TreeAggregate<E, R> aggregate(final BiFunction<? super E, ? super List<R>, ? extends R> combiner) {
+        if (this.context == null) {
+            NaryTreeNode.joinContext(new TreeContext<>(this), this);
+        }
+        final TreeAggregate<E, R> aggregate = new TreeAggregate<>(this, combiner, this.context);
+        this.context.aggregates.add(aggregate);
+        return aggregate;
+    }
+
+    /**
+     * Remove a closed aggregate from the context of its tree, and drop the context once unused.
+     *
+     * @param <E>       the type parameter
+     * @param context   the context
+     * @param aggregate the aggregate
+     */
+    static <E> void removeAggregate(final TreeContext<E> context, final TreeAggregate<E, ?> aggregate) {
+        context.aggregates.remove(aggregate);
+        if (!context.isUsed() && context.root.context == context) {
+            NaryTreeNode.leaveContext(context, context.root);
+        }
+    }
+
+    /**
+     * Does this node belong to the tree of a context.
+     *
+     * @param context the context
+     * @return the boolean
+     */
+    boolean belongsTo(final TreeContext<E> context) {
+        return this.context == context;
+    }
+
+    /**
+     * Fold the tree bottom-up, in parallel on the common fork-join pool.
+     *
+     * @param <R>      the type of the results
+     * @param combiner the function combining the value of a node with the unmodifiable list of the results of its
+     *                 children, called from several threads
+     * @return the result of this node
+     * @see #fold(BiFunction)
+     */
+    public <R> R foldParallel(final BiFunction<? super E, ? super List<R>, ? extends R> combiner) {
+        return this.foldParallel(combiner, ForkJoinPool.commonPool(), NaryTreeNode.DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Fold the tree bottom-up, in parallel.
+     *
+     * @param <R>       the type of the results
+     * @param combiner  the function combining the value of a node with the unmodifiable list of the results of its
+     *                  children, called from several threads
+     * @param pool      the pool running the fold
+     * @param threshold the number of nodes a task visits sequentially before it may split
+     * @return the result of this node
+     * @see #fold(BiFunction)
+     */
+    public <R> R foldParallel(final BiFunction<? super E, ? super List<R>, ? extends R> combiner,
+                              final ForkJoinPool pool, final int threshold) {
+        return TreeFold.fold(this, combiner, pool, threshold);
+    }
+
+    /**
+     * Reduce the values of the tree, in pre-order.
+     *
+     * @param <R>         the type of the result
+     * @param identity    the identity of the combiner
+     * @param accumulator the function adding a value to a result
+     * @param combiner    the function combining two results, as for {@link Stream#reduce(Object, BiFunction,
+     *                    BinaryOperator)}
+     * @return the result
+     */
+    public <R> R reduce(final R identity, final BiFunction<R, ? super E, R> accumulator,
+                        final BinaryOperator<R> combiner) {
+        return this.stream(Order.PREFIX).reduce(identity, accumulator, combiner);
+    }
+
+    /**
+     * Reduce the values of the tree in parallel on the common fork-join pool, in no particular order.
+     *
+     * @param <R>         the type of the result
+     * @param identity    the identity of the combiner
+     * @param accumulator the function adding a value to a result, associative
+     * @param combiner    the function combining two results, associative and commutative
+     * @return the result
+     * @see #parallelStream()
+     */
+    public <R> R reduceParallel(final R identity, final BiFunction<R, ? super E, R> accumulator,
+                                final BinaryOperator<R> combiner) {
+        return this.parallelStream().reduce(identity, accumulator, combiner);
+    }
+
+    private long scanParallel(final ParallelTreeScan.Kind kind, final E target, final ForkJoinPool pool,
+                              final int threshold) {
+        return pool.invoke(new ParallelTreeScan<>(kind, target, this, threshold));
+    }
+
+    private NodeCursor<E> cursor(final Order order) {
+        return switch (order) {
+            case PREFIX -> TreeCursor.preOrder(this);
+            case POSTFIX -> TreeCursor.postOrder(this);
+            case BY_WIDTH -> new LevelOrderCursor<>(this);
+        };
+    }
+
+    private List<E> toList(final NodeCursor<E> cursor, final TreeOperationSample sample) {
+        final List<E> list = new ArrayList<>();
+        try {
+            while (cursor.next()) {
+                list.add(cursor.node().value);
+            }
+        } finally {
+            TreeOperationSample.stop(sample);
+        }
+        return list;
+    }
+
+    /**
+     * List the nodes of the subtree in a given order, down to a maximum depth, up to a maximum number of nodes, and
+     * reading a window of the children of every node. The traversal stops at the last returned node, so the cost of a
+     * query depends on its bounds, not on the size of the tree.
+     *
+     * @param order       the order
+     * @param maxDepth    the depth of the deepest returned nodes, 0 for this node
+     * @param maxNodes    the maximum number of returned nodes
+     * @param childOffset the index of the first child visited for every node
+     * @param childLimit  the maximum number of children visited for every node
+     * @return the nodes
+     */
+    public List<NaryTreeNode<E>> query(final Order order, final int maxDepth, final int maxNodes,
+                                       final int childOffset, final int childLimit) {
+        return TreeWindow.query(this, order, maxDepth, maxNodes, childOffset, childLimit);
+    }
+
+    /**
+     * Cursor over the subtree level by level, starting at the level of this node, reading a window of the children
+     * of every node. The tree must not be modified during the iteration.
+     *
+     * @param childOffset the index of the first child visited for every node
+     * @param childLimit  the maximum number of children visited for every node
+     * @return the cursor
+     */
+    public TreeLevelCursor<E> levelCursor(final int childOffset, final int childLimit) {
+        return new TreeLevelCursor<>(this, childOffset, childLimit);
+    }
+
+    /**
+     * Cursor over the subtree level by level, resuming at a position given by {@link TreeLevelCursor#getPosition()}
+     * for the same window of children.
+     *
+     * @param childOffset the index of the first child visited for every node
+     * @param childLimit  the maximum number of children visited for every node
+     * @param position    the position
+     * @return the cursor
+     * @throws IllegalArgumentException if the position is not in the window of the subtree
+     */
+    public TreeLevelCursor<E> levelCursor(final int childOffset, final int childLimit, final int[] position) {
+        return new TreeLevelCursor<>(this, childOffset, childLimit, position);
+    }
+
+    /**
+     * The orders in which the nodes of a tree can be traversed.
+     */
+    public enum Order {
+        /**
+         * Every node before its children.
+         */
+        PREFIX,
+        /**
+         * Every node after its children.
+         */
+        POSTFIX,
+        /**
+         * Level by level, from the root down.
+         */
+        BY_WIDTH
+    }
+
+    /**
+     * Read-only live view of the children array. Its iterators throw a {@code ConcurrentModificationException} once
+     * the children are added, removed or sorted.
+     */
+    private final class ChildrenView extends AbstractList<NaryTreeNode<E>> implements RandomAccess {
+        @Override
+        public NaryTreeNode<E> get(final int index) {
+            return NaryTreeNode.this.getChild(index);
+        }
+
+        @Override
+        public int size() {
+            return NaryTreeNode.this.childrenCount;
+        }
+
+        @Override
+        public Iterator<NaryTreeNode<E>> iterator() {
+            return new Iterator<>() {
+                private final int expectedModCount = NaryTreeNode.this.modCount;
+                private int next;
+
+                @Override
+                public boolean hasNext() {
+                    return this.next != NaryTreeNode.this.childrenCount;
+                }
+
+                @Override
+                public NaryTreeNode<E> next() {
+                    if (NaryTreeNode.this.modCount != this.expectedModCount) {
+                        throw new ConcurrentModificationException();
+                    }
+                    if (this.next >= NaryTreeNode.this.childrenCount) {
+                        throw new NoSuchElementException();
+                    }
+                    return NaryTreeNode.this.children[this.next++];
+                }
+            };
         }
-        return list;
     }
 }
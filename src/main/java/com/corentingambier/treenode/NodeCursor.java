@@ -0,0 +1,29 @@
+package com.corentingambier.treenode;
+
+/**
+ * Cursor moving over the nodes of a tree in a given order.
+ *
+ * @param <E> the type parameter
+ */
+interface NodeCursor<E> {
+    /**
+     * Move to the next node.
+     *
+     * @return false once the traversal is over
+     */
+    boolean next();
+
+    /**
+     * Gets the current node.
+     *
+     * @return the node
+     */
+    NaryTreeNode<E> node();
+
+    /**
+     * Gets the depth of the current node, 0 for the root.
+     *
+     * @return the depth
+     */
+    int depth();
+}
@@ -0,0 +1,641 @@
+package com.corentingambier.treenode;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Nary tree of long values stored outside of the Java heap.
+ * <p>
+ * Every node is a fixed-size record in a direct {@link ByteBuffer}: its parent, first child, last child, next sibling,
+ * children count and value, so the whole tree costs the garbage collector a handful of objects however many nodes it
+ * holds. The records are allocated in chunks of a power of two nodes, and the records of removed nodes are reused
+ * through a free list. Nodes are identified by an int handle, the root being {@link #getRoot()}; the handle of a
+ * removed node must not be used again.
+ * <p>
+ * Every traversal follows the links of the records and allocates nothing on the heap, the by width order chaining its
+ * queue through the records. A tree is not thread-safe. Closing it frees the native memory of its chunks at once,
+ * through {@code sun.misc.Unsafe.invokeCleaner} of the jdk.unsupported module, rather than when the garbage collector
+ * finds them unreachable; after that, any call throws an {@link IllegalStateException}.
+ */
+public final class OffHeapNaryTree implements AutoCloseable {
+    /**
+     * The handle standing for no node.
+     */
+    public static final int NIL = -1;
+    /**
+     * The default number of nodes of a chunk.
+     */
+    public static final int DEFAULT_CHUNK_CAPACITY = 1 << 15;
+    private static final int PARENT = 0;
+    private static final int FIRST_CHILD = 4;
+    private static final int LAST_CHILD = 8;
+    private static final int NEXT_SIBLING = 12;
+    /**
+     * The children count, -1 for a free record.
+     */
+    private static final int CHILDREN_COUNT = 16;
+    /**
+     * The next node of the queue of the by width order.
+     */
+    private static final int QUEUE_NEXT = 20;
+    private static final int VALUE = 24;
+    private static final int NODE_SIZE = 32;
+    private static final int NODE_SHIFT = 5;
+    private static final int ROOT = 0;
+    private static final int INITIAL_STACK_CAPACITY = 16;
+    /**
+     * The method freeing the memory of a direct buffer, null without the jdk.unsupported module.
+     */
+    private static final MethodHandle INVOKE_CLEANER = OffHeapNaryTree.findInvokeCleaner();
+
+    private final int chunkShift;
+    private final int chunkMask;
+    private ByteBuffer[] chunks;
+    /**
+     * The number of records ever allocated, the handle of the next new record.
+     */
+    private int allocated;
+    private int freeList = OffHeapNaryTree.NIL;
+    private int size;
+
+    /**
+     * Instantiates a new off-heap nary tree.
+     *
+     * @param rootValue the value of the root
+     */
+    public OffHeapNaryTree(final long rootValue) {
+        this(rootValue, OffHeapNaryTree.DEFAULT_CHUNK_CAPACITY);
+    }
+
+    /**
+     * Instantiates a new off-heap nary tree.
+     *
+     * @param rootValue     the value of the root
+     * @param chunkCapacity the number of nodes of a chunk, a power of two
+     */
+    public OffHeapNaryTree(final long rootValue, final int chunkCapacity) {
+        if (chunkCapacity < 1 || Integer.bitCount(chunkCapacity) != 1
+                || chunkCapacity > Integer.MAX_VALUE >> OffHeapNaryTree.NODE_SHIFT) {
+            throw new IllegalArgumentException("Illegal chunk capacity: " + chunkCapacity);
+        }
+        this.chunkShift = Integer.numberOfTrailingZeros(chunkCapacity);
+        this.chunkMask = chunkCapacity - 1;
+        this.chunks = new ByteBuffer[0];
+        this.allocate(OffHeapNaryTree.NIL, rootValue);
+    }
+
+    /**
+     * Copy a tree of {@link LongNaryTreeNode} off-heap.
+     *
+     * @param root the root
+     * @return the tree
+     */
+    public static OffHeapNaryTree of(final LongNaryTreeNode root) {
+        final OffHeapNaryTree tree = new OffHeapNaryTree(root.getValue());
+        // The nodes still to copy, with the handle of the copy of their parent
+        LongNaryTreeNode[] pending = new LongNaryTreeNode[OffHeapNaryTree.INITIAL_STACK_CAPACITY];
+        int[] parents = new int[OffHeapNaryTree.INITIAL_STACK_CAPACITY];
+        int count = 0;
+        for (int i = root.getChildrenCount() - 1; i >= 0; i--) {
+            if (count == pending.length) {
+                pending = Arrays.copyOf(pending, count << 1);
+                parents = Arrays.copyOf(parents, count << 1);
+            }
+            pending[count] = root.getChild(i);
+            parents[count++] = OffHeapNaryTree.ROOT;
+        }
+        while (count > 0) {
+            final LongNaryTreeNode node = pending[--count];
+            pending[count] = null;
+            final int copy = tree.addChild(parents[count], node.getValue());
+            if (count + node.getChildrenCount() > pending.length) {
+                final int capacity = Math.max(pending.length << 1, count + node.getChildrenCount());
+                pending = Arrays.copyOf(pending, capacity);
+                parents = Arrays.copyOf(parents, capacity);
+            }
+            for (int i = node.getChildrenCount() - 1; i >= 0; i--) {
+                pending[count] = node.getChild(i);
+                parents[count++] = copy;
+            }
+        }
+        return tree;
+    }
+
+    /**
+     * Gets the root.
+     *
+     * @return the root
+     */
+    public int getRoot() {
+        this.checkOpen();
+        return OffHeapNaryTree.ROOT;
+    }
+
+    /**
+     * Gets the number of nodes of the tree, in constant time.
+     *
+     * @return the size
+     */
+    public int size() {
+        this.checkOpen();
+        return this.size;
+    }
+
+    /**
+     * Gets the number of bytes of native memory reserved by the tree.
+     *
+     * @return the reserved bytes
+     */
+    public long getReservedBytes() {
+        this.checkOpen();
+        return (long) this.chunks.length * (this.chunkMask + 1) * OffHeapNaryTree.NODE_SIZE;
+    }
+
+    /**
+     * Gets the value of a node.
+     *
+     * @param node the node
+     * @return the value
+     */
+    public long getValue(final int node) {
+        this.check(node);
+        return this.getLong(node, OffHeapNaryTree.VALUE);
+    }
+
+    /**
+     * Sets the value of a node.
+     *
+     * @param node  the node
+     * @param value the value
+     */
+    public void setValue(final int node, final long value) {
+        this.check(node);
+        this.putLong(node, OffHeapNaryTree.VALUE, value);
+    }
+
+    /**
+     * Gets the parent of a node.
+     *
+     * @param node the node
+     * @return the parent, {@link #NIL} for the root
+     */
+    public int getParent(final int node) {
+        this.check(node);
+        return this.getInt(node, OffHeapNaryTree.PARENT);
+    }
+
+    /**
+     * Gets children count.
+     *
+     * @param node the node
+     * @return the children count
+     */
+    public int getChildrenCount(final int node) {
+        this.check(node);
+        return this.getInt(node, OffHeapNaryTree.CHILDREN_COUNT);
+    }
+
+    /**
+     * Is the node a leaf.
+     *
+     * @param node the node
+     * @return the boolean
+     */
+    public boolean isLeaf(final int node) {
+        return this.getChildrenCount(node) == 0;
+    }
+
+    /**
+     * Gets the first child of a node.
+     *
+     * @param node the node
+     * @return the first child, {@link #NIL} for a leaf
+     */
+    public int getFirstChild(final int node) {
+        this.check(node);
+        return this.getInt(node, OffHeapNaryTree.FIRST_CHILD);
+    }
+
+    /**
+     * Gets the next sibling of a node.
+     *
+     * @param node the node
+     * @return the next sibling, {@link #NIL} for the last child
+     */
+    public int getNextSibling(final int node) {
+        this.check(node);
+        return this.getInt(node, OffHeapNaryTree.NEXT_SIBLING);
+    }
+
+    /**
+     * Gets a child of a node, in time proportional to its index. The last child is found in constant time.
+     *
+     * @param node  the node
+     * @param index the index of the child
+     * @return the child
+     */
+    public int getChild(final int node, final int index) {
+        final int childrenCount = this.getChildrenCount(node);
+        Objects.checkIndex(index, childrenCount);
+        if (index == childrenCount - 1) {
+            return this.getInt(node, OffHeapNaryTree.LAST_CHILD);
+        }
+        int child = this.getInt(node, OffHeapNaryTree.FIRST_CHILD);
+        for (int i = 0; i < index; i++) {
+            child = this.getInt(child, OffHeapNaryTree.NEXT_SIBLING);
+        }
+        return child;
+    }
+
+    /**
+     * Add a child after the last child of a node.
+     *
+     * @param node  the node
+     * @param value the value of the child
+     * @return the child
+     */
+    public int addChild(final int node, final long value) {
+        this.check(node);
+        final int child = this.allocate(node, value);
+        final int last = this.getInt(node, OffHeapNaryTree.LAST_CHILD);
+        if (last == OffHeapNaryTree.NIL) {
+            this.putInt(node, OffHeapNaryTree.FIRST_CHILD, child);
+        } else {
+            this.putInt(last, OffHeapNaryTree.NEXT_SIBLING, child);
+        }
+        this.putInt(node, OffHeapNaryTree.LAST_CHILD, child);
+        this.putInt(node, OffHeapNaryTree.CHILDREN_COUNT, this.getInt(node, OffHeapNaryTree.CHILDREN_COUNT) + 1);
+        return child;
+    }
+
+    /**
+     * Remove a child of a node with its subtree, whose records are freed.
+     *
+     * @param node  the node
+     * @param index the index of the child
+     */
+    public void removeChild(final int node, final int index) {
+        Objects.checkIndex(index, this.getChildrenCount(node));
+        int previous = OffHeapNaryTree.NIL;
+        int child = this.getInt(node, OffHeapNaryTree.FIRST_CHILD);
+        for (int i = 0; i < index; i++) {
+            previous = child;
+            child = this.getInt(child, OffHeapNaryTree.NEXT_SIBLING);
+        }
+        this.unlink(node, previous, child);
+    }
+
+    /**
+     * Remove a node with its subtree, whose records are freed.
+     *
+     * @param node the node, not the root
+     */
+    public void remove(final int node) {
+        final int parent = this.getParent(node);
+        if (parent == OffHeapNaryTree.NIL) {
+            throw new IllegalArgumentException("Cannot remove the root");
+        }
+        int previous = OffHeapNaryTree.NIL;
+        int child = this.getInt(parent, OffHeapNaryTree.FIRST_CHILD);
+        while (child != node) {
+            previous = child;
+            child = this.getInt(child, OffHeapNaryTree.NEXT_SIBLING);
+        }
+        this.unlink(parent, previous, node);
+    }
+
+    /**
+     * Gets the number of nodes of the subtree of a node, the node included.
+     *
+     * @param node the node
+     * @return the size
+     */
+    public int getSize(final int node) {
+        this.check(node);
+        int size = 0;
+        for (int current = node; current != OffHeapNaryTree.NIL; current = this.nextPrefix(node, current)) {
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * Gets the height of the tree.
+     *
+     * @return the height
+     */
+    public int getHeight() {
+        return this.getHeight(OffHeapNaryTree.ROOT);
+    }
+
+    /**
+     * Gets the height of the subtree of a node.
+     *
+     * @param node the node
+     * @return the height
+     */
+    public int getHeight(final int node) {
+        this.check(node);
+        int height = 1;
+        int depth = 1;
+        int current = node;
+        while (true) {
+            final int child = this.getInt(current, OffHeapNaryTree.FIRST_CHILD);
+            if (child != OffHeapNaryTree.NIL) {
+                current = child;
+                height = Math.max(height, ++depth);
+                continue;
+            }
+            while (current != node && this.getInt(current, OffHeapNaryTree.NEXT_SIBLING) == OffHeapNaryTree.NIL) {
+                current = this.getInt(current, OffHeapNaryTree.PARENT);
+                depth--;
+            }
+            if (current == node) {
+                return height;
+            }
+            current = this.getInt(current, OffHeapNaryTree.NEXT_SIBLING);
+        }
+    }
+
+    /**
+     * Contains boolean.
+     *
+     * @param value the value
+     * @return the boolean
+     */
+    public boolean contains(final long value) {
+        this.checkOpen();
+        for (int current = OffHeapNaryTree.ROOT; current != OffHeapNaryTree.NIL;
+             current = this.nextPrefix(OffHeapNaryTree.ROOT, current)) {
+            if (this.getLong(current, OffHeapNaryTree.VALUE) == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Visit the values of the tree in a given order.
+     *
+     * @param order  the order
+     * @param action the action on every value
+     */
+    public void forEach(final NaryTreeNode.Order order, final LongConsumer action) {
+        this.forEachNode(OffHeapNaryTree.ROOT, order, node -> action.accept(this.getLong(node, OffHeapNaryTree.VALUE)));
+    }
+
+    /**
+     * Visit the nodes of the subtree of a node in a given order. The subtree must not be modified during the visit.
+     *
+     * @param node   the node
+     * @param order  the order
+     * @param action the action on every node
+     */
+    public void forEachNode(final int node, final NaryTreeNode.Order order, final IntConsumer action) {
+        this.check(node);
+        switch (order) {
+            case PREFIX -> {
+                int current = node;
+                while (current != OffHeapNaryTree.NIL) {
+                    action.accept(current);
+                    current = this.nextPrefix(node, current);
+                }
+            }
+            case POSTFIX -> {
+                int current = this.firstPostfix(node);
+                while (current != OffHeapNaryTree.NIL) {
+                    action.accept(current);
+                    current = this.nextPostfix(node, current);
+                }
+            }
+            case BY_WIDTH -> {
+                // The queue is chained through the records, from head to tail
+                int tail = node;
+                this.putInt(node, OffHeapNaryTree.QUEUE_NEXT, OffHeapNaryTree.NIL);
+                for (int head = node; head != OffHeapNaryTree.NIL;
+                     head = this.getInt(head, OffHeapNaryTree.QUEUE_NEXT)) {
+                    int child = this.getInt(head, OffHeapNaryTree.FIRST_CHILD);
+                    while (child != OffHeapNaryTree.NIL) {
+                        this.putInt(tail, OffHeapNaryTree.QUEUE_NEXT, child);
+                        this.putInt(child, OffHeapNaryTree.QUEUE_NEXT, OffHeapNaryTree.NIL);
+                        tail = child;
+                        child = this.getInt(child, OffHeapNaryTree.NEXT_SIBLING);
+                    }
+                    action.accept(head);
+                }
+            }
+        }
+    }
+
+    /**
+     * Return the values of the tree in a given order.
+     *
+     * @param order the order
+     * @return the values
+     */
+    public long[] toArray(final NaryTreeNode.Order order) {
+        final long[] values = new long[this.size()];
+        final int[] index = new int[1];
+        this.forEach(order, value -> values[index[0]++] = value);
+        return values;
+    }
+
+    /**
+     * Return a prefix array of all values.
+     *
+     * @return the values
+     */
+    public long[] toPrefixArray() {
+        return this.toArray(NaryTreeNode.Order.PREFIX);
+    }
+
+    /**
+     * Return a postfix array of all values.
+     *
+     * @return the values
+     */
+    public long[] toPostfixArray() {
+        return this.toArray(NaryTreeNode.Order.POSTFIX);
+    }
+
+    /**
+     * Return a by width array of all values.
+     *
+     * @return the values
+     */
+    public long[] toByWidthArray() {
+        return this.toArray(NaryTreeNode.Order.BY_WIDTH);
+    }
+
+    /**
+     * Free the native memory of the tree. Closing a closed tree does nothing.
+     */
+    @Override
+    public void close() {
+        final ByteBuffer[] released = this.chunks;
+        if (released == null) {
+            return;
+        }
+        this.chunks = null;
+        this.size = 0;
+        this.allocated = 0;
+        this.freeList = OffHeapNaryTree.NIL;
+        if (OffHeapNaryTree.INVOKE_CLEANER == null) {
+            // The buffers are freed once unreachable
+            return;
+        }
+        for (final ByteBuffer chunk : released) {
+            try {
+                OffHeapNaryTree.INVOKE_CLEANER.invokeExact(chunk);
+            } catch (final RuntimeException | Error e) {
+                throw e;
+            } catch (final Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static MethodHandle findInvokeCleaner() {
+        try {
+            final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            final Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(theUnsafe.get(null));
+        } catch (final ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private int nextPrefix(final int root, final int node) {
+        final int child = this.getInt(node, OffHeapNaryTree.FIRST_CHILD);
+        if (child != OffHeapNaryTree.NIL) {
+            return child;
+        }
+        int current = node;
+        while (current != root) {
+            final int sibling = this.getInt(current, OffHeapNaryTree.NEXT_SIBLING);
+            if (sibling != OffHeapNaryTree.NIL) {
+                return sibling;
+            }
+            current = this.getInt(current, OffHeapNaryTree.PARENT);
+        }
+        return OffHeapNaryTree.NIL;
+    }
+
+    private int firstPostfix(final int node) {
+        int current = node;
+        int child = this.getInt(current, OffHeapNaryTree.FIRST_CHILD);
+        while (child != OffHeapNaryTree.NIL) {
+            current = child;
+            child = this.getInt(current, OffHeapNaryTree.FIRST_CHILD);
+        }
+        return current;
+    }
+
+    private int nextPostfix(final int root, final int node) {
+        if (node == root) {
+            return OffHeapNaryTree.NIL;
+        }
+        final int sibling = this.getInt(node, OffHeapNaryTree.NEXT_SIBLING);
+        return sibling == OffHeapNaryTree.NIL ? this.getInt(node, OffHeapNaryTree.PARENT) : this.firstPostfix(sibling);
+    }
+
+    private void unlink(final int parent, final int previous, final int child) {
+        final int next = this.getInt(child, OffHeapNaryTree.NEXT_SIBLING);
+        if (previous == OffHeapNaryTree.NIL) {
+            this.putInt(parent, OffHeapNaryTree.FIRST_CHILD, next);
+        } else {
+            this.putInt(previous, OffHeapNaryTree.NEXT_SIBLING, next);
+        }
+        if (next == OffHeapNaryTree.NIL) {
+            this.putInt(parent, OffHeapNaryTree.LAST_CHILD, previous);
+        }
+        this.putInt(parent, OffHeapNaryTree.CHILDREN_COUNT, this.getInt(parent, OffHeapNaryTree.CHILDREN_COUNT) - 1);
+        this.putInt(child, OffHeapNaryTree.NEXT_SIBLING, OffHeapNaryTree.NIL);
+        // In post-order a node comes before its next sibling and its parent, so it can be freed once left
+        int current = this.firstPostfix(child);
+        while (current != OffHeapNaryTree.NIL) {
+            final int following = this.nextPostfix(child, current);
+            this.free(current);
+            current = following;
+        }
+    }
+
+    private int allocate(final int parent, final long value) {
+        final int node;
+        if (this.freeList != OffHeapNaryTree.NIL) {
+            node = this.freeList;
+            this.freeList = this.getInt(node, OffHeapNaryTree.NEXT_SIBLING);
+        } else {
+            if (this.allocated == Integer.MAX_VALUE) {
+                throw new IllegalStateException("Too many nodes");
+            }
+            node = this.allocated++;
+            final int chunk = node >>> this.chunkShift;
+            if (chunk == this.chunks.length) {
+                this.chunks = Arrays.copyOf(this.chunks, chunk + 1);
+                this.chunks[chunk] = ByteBuffer.allocateDirect((this.chunkMask + 1) << OffHeapNaryTree.NODE_SHIFT)
+                        .order(ByteOrder.nativeOrder());
+            }
+        }
+        this.putInt(node, OffHeapNaryTree.PARENT, parent);
+        this.putInt(node, OffHeapNaryTree.FIRST_CHILD, OffHeapNaryTree.NIL);
+        this.putInt(node, OffHeapNaryTree.LAST_CHILD, OffHeapNaryTree.NIL);
+        this.putInt(node, OffHeapNaryTree.NEXT_SIBLING, OffHeapNaryTree.NIL);
+        this.putInt(node, OffHeapNaryTree.CHILDREN_COUNT, 0);
+        this.putLong(node, OffHeapNaryTree.VALUE, value);
+        this.size++;
+        return node;
+    }
+
+    private void free(final int node) {
+        this.putInt(node, OffHeapNaryTree.CHILDREN_COUNT, -1);
+        this.putInt(node, OffHeapNaryTree.NEXT_SIBLING, this.freeList);
+        this.freeList = node;
+        this.size--;
+    }
+
+    private void checkOpen() {
+        if (this.chunks == null) {
+            throw new IllegalStateException("The tree is closed");
+        }
+    }
+
+    private void check(final int node) {
+        this.checkOpen();
+        Objects.checkIndex(node, this.allocated);
+        if (this.getInt(node, OffHeapNaryTree.CHILDREN_COUNT) < 0) {
+            throw new IllegalArgumentException("Removed node: " + node);
+        }
+    }
+
+    private int getInt(final int node, final int field) {
+        return this.chunks[node >>> this.chunkShift]
+                .getInt(((node & this.chunkMask) << OffHeapNaryTree.NODE_SHIFT) + field);
+    }
+
+    private void putInt(final int node, final int field, final int value) {
+        this.chunks[node >>> this.chunkShift]
+                .putInt(((node & this.chunkMask) << OffHeapNaryTree.NODE_SHIFT) + field, value);
+    }
+
+    private long getLong(final int node, final int field) {
+        return this.chunks[node >>> this.chunkShift]
+                .getLong(((node & this.chunkMask) << OffHeapNaryTree.NODE_SHIFT) + field);
+    }
+
+    private void putLong(final int node, final int field, final long value) {
+        this.chunks[node >>> this.chunkShift]
+                .putLong(((node & this.chunkMask) << OffHeapNaryTree.NODE_SHIFT) + field, value);
+    }
+}
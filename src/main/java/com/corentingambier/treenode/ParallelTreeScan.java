@@ -0,0 +1,146 @@
+package com.corentingambier.treenode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Fork-join scan aggregating a tree of {@link NaryTreeNode}.
+ * <p>
+ * A task owns a stack of pending subtrees. It walks them sequentially and, once it has visited {@code threshold}
+ * nodes, hands the bottom half of its stack (the subtrees closest to the root, hence the largest ones) to a forked
+ * task as long as the pool is short of queued work. Wide and deep parts of the tree are split on demand, narrow trees
+ * never pay for a fork.
+ *
+ * @param <E> the type parameter
+ */
+final class ParallelTreeScan<E> extends RecursiveTask<Long> {
+    private static final int INITIAL_STACK_CAPACITY = 16;
+    private static final int MAX_SURPLUS_QUEUED_TASKS = 2;
+
+    private final Kind kind;
+    private final E target;
+    private final AtomicBoolean found;
+    private final int threshold;
+    private NaryTreeNode<E>[] nodes;
+    private int[] depths;
+    private int count;
+
+    @SuppressWarnings("unchecked")
+    ParallelTreeScan(final Kind kind, final E target, final NaryTreeNode<E> root, final int threshold) {
+        this(kind, target, new AtomicBoolean(), threshold, new NaryTreeNode[ParallelTreeScan.INITIAL_STACK_CAPACITY],
+                new int[ParallelTreeScan.INITIAL_STACK_CAPACITY], 0);
+        this.push(root, 0);
+    }
+
+    private ParallelTreeScan(final Kind kind, final E target, final AtomicBoolean found, final int threshold,
+                             final NaryTreeNode<E>[] nodes, final int[] depths, final int count) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("threshold must be positive: " + threshold);
+        }
+        this.kind = kind;
+        this.target = target;
+        this.found = found;
+        this.threshold = threshold;
+        this.nodes = nodes;
+        this.depths = depths;
+        this.count = count;
+    }
+
+    @Override
+    protected Long compute() {
+        long result = 0;
+        int visited = 0;
+        List<ParallelTreeScan<E>> forked = null;
+        while (this.count > 0) {
+            if (this.kind == Kind.CONTAINS && this.found.get()) {
+                break;
+            }
+            final NaryTreeNode<E> node = this.nodes[--this.count];
+            final int depth = this.depths[this.count];
+            this.nodes[this.count] = null;
+            switch (this.kind) {
+                case SIZE -> result++;
+                case LEAVES -> result += node.isLeaf() ? 1 : 0;
+                case HEIGHT -> result = node.isLeaf() ? Math.max(result, depth + 1) : result;
+                case CONTAINS -> {
+                    if (Objects.equals(node.getValue(), this.target)) {
+                        this.found.set(true);
+                        result = 1;
+                    }
+                }
+            }
+            for (int i = node.getChildrenCount() - 1; i >= 0; i--) {
+                this.push(node.getChild(i), depth + 1);
+            }
+            if (++visited >= this.threshold && this.count > 1
+                    && RecursiveTask.getSurplusQueuedTaskCount() <= ParallelTreeScan.MAX_SURPLUS_QUEUED_TASKS) {
+                if (forked == null) {
+                    forked = new ArrayList<>();
+                }
+                final ParallelTreeScan<E> task = this.splitBottomHalf();
+                task.fork();
+                forked.add(task);
+                visited = 0;
+            }
+        }
+        if (forked != null) {
+            for (final ParallelTreeScan<E> task : forked) {
+                result = this.combine(result, task.join());
+            }
+        }
+        return result;
+    }
+
+    private long combine(final long left, final long right) {
+        return switch (this.kind) {
+            case SIZE, LEAVES -> left + right;
+            case HEIGHT, CONTAINS -> Math.max(left, right);
+        };
+    }
+
+    private ParallelTreeScan<E> splitBottomHalf() {
+        final int half = this.count >>> 1;
+        final ParallelTreeScan<E> task = new ParallelTreeScan<>(this.kind, this.target, this.found, this.threshold,
+                Arrays.copyOf(this.nodes, half), Arrays.copyOf(this.depths, half), half);
+        System.arraycopy(this.nodes, half, this.nodes, 0, this.count - half);
+        System.arraycopy(this.depths, half, this.depths, 0, this.count - half);
+        Arrays.fill(this.nodes, this.count - half, this.count, null);
+        this.count -= half;
+        return task;
+    }
+
+    private void push(final NaryTreeNode<E> node, final int depth) {
+        if (this.count == this.nodes.length) {
+            this.nodes = Arrays.copyOf(this.nodes, this.count << 1);
+            this.depths = Arrays.copyOf(this.depths, this.count << 1);
+        }
+        this.nodes[this.count] = node;
+        this.depths[this.count++] = depth;
+    }
+
+    /**
+     * The aggregations computed by the scan.
+     */
+    enum Kind {
+        /**
+         * Number of nodes.
+         */
+        SIZE,
+        /**
+         * Number of leaves.
+         */
+        LEAVES,
+        /**
+         * Height of the tree.
+         */
+        HEIGHT,
+        /**
+         * 1 if a node holds the target value, 0 otherwise.
+         */
+        CONTAINS
+    }
+}
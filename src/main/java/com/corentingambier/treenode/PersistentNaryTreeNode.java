@@ -0,0 +1,447 @@
+package com.corentingambier.treenode;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.UnaryOperator;
+
+/**
+ * Immutable nary tree node, edited by path copying.
+ * <p>
+ * Every edit returns a new node and leaves the original untouched, so any root is a version of the tree that stays
+ * valid forever. An edit deep in the tree copies only the nodes on the path from the root to the edited node, every
+ * other subtree being shared between the old and the new version: a version costs memory proportional to the depth
+ * of the edit, not to the size of the tree. Nodes are addressed from a root by a path, the indexes of the children
+ * to follow, and have no parent link since a subtree may belong to many versions.
+ * <p>
+ * The size, the height and the hash code of every subtree are computed once, when its root is created.
+ *
+ * @param <E> the type parameter
+ */
+public final class PersistentNaryTreeNode<E> {
+    private static final PersistentNaryTreeNode<?>[] EMPTY_CHILDREN = {};
+    private static final int[] ROOT_PATH = {};
+
+    private final E value;
+    private final PersistentNaryTreeNode<E>[] children;
+    private final int size;
+    private final int height;
+    private final int hash;
+
+    private PersistentNaryTreeNode(final E value, final PersistentNaryTreeNode<E>[] children) {
+        this.value = value;
+        this.children = children;
+        int size = 1;
+        int height = 0;
+        int hash = Objects.hashCode(value);
+        for (final PersistentNaryTreeNode<E> child : children) {
+            size += child.size;
+            height = Math.max(height, child.height);
+            hash = 31 * hash + child.hash;
+        }
+        this.size = size;
+        this.height = height + 1;
+        this.hash = hash;
+    }
+
+    /**
+     * Create a leaf.
+     *
+     * @param <E>   the type parameter
+     * @param value the value
+     * @return the leaf
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentNaryTreeNode<E> of(final E value) {
+        return new PersistentNaryTreeNode<>(value, (PersistentNaryTreeNode<E>[]) PersistentNaryTreeNode.EMPTY_CHILDREN);
+    }
+
+    /**
+     * Create a node.
+     *
+     * @param <E>      the type parameter
+     * @param value    the value
+     * @param children the children
+     * @return the node
+     */
+    @SafeVarargs
+    public static <E> PersistentNaryTreeNode<E> of(final E value, final PersistentNaryTreeNode<E>... children) {
+        for (final PersistentNaryTreeNode<E> child : children) {
+            Objects.requireNonNull(child, "child");
+        }
+        return PersistentNaryTreeNode.create(value, children.clone());
+    }
+
+    /**
+     * Copy a tree of {@link NaryTreeNode}.
+     *
+     * @param <E>  the type parameter
+     * @param root the root
+     * @return the root of the copy
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentNaryTreeNode<E> copyOf(final NaryTreeNode<E> root) {
+        // In post-order, the children of a node are the last copies built before it
+        final ArrayList<PersistentNaryTreeNode<E>> built = new ArrayList<>();
+        final TreeCursor<E> cursor = TreeCursor.postOrder(root);
+        while (cursor.next()) {
+            final NaryTreeNode<E> node = cursor.node();
+            final int count = node.getChildrenCount();
+            final List<PersistentNaryTreeNode<E>> children = built.subList(built.size() - count, built.size());
+            final PersistentNaryTreeNode<E> copy = PersistentNaryTreeNode.create(node.getValue(),
+                    children.toArray(new PersistentNaryTreeNode[count]));
+            children.clear();
+            built.add(copy);
+        }
+        return built.get(0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> PersistentNaryTreeNode<E> create(final E value, final PersistentNaryTreeNode<E>[] children) {
+        return new PersistentNaryTreeNode<>(value, children.length == 0
+                ? (PersistentNaryTreeNode<E>[]) PersistentNaryTreeNode.EMPTY_CHILDREN : children);
+    }
+
+    /**
+     * Gets value.
+     *
+     * @return the value
+     */
+    public E getValue() {
+        return this.value;
+    }
+
+    /**
+     * Gets child.
+     *
+     * @param index the index
+     * @return the child
+     */
+    public PersistentNaryTreeNode<E> getChild(final int index) {
+        Objects.checkIndex(index, this.children.length);
+        return this.children[index];
+    }
+
+    /**
+     * Gets children.
+     *
+     * @return the children
+     */
+    public List<PersistentNaryTreeNode<E>> getChildren() {
+        return Collections.unmodifiableList(Arrays.asList(this.children));
+    }
+
+    /**
+     * Gets children count.
+     *
+     * @return the children count
+     */
+    public int getChildrenCount() {
+        return this.children.length;
+    }
+
+    /**
+     * Is leaf boolean.
+     *
+     * @return the boolean
+     */
+    public boolean isLeaf() {
+        return this.children.length == 0;
+    }
+
+    /**
+     * Gets the number of nodes of the tree, in constant time.
+     *
+     * @return the size
+     */
+    public int getSize() {
+        return this.size;
+    }
+
+    /**
+     * Gets the height of the tree, in constant time.
+     *
+     * @return the height
+     */
+    public int getHeight() {
+        return this.height;
+    }
+
+    /**
+     * Gets the node at the end of a path.
+     *
+     * @param path the indexes of the children to follow from this node
+     * @return the node
+     */
+    public PersistentNaryTreeNode<E> getNode(final int... path) {
+        PersistentNaryTreeNode<E> node = this;
+        for (final int index : path) {
+            node = node.getChild(index);
+        }
+        return node;
+    }
+
+    /**
+     * Return this node with another value.
+     *
+     * @param value the value
+     * @return the new node
+     */
+    public PersistentNaryTreeNode<E> withValue(final E value) {
+        return value == this.value ? this : new PersistentNaryTreeNode<>(value, this.children);
+    }
+
+    /**
+     * Return this node with a new leaf after its last child.
+     *
+     * @param childValue the child value
+     * @return the new node
+     */
+    public PersistentNaryTreeNode<E> withChildAdded(final E childValue) {
+        return this.withChildAdded(this.children.length, PersistentNaryTreeNode.of(childValue));
+    }
+
+    /**
+     * Return this node with a new child after its last child.
+     *
+     * @param child the child
+     * @return the new node
+     */
+    public PersistentNaryTreeNode<E> withChildAdded(final PersistentNaryTreeNode<E> child) {
+        return this.withChildAdded(this.children.length, child);
+    }
+
+    /**
+     * Return this node with a new child at an index.
+     *
+     * @param index the index of the child, from 0 to the children count
+     * @param child the child
+     * @return the new node
+     */
+    @SuppressWarnings("unchecked")
+    public PersistentNaryTreeNode<E> withChildAdded(final int index, final PersistentNaryTreeNode<E> child) {
+        Objects.checkIndex(index, this.children.length + 1);
+        Objects.requireNonNull(child, "child");
+        final PersistentNaryTreeNode<E>[] copy = new PersistentNaryTreeNode[this.children.length + 1];
+        System.arraycopy(this.children, 0, copy, 0, index);
+        copy[index] = child;
+        System.arraycopy(this.children, index, copy, index + 1, this.children.length - index);
+        return new PersistentNaryTreeNode<>(this.value, copy);
+    }
+
+    /**
+     * Return this node without one of its children.
+     *
+     * @param index the index of the child
+     * @return the new node
+     */
+    @SuppressWarnings("unchecked")
+    public PersistentNaryTreeNode<E> withChildRemoved(final int index) {
+        Objects.checkIndex(index, this.children.length);
+        final PersistentNaryTreeNode<E>[] copy = new PersistentNaryTreeNode[this.children.length - 1];
+        System.arraycopy(this.children, 0, copy, 0, index);
+        System.arraycopy(this.children, index + 1, copy, index, this.children.length - index - 1);
+        return PersistentNaryTreeNode.create(this.value, copy);
+    }
+
+    /**
+     * Return this node with one of its children replaced.
+     *
+     * @param index the index of the child
+     * @param child the new child
+     * @return the new node
+     */
+    public PersistentNaryTreeNode<E> withChildReplaced(final int index, final PersistentNaryTreeNode<E> child) {
+        Objects.checkIndex(index, this.children.length);
+        Objects.requireNonNull(child, "child");
+        if (this.children[index] == child) {
+            return this;
+        }
+        final PersistentNaryTreeNode<E>[] copy = this.children.clone();
+        copy[index] = child;
+        return new PersistentNaryTreeNode<>(this.value, copy);
+    }
+
+    /**
+     * Return this tree with the node at the end of a path replaced by the result of a function, copying only the
+     * nodes of the path.
+     *
+     * @param path   the indexes of the children to follow from this node
+     * @param update the function from the old node to the new one
+     * @return the new root
+     */
+    @SuppressWarnings("unchecked")
+    public PersistentNaryTreeNode<E> withNode(final int[] path, final UnaryOperator<PersistentNaryTreeNode<E>> update) {
+        final PersistentNaryTreeNode<E>[] nodes = new PersistentNaryTreeNode[path.length + 1];
+        nodes[0] = this;
+        for (int i = 0; i < path.length; i++) {
+            nodes[i + 1] = nodes[i].getChild(path[i]);
+        }
+        PersistentNaryTreeNode<E> node = Objects.requireNonNull(update.apply(nodes[path.length]), "node");
+        for (int i = path.length - 1; i >= 0; i--) {
+            node = nodes[i].withChildReplaced(path[i], node);
+        }
+        return node;
+    }
+
+    /**
+     * Return this tree with another value at the end of a path.
+     *
+     * @param path  the indexes of the children to follow from this node
+     * @param value the value
+     * @return the new root
+     */
+    public PersistentNaryTreeNode<E> withValue(final int[] path, final E value) {
+        return this.withNode(path, node -> node.withValue(value));
+    }
+
+    /**
+     * Return this tree with a new child after the last child of the node at the end of a path.
+     *
+     * @param path  the indexes of the children to follow from this node
+     * @param child the child
+     * @return the new root
+     */
+    public PersistentNaryTreeNode<E> withChildAdded(final int[] path, final PersistentNaryTreeNode<E> child) {
+        return this.withNode(path, node -> node.withChildAdded(child));
+    }
+
+    /**
+     * Return this tree without the node at the end of a path.
+     *
+     * @param path the indexes of the children to follow from this node, at least one
+     * @return the new root
+     */
+    public PersistentNaryTreeNode<E> withNodeRemoved(final int[] path) {
+        if (path.length == 0) {
+            throw new IllegalArgumentException("Cannot remove the root");
+        }
+        final int[] parentPath = path.length == 1 ? PersistentNaryTreeNode.ROOT_PATH :
+                Arrays.copyOf(path, path.length - 1);
+        return this.withNode(parentPath, node -> node.withChildRemoved(path[path.length - 1]));
+    }
+
+    /**
+     * Contains boolean.
+     *
+     * @param value the value
+     * @return the boolean
+     */
+    public boolean contains(final E value) {
+        final Iterator<PersistentNaryTreeNode<E>> nodes = this.prefixNodes();
+        while (nodes.hasNext()) {
+            if (Objects.equals(nodes.next().value, value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Return a prefix list of all values.
+     *
+     * @return the list
+     */
+    public List<E> toPrefixList() {
+        final List<E> list = new ArrayList<>(this.size);
+        final Iterator<PersistentNaryTreeNode<E>> nodes = this.prefixNodes();
+        while (nodes.hasNext()) {
+            list.add(nodes.next().value);
+        }
+        return list;
+    }
+
+    /**
+     * Copy the tree into a mutable {@link NaryTreeNode}. Every node is created with the exact capacity for its
+     * children.
+     *
+     * @return the root of the copy
+     */
+    public NaryTreeNode<E> toNaryTreeNode() {
+        final ArrayDeque<PersistentNaryTreeNode<E>> pending = new ArrayDeque<>();
+        final ArrayDeque<NaryTreeNode<E>> copies = new ArrayDeque<>();
+        final NaryTreeNode<E> root = new NaryTreeNode<>(this.value, this.children.length);
+        pending.push(this);
+        copies.push(root);
+        while (!pending.isEmpty()) {
+            final PersistentNaryTreeNode<E> node = pending.pop();
+            final NaryTreeNode<E> copy = copies.pop();
+            for (final PersistentNaryTreeNode<E> child : node.children) {
+                final NaryTreeNode<E> childCopy = new NaryTreeNode<>(child.value, child.children.length);
+                copy.appendNewChild(childCopy);
+                pending.push(child);
+                copies.push(childCopy);
+            }
+        }
+        return root;
+    }
+
+    /**
+     * Structural equality: the same values in the same shape. Shared subtrees are compared by identity.
+     *
+     * @param o the other object
+     * @return the boolean
+     */
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PersistentNaryTreeNode<?> other) || other.hash != this.hash || other.size != this.size) {
+            return false;
+        }
+        final ArrayDeque<PersistentNaryTreeNode<?>> pending = new ArrayDeque<>();
+        pending.push(this);
+        pending.push(other);
+        while (!pending.isEmpty()) {
+            final PersistentNaryTreeNode<?> right = pending.pop();
+            final PersistentNaryTreeNode<?> left = pending.pop();
+            if (left == right) {
+                continue;
+            }
+            if (left.hash != right.hash || left.children.length != right.children.length
+                    || !Objects.equals(left.value, right.value)) {
+                return false;
+            }
+            for (int i = 0; i < left.children.length; i++) {
+                pending.push(left.children[i]);
+                pending.push(right.children[i]);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hash;
+    }
+
+    @Override
+    public String toString() {
+        return "PersistentNaryTreeNode{value=" + this.value + ", size=" + this.size + "}";
+    }
+
+    private Iterator<PersistentNaryTreeNode<E>> prefixNodes() {
+        final ArrayDeque<PersistentNaryTreeNode<E>> pending = new ArrayDeque<>();
+        pending.push(this);
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !pending.isEmpty();
+            }
+
+            @Override
+            public PersistentNaryTreeNode<E> next() {
+                final PersistentNaryTreeNode<E> node = pending.pop();
+                for (int i = node.children.length - 1; i >= 0; i--) {
+                    pending.push(node.children[i]);
+                }
+                return node;
+            }
+        };
+    }
+}
@@ -0,0 +1,452 @@
+package com.corentingambier.treenode;
+
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The structure shared by the primitive-specialized trees: {@link IntNaryTreeNode}, {@link LongNaryTreeNode} and
+ * {@link DoubleNaryTreeNode}.
+ * <p>
+ * The children are stored like those of {@link NaryTreeNode}, in an array grown on demand, and every traversal is
+ * iterative. A subclass holds its value in a primitive field and only deals with the value-specific operations.
+ *
+ * @param <N> the type of the nodes
+ */
+abstract class PrimitiveNaryTreeNode<N extends PrimitiveNaryTreeNode<N>> {
+    private static final int DEFAULT_CHILDREN_CAPACITY = 4;
+    private static final PrimitiveNaryTreeNode<?>[] EMPTY_CHILDREN = {};
+    private static final int INITIAL_STACK_CAPACITY = 16;
+
+    private PrimitiveNaryTreeNode<?>[] children;
+    private int childrenCount;
+    private N parent;
+
+    /**
+     * Instantiates a new primitive nary tree node.
+     *
+     * @param initialCapacity the number of children the node can hold before its child storage grows
+     */
+    PrimitiveNaryTreeNode(final int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal capacity: " + initialCapacity);
+        }
+        this.children = initialCapacity == 0 ? PrimitiveNaryTreeNode.EMPTY_CHILDREN :
+                new PrimitiveNaryTreeNode[initialCapacity];
+    }
+
+    /**
+     * Gets parent.
+     *
+     * @return the parent, null for a root
+     */
+    public N getParent() {
+        return this.parent;
+    }
+
+    /**
+     * Gets child.
+     *
+     * @param index the index
+     * @return the child
+     */
+    @SuppressWarnings("unchecked")
+    public N getChild(final int index) {
+        Objects.checkIndex(index, this.childrenCount);
+        return (N) this.children[index];
+    }
+
+    /**
+     * Gets children, as a read-only view.
+     *
+     * @return the children
+     */
+    public List<N> getChildren() {
+        return new ChildrenView();
+    }
+
+    /**
+     * Add child. A child that already has a parent is removed from it first.
+     *
+     * @param child the child, neither this node nor one of its ancestors
+     */
+    public void addChild(final N child) {
+        final PrimitiveNaryTreeNode<N> node = child;
+        // A leaf is only the ancestor of itself
+        if (node.childrenCount != 0 || node == this) {
+            for (PrimitiveNaryTreeNode<N> ancestor = this; ancestor != null; ancestor = ancestor.parent) {
+                if (ancestor == node) {
+                    throw new IllegalArgumentException("A node cannot be added to its own subtree");
+                }
+            }
+        }
+        if (node.parent != null) {
+            node.parent.removeChild(child);
+        }
+        if (this.childrenCount == this.children.length) {
+            final int capacity = this.children.length;
+            this.children = Arrays.copyOf(this.children,
+                    Math.max(capacity + (capacity >> 1), PrimitiveNaryTreeNode.DEFAULT_CHILDREN_CAPACITY));
+        }
+        this.children[this.childrenCount++] = child;
+        node.parent = this.self();
+    }
+
+    /**
+     * Remove child.
+     *
+     * @param child the child
+     */
+    public void removeChild(final N child) {
+        for (int i = 0; i < this.childrenCount; i++) {
+            if (this.children[i] == child) {
+                this.removeChild(i);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Remove child.
+     *
+     * @param index the index
+     */
+    public void removeChild(final int index) {
+        final PrimitiveNaryTreeNode<N> child = this.getChild(index);
+        System.arraycopy(this.children, index + 1, this.children, index, this.childrenCount - index - 1);
+        this.children[--this.childrenCount] = null;
+        child.parent = null;
+    }
+
+    /**
+     * Gets children count.
+     *
+     * @return the children count
+     */
+    public int getChildrenCount() {
+        return this.childrenCount;
+    }
+
+    /**
+     * Is the node a leaf.
+     *
+     * @return the boolean
+     */
+    public boolean isLeaf() {
+        return this.childrenCount == 0;
+    }
+
+    /**
+     * Trims the child storage of this node to its children count.
+     */
+    public void trimToSize() {
+        if (this.childrenCount < this.children.length) {
+            this.children = this.childrenCount == 0 ? PrimitiveNaryTreeNode.EMPTY_CHILDREN :
+                    Arrays.copyOf(this.children, this.childrenCount);
+        }
+    }
+
+    /**
+     * Gets the height of the tree.
+     *
+     * @return the height
+     */
+    public int getHeight() {
+        PrimitiveNaryTreeNode<?>[] nodes = new PrimitiveNaryTreeNode[PrimitiveNaryTreeNode.INITIAL_STACK_CAPACITY];
+        int[] depths = new int[PrimitiveNaryTreeNode.INITIAL_STACK_CAPACITY];
+        int count = 0;
+        int height = 0;
+        nodes[count] = this;
+        depths[count++] = 1;
+        while (count > 0) {
+            final PrimitiveNaryTreeNode<?> node = nodes[--count];
+            final int depth = depths[count];
+            height = Math.max(height, depth);
+            if (count + node.childrenCount > nodes.length) {
+                nodes = Arrays.copyOf(nodes, Math.max(nodes.length << 1, count + node.childrenCount));
+                depths = Arrays.copyOf(depths, nodes.length);
+            }
+            for (int i = 0; i < node.childrenCount; i++) {
+                nodes[count] = node.children[i];
+                depths[count++] = depth + 1;
+            }
+        }
+        return height;
+    }
+
+    /**
+     * Gets the size of the tree.
+     *
+     * @return the size
+     */
+    public int getSize() {
+        final int[] size = new int[1];
+        this.traverse(NaryTreeNode.Order.PREFIX, (node, index) -> size[0]++);
+        return size[0];
+    }
+
+    /**
+     * Gets the number of leaves in the tree.
+     *
+     * @return the number of leaves
+     */
+    public int getNumberOfLeaves() {
+        final int[] leaves = new int[1];
+        this.traverse(NaryTreeNode.Order.PREFIX, (node, index) -> leaves[0] += node.isLeaf() ? 1 : 0);
+        return leaves[0];
+    }
+
+    /**
+     * Gets the number of nodes in the tree.
+     *
+     * @return the number of nodes
+     */
+    public int getNumberOfNodes() {
+        return this.getSize();
+    }
+
+    /**
+     * Lazy iterator over the nodes of the tree in a given order.
+     *
+     * @param order the order
+     * @return the iterator
+     */
+    public Iterator<N> nodeIterator(final NaryTreeNode.Order order) {
+        return order == NaryTreeNode.Order.BY_WIDTH ? new LevelOrderIterator() : new DepthFirstIterator(order);
+    }
+
+    /**
+     * Lazy sequential stream of the nodes of the tree in a given order.
+     *
+     * @param order the order
+     * @return the stream
+     */
+    public Stream<N> nodeStream(final NaryTreeNode.Order order) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this.nodeIterator(order),
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * To json string, in the format of {@link NaryTreeNode#toJson()}.
+     *
+     * @return the string
+     */
+    public String toJson() {
+        final StringBuilder builder = new StringBuilder();
+        try {
+            NaryTreeJson.write(this, builder);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Write the json of {@link #toJson()} to an appendable, without building it in memory.
+     *
+     * @param appendable the appendable
+     * @throws IOException if the appendable fails
+     */
+    public void writeJson(final Appendable appendable) throws IOException {
+        NaryTreeJson.write(this, appendable);
+    }
+
+    /**
+     * Append the value as a json number.
+     *
+     * @param out the output
+     * @throws IOException if the output fails
+     */
+    abstract void appendValue(Appendable out) throws IOException;
+
+    /**
+     * Read the value from a json number.
+     *
+     * @param reader the reader
+     * @throws IOException if the reader fails or the json is not a number of the type of the value
+     */
+    abstract void readValue(JsonReader reader) throws IOException;
+
+    /**
+     * Visit every node of the tree in a given order, with its position in that order. The pre-order is walked with a
+     * plain stack of the pending nodes, the cheapest of the traversals.
+     *
+     * @param order   the order
+     * @param visitor the visitor
+     */
+    @SuppressWarnings("unchecked")
+    final void traverse(final NaryTreeNode.Order order, final Visitor<N> visitor) {
+        int index = 0;
+        if (order != NaryTreeNode.Order.PREFIX) {
+            final Iterator<N> nodes = this.nodeIterator(order);
+            while (nodes.hasNext()) {
+                visitor.visit(nodes.next(), index++);
+            }
+            return;
+        }
+        PrimitiveNaryTreeNode<?>[] pending =
+                new PrimitiveNaryTreeNode[PrimitiveNaryTreeNode.INITIAL_STACK_CAPACITY];
+        int count = 0;
+        pending[count++] = this;
+        while (count > 0) {
+            final PrimitiveNaryTreeNode<?> node = pending[--count];
+            pending[count] = null;
+            visitor.visit((N) node, index++);
+            if (count + node.childrenCount > pending.length) {
+                pending = Arrays.copyOf(pending, Math.max(pending.length << 1, count + node.childrenCount));
+            }
+            for (int i = node.childrenCount - 1; i >= 0; i--) {
+                pending[count++] = node.children[i];
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private N self() {
+        return (N) this;
+    }
+
+    /**
+     * Visitor of the nodes of a tree.
+     *
+     * @param <N> the type of the nodes
+     */
+    @FunctionalInterface
+    interface Visitor<N> {
+        /**
+         * Visit a node.
+         *
+         * @param node  the node
+         * @param index the position of the node in the traversal
+         */
+        void visit(N node, int index);
+    }
+
+    private final class ChildrenView extends AbstractList<N> implements RandomAccess {
+        @Override
+        public N get(final int index) {
+            return PrimitiveNaryTreeNode.this.getChild(index);
+        }
+
+        @Override
+        public int size() {
+            return PrimitiveNaryTreeNode.this.childrenCount;
+        }
+    }
+
+    /**
+     * Explicit-stack pre-order or post-order iterator.
+     */
+    private final class DepthFirstIterator implements Iterator<N> {
+        private final boolean postfix;
+        private PrimitiveNaryTreeNode<?>[] path = new PrimitiveNaryTreeNode[PrimitiveNaryTreeNode.INITIAL_STACK_CAPACITY];
+        private int[] nextChild = new int[PrimitiveNaryTreeNode.INITIAL_STACK_CAPACITY];
+        private int top;
+        private PrimitiveNaryTreeNode<?> next;
+
+        DepthFirstIterator(final NaryTreeNode.Order order) {
+            this.postfix = order == NaryTreeNode.Order.POSTFIX;
+            this.path[0] = PrimitiveNaryTreeNode.this;
+            this.next = this.postfix ? this.descend() : PrimitiveNaryTreeNode.this;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.next != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public N next() {
+            final PrimitiveNaryTreeNode<?> node = this.next;
+            if (node == null) {
+                throw new NoSuchElementException();
+            }
+            this.next = this.postfix ? this.afterPostfix() : this.afterPrefix();
+            return (N) node;
+        }
+
+        private PrimitiveNaryTreeNode<?> afterPrefix() {
+            while (this.top >= 0) {
+                final PrimitiveNaryTreeNode<?> node = this.path[this.top];
+                final int index = this.nextChild[this.top];
+                if (index < node.childrenCount) {
+                    this.nextChild[this.top] = index + 1;
+                    this.push(node.children[index]);
+                    return node.children[index];
+                }
+                this.path[this.top--] = null;
+            }
+            return null;
+        }
+
+        private PrimitiveNaryTreeNode<?> afterPostfix() {
+            this.path[this.top--] = null;
+            return this.top < 0 ? null : this.descend();
+        }
+
+        /**
+         * Go down the first unvisited children from the top of the path to a node whose children are all visited.
+         */
+        private PrimitiveNaryTreeNode<?> descend() {
+            PrimitiveNaryTreeNode<?> node = this.path[this.top];
+            while (this.nextChild[this.top] < node.childrenCount) {
+                final PrimitiveNaryTreeNode<?> child = node.children[this.nextChild[this.top]++];
+                this.push(child);
+                node = child;
+            }
+            return node;
+        }
+
+        private void push(final PrimitiveNaryTreeNode<?> node) {
+            if (++this.top == this.path.length) {
+                this.path = Arrays.copyOf(this.path, this.top << 1);
+                this.nextChild = Arrays.copyOf(this.nextChild, this.top << 1);
+            }
+            this.path[this.top] = node;
+            this.nextChild[this.top] = 0;
+        }
+    }
+
+    /**
+     * Queue-based level-order iterator.
+     */
+    private final class LevelOrderIterator implements Iterator<N> {
+        private final ArrayDeque<PrimitiveNaryTreeNode<?>> queue = new ArrayDeque<>();
+
+        LevelOrderIterator() {
+            this.queue.add(PrimitiveNaryTreeNode.this);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !this.queue.isEmpty();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public N next() {
+            final PrimitiveNaryTreeNode<?> node = this.queue.poll();
+            if (node == null) {
+                throw new NoSuchElementException();
+            }
+            for (int i = 0; i < node.childrenCount; i++) {
+                this.queue.add(node.children[i]);
+            }
+            return (N) node;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.corentingambier.treenode;
+
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Splitting spliterator over the nodes of a tree of {@link NaryTreeNode}, each mapped to an element.
+ * <p>
+ * The spliterator owns a stack of pending subtrees and splits by handing over the bottom half of the stack, i.e. the
+ * subtrees closest to the root. When a single subtree is pending, its root is kept alone and its children become the
+ * pending subtrees, so that a spliterator over a whole tree can be split before any element is consumed. The
+ * encounter order is not preserved across splits.
+ *
+ * @param <E> the type parameter of the nodes
+ * @param <T> the type parameter of the elements
+ */
+final class SubtreeSpliterator<E, T> implements Spliterator<T> {
+    private static final int INITIAL_STACK_CAPACITY = 16;
+
+    private final Function<NaryTreeNode<E>, T> mapper;
+    private final int characteristics;
+    private NaryTreeNode<E>[] nodes;
+    /**
+     * Whether the pending entry only stands for its node, its children being already pending.
+     */
+    private boolean[] alone;
+    private int count;
+    private long estimate;
+
+    /**
+     * Instantiates a new subtree spliterator.
+     *
+     * @param root            the root
+     * @param mapper          the function mapping each node to an element
+     * @param characteristics the characteristics of the elements, on top of the unordered scan
+     */
+    @SuppressWarnings("unchecked")
+    SubtreeSpliterator(final NaryTreeNode<E> root, final Function<NaryTreeNode<E>, T> mapper,
+                       final int characteristics) {
+        this(mapper, characteristics, new NaryTreeNode[SubtreeSpliterator.INITIAL_STACK_CAPACITY],
+                new boolean[SubtreeSpliterator.INITIAL_STACK_CAPACITY], 0, Long.MAX_VALUE);
+        this.push(root, false);
+    }
+
+    private SubtreeSpliterator(final Function<NaryTreeNode<E>, T> mapper, final int characteristics,
+                               final NaryTreeNode<E>[] nodes, final boolean[] alone, final int count,
+                               final long estimate) {
+        this.mapper = mapper;
+        this.characteristics = characteristics;
+        this.nodes = nodes;
+        this.alone = alone;
+        this.count = count;
+        this.estimate = estimate;
+    }
+
+    @Override
+    public boolean tryAdvance(final Consumer<? super T> action) {
+        if (this.count == 0) {
+            return false;
+        }
+        action.accept(this.mapper.apply(this.pop()));
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(final Consumer<? super T> action) {
+        while (this.count > 0) {
+            action.accept(this.mapper.apply(this.pop()));
+        }
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        if (this.count == 1 && !this.alone[0] && this.nodes[0].getChildrenCount() > 1) {
+            final NaryTreeNode<E> root = this.nodes[0];
+            this.alone[0] = true;
+            this.pushChildren(root);
+        }
+        if (this.count < 2) {
+            return null;
+        }
+        final int half = this.count >>> 1;
+        this.estimate >>>= 1;
+        final SubtreeSpliterator<E, T> split = new SubtreeSpliterator<>(this.mapper, this.characteristics,
+                Arrays.copyOf(this.nodes, half), Arrays.copyOf(this.alone, half), half, this.estimate);
+        System.arraycopy(this.nodes, half, this.nodes, 0, this.count - half);
+        System.arraycopy(this.alone, half, this.alone, 0, this.count - half);
+        Arrays.fill(this.nodes, this.count - half, this.count, null);
+        this.count -= half;
+        return split;
+    }
+
+    @Override
+    public long estimateSize() {
+        return this.estimate;
+    }
+
+    @Override
+    public int characteristics() {
+        return this.characteristics;
+    }
+
+    private NaryTreeNode<E> pop() {
+        final NaryTreeNode<E> node = this.nodes[--this.count];
+        final boolean nodeAlone = this.alone[this.count];
+        this.nodes[this.count] = null;
+        if (!nodeAlone) {
+            this.pushChildren(node);
+        }
+        return node;
+    }
+
+    private void pushChildren(final NaryTreeNode<E> node) {
+        for (int i = node.getChildrenCount() - 1; i >= 0; i--) {
+            this.push(node.getChild(i), false);
+        }
+    }
+
+    private void push(final NaryTreeNode<E> node, final boolean nodeAlone) {
+        if (this.count == this.nodes.length) {
+            this.nodes = Arrays.copyOf(this.nodes, this.count << 1);
+            this.alone = Arrays.copyOf(this.alone, this.count << 1);
+        }
+        this.nodes[this.count] = node;
+        this.alone[this.count++] = nodeAlone;
+    }
+}
@@ -0,0 +1,57 @@
+package com.corentingambier.treenode;
+
+import java.util.function.ToLongFunction;
+
+/**
+ * Statistics of the subtree rooted at a {@link NaryTreeNode}, maintained incrementally by the node when they are
+ * enabled.
+ */
+final class SubtreeStatistics {
+    /**
+     * The number of nodes of the subtree.
+     */
+    int size;
+    /**
+     * The height of the subtree.
+     */
+    int height;
+    /**
+     * The number of leaves of the subtree.
+     */
+    int leaves;
+    /**
+     * The hash of the values and shape of the subtree, valid if {@link #hashed}.
+     */
+    long hash;
+    /**
+     * Is the hash valid. The hashes of the ancestors of a node whose hash is not valid are not valid either.
+     */
+    boolean hashed;
+    /**
+     * The function the values were hashed with. The subtree of a node hashed with a function is hashed with it too.
+     */
+    ToLongFunction<?> hasher;
+
+    /**
+     * Is the hash valid for a function hashing the values.
+     *
+     * @param function the function
+     * @return the boolean
+     */
+    boolean isHashedWith(final ToLongFunction<?> function) {
+        return this.hashed && this.hasher == function;
+    }
+
+    /**
+     * Instantiates new subtree statistics.
+     *
+     * @param size   the size
+     * @param height the height
+     * @param leaves the number of leaves
+     */
+    SubtreeStatistics(final int size, final int height, final int leaves) {
+        this.size = size;
+        this.height = height;
+        this.leaves = leaves;
+    }
+}
@@ -0,0 +1,50 @@
+package com.corentingambier.treenode;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * Lazy iterator over the nodes reached by a {@link NodeCursor}, each mapped to an element.
+ * <p>
+ * The cursor is moved on demand, so the iterator only holds the working memory of the cursor and can be abandoned
+ * at any time.
+ *
+ * @param <E> the type parameter of the nodes
+ * @param <T> the type parameter of the elements
+ */
+final class TraversalIterator<E, T> implements Iterator<T> {
+    private final NodeCursor<E> cursor;
+    private final Function<NaryTreeNode<E>, T> mapper;
+    private boolean ready;
+    private boolean done;
+
+    /**
+     * Instantiates a new traversal iterator.
+     *
+     * @param cursor the cursor
+     * @param mapper the function mapping each node to an element
+     */
+    TraversalIterator(final NodeCursor<E> cursor, final Function<NaryTreeNode<E>, T> mapper) {
+        this.cursor = cursor;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!this.ready && !this.done) {
+            this.ready = this.cursor.next();
+            this.done = !this.ready;
+        }
+        return this.ready;
+    }
+
+    @Override
+    public T next() {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+        this.ready = false;
+        return this.mapper.apply(this.cursor.node());
+    }
+}
@@ -0,0 +1,163 @@
+package com.corentingambier.treenode;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiFunction;
+
+/**
+ * A bottom-up computation over a tree, memoized per node, see {@link NaryTreeNode#aggregate(BiFunction)}.
+ * <p>
+ * The result of a node combines its value with the results of its children, in order, like
+ * {@link NaryTreeNode#fold(BiFunction)}. Every result is cached once computed. A change of the value or of the
+ * children of a node drops the cached results of the node and of its ancestors, stopping at the first ancestor
+ * without result: the ancestors of a node without result have no result either, since a node is combined after its
+ * children. The next query then combines the dropped nodes only, reusing the results of the unchanged subtrees, so a
+ * change followed by a query costs the depth of the changed node instead of the size of the tree.
+ * <p>
+ * An aggregate is not thread safe, like the tree.
+ *
+ * @param <E> the type parameter of the nodes
+ * @param <R> the type of the results
+ */
+public final class TreeAggregate<E, R> {
+    private final NaryTreeNode<E> root;
+    private final BiFunction<? super E, ? super List<R>, ? extends R> combiner;
+    /**
+     * The cached results, possibly null.
+     */
+    private final Map<NaryTreeNode<E>, R> results = new IdentityHashMap<>();
+    /**
+     * The context of the tree, null once closed.
+     */
+    private TreeContext<E> context;
+
+    /**
+     * Instantiates a new aggregate.
+     *
+     * @param root     the node the aggregate was created on
+     * @param combiner the function combining the value of a node with the unmodifiable list of the results of its
+     *                 children
+     * @param context  the context of the tree of the node
+     */
+    TreeAggregate(final NaryTreeNode<E> root, final BiFunction<? super E, ? super List<R>, ? extends R> combiner,
+                  final TreeContext<E> context) {
+        this.root = root;
+        this.combiner = Objects.requireNonNull(combiner);
+        this.context = context;
+    }
+
+    /**
+     * Gets the result of the node the aggregate was created on.
+     *
+     * @return the result
+     * @throws IllegalStateException if the aggregate was closed, or the node left the tree
+     */
+    public R get() {
+        return this.get(this.root);
+    }
+
+    /**
+     * Gets the result of a node of the tree, combining the nodes changed since their last result.
+     *
+     * @param node the node
+     * @return the result
+     * @throws IllegalStateException    if the aggregate was closed
+     * @throws IllegalArgumentException if the node is not in the tree of the aggregate
+     */
+    public R get(final NaryTreeNode<E> node) {
+        if (this.context == null) {
+            throw new IllegalStateException("The aggregate is closed");
+        }
+        if (!node.belongsTo(this.context)) {
+            if (node == this.root) {
+                throw new IllegalStateException("The node of the aggregate left its tree");
+            }
+            throw new IllegalArgumentException("The node is not in the tree of the aggregate");
+        }
+        if (this.results.containsKey(node)) {
+            return this.results.get(node);
+        }
+        final TreeCursor<E> cursor = TreeCursor.depthFirst(node);
+        while (cursor.next()) {
+            final NaryTreeNode<E> current = cursor.node();
+            if (cursor.isEntering()) {
+                if (this.results.containsKey(current)) {
+                    cursor.skipChildren();
+                }
+            } else if (!this.results.containsKey(current)) {
+                this.results.put(current, this.combine(current));
+            }
+        }
+        return this.results.get(node);
+    }
+
+    @SuppressWarnings("unchecked")
+    private R combine(final NaryTreeNode<E> node) {
+        final int count = node.getChildrenCount();
+        if (count == 0) {
+            return this.combiner.apply(node.getValue(), Collections.emptyList());
+        }
+        final Object[] childResults = new Object[count];
+        for (int i = 0; i < count; i++) {
+            childResults[i] = this.results.get(node.getChild(i));
+        }
+        return this.combiner.apply(node.getValue(), Collections.unmodifiableList(Arrays.asList((R[]) childResults)));
+    }
+
+    /**
+     * Is the result of a node cached, so that {@link #get(NaryTreeNode)} returns it without combining any node.
+     *
+     * @param node the node
+     * @return the boolean
+     */
+    public boolean isCached(final NaryTreeNode<E> node) {
+        return this.results.containsKey(node);
+    }
+
+    /**
+     * Stop following the changes of the tree and drop the cached results. The tree leaves its context if no other
+     * feature uses it.
+     */
+    public void close() {
+        if (this.context != null) {
+            final TreeContext<E> closed = this.context;
+            this.context = null;
+            this.results.clear();
+            NaryTreeNode.removeAggregate(closed, this);
+        }
+    }
+
+    /**
+     * The value or the children of a node changed: drop the results of the node and of its ancestors.
+     *
+     * @param node the node
+     */
+    void invalidate(final NaryTreeNode<E> node) {
+        for (NaryTreeNode<E> current = node; current != null && this.results.containsKey(current);
+             current = current.getParent()) {
+            this.results.remove(current);
+        }
+    }
+
+    /**
+     * A node left the tree: drop its result, which the tree no longer keeps up to date.
+     *
+     * @param node the node
+     */
+    void forget(final NaryTreeNode<E> node) {
+        this.results.remove(node);
+    }
+
+    /**
+     * Follow the changes of another tree, the tree of this aggregate joining it.
+     *
+     * @param other the context of the other tree
+     */
+    void moveTo(final TreeContext<E> other) {
+        this.context = other;
+    }
+}
@@ -0,0 +1,251 @@
+package com.corentingambier.treenode;
+
+import java.util.Arrays;
+
+/**
+ * A change of a subtree, reported to a {@link TreeListener}.
+ * <p>
+ * The path and the index are those of the tree when the change happened, an added child comes with a snapshot of its
+ * subtree as it was added, and a sorting with the former index of every child, so that replaying the changes in order
+ * on a copy of the subtree reproduces them, also when they are delivered later by a batch or an executor. The nodes
+ * are the live nodes of the tree: a listener called on an executor must not read them while the tree changes.
+ * <p>
+ * The snapshot of an added child costs a copy of its subtree. It is taken when the child is added for the changes
+ * delivered later, and only on the first call of {@link #getAddedSubtree()} for a change delivered at once to a
+ * listener called on the thread changing the tree, which must then ask for it during the call, before changing the
+ * tree.
+ *
+ * @param <E> the type parameter
+ */
+public final class TreeChangeEvent<E> {
+    private final Kind kind;
+    private final NaryTreeNode<E> node;
+    private final int[] path;
+    private final int index;
+    private final NaryTreeNode<E> child;
+    private final int[] permutation;
+    private final E oldValue;
+    private final E newValue;
+    private FrozenNaryTree<E> addedSubtree;
+    /**
+     * Whether the snapshot of the added child may still be taken from the live child, during a synchronous call.
+     */
+    private boolean snapshotPending;
+
+    /**
+     * Instantiates a new event.
+     *
+     * @param kind     the kind
+     * @param node     the node whose value or children changed
+     * @param path     the path of child indices from the listened node to the node
+     * @param index    the index of the added or removed child, -1 otherwise
+     * @param child        the added or removed child, null otherwise
+     * @param addedSubtree the snapshot of the subtree of an added child, null otherwise or to take it on demand
+     * @param permutation  the former index of every child of a sorting, null otherwise
+     * @param oldValue     the old value of a value change, null otherwise
+     * @param newValue     the new value of a value change, null otherwise
+     */
+    TreeChangeEvent(final Kind kind, final NaryTreeNode<E> node, final int[] path, final int index,
+                    final NaryTreeNode<E> child, final FrozenNaryTree<E> addedSubtree, final int[] permutation,
+                    final E oldValue, final E newValue) {
+        this.kind = kind;
+        this.node = node;
+        this.path = path;
+        this.index = index;
+        this.child = child;
+        this.addedSubtree = addedSubtree;
+        this.snapshotPending = kind == Kind.CHILD_ADDED && addedSubtree == null;
+        this.permutation = permutation;
+        this.oldValue = oldValue;
+        this.newValue = newValue;
+    }
+
+    /**
+     * Gets a copy of this value change with another new value.
+     *
+     * @param value the new value
+     * @return the event
+     */
+    TreeChangeEvent<E> withNewValue(final E value) {
+        return new TreeChangeEvent<>(this.kind, this.node, this.path, this.index, this.child, null, null,
+                this.oldValue, value);
+    }
+
+    /**
+     * Gets the sorting made of another sorting of the same children followed by this one.
+     *
+     * @param previous the other sorting
+     * @return the event
+     */
+    TreeChangeEvent<E> after(final TreeChangeEvent<E> previous) {
+        final int[] composed = new int[this.permutation.length];
+        for (int i = 0; i < composed.length; i++) {
+            composed[i] = previous.permutation[this.permutation[i]];
+        }
+        return new TreeChangeEvent<>(this.kind, this.node, this.path, this.index, this.child, null, composed,
+                this.oldValue, this.newValue);
+    }
+
+    /**
+     * Is this event a sorting that left every child at its index.
+     *
+     * @return the boolean
+     */
+    boolean isIdentity() {
+        for (int i = 0; i < this.permutation.length; i++) {
+            if (this.permutation[i] != i) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * End the synchronous call delivering this event: a snapshot not taken yet can no longer be.
+     */
+    void delivered() {
+        this.snapshotPending = false;
+    }
+
+    /**
+     * Is the node of this event a strict descendant of the node of another event, both paths being read in the same
+     * tree.
+     *
+     * @param ancestor the other event
+     * @return the boolean
+     */
+    boolean isBelow(final TreeChangeEvent<E> ancestor) {
+        return this.path.length > ancestor.path.length
+                && Arrays.equals(this.path, 0, ancestor.path.length, ancestor.path, 0, ancestor.path.length);
+    }
+
+    /**
+     * Gets kind.
+     *
+     * @return the kind
+     */
+    public Kind getKind() {
+        return this.kind;
+    }
+
+    /**
+     * Gets the node whose value or children changed.
+     *
+     * @return the node
+     */
+    public NaryTreeNode<E> getNode() {
+        return this.node;
+    }
+
+    /**
+     * Gets the path of child indices from the listened node to the node whose value or children changed.
+     *
+     * @return a copy of the path, empty for the listened node
+     */
+    public int[] getPath() {
+        return this.path.clone();
+    }
+
+    /**
+     * Gets the index of the added or removed child.
+     *
+     * @return the index, -1 for the other kinds
+     */
+    public int getIndex() {
+        return this.index;
+    }
+
+    /**
+     * Gets the added or removed child, live: its subtree may have changed since, see {@link #getAddedSubtree()}.
+     *
+     * @return the child, null for the other kinds
+     */
+    public NaryTreeNode<E> getChild() {
+        return this.child;
+    }
+
+    /**
+     * Gets the snapshot of the subtree of the added child as it was added: the later changes of the subtree are
+     * reported by their own events.
+     *
+     * @return the snapshot, null for the other kinds
+     * @throws IllegalStateException if the change was delivered at once on the thread changing the tree, and the
+     *                               snapshot is asked for after the call
+     */
+    public FrozenNaryTree<E> getAddedSubtree() {
+        if (this.snapshotPending) {
+            this.addedSubtree = this.child.freeze();
+            this.snapshotPending = false;
+        } else if (this.addedSubtree == null && this.kind == Kind.CHILD_ADDED) {
+            throw new IllegalStateException("The snapshot of a change delivered at once must be taken during the call");
+        }
+        return this.addedSubtree;
+    }
+
+    /**
+     * Gets the permutation of a sorting: the index every child had before the sorting, in the new order of the
+     * children.
+     *
+     * @return a copy of the permutation, null for the other kinds
+     */
+    public int[] getPermutation() {
+        return this.permutation == null ? null : this.permutation.clone();
+    }
+
+    /**
+     * Gets the value before a value change.
+     *
+     * @return the old value, null for the other kinds
+     */
+    public E getOldValue() {
+        return this.oldValue;
+    }
+
+    /**
+     * Gets the value after a value change.
+     *
+     * @return the new value, null for the other kinds
+     */
+    public E getNewValue() {
+        return this.newValue;
+    }
+
+    @Override
+    public String toString() {
+        final String at = Arrays.toString(this.path);
+        return switch (this.kind) {
+            case VALUE_CHANGED -> "VALUE_CHANGED " + at + " " + this.oldValue + " -> " + this.newValue;
+            case CHILD_ADDED, CHILD_REMOVED -> this.kind + " " + at + " at " + this.index + " "
+                    + this.child.getValue();
+            case CHILDREN_REORDERED -> "CHILDREN_REORDERED " + at + " " + Arrays.toString(this.permutation);
+            case RESYNC -> "RESYNC";
+        };
+    }
+
+    /**
+     * The kind of a change.
+     */
+    public enum Kind {
+        /**
+         * The value of the node changed.
+         */
+        VALUE_CHANGED,
+        /**
+         * A child was added to the node, at an index.
+         */
+        CHILD_ADDED,
+        /**
+         * A child was removed from the node, from an index.
+         */
+        CHILD_REMOVED,
+        /**
+         * The children of the node were sorted.
+         */
+        CHILDREN_REORDERED,
+        /**
+         * The queue of a listener called on an executor was full: the changes queued until then were dropped, and
+         * the listener must read its subtree again. The node is the listened node.
+         */
+        RESYNC
+    }
+}
@@ -0,0 +1,177 @@
+package com.corentingambier.treenode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * State shared by all the nodes of a tree that enabled a tree-wide feature.
+ * <p>
+ * A context belongs to the node that created it, its root. Every node of the subtree of the root points to the
+ * context, so that mutations anywhere in the subtree can keep the shared state up to date, and nodes added to the
+ * subtree join it. Trees that never enable such a feature have no context and pay a single null check per mutation.
+ *
+ * @param <E> the type parameter
+ */
+final class TreeContext<E> {
+    /**
+     * The node that owns the context.
+     */
+    final NaryTreeNode<E> root;
+    /**
+     * The value index, null unless enabled.
+     */
+    ValueIndex<E> valueIndex;
+    /**
+     * Whether the ancestry index is enabled.
+     */
+    boolean ancestryIndexEnabled;
+    /**
+     * The ancestry index, null until first used after the structure of the tree changed.
+     */
+    private AncestryIndex<E> ancestryIndex;
+    /**
+     * The listeners and the current batch, null unless any listener is subscribed or any batch is open.
+     */
+    TreeEvents<E> events;
+    /**
+     * The aggregates following the changes of the tree.
+     */
+    final List<TreeAggregate<E, ?>> aggregates = new ArrayList<>();
+
+    /**
+     * Instantiates a new tree context.
+     *
+     * @param root the root
+     */
+    TreeContext(final NaryTreeNode<E> root) {
+        this.root = root;
+    }
+
+    /**
+     * Is any feature enabled on the context.
+     *
+     * @return the boolean
+     */
+    boolean isUsed() {
+        return this.valueIndex != null || this.ancestryIndexEnabled || this.events != null
+                || !this.aggregates.isEmpty();
+    }
+
+    /**
+     * Gets the ancestry index, rebuilt if the structure of the tree changed since it was built.
+     *
+     * @return the ancestry index
+     */
+    AncestryIndex<E> ancestryIndex() {
+        if (this.ancestryIndex == null) {
+            this.ancestryIndex = AncestryIndex.build(this.root);
+        }
+        return this.ancestryIndex;
+    }
+
+    /**
+     * Nodes were added, removed or moved in the tree: drop the ancestry index, until it is used again.
+     */
+    void structureChanged() {
+        this.ancestryIndex = null;
+    }
+
+    /**
+     * Children were added to or removed from a node of the tree: drop the ancestry index, and the results of the
+     * node and of its ancestors.
+     *
+     * @param parent the node
+     */
+    void childrenChanged(final NaryTreeNode<E> parent) {
+        this.ancestryIndex = null;
+        this.invalidate(parent);
+    }
+
+    private void invalidate(final NaryTreeNode<E> node) {
+        for (int i = 0; i < this.aggregates.size(); i++) {
+            this.aggregates.get(i).invalidate(node);
+        }
+    }
+
+    /**
+     * A node joined the tree.
+     *
+     * @param node the node
+     */
+    void attached(final NaryTreeNode<E> node) {
+        if (this.valueIndex != null) {
+            this.valueIndex.add(node.getValue(), node);
+        }
+    }
+
+    /**
+     * A node left the tree.
+     *
+     * @param node the node
+     */
+    void detached(final NaryTreeNode<E> node) {
+        if (this.valueIndex != null) {
+            this.valueIndex.remove(node.getValue(), node);
+        }
+        for (int i = 0; i < this.aggregates.size(); i++) {
+            this.aggregates.get(i).forget(node);
+        }
+    }
+
+    /**
+     * The value of a node of the tree changed.
+     *
+     * @param node     the node
+     * @param oldValue the old value
+     * @param newValue the new value
+     */
+    void valueChanged(final NaryTreeNode<E> node, final E oldValue, final E newValue) {
+        if (this.valueIndex != null) {
+            this.valueIndex.remove(oldValue, node);
+            this.valueIndex.add(newValue, node);
+        }
+        this.invalidate(node);
+        if (this.events != null) {
+            this.events.publish(TreeChangeEvent.Kind.VALUE_CHANGED, node, -1, null, null, oldValue, newValue);
+        }
+    }
+
+    /**
+     * A child was added to a node of the tree.
+     *
+     * @param parent the node
+     * @param index  the index of the child
+     * @param child  the child
+     */
+    void childAdded(final NaryTreeNode<E> parent, final int index, final NaryTreeNode<E> child) {
+        if (this.events != null) {
+            this.events.publish(TreeChangeEvent.Kind.CHILD_ADDED, parent, index, child, null, null, null);
+        }
+    }
+
+    /**
+     * A child was removed from a node of the tree.
+     *
+     * @param parent the node
+     * @param index  the index the child had
+     * @param child  the child
+     */
+    void childRemoved(final NaryTreeNode<E> parent, final int index, final NaryTreeNode<E> child) {
+        if (this.events != null) {
+            this.events.publish(TreeChangeEvent.Kind.CHILD_REMOVED, parent, index, child, null, null, null);
+        }
+    }
+
+    /**
+     * The children of a node of the tree were reordered.
+     *
+     * @param parent      the node
+     * @param permutation the former index of every child, null without listener
+     */
+    void childrenReordered(final NaryTreeNode<E> parent, final int[] permutation) {
+        this.invalidate(parent);
+        if (this.events != null) {
+            this.events.publish(TreeChangeEvent.Kind.CHILDREN_REORDERED, parent, -1, null, permutation, null, null);
+        }
+    }
+}
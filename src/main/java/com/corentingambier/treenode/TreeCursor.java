@@ -0,0 +1,226 @@
+package com.corentingambier.treenode;
+
+import java.util.Arrays;
+
+/**
+ * Explicit-stack depth-first cursor over a tree of {@link NaryTreeNode}.
+ * <p>
+ * The cursor reports an enter event when it reaches a node and an exit event once all the children of the node have
+ * been visited. A pre-order cursor only stops on enter events, a post-order cursor only on exit events, and a
+ * depth-first cursor stops on both. The working memory is proportional to the depth of the tree, so the cursor works
+ * on trees of any depth.
+ *
+ * @param <E> the type parameter
+ */
+class TreeCursor<E> implements NodeCursor<E> {
+    private static final int INITIAL_STACK_CAPACITY = 16;
+
+    private final boolean stopOnEnter;
+    private final boolean stopOnExit;
+    private NaryTreeNode<E>[] path;
+    private int[] nextChild;
+    private int top;
+    private boolean entering;
+    private boolean started;
+
+    @SuppressWarnings("unchecked")
+    private TreeCursor(final NaryTreeNode<E> root, final boolean stopOnEnter, final boolean stopOnExit) {
+        this.stopOnEnter = stopOnEnter;
+        this.stopOnExit = stopOnExit;
+        this.path = new NaryTreeNode[TreeCursor.INITIAL_STACK_CAPACITY];
+        this.nextChild = new int[TreeCursor.INITIAL_STACK_CAPACITY];
+        this.path[0] = root;
+        this.top = 0;
+        this.entering = true;
+    }
+
+    /**
+     * Cursor stopping on every node before its children.
+     *
+     * @param <E>  the type parameter
+     * @param root the root
+     * @return the cursor
+     */
+    static <E> TreeCursor<E> preOrder(final NaryTreeNode<E> root) {
+        return new TreeCursor<>(root, true, false);
+    }
+
+    /**
+     * Cursor stopping on every node after its children.
+     *
+     * @param <E>  the type parameter
+     * @param root the root
+     * @return the cursor
+     */
+    static <E> TreeCursor<E> postOrder(final NaryTreeNode<E> root) {
+        return new TreeCursor<>(root, false, true);
+    }
+
+    /**
+     * Cursor stopping on every node twice: before and after its children.
+     *
+     * @param <E>  the type parameter
+     * @param root the root
+     * @return the cursor
+     */
+    static <E> TreeCursor<E> depthFirst(final NaryTreeNode<E> root) {
+        return new TreeCursor<>(root, true, true);
+    }
+
+    /**
+     * Cursor stopping on every node before its children, reporting its visits to a sample.
+     *
+     * @param <E>    the type parameter
+     * @param root   the root
+     * @param sample the sample, null to report nothing
+     * @return the cursor
+     */
+    static <E> TreeCursor<E> preOrder(final NaryTreeNode<E> root, final TreeOperationSample sample) {
+        return sample == null ? new TreeCursor<>(root, true, false) : new Probed<>(root, true, false, sample);
+    }
+
+    /**
+     * Cursor stopping on every node after its children, reporting its visits to a sample.
+     *
+     * @param <E>    the type parameter
+     * @param root   the root
+     * @param sample the sample, null to report nothing
+     * @return the cursor
+     */
+    static <E> TreeCursor<E> postOrder(final NaryTreeNode<E> root, final TreeOperationSample sample) {
+        return sample == null ? new TreeCursor<>(root, false, true) : new Probed<>(root, false, true, sample);
+    }
+
+    /**
+     * Cursor stopping on every node twice, reporting its visits to a sample.
+     *
+     * @param <E>    the type parameter
+     * @param root   the root
+     * @param sample the sample, null to report nothing
+     * @return the cursor
+     */
+    static <E> TreeCursor<E> depthFirst(final NaryTreeNode<E> root, final TreeOperationSample sample) {
+        return sample == null ? new TreeCursor<>(root, true, true) : new Probed<>(root, true, true, sample);
+    }
+
+    /**
+     * Move to the next event.
+     *
+     * @return false once the traversal is over
+     */
+    @Override
+    public boolean next() {
+        if (!this.started) {
+            this.started = true;
+            if (this.stopOnEnter) {
+                return true;
+            }
+        } else if (this.top < 0) {
+            return false;
+        }
+        while (true) {
+            if (!this.entering) {
+                this.path[this.top--] = null;
+                if (this.top < 0) {
+                    return false;
+                }
+            }
+            final NaryTreeNode<E> node = this.path[this.top];
+            final int index = this.nextChild[this.top];
+            if (index < node.getChildrenCount()) {
+                this.nextChild[this.top] = index + 1;
+                this.push(node.getChild(index));
+                this.entering = true;
+                if (this.stopOnEnter) {
+                    return true;
+                }
+            } else {
+                this.entering = false;
+                if (this.stopOnExit) {
+                    return true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Do not visit the children of the current node. Only meaningful on an enter event: the next event of a
+     * depth-first cursor is then the exit of the current node.
+     */
+    void skipChildren() {
+        this.nextChild[this.top] = Integer.MAX_VALUE;
+    }
+
+    /**
+     * Gets the current node.
+     *
+     * @return the node
+     */
+    @Override
+    public NaryTreeNode<E> node() {
+        return this.path[this.top];
+    }
+
+    /**
+     * Gets the depth of the current node, 0 for the root.
+     *
+     * @return the depth
+     */
+    @Override
+    public int depth() {
+        return this.top;
+    }
+
+    /**
+     * Gets the index of the current node among its siblings, 0 for the root.
+     *
+     * @return the index
+     */
+    int index() {
+        return this.top == 0 ? 0 : this.nextChild[this.top - 1] - 1;
+    }
+
+    /**
+     * Is the current event the enter of a node.
+     *
+     * @return the boolean
+     */
+    boolean isEntering() {
+        return this.entering;
+    }
+
+    private void push(final NaryTreeNode<E> child) {
+        if (++this.top == this.path.length) {
+            this.path = Arrays.copyOf(this.path, this.top << 1);
+            this.nextChild = Arrays.copyOf(this.nextChild, this.top << 1);
+        }
+        this.path[this.top] = child;
+        this.nextChild[this.top] = 0;
+    }
+
+    /**
+     * Cursor reporting every node it visits to a sample. It is only created while the operations are measured, so
+     * that the cursors stay monomorphic otherwise.
+     */
+    private static final class Probed<E> extends TreeCursor<E> {
+        private final TreeOperationSample sample;
+
+        Probed(final NaryTreeNode<E> root, final boolean stopOnEnter, final boolean stopOnExit,
+               final TreeOperationSample sample) {
+            super(root, stopOnEnter, stopOnExit);
+            this.sample = sample;
+        }
+
+        @Override
+        public boolean next() {
+            if (!super.next()) {
+                return false;
+            }
+            // A post-order cursor stops once on every node, on its exit
+            if (this.isEntering() || !((TreeCursor<E>) this).stopOnEnter) {
+                this.sample.visit(this.depth());
+            }
+            return true;
+        }
+    }
+}
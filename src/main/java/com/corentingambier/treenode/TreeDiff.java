@@ -0,0 +1,567 @@
+package com.corentingambier.treenode;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Diff of two trees of {@link NaryTreeNode}, producing a {@link TreePatch}.
+ * <p>
+ * Every node of the target tree is matched top-down to the node of the source tree it comes from. The subtrees are
+ * compared by their hash first, a Merkle hash of the values and shape cached with the statistics, see
+ * {@link NaryTreeNode#enableStatistics()}: a pair of subtrees with different hashes is never compared node by node,
+ * and the children of a node are matched to subtrees of equal hash through a hash map rather than pairwise. Hashes
+ * are built from {@link Object#hashCode()} by default, whose collisions are common, so equal hashes are confirmed by
+ * comparing the subtrees node by node, which emits nothing. Built from a strong hash of the values given by the
+ * caller, equal hashes are trusted instead, so that an unchanged subtree costs a single comparison. The children of a
+ * matched pair are matched in turn:
+ * <ol>
+ *     <li>to an equal subtree among the children of the source node, the subtree being kept as is,</li>
+ *     <li>to a child of the source node with an equal value, whose children are then matched,</li>
+ *     <li>to an equal subtree left unmatched anywhere else in the source tree, the subtree being moved,</li>
+ *     <li>in order to the children of the source node left unmatched, their values being updated.</li>
+ * </ol>
+ * The target nodes left unmatched are inserted, and the source nodes left unmatched deleted. The moves are also
+ * looked for within these subtrees, so that a subtree moved under a new node, or out of a deleted one, is moved
+ * rather than copied.
+ * <p>
+ * The operations are then emitted top-down: every matched parent gets its children in order, from the first one,
+ * with a move for every child not at its place yet and an insertion for every new child, the children to move
+ * elsewhere ending up after them. The deletions come first, but those of the subtrees lending descendants to moves,
+ * which come last.
+ *
+ * @param <E> the type parameter
+ */
+final class TreeDiff<E> {
+    /**
+     * The default hash of the values.
+     */
+    static final ToLongFunction<Object> HASH_CODE = Objects::hashCode;
+    private static final long MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private final NaryTreeNode<E> source;
+    private final ToLongFunction<? super E> hasher;
+    /**
+     * Whether subtrees of equal hashes are compared node by node before being matched.
+     */
+    private final boolean confirm;
+    /**
+     * The hashes of the subtrees whose statistics are not enabled, computed once per diff.
+     */
+    private final Map<NaryTreeNode<E>, Long> hashes = new IdentityHashMap<>();
+    /**
+     * The source node every matched target node comes from.
+     */
+    private final Map<NaryTreeNode<E>, NaryTreeNode<E>> origins = new IdentityHashMap<>();
+    /**
+     * The target nodes whose subtree equals the subtree of the node they come from.
+     */
+    private final Set<NaryTreeNode<E>> unchanged = Collections.newSetFromMap(new IdentityHashMap<>());
+    /**
+     * The target nodes matched to a subtree of another parent.
+     */
+    private final List<NaryTreeNode<E>> moved = new ArrayList<>();
+    /**
+     * The matched target nodes whose children are still to match.
+     */
+    private final Deque<NaryTreeNode<E>> pending = new ArrayDeque<>();
+    /**
+     * The source nodes moved whole.
+     */
+    private final Set<NaryTreeNode<E>> taken = Collections.newSetFromMap(new IdentityHashMap<>());
+    /**
+     * The unmatched source nodes a descendant of which is moved.
+     */
+    private final Set<NaryTreeNode<E>> lending = Collections.newSetFromMap(new IdentityHashMap<>());
+    /**
+     * The unmatched target nodes a descendant of which is moved.
+     */
+    private final Set<NaryTreeNode<E>> holding = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final List<Unmatched<E>> unmatched = new ArrayList<>();
+    private final Map<NaryTreeNode<E>, Integer> handles = new IdentityHashMap<>();
+    private final List<int[]> paths = new ArrayList<>();
+    private final List<TreePatch.Operation<E>> operations = new ArrayList<>();
+
+    private TreeDiff(final NaryTreeNode<E> source, final ToLongFunction<? super E> hasher, final boolean confirm) {
+        this.source = source;
+        this.hasher = hasher;
+        this.confirm = confirm;
+    }
+
+    /**
+     * Compute the patch turning a tree into another one.
+     *
+     * @param <E>     the type parameter
+     * @param source  the root of the tree the patch applies to
+     * @param target  the root of the tree the patch produces
+     * @param hasher  the hash of the values
+     * @param confirm whether subtrees of equal hashes are compared node by node, otherwise taken as equal
+     * @return the patch
+     */
+    static <E> TreePatch<E> diff(final NaryTreeNode<E> source, final NaryTreeNode<E> target,
+                                 final ToLongFunction<? super E> hasher, final boolean confirm) {
+        final TreeDiff<E> diff = new TreeDiff<>(source, hasher, confirm);
+        diff.origins.put(target, source);
+        diff.pending.push(target);
+        do {
+            while (!diff.pending.isEmpty()) {
+                diff.matchChildren(diff.pending.pop());
+            }
+            diff.matchMoves();
+        } while (diff.matchRemaining());
+        diff.emit(target);
+        return new TreePatch<>(diff.paths, diff.operations);
+    }
+
+    /**
+     * Hash a value.
+     *
+     * @param <E>    the type parameter
+     * @param hasher the hash of the values
+     * @param value  the value
+     * @return the hash
+     */
+    static <E> long valueHash(final ToLongFunction<? super E> hasher, final E value) {
+        return TreeDiff.mix(hasher.applyAsLong(value));
+    }
+
+    /**
+     * Add the hash of a child to the hash of a node.
+     *
+     * @param hash      the hash of the node so far
+     * @param childHash the hash of the subtree of the child
+     * @return the hash
+     */
+    static long childHash(final long hash, final long childHash) {
+        return hash * TreeDiff.MULTIPLIER + childHash;
+    }
+
+    /**
+     * Finish the hash of a node once its children are added.
+     *
+     * @param hash          the hash of the node so far
+     * @param childrenCount the number of children
+     * @return the hash of the subtree
+     */
+    static long finishHash(final long hash, final int childrenCount) {
+        return TreeDiff.mix(hash ^ childrenCount);
+    }
+
+    /**
+     * The finalizer of MurmurHash3, so that every bit of the input changes half the bits of the hash.
+     */
+    private static long mix(final long value) {
+        long hash = value;
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        return hash ^ hash >>> 33;
+    }
+
+    private long hash(final NaryTreeNode<E> node) {
+        if (node.isStatisticsEnabled()) {
+            return node.getSubtreeHash(this.hasher);
+        }
+        final Long cached = this.hashes.get(node);
+        if (cached != null) {
+            return cached;
+        }
+        // Hash the whole subtree at once, the subtrees with statistics from their cache
+        final TreeCursor<E> cursor = TreeCursor.depthFirst(node);
+        while (cursor.next()) {
+            final NaryTreeNode<E> descendant = cursor.node();
+            if (cursor.isEntering()) {
+                if (descendant.isStatisticsEnabled()) {
+                    cursor.skipChildren();
+                }
+            } else if (!descendant.isStatisticsEnabled()) {
+                long hash = TreeDiff.valueHash(this.hasher, descendant.getValue());
+                for (int i = 0; i < descendant.getChildrenCount(); i++) {
+                    final NaryTreeNode<E> child = descendant.getChild(i);
+                    hash = TreeDiff.childHash(hash, child.isStatisticsEnabled() ? child.getSubtreeHash(this.hasher)
+                            : this.hashes.get(child));
+                }
+                this.hashes.put(descendant, TreeDiff.finishHash(hash, descendant.getChildrenCount()));
+            }
+        }
+        return this.hashes.get(node);
+    }
+
+    /**
+     * Are two subtrees of equal hashes equal, compared node by node unless the hashes are trusted.
+     */
+    private boolean isEqual(final NaryTreeNode<E> first, final NaryTreeNode<E> second) {
+        if (!this.confirm) {
+            return true;
+        }
+        final Deque<NaryTreeNode<E>> stack = new ArrayDeque<>();
+        stack.push(first);
+        stack.push(second);
+        while (!stack.isEmpty()) {
+            final NaryTreeNode<E> right = stack.pop();
+            final NaryTreeNode<E> left = stack.pop();
+            if (left != right) {
+                if (!Objects.equals(left.getValue(), right.getValue())
+                        || left.getChildrenCount() != right.getChildrenCount()) {
+                    return false;
+                }
+                for (int i = 0; i < left.getChildrenCount(); i++) {
+                    stack.push(left.getChild(i));
+                    stack.push(right.getChild(i));
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Take the first subtree equal to a target subtree out of the subtrees of the same hash.
+     */
+    private NaryTreeNode<E> takeEqual(final Deque<NaryTreeNode<E>> candidates, final NaryTreeNode<E> target) {
+        if (candidates != null) {
+            for (final Iterator<NaryTreeNode<E>> iterator = candidates.iterator(); iterator.hasNext(); ) {
+                final NaryTreeNode<E> candidate = iterator.next();
+                if (this.isEqual(candidate, target)) {
+                    iterator.remove();
+                    return candidate;
+                }
+            }
+        }
+        return null;
+    }
+
+    private Map<Long, Deque<NaryTreeNode<E>>> byHash(final Iterable<NaryTreeNode<E>> nodes) {
+        final Map<Long, Deque<NaryTreeNode<E>>> byHash = new HashMap<>();
+        for (final NaryTreeNode<E> node : nodes) {
+            byHash.computeIfAbsent(this.hash(node), hash -> new ArrayDeque<>()).add(node);
+        }
+        return byHash;
+    }
+
+    private void matchChildren(final NaryTreeNode<E> target) {
+        final NaryTreeNode<E> source = this.origins.get(target);
+        if (this.hash(source) == this.hash(target) && this.isEqual(source, target)) {
+            this.unchanged.add(target);
+            return;
+        }
+        final Map<Long, Deque<NaryTreeNode<E>>> byHash = this.byHash(source.getChildren());
+        final Set<NaryTreeNode<E>> kept = Collections.newSetFromMap(new IdentityHashMap<>());
+        final List<NaryTreeNode<E>> targets = new ArrayList<>();
+        for (final NaryTreeNode<E> child : target.getChildren()) {
+            final NaryTreeNode<E> equal = this.takeEqual(byHash.get(this.hash(child)), child);
+            if (equal != null) {
+                this.origins.put(child, equal);
+                this.unchanged.add(child);
+                kept.add(equal);
+            } else {
+                targets.add(child);
+            }
+        }
+        if (targets.isEmpty() && kept.size() == source.getChildrenCount()) {
+            return;
+        }
+        final Map<Object, Deque<NaryTreeNode<E>>> byValue = new HashMap<>();
+        for (final NaryTreeNode<E> child : source.getChildren()) {
+            if (!kept.contains(child)) {
+                byValue.computeIfAbsent(child.getValue(), value -> new ArrayDeque<>()).add(child);
+            }
+        }
+        final List<NaryTreeNode<E>> remainingTargets = new ArrayList<>();
+        for (final NaryTreeNode<E> child : targets) {
+            final Deque<NaryTreeNode<E>> sameValue = byValue.get(child.getValue());
+            if (sameValue != null && !sameValue.isEmpty()) {
+                final NaryTreeNode<E> origin = sameValue.poll();
+                this.origins.put(child, origin);
+                kept.add(origin);
+                this.pending.push(child);
+            } else {
+                remainingTargets.add(child);
+            }
+        }
+        final List<NaryTreeNode<E>> remainingSources = new ArrayList<>();
+        for (final NaryTreeNode<E> child : source.getChildren()) {
+            if (!kept.contains(child)) {
+                remainingSources.add(child);
+            }
+        }
+        if (!remainingSources.isEmpty() || !remainingTargets.isEmpty()) {
+            this.unmatched.add(new Unmatched<>(remainingSources, remainingTargets));
+        }
+    }
+
+    /**
+     * Match the subtrees of the unmatched target nodes to equal subtrees of the unmatched source nodes, of any
+     * parent and at any depth. A source subtree moved whole cannot lend its descendants, and a source subtree lending
+     * a descendant is deleted once the descendant moved out.
+     */
+    private void matchMoves() {
+        final Set<NaryTreeNode<E>> roots = Collections.newSetFromMap(new IdentityHashMap<>());
+        final List<NaryTreeNode<E>> sources = new ArrayList<>();
+        for (final Unmatched<E> children : this.unmatched) {
+            for (final NaryTreeNode<E> child : children.sources) {
+                roots.add(child);
+                sources.addAll(child.nodeStream(NaryTreeNode.Order.PREFIX).toList());
+            }
+        }
+        if (sources.isEmpty()) {
+            return;
+        }
+        final Map<Long, Deque<NaryTreeNode<E>>> byHash = this.byHash(sources);
+        final Deque<NaryTreeNode<E>> stack = new ArrayDeque<>();
+        for (final Unmatched<E> children : this.unmatched) {
+            for (final Iterator<NaryTreeNode<E>> iterator = children.targets.iterator(); iterator.hasNext(); ) {
+                final NaryTreeNode<E> child = iterator.next();
+                stack.push(child);
+                while (!stack.isEmpty()) {
+                    final NaryTreeNode<E> node = stack.pop();
+                    if (this.origins.containsKey(node)) {
+                        continue;
+                    }
+                    final NaryTreeNode<E> equal = this.takeMovable(byHash.get(this.hash(node)), node, roots);
+                    if (equal == null) {
+                        for (int i = node.getChildrenCount() - 1; i >= 0; i--) {
+                            stack.push(node.getChild(i));
+                        }
+                        continue;
+                    }
+                    this.origins.put(node, equal);
+                    this.unchanged.add(node);
+                    this.moved.add(node);
+                    if (node == child) {
+                        iterator.remove();
+                    } else {
+                        this.holding.add(child);
+                    }
+                }
+            }
+        }
+        for (final Unmatched<E> children : this.unmatched) {
+            children.sources.removeIf(this.taken::contains);
+        }
+    }
+
+    /**
+     * Take the first subtree equal to a target subtree out of the unmatched source subtrees of the same hash, unless
+     * it or one of its ancestors is moved whole already, or one of its descendants is moved.
+     */
+    private NaryTreeNode<E> takeMovable(final Deque<NaryTreeNode<E>> candidates, final NaryTreeNode<E> target,
+                                        final Set<NaryTreeNode<E>> roots) {
+        if (candidates == null) {
+            return null;
+        }
+        for (final Iterator<NaryTreeNode<E>> iterator = candidates.iterator(); iterator.hasNext(); ) {
+            final NaryTreeNode<E> candidate = iterator.next();
+            if (this.lending.contains(candidate) || !this.isEqual(candidate, target)) {
+                continue;
+            }
+            boolean movable = true;
+            for (NaryTreeNode<E> node = candidate; movable; node = node.getParent()) {
+                movable = !this.taken.contains(node);
+                if (roots.contains(node)) {
+                    break;
+                }
+            }
+            if (!movable) {
+                continue;
+            }
+            iterator.remove();
+            this.taken.add(candidate);
+            for (NaryTreeNode<E> node = candidate; !roots.contains(node); ) {
+                node = node.getParent();
+                this.lending.add(node);
+            }
+            return candidate;
+        }
+        return null;
+    }
+
+    /**
+     * Match in order the unmatched children of the same parent, but the source subtrees lending descendants to moves
+     * and the target subtrees holding moved subtrees.
+     *
+     * @return true if any child was matched
+     */
+    private boolean matchRemaining() {
+        boolean matched = false;
+        for (final Unmatched<E> children : this.unmatched) {
+            final Iterator<NaryTreeNode<E>> sources = children.sources.iterator();
+            final Iterator<NaryTreeNode<E>> targets = children.targets.iterator();
+            NaryTreeNode<E> source = TreeDiff.next(sources, this.lending);
+            NaryTreeNode<E> target = TreeDiff.next(targets, this.holding);
+            while (source != null && target != null) {
+                sources.remove();
+                targets.remove();
+                this.origins.put(target, source);
+                this.pending.push(target);
+                matched = true;
+                source = TreeDiff.next(sources, this.lending);
+                target = TreeDiff.next(targets, this.holding);
+            }
+        }
+        this.unmatched.removeIf(children -> children.sources.isEmpty() && children.targets.isEmpty());
+        return matched;
+    }
+
+    private static <E> NaryTreeNode<E> next(final Iterator<NaryTreeNode<E>> iterator,
+                                            final Set<NaryTreeNode<E>> excluded) {
+        while (iterator.hasNext()) {
+            final NaryTreeNode<E> node = iterator.next();
+            if (!excluded.contains(node)) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    private void emit(final NaryTreeNode<E> target) {
+        // The new nodes holding moved subtrees are inserted alone, their children coming with the moves
+        final Map<NaryTreeNode<E>, Integer> holders = new IdentityHashMap<>();
+        for (final NaryTreeNode<E> node : this.moved) {
+            for (NaryTreeNode<E> ancestor = node.getParent();
+                 !this.origins.containsKey(ancestor) && !holders.containsKey(ancestor);
+                 ancestor = ancestor.getParent()) {
+                holders.put(ancestor, -1);
+            }
+        }
+        // The deleted subtrees that do not lend descendants to moves go first, out of the way of the indices
+        final Set<NaryTreeNode<E>> movedAway = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (final Unmatched<E> children : this.unmatched) {
+            for (final NaryTreeNode<E> child : children.sources) {
+                if (!this.lending.contains(child)) {
+                    this.delete(child);
+                    movedAway.add(child);
+                }
+            }
+        }
+        final Deque<NaryTreeNode<E>> stack = new ArrayDeque<>();
+        stack.push(target);
+        while (!stack.isEmpty()) {
+            final NaryTreeNode<E> node = stack.pop();
+            final NaryTreeNode<E> origin = this.origins.get(node);
+            // Source nodes are only named when an operation needs them
+            int handle = origin != null ? -1 : holders.get(node);
+            if (origin != null && !Objects.equals(origin.getValue(), node.getValue())) {
+                handle = this.handleOf(origin);
+                this.operations.add(new TreePatch.Operation<>(TreePatch.Kind.UPDATE, handle, -1, -1,
+                        node.getValue(), null));
+            }
+            if (this.unchanged.contains(node)) {
+                continue;
+            }
+            // The children of the node in the patched tree when its turn comes
+            final List<NaryTreeNode<E>> current = new ArrayList<>();
+            if (origin != null) {
+                for (final NaryTreeNode<E> child : origin.getChildren()) {
+                    if (!movedAway.contains(child)) {
+                        current.add(child);
+                    }
+                }
+            }
+            for (int i = 0; i < node.getChildrenCount(); i++) {
+                final NaryTreeNode<E> child = node.getChild(i);
+                final NaryTreeNode<E> childOrigin = this.origins.get(child);
+                if (handle < 0 && (childOrigin == null || i >= current.size() || current.get(i) != childOrigin)) {
+                    handle = this.handleOf(origin);
+                }
+                if (childOrigin == null) {
+                    final int inserted = this.paths.size();
+                    this.paths.add(null);
+                    final boolean holder = holders.containsKey(child);
+                    this.operations.add(new TreePatch.Operation<>(TreePatch.Kind.INSERT, inserted, handle, i, null,
+                            holder ? new NaryTreeNode<>(child.getValue(), 0) : child.map(Function.identity())));
+                    current.add(i, null);
+                    if (holder) {
+                        holders.put(child, inserted);
+                        stack.push(child);
+                    }
+                    continue;
+                }
+                if (i >= current.size() || current.get(i) != childOrigin) {
+                    this.operations.add(new TreePatch.Operation<>(TreePatch.Kind.MOVE, this.handleOf(childOrigin),
+                            handle, i, null, null));
+                    if (childOrigin.getParent() == origin) {
+                        TreeDiff.removeSame(current, childOrigin);
+                    } else {
+                        movedAway.add(childOrigin);
+                    }
+                    current.add(i, childOrigin);
+                }
+                if (!this.unchanged.contains(child)) {
+                    stack.push(child);
+                }
+            }
+        }
+        for (final Unmatched<E> children : this.unmatched) {
+            for (final NaryTreeNode<E> child : children.sources) {
+                if (this.lending.contains(child)) {
+                    this.delete(child);
+                }
+            }
+        }
+    }
+
+    private void delete(final NaryTreeNode<E> node) {
+        this.operations.add(new TreePatch.Operation<>(TreePatch.Kind.DELETE, this.handleOf(node), -1, -1, null, null));
+    }
+
+    private static <E> void removeSame(final List<NaryTreeNode<E>> nodes, final NaryTreeNode<E> node) {
+        for (int i = 0; i < nodes.size(); i++) {
+            if (nodes.get(i) == node) {
+                nodes.remove(i);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Gets the handle of a source node, naming it by its path the first time.
+     */
+    private int handleOf(final NaryTreeNode<E> node) {
+        final Integer handle = this.handles.get(node);
+        if (handle != null) {
+            return handle;
+        }
+        int depth = 0;
+        for (NaryTreeNode<E> ancestor = node; ancestor != this.source; ancestor = ancestor.getParent()) {
+            depth++;
+        }
+        final int[] path = new int[depth];
+        NaryTreeNode<E> child = node;
+        for (int i = depth - 1; i >= 0; i--) {
+            final NaryTreeNode<E> parent = child.getParent();
+            int index = 0;
+            while (parent.getChild(index) != child) {
+                index++;
+            }
+            path[i] = index;
+            child = parent;
+        }
+        this.handles.put(node, this.paths.size());
+        this.paths.add(path);
+        return this.paths.size() - 1;
+    }
+
+    /**
+     * The children of a matched pair left unmatched.
+     */
+    private static final class Unmatched<E> {
+        private final List<NaryTreeNode<E>> sources;
+        private final List<NaryTreeNode<E>> targets;
+
+        Unmatched(final List<NaryTreeNode<E>> sources, final List<NaryTreeNode<E>> targets) {
+            this.sources = sources;
+            this.targets = targets;
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package com.corentingambier.treenode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * The listeners of a tree and its current batch, held by its {@link TreeContext} while any listener is subscribed or
+ * any batch is open.
+ * <p>
+ * Every listener is subscribed to the subtree of a node. A change is turned into one event per listener whose
+ * subtree holds the changed node, with the path from the node of the listener. Inside a batch, the events are kept
+ * per listener and coalesced when the batch is committed: the value changes of a node that no child was added or
+ * removed between become a single change from the first old value to the last new value, dropped if they are equal,
+ * and the successive reorderings of the children of a node that no event relies on in between become a single one,
+ * with the composition of their permutations, dropped if it leaves every child in place. A listener with an executor
+ * gets its events through a bounded queue of its own, with at most one task submitted to the executor at a time,
+ * which delivers every event queued so far in a single coalesced call: a slow listener gets fewer, larger calls and
+ * never floods the executor, and once its queue is full the queued events are replaced by a single
+ * {@link TreeChangeEvent.Kind#RESYNC} event.
+ * <p>
+ * The path of an event is read from the index every node keeps of itself in its parent, so publishing a change costs
+ * the depth of the node, and the subtree of an added child is only copied for the listeners getting it later.
+ * <p>
+ * A listener or an executor throwing does not prevent the other listeners from getting the events: the first
+ * exception is thrown once every listener was served, with the others suppressed.
+ *
+ * @param <E> the type parameter
+ */
+final class TreeEvents<E> {
+    /**
+     * The subscriptions, copied on write: listeners may subscribe or unsubscribe when called.
+     */
+    private List<Subscription<E>> subscriptions = List.of();
+    private int batchDepth;
+
+    /**
+     * Subscribe a listener to a subtree.
+     *
+     * @param listener the listener
+     * @param scope    the root of the subtree
+     * @param executor the executor calling the listener, null to call it on the thread changing the tree
+     * @param capacity the maximum number of events queued for the executor
+     */
+    void subscribe(final TreeListener<E> listener, final NaryTreeNode<E> scope, final Executor executor,
+                   final int capacity) {
+        final List<Subscription<E>> subscriptions = new ArrayList<>(this.subscriptions);
+        subscriptions.add(new Subscription<>(listener, scope, executor, capacity));
+        this.subscriptions = List.copyOf(subscriptions);
+    }
+
+    /**
+     * Unsubscribe a listener from all the subtrees it is subscribed to. The events of the current batch are not
+     * delivered to it.
+     *
+     * @param listener the listener
+     * @return true if the listener was subscribed
+     */
+    boolean unsubscribe(final TreeListener<E> listener) {
+        final List<Subscription<E>> subscriptions = new ArrayList<>(this.subscriptions);
+        if (!subscriptions.removeIf(subscription -> subscription.listener == listener)) {
+            return false;
+        }
+        this.subscriptions = List.copyOf(subscriptions);
+        return true;
+    }
+
+    /**
+     * Move the listeners to the listeners of another tree, the tree of these listeners joining it.
+     *
+     * @param other the listeners of the other tree
+     */
+    void transferTo(final TreeEvents<E> other) {
+        final List<Subscription<E>> subscriptions = new ArrayList<>(other.subscriptions);
+        subscriptions.addAll(this.subscriptions);
+        other.subscriptions = List.copyOf(subscriptions);
+        this.subscriptions = List.of();
+    }
+
+    /**
+     * Is there neither subscribed listener nor open batch.
+     *
+     * @return the boolean
+     */
+    boolean isEmpty() {
+        return this.subscriptions.isEmpty() && this.batchDepth == 0;
+    }
+
+    /**
+     * Open a batch, possibly nested in another one.
+     */
+    void beginBatch() {
+        this.batchDepth++;
+    }
+
+    /**
+     * Close a batch, delivering its events once the outermost batch is closed.
+     */
+    void commit() {
+        if (this.batchDepth == 0) {
+            throw new IllegalStateException("No batch is open");
+        }
+        if (--this.batchDepth > 0) {
+            return;
+        }
+        Throwable failure = null;
+        for (final Subscription<E> subscription : this.subscriptions) {
+            if (!subscription.pending.isEmpty()) {
+                final List<TreeChangeEvent<E>> events = subscription.pending;
+                subscription.pending = new ArrayList<>();
+                failure = TreeEvents.deliver(subscription, events, failure);
+            }
+        }
+        TreeEvents.rethrow(failure);
+    }
+
+    /**
+     * Report a change to the listeners whose subtree holds the changed node.
+     *
+     * @param kind        the kind
+     * @param node        the node whose value or children changed
+     * @param index       the index of the added or removed child, -1 otherwise
+     * @param child       the added or removed child, null otherwise
+     * @param permutation the former index of every child of a sorting, null otherwise
+     * @param oldValue    the old value of a value change, null otherwise
+     * @param newValue    the new value of a value change, null otherwise
+     */
+    void publish(final TreeChangeEvent.Kind kind, final NaryTreeNode<E> node, final int index,
+                 final NaryTreeNode<E> child, final int[] permutation, final E oldValue, final E newValue) {
+        if (this.subscriptions.isEmpty()) {
+            return;
+        }
+        // The node and its ancestors
+        final List<NaryTreeNode<E>> ancestors = new ArrayList<>();
+        for (NaryTreeNode<E> ancestor = node; ancestor != null; ancestor = ancestor.getParent()) {
+            ancestors.add(ancestor);
+        }
+        // The snapshot of an added child, taken once for all the listeners getting the change later
+        FrozenNaryTree<E> addedSubtree = null;
+        Throwable failure = null;
+        for (final Subscription<E> subscription : this.subscriptions) {
+            final int depth = ancestors.indexOf(subscription.scope);
+            if (depth < 0) {
+                continue;
+            }
+            final int[] path = new int[depth];
+            for (int i = 0; i < depth; i++) {
+                path[i] = ancestors.get(depth - 1 - i).getIndexInParent();
+            }
+            final boolean later = this.batchDepth > 0 || subscription.executor != null;
+            if (later && kind == TreeChangeEvent.Kind.CHILD_ADDED && addedSubtree == null) {
+                addedSubtree = child.freeze();
+            }
+            final TreeChangeEvent<E> event = new TreeChangeEvent<>(kind, node, path, index, child,
+                    later ? addedSubtree : null, permutation, oldValue, newValue);
+            if (this.batchDepth > 0) {
+                subscription.pending.add(event);
+            } else {
+                failure = TreeEvents.deliver(subscription, List.of(event), failure);
+                event.delivered();
+            }
+        }
+        TreeEvents.rethrow(failure);
+    }
+
+    /**
+     * Deliver events to a subscription, keeping what it throws for once every subscription was served.
+     *
+     * @return the first failure, the others being suppressed by it
+     */
+    private static <E> Throwable deliver(final Subscription<E> subscription, final List<TreeChangeEvent<E>> events,
+                                         final Throwable failure) {
+        try {
+            subscription.deliver(events);
+        } catch (final RuntimeException | Error e) {
+            if (failure == null) {
+                return e;
+            }
+            failure.addSuppressed(e);
+        }
+        return failure;
+    }
+
+    private static void rethrow(final Throwable failure) {
+        if (failure instanceof RuntimeException e) {
+            throw e;
+        }
+        if (failure instanceof Error e) {
+            throw e;
+        }
+    }
+
+    /**
+     * Coalesce the value changes of every node between additions and removals of children, and the successive
+     * reorderings of the children of every node, composing their permutations. A reordering is kept as soon as an
+     * event after it relies on the new order: an added or removed child anywhere, whose index or path may depend on
+     * it, a value change or a reordering below the reordered node, whose path does, or a reordering above it, after
+     * which its path is no longer comparable.
+     *
+     * @param <E>    the type parameter
+     * @param events the events, in order
+     * @return the unmodifiable coalesced events
+     */
+    static <E> List<TreeChangeEvent<E>> coalesce(final List<TreeChangeEvent<E>> events) {
+        if (events.size() == 1) {
+            return Collections.unmodifiableList(events);
+        }
+        final List<TreeChangeEvent<E>> coalesced = new ArrayList<>(events.size());
+        final Map<NaryTreeNode<E>, Integer> valueChanges = new IdentityHashMap<>();
+        final Map<NaryTreeNode<E>, Integer> reorderings = new IdentityHashMap<>();
+        for (final TreeChangeEvent<E> event : events) {
+            switch (event.getKind()) {
+                case VALUE_CHANGED -> {
+                    reorderings.values().removeIf(reordering -> event.isBelow(coalesced.get(reordering)));
+                    final Integer first = valueChanges.putIfAbsent(event.getNode(), coalesced.size());
+                    if (first == null) {
+                        coalesced.add(event);
+                    } else {
+                        coalesced.set(first, coalesced.get(first).withNewValue(event.getNewValue()));
+                    }
+                }
+                case CHILDREN_REORDERED -> {
+                    // The paths of the reorderings below this one change, the path of this one relies on those above
+                    reorderings.values().removeIf(reordering -> event.isBelow(coalesced.get(reordering))
+                            || coalesced.get(reordering).isBelow(event));
+                    final Integer previous = reorderings.put(event.getNode(), coalesced.size());
+                    if (previous == null) {
+                        coalesced.add(event);
+                    } else {
+                        coalesced.add(event.after(coalesced.get(previous)));
+                        coalesced.set(previous, null);
+                    }
+                }
+                default -> {
+                    // The paths and indices of the events before and after differ: the changes no longer commute
+                    valueChanges.clear();
+                    reorderings.clear();
+                    coalesced.add(event);
+                }
+            }
+        }
+        coalesced.removeIf(event -> event == null || event.getKind() == TreeChangeEvent.Kind.VALUE_CHANGED
+                && Objects.equals(event.getOldValue(), event.getNewValue())
+                || event.getKind() == TreeChangeEvent.Kind.CHILDREN_REORDERED && event.isIdentity());
+        return Collections.unmodifiableList(coalesced);
+    }
+
+    /**
+     * A listener subscribed to a subtree.
+     */
+    private static final class Subscription<E> {
+        private final TreeListener<E> listener;
+        private final NaryTreeNode<E> scope;
+        private final Executor executor;
+        private final int capacity;
+        /**
+         * The events of the current batch.
+         */
+        private List<TreeChangeEvent<E>> pending = new ArrayList<>();
+        /**
+         * The events waiting for the executor, guarded by this subscription.
+         */
+        private List<TreeChangeEvent<E>> queued = new ArrayList<>();
+        /**
+         * Whether a task delivering the queued events was submitted, guarded by this subscription.
+         */
+        private boolean scheduled;
+
+        Subscription(final TreeListener<E> listener, final NaryTreeNode<E> scope, final Executor executor,
+                     final int capacity) {
+            this.listener = listener;
+            this.scope = scope;
+            this.executor = executor;
+            this.capacity = capacity;
+        }
+
+        void deliver(final List<TreeChangeEvent<E>> events) {
+            if (this.executor == null) {
+                final List<TreeChangeEvent<E>> coalesced = TreeEvents.coalesce(events);
+                if (!coalesced.isEmpty()) {
+                    this.listener.treeChanged(coalesced);
+                }
+                return;
+            }
+            final boolean schedule;
+            synchronized (this) {
+                if (events.size() > this.capacity - this.queued.size()) {
+                    // The events dropped so far are replaced by a single event
+                    this.queued = new ArrayList<>();
+                    this.queued.add(new TreeChangeEvent<>(TreeChangeEvent.Kind.RESYNC, this.scope, new int[0], -1,
+                            null, null, null, null, null));
+                } else {
+                    this.queued.addAll(events);
+                }
+                schedule = !this.scheduled;
+                this.scheduled = true;
+            }
+            if (schedule) {
+                try {
+                    this.executor.execute(this::drain);
+                } catch (final RejectedExecutionException e) {
+                    // The events stay queued for the next change
+                    synchronized (this) {
+                        this.scheduled = false;
+                    }
+                    throw e;
+                }
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                final List<TreeChangeEvent<E>> events;
+                synchronized (this) {
+                    if (this.queued.isEmpty()) {
+                        this.scheduled = false;
+                        return;
+                    }
+                    events = this.queued;
+                    this.queued = new ArrayList<>();
+                }
+                final List<TreeChangeEvent<E>> coalesced = TreeEvents.coalesce(events);
+                if (coalesced.isEmpty()) {
+                    continue;
+                }
+                try {
+                    this.listener.treeChanged(coalesced);
+                } catch (final RuntimeException | Error e) {
+                    synchronized (this) {
+                        this.scheduled = false;
+                    }
+                    throw e;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.corentingambier.treenode;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Iterative bottom-up fold of a tree of {@link NaryTreeNode}, and the transformed copies built on it.
+ * <p>
+ * The fold walks the tree depth-first with an explicit stack and keeps the results of the children of the nodes of
+ * the current path on a second stack, so that a node is combined once all its children were, whatever the depth of
+ * the tree. A node may be skipped before its children are visited: its result is then null. The copies are built
+ * bottom-up, so every copied node is created with the exact capacity for its copied children.
+ * <p>
+ * In parallel, once a task has entered {@code threshold} nodes, it forks the next subtree it would enter as long as
+ * that subtree has siblings left to visit and the pool is short of queued work, and joins it when it combines the
+ * parent of that subtree.
+ *
+ * @param <E> the type parameter of the nodes
+ * @param <R> the type of the results
+ */
+final class TreeFold<E, R> extends RecursiveTask<R> {
+    private static final int INITIAL_STACK_CAPACITY = 16;
+    private static final int MAX_SURPLUS_QUEUED_TASKS = 2;
+    /**
+     * The maximum number of nested forks, as a task joined before it was stolen runs in the stack of its parent.
+     */
+    private static final int MAX_FORK_DEPTH = 32;
+
+    private final NaryTreeNode<E> root;
+    private final Predicate<? super E> enter;
+    private final Combiner<E, R> combiner;
+    /**
+     * The number of nodes a task enters before it may fork, 0 to never fork.
+     */
+    private final int threshold;
+    /**
+     * Whether the root was already entered, by the task that forked this one.
+     */
+    private final boolean rootEntered;
+    private final int forkDepth;
+
+    private TreeFold(final NaryTreeNode<E> root, final Predicate<? super E> enter, final Combiner<E, R> combiner,
+                     final int threshold, final boolean rootEntered, final int forkDepth) {
+        this.root = root;
+        this.enter = enter;
+        this.combiner = combiner;
+        this.threshold = threshold;
+        this.rootEntered = rootEntered;
+        this.forkDepth = forkDepth;
+    }
+
+    /**
+     * Fold a tree.
+     *
+     * @param <E>       the type parameter of the nodes
+     * @param <R>       the type of the results
+     * @param root      the root
+     * @param enter     whether a node is visited, a skipped node and its subtree having a null result
+     * @param combiner  the function combining the value of a node with the results of its children
+     * @param pool      the pool running the fold, null to run it in the calling thread
+     * @param threshold the number of nodes a task visits sequentially before it may split
+     * @return the result of the root
+     */
+    static <E, R> R fold(final NaryTreeNode<E> root, final Predicate<? super E> enter, final Combiner<E, R> combiner,
+                         final ForkJoinPool pool, final int threshold) {
+        if (pool == null) {
+            return new TreeFold<>(root, enter, combiner, 0, false, 0).compute();
+        }
+        if (threshold < 1) {
+            throw new IllegalArgumentException("threshold must be positive: " + threshold);
+        }
+        return pool.invoke(new TreeFold<>(root, enter, combiner, threshold, false, 0));
+    }
+
+    /**
+     * Fold a tree, the results of the children being given as a list.
+     *
+     * @param <E>       the type parameter of the nodes
+     * @param <R>       the type of the results
+     * @param root      the root
+     * @param combiner  the function combining the value of a node with the results of its children
+     * @param pool      the pool running the fold, null to run it in the calling thread
+     * @param threshold the number of nodes a task visits sequentially before it may split
+     * @return the result of the root
+     */
+    static <E, R> R fold(final NaryTreeNode<E> root,
+                         final BiFunction<? super E, ? super List<R>, ? extends R> combiner, final ForkJoinPool pool,
+                         final int threshold) {
+        return TreeFold.fold(root, value -> true, (value, results, from, to) ->
+                combiner.apply(value, TreeFold.resultList(results, from, to)), pool, threshold);
+    }
+
+    /**
+     * Copy a tree, mapping every value.
+     *
+     * @param <E>       the type parameter of the nodes
+     * @param <R>       the type parameter of the copy
+     * @param root      the root
+     * @param mapper    the function mapping every value
+     * @param pool      the pool running the copy, null to run it in the calling thread
+     * @param threshold the number of nodes a task visits sequentially before it may split
+     * @return the root of the copy
+     */
+    static <E, R> NaryTreeNode<R> map(final NaryTreeNode<E> root, final Function<? super E, ? extends R> mapper,
+                                      final ForkJoinPool pool, final int threshold) {
+        return TreeFold.fold(root, value -> true, (value, results, from, to) ->
+                TreeFold.copy(mapper.apply(value), results, from, to, to - from), pool, threshold);
+    }
+
+    /**
+     * Copy a tree without the subtrees whose root fails a predicate.
+     *
+     * @param <E>       the type parameter
+     * @param root      the root
+     * @param keep      whether the subtree of a node is kept
+     * @param pool      the pool running the copy, null to run it in the calling thread
+     * @param threshold the number of nodes a task visits sequentially before it may split
+     * @return the root of the copy, empty if the root fails the predicate
+     */
+    static <E> Optional<NaryTreeNode<E>> prune(final NaryTreeNode<E> root, final Predicate<? super E> keep,
+                                               final ForkJoinPool pool, final int threshold) {
+        return Optional.ofNullable(TreeFold.fold(root, keep, (value, results, from, to) ->
+                TreeFold.copy(value, results, from, to, TreeFold.countNonNull(results, from, to)), pool, threshold));
+    }
+
+    /**
+     * Copy the nodes of a tree that match a predicate, with their ancestors.
+     *
+     * @param <E>       the type parameter
+     * @param root      the root
+     * @param filter    the predicate
+     * @param pool      the pool running the copy, null to run it in the calling thread
+     * @param threshold the number of nodes a task visits sequentially before it may split
+     * @return the root of the copy, empty if no node matches
+     */
+    static <E> Optional<NaryTreeNode<E>> filterKeepingAncestors(final NaryTreeNode<E> root,
+                                                                final Predicate<? super E> filter,
+                                                                final ForkJoinPool pool, final int threshold) {
+        return Optional.ofNullable(TreeFold.fold(root, value -> true, (value, results, from, to) -> {
+            final int kept = TreeFold.countNonNull(results, from, to);
+            return kept > 0 || filter.test(value) ? TreeFold.copy(value, results, from, to, kept) : null;
+        }, pool, threshold));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> NaryTreeNode<E> copy(final E value, final Object[] results, final int from, final int to,
+                                            final int count) {
+        final NaryTreeNode<E> copy = new NaryTreeNode<>(value, count);
+        for (int i = from; i < to; i++) {
+            if (results[i] != null) {
+                copy.appendNewChild((NaryTreeNode<E>) results[i]);
+            }
+        }
+        return copy;
+    }
+
+    private static int countNonNull(final Object[] results, final int from, final int to) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (results[i] != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static <R> List<R> resultList(final Object[] results, final int from, final int to) {
+        return from == to ? Collections.emptyList() : new ResultList<>(Arrays.copyOfRange(results, from, to));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected R compute() {
+        if (!this.rootEntered && !this.enter.test(this.root.getValue())) {
+            return null;
+        }
+        NaryTreeNode<E>[] path = new NaryTreeNode[TreeFold.INITIAL_STACK_CAPACITY];
+        int[] nextChild = new int[TreeFold.INITIAL_STACK_CAPACITY];
+        // The index in the results of the first child of every node of the path
+        int[] firstResult = new int[TreeFold.INITIAL_STACK_CAPACITY];
+        // The results, or the forked tasks computing them
+        Object[] results = new Object[TreeFold.INITIAL_STACK_CAPACITY];
+        int resultCount = 0;
+        int top = 0;
+        int entered = 1;
+        path[0] = this.root;
+        while (true) {
+            final NaryTreeNode<E> node = path[top];
+            final int index = nextChild[top];
+            Object result;
+            if (index < node.getChildrenCount()) {
+                nextChild[top] = index + 1;
+                final NaryTreeNode<E> child = node.getChild(index);
+                if (!this.enter.test(child.getValue())) {
+                    result = null;
+                } else if (this.threshold > 0 && ++entered >= this.threshold && index + 1 < node.getChildrenCount()
+                        && this.forkDepth < TreeFold.MAX_FORK_DEPTH
+                        && RecursiveTask.getSurplusQueuedTaskCount() <= TreeFold.MAX_SURPLUS_QUEUED_TASKS) {
+                    // Only a child with siblings left is worth forking, the task having other work meanwhile
+                    final TreeFold<E, R> task = new TreeFold<>(child, this.enter, this.combiner, this.threshold,
+                            true, this.forkDepth + 1);
+                    task.fork();
+                    result = task;
+                    entered = 0;
+                } else {
+                    if (++top == path.length) {
+                        path = Arrays.copyOf(path, top << 1);
+                        nextChild = Arrays.copyOf(nextChild, top << 1);
+                        firstResult = Arrays.copyOf(firstResult, top << 1);
+                    }
+                    path[top] = child;
+                    nextChild[top] = 0;
+                    firstResult[top] = resultCount;
+                    continue;
+                }
+            } else {
+                final int from = firstResult[top];
+                for (int i = from; i < resultCount; i++) {
+                    if (results[i] instanceof TreeFold<?, ?> task) {
+                        results[i] = task.join();
+                    }
+                }
+                result = this.combiner.combine(node.getValue(), results, from, resultCount);
+                Arrays.fill(results, from, resultCount, null);
+                resultCount = from;
+                path[top] = null;
+                if (--top < 0) {
+                    return (R) result;
+                }
+            }
+            if (resultCount == results.length) {
+                results = Arrays.copyOf(results, resultCount << 1);
+            }
+            results[resultCount++] = result;
+        }
+    }
+
+    /**
+     * Combination of the value of a node with the results of its children.
+     *
+     * @param <E> the type parameter of the nodes
+     * @param <R> the type of the results
+     */
+    @FunctionalInterface
+    interface Combiner<E, R> {
+        /**
+         * Combine the value of a node with the results of its children.
+         *
+         * @param value   the value
+         * @param results the results, those of the children of the node being from {@code from} to {@code to}
+         * @param from    the index of the result of the first child
+         * @param to      the index after the result of the last child
+         * @return the result of the node
+         */
+        R combine(E value, Object[] results, int from, int to);
+    }
+
+    /**
+     * Unmodifiable list over a copy of the results of the children of a node.
+     */
+    private static final class ResultList<R> extends AbstractList<R> implements RandomAccess {
+        private final Object[] results;
+
+        private ResultList(final Object[] results) {
+            this.results = results;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public R get(final int index) {
+            return (R) this.results[index];
+        }
+
+        @Override
+        public int size() {
+            return this.results.length;
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.corentingambier.treenode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A level-by-level traversal of a tree, one level at a time, reading a window of the children of every node, see
+ * {@link NaryTreeNode#levelCursor(int, int)}.
+ * <p>
+ * The cursor iterates over the nodes of its current level, from left to right, then {@link #nextLevel()} moves it to
+ * the first node of the level below. While a level is read, the cursor keeps its nodes with children in the window:
+ * they are the parents of the next level, which is read from them instead of walked again from the root. A page
+ * touches the nodes it returns only, and reading all the levels touches every node of the window once, whatever the
+ * shape of the tree. {@link #nextLevel()} reads the rest of the current level to complete the parents of the next
+ * one, and the memory used is the number of nodes of the current level with children in the window.
+ * <p>
+ * {@link #getPosition()} gives the child indices leading to the next node, from which
+ * {@link NaryTreeNode#levelCursor(int, int, int[])} resumes the traversal later, for example to serve the next page
+ * of a level. A resumed cursor does not know the nodes before its position: it walks down from the root to its
+ * position, keeping only the path to the current node, so a page touches the nodes it returns and their ancestors,
+ * plus the nodes of the window without descendants at the depth of the level, and its first {@link #nextLevel()}
+ * walks again from the root before the next levels are read from the level above. A position is valid as long as
+ * the children of the nodes on its path are not modified. The tree must not be modified during the iteration, and a
+ * cursor is not thread safe.
+ *
+ * @param <E> the type parameter
+ */
+public final class TreeLevelCursor<E> implements Iterator<NaryTreeNode<E>> {
+    private static final int INITIAL_STACK_CAPACITY = 16;
+
+    private final NaryTreeNode<E> root;
+    private final int childOffset;
+    private final int childLimit;
+    private int depth;
+    /**
+     * The path from the root to the current node, when the level is walked from the root.
+     */
+    private NaryTreeNode<E>[] path;
+    /**
+     * For every node of the path, the index of the next child to visit.
+     */
+    private int[] nextChild;
+    /**
+     * For every node of the path, the index after the last child of its window.
+     */
+    private int[] end;
+    /**
+     * The index of the current node in the path, -1 once the level is exhausted.
+     */
+    private int top;
+    /**
+     * Whether the current node is at the depth of the level and not returned yet.
+     */
+    private boolean found;
+    /**
+     * The next node of the level, when found.
+     */
+    private NaryTreeNode<E> current;
+    /**
+     * Whether the level is read from the nodes of the level above in parents, rather than walked from the root.
+     */
+    private boolean fromParents;
+    /**
+     * The nodes of the level above with children in the window, from left to right.
+     */
+    private NaryTreeNode<E>[] parents;
+    private int parentCount;
+    /**
+     * The index in parents of the parent of the current node.
+     */
+    private int parentIndex;
+    /**
+     * The index of the next child to visit in the current parent.
+     */
+    private int parentNextChild;
+    /**
+     * The index after the last child of the window of the current parent.
+     */
+    private int parentEnd;
+    /**
+     * The nodes of the current level returned so far with children in the window, the parents of the next level, or
+     * null when the level is not read from its first node.
+     */
+    private NaryTreeNode<E>[] children;
+    private int childCount;
+
+    /**
+     * Instantiates a new cursor at the first node of a level.
+     *
+     * @param root        the root of the traversal
+     * @param childOffset the index of the first child visited for every node
+     * @param childLimit  the maximum number of children visited for every node
+     */
+    @SuppressWarnings("unchecked")
+    TreeLevelCursor(final NaryTreeNode<E> root, final int childOffset, final int childLimit) {
+        TreeWindow.checkWindow(childOffset, childLimit);
+        this.root = root;
+        this.childOffset = childOffset;
+        this.childLimit = childLimit;
+        this.path = new NaryTreeNode[TreeLevelCursor.INITIAL_STACK_CAPACITY];
+        this.nextChild = new int[TreeLevelCursor.INITIAL_STACK_CAPACITY];
+        this.end = new int[TreeLevelCursor.INITIAL_STACK_CAPACITY];
+        this.parents = new NaryTreeNode[TreeLevelCursor.INITIAL_STACK_CAPACITY];
+        this.children = new NaryTreeNode[TreeLevelCursor.INITIAL_STACK_CAPACITY];
+        this.reset();
+    }
+
+    /**
+     * Instantiates a new cursor resuming at a position.
+     *
+     * @param root        the root of the traversal
+     * @param childOffset the index of the first child visited for every node
+     * @param childLimit  the maximum number of children visited for every node
+     * @param position    the position, as given by {@link #getPosition()}
+     */
+    TreeLevelCursor(final NaryTreeNode<E> root, final int childOffset, final int childLimit, final int[] position) {
+        this(root, childOffset, childLimit);
+        this.depth = position.length;
+        for (int i = 0; i < position.length; i++) {
+            final int index = position[i];
+            if (index < childOffset || index >= this.end[i]) {
+                throw new IllegalArgumentException("The position " + Arrays.toString(position)
+                        + " is not in the window of the tree");
+            }
+            this.nextChild[i] = index + 1;
+            this.push(this.path[i].getChild(index));
+        }
+        this.current = this.path[this.top];
+        this.path[this.top--] = null;
+        this.found = true;
+        this.children = null;
+    }
+
+    /**
+     * Gets the depth of the current level, 0 for the root.
+     *
+     * @return the depth
+     */
+    public int getDepth() {
+        return this.depth;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (this.found) {
+            return true;
+        }
+        if (this.fromParents) {
+            while (this.parentNextChild >= this.parentEnd) {
+                if (++this.parentIndex >= this.parentCount) {
+                    return false;
+                }
+                this.parentNextChild = this.childOffset;
+                this.parentEnd = TreeWindow.windowEnd(this.parents[this.parentIndex], this.childOffset,
+                        this.childLimit);
+            }
+            this.current = this.parents[this.parentIndex].getChild(this.parentNextChild++);
+            this.found = true;
+            return true;
+        }
+        while (this.top >= 0) {
+            if (this.top == this.depth) {
+                this.current = this.path[this.top];
+                this.path[this.top--] = null;
+                this.found = true;
+                return true;
+            }
+            if (this.nextChild[this.top] < this.end[this.top]) {
+                final NaryTreeNode<E> child = this.path[this.top].getChild(this.nextChild[this.top]++);
+                this.push(child);
+            } else {
+                this.path[this.top--] = null;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public NaryTreeNode<E> next() {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final NaryTreeNode<E> node = this.current;
+        this.current = null;
+        this.found = false;
+        if (this.children != null
+                && TreeWindow.windowEnd(node, this.childOffset, this.childLimit) > this.childOffset) {
+            if (this.childCount == this.children.length) {
+                this.children = Arrays.copyOf(this.children, this.childCount << 1);
+            }
+            this.children[this.childCount++] = node;
+        }
+        return node;
+    }
+
+    /**
+     * List the next nodes of the current level.
+     *
+     * @param maxNodes the maximum number of nodes
+     * @return the nodes, fewer than maxNodes at the end of the level
+     */
+    public List<NaryTreeNode<E>> nextPage(final int maxNodes) {
+        if (maxNodes < 0) {
+            throw new IllegalArgumentException("maxNodes must not be negative: " + maxNodes);
+        }
+        final List<NaryTreeNode<E>> page = new ArrayList<>(Math.min(maxNodes, TreeLevelCursor.INITIAL_STACK_CAPACITY));
+        while (page.size() < maxNodes && this.hasNext()) {
+            page.add(this.next());
+        }
+        return page;
+    }
+
+    /**
+     * Move to the first node of the level below, skipping the rest of the current level: its nodes are read, not
+     * returned, to find the parents of the level below.
+     *
+     * @return whether the new level has nodes
+     */
+    @SuppressWarnings("unchecked")
+    public boolean nextLevel() {
+        if (this.children == null) {
+            // Resumed in the middle of the level, the cursor misses the parents before its position
+            this.depth++;
+            this.children = new NaryTreeNode[TreeLevelCursor.INITIAL_STACK_CAPACITY];
+            this.reset();
+            return this.hasNext();
+        }
+        while (this.hasNext()) {
+            this.next();
+        }
+        Arrays.fill(this.parents, 0, this.parentCount, null);
+        final NaryTreeNode<E>[] levelAbove = this.children;
+        this.children = this.parents;
+        this.parents = levelAbove;
+        this.parentCount = this.childCount;
+        this.childCount = 0;
+        this.depth++;
+        this.top = -1;
+        this.fromParents = true;
+        this.parentIndex = 0;
+        this.parentNextChild = this.childOffset;
+        this.parentEnd = this.parentCount == 0 ? this.childOffset
+                : TreeWindow.windowEnd(this.parents[0], this.childOffset, this.childLimit);
+        return this.hasNext();
+    }
+
+    /**
+     * Gets the position of the next node: the index of every node of its path in its parent, from the child of the
+     * root down to the node itself.
+     *
+     * @return the position
+     * @throws NoSuchElementException if the level is exhausted
+     */
+    public int[] getPosition() {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final int[] position = new int[this.depth];
+        NaryTreeNode<E> node = this.current;
+        for (int i = this.depth - 1; i >= 0; i--) {
+            position[i] = node.getIndexInParent();
+            node = node.getParent();
+        }
+        return position;
+    }
+
+    private void reset() {
+        Arrays.fill(this.path, null);
+        this.top = -1;
+        this.found = false;
+        this.current = null;
+        this.push(this.root);
+    }
+
+    private void push(final NaryTreeNode<E> node) {
+        if (++this.top == this.path.length) {
+            this.path = Arrays.copyOf(this.path, this.top << 1);
+            this.nextChild = Arrays.copyOf(this.nextChild, this.top << 1);
+            this.end = Arrays.copyOf(this.end, this.top << 1);
+        }
+        this.path[this.top] = node;
+        this.nextChild[this.top] = this.childOffset;
+        this.end[this.top] = TreeWindow.windowEnd(node, this.childOffset, this.childLimit);
+    }
+}
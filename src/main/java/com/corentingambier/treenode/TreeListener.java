@@ -0,0 +1,20 @@
+package com.corentingambier.treenode;
+
+import java.util.List;
+
+/**
+ * Listener of the changes of a subtree, see {@link NaryTreeNode#addTreeListener(TreeListener)}.
+ *
+ * @param <E> the type parameter
+ */
+@FunctionalInterface
+public interface TreeListener<E> {
+    /**
+     * Called once the subtree changed, with the changes in the order they happened: a single change outside of a
+     * batch, all the changes of a batch once it is committed, and all the changes queued since the last call for a
+     * listener called on an executor.
+     *
+     * @param events the unmodifiable changes, never empty
+     */
+    void treeChanged(List<TreeChangeEvent<E>> events);
+}
@@ -0,0 +1,76 @@
+package com.corentingambier.treenode;
+
+/**
+ * Sink of the measures of the operations of {@link NaryTreeNode}, see {@link NaryTreeNode#setMetrics(TreeMetrics)}.
+ * <p>
+ * The sink is called on the thread of the operation once it is done, so it must be thread safe and fast; see
+ * {@link JmxTreeMetrics} for a sink aggregating the measures and exposing them through JMX. The default sink,
+ * {@link #NONE}, is never called: while it is set, the operations measure nothing, allocate nothing and read no
+ * clock.
+ */
+@FunctionalInterface
+public interface TreeMetrics {
+    /**
+     * The sink measuring nothing.
+     */
+    TreeMetrics NONE = sample -> {
+    };
+
+    /**
+     * Record the measures of a completed operation.
+     *
+     * @param sample the measures, not to be kept once the method returns
+     */
+    void record(TreeOperationSample sample);
+
+    /**
+     * The measured operations. The parallel operations, the lazy iterators and the streams are not measured.
+     */
+    enum Operation {
+        /**
+         * {@link NaryTreeNode#contains(Object)}.
+         */
+        CONTAINS,
+        /**
+         * {@link NaryTreeNode#findFirst(Object)}.
+         */
+        FIND_FIRST,
+        /**
+         * {@link NaryTreeNode#findAll(Object)}.
+         */
+        FIND_ALL,
+        /**
+         * {@link NaryTreeNode#pathTo(Object)}.
+         */
+        PATH_TO,
+        /**
+         * {@link NaryTreeNode#toPrefixList()}.
+         */
+        TO_PREFIX_LIST,
+        /**
+         * {@link NaryTreeNode#toPostfixList()}.
+         */
+        TO_POSTFIX_LIST,
+        /**
+         * {@link NaryTreeNode#toByWidthList()}.
+         */
+        TO_BY_WIDTH_LIST,
+        /**
+         * {@link NaryTreeNode#toJson()}.
+         */
+        TO_JSON,
+        /**
+         * The {@code writeJson} methods of {@link NaryTreeNode}.
+         */
+        WRITE_JSON,
+        /**
+         * The {@code writeBinary} methods of {@link NaryTreeNode}.
+         */
+        WRITE_BINARY,
+        /**
+         * The {@code generateText}, {@code writeText}, {@code toPrettyText} and {@code writePrettyText} methods of
+         * {@link NaryTreeNode}.
+         */
+        TO_TEXT
+    }
+}
@@ -0,0 +1,250 @@
+package com.corentingambier.treenode;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Objects;
+
+/**
+ * The measures of an operation of {@link NaryTreeNode}, given to a {@link TreeMetrics} once the operation is done.
+ * <p>
+ * A sample is only created while a sink other than {@link TreeMetrics#NONE} is set, and the cursors of the operation
+ * report their visits to it.
+ */
+public final class TreeOperationSample {
+    private static volatile TreeMetrics metrics = TreeMetrics.NONE;
+
+    private final TreeMetrics.Operation operation;
+    private final TreeMetrics sink;
+    private final long start;
+    private long nanos;
+    private long nodesVisited;
+    private int maxDepth = -1;
+    private int maxFrontier;
+    private long outputLength = -1;
+
+    private TreeOperationSample(final TreeMetrics.Operation operation, final TreeMetrics sink) {
+        this.operation = operation;
+        this.sink = sink;
+        this.start = System.nanoTime();
+    }
+
+    /**
+     * Gets the sink of the operations.
+     *
+     * @return the sink
+     */
+    static TreeMetrics getMetrics() {
+        return TreeOperationSample.metrics;
+    }
+
+    /**
+     * Sets the sink of the operations.
+     *
+     * @param metrics the sink
+     */
+    static void setMetrics(final TreeMetrics metrics) {
+        TreeOperationSample.metrics = Objects.requireNonNull(metrics);
+    }
+
+    /**
+     * Start measuring an operation.
+     *
+     * @param operation the operation
+     * @return the sample, null while no sink is set
+     */
+    static TreeOperationSample start(final TreeMetrics.Operation operation) {
+        final TreeMetrics sink = TreeOperationSample.metrics;
+        return sink == TreeMetrics.NONE ? null : new TreeOperationSample(operation, sink);
+    }
+
+    /**
+     * Report the visit of a node.
+     *
+     * @param depth the depth of the node below the node of the operation
+     */
+    void visit(final int depth) {
+        this.nodesVisited++;
+        if (depth > this.maxDepth) {
+            this.maxDepth = depth;
+        }
+    }
+
+    /**
+     * Report the number of nodes waiting in the queue of a breadth-first traversal.
+     *
+     * @param frontier the number of nodes
+     */
+    void frontier(final int frontier) {
+        if (frontier > this.maxFrontier) {
+            this.maxFrontier = frontier;
+        }
+    }
+
+    /**
+     * Report the length of the output.
+     *
+     * @param length the length
+     */
+    void output(final long length) {
+        this.outputLength = length;
+    }
+
+    /**
+     * Wrap an appendable to count the characters written to it.
+     *
+     * @param appendable the appendable
+     * @return the counting appendable
+     */
+    Appendable counting(final Appendable appendable) {
+        this.outputLength = 0;
+        return new Appendable() {
+            @Override
+            public Appendable append(final CharSequence csq) throws IOException {
+                appendable.append(csq);
+                TreeOperationSample.this.outputLength += csq == null ? 4 : csq.length();
+                return this;
+            }
+
+            @Override
+            public Appendable append(final CharSequence csq, final int start, final int end) throws IOException {
+                appendable.append(csq, start, end);
+                TreeOperationSample.this.outputLength += end - start;
+                return this;
+            }
+
+            @Override
+            public Appendable append(final char c) throws IOException {
+                appendable.append(c);
+                TreeOperationSample.this.outputLength++;
+                return this;
+            }
+        };
+    }
+
+    /**
+     * Wrap an output stream to count the bytes written to it.
+     *
+     * @param outputStream the output stream
+     * @return the counting output stream
+     */
+    OutputStream counting(final OutputStream outputStream) {
+        this.outputLength = 0;
+        return new FilterOutputStream(outputStream) {
+            @Override
+            public void write(final int b) throws IOException {
+                this.out.write(b);
+                TreeOperationSample.this.outputLength++;
+            }
+
+            @Override
+            public void write(final byte[] b, final int off, final int len) throws IOException {
+                this.out.write(b, off, len);
+                TreeOperationSample.this.outputLength += len;
+            }
+        };
+    }
+
+    /**
+     * Wrap a channel to count the bytes written to it. Closing the returned channel closes the channel.
+     *
+     * @param channel the channel
+     * @return the counting channel
+     */
+    WritableByteChannel counting(final WritableByteChannel channel) {
+        this.outputLength = 0;
+        return new WritableByteChannel() {
+            @Override
+            public int write(final ByteBuffer src) throws IOException {
+                final int written = channel.write(src);
+                TreeOperationSample.this.outputLength += written;
+                return written;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return channel.isOpen();
+            }
+
+            @Override
+            public void close() throws IOException {
+                channel.close();
+            }
+        };
+    }
+
+    /**
+     * Stop measuring an operation, which returned or threw, and give the sample to the sink set when it started.
+     *
+     * @param sample the sample, null while no sink was set
+     */
+    static void stop(final TreeOperationSample sample) {
+        if (sample != null) {
+            sample.nanos = System.nanoTime() - sample.start;
+            sample.sink.record(sample);
+        }
+    }
+
+    /**
+     * Gets the operation.
+     *
+     * @return the operation
+     */
+    public TreeMetrics.Operation getOperation() {
+        return this.operation;
+    }
+
+    /**
+     * Gets the duration of the operation.
+     *
+     * @return the duration in nanoseconds
+     */
+    public long getNanos() {
+        return this.nanos;
+    }
+
+    /**
+     * Gets the number of nodes visited by the operation, 0 when it was answered by the value index.
+     *
+     * @return the number of nodes
+     */
+    public long getNodesVisited() {
+        return this.nodesVisited;
+    }
+
+    /**
+     * Gets the depth of the deepest visited node, 0 for the node of the operation.
+     *
+     * @return the depth, -1 if no node was visited
+     */
+    public int getMaxDepth() {
+        return this.maxDepth;
+    }
+
+    /**
+     * Gets the largest number of nodes waiting in the queue of a breadth-first traversal.
+     *
+     * @return the number of nodes, 0 for the other operations
+     */
+    public int getMaxFrontier() {
+        return this.maxFrontier;
+    }
+
+    /**
+     * Gets the length of the output of a serialisation: characters for the text and the json written to a string or
+     * an appendable, bytes for the json written to an output stream and for the binary format.
+     *
+     * @return the length, -1 for the other operations and when written to a {@code JsonWriter}
+     */
+    public long getOutputLength() {
+        return this.outputLength;
+    }
+
+    @Override
+    public String toString() {
+        return this.operation + " " + this.nanos + " ns, " + this.nodesVisited + " nodes, depth " + this.maxDepth
+                + ", frontier " + this.maxFrontier + ", output " + this.outputLength;
+    }
+}
@@ -0,0 +1,144 @@
+package com.corentingambier.treenode;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The statistics of the calls of an operation, aggregated from their samples without lock.
+ * <p>
+ * The durations are counted in a histogram of power-of-two buckets, so that the percentiles are known within a factor
+ * of two whatever the number of calls.
+ */
+public final class TreeOperationStats implements TreeOperationStatsMXBean {
+    private static final int BUCKETS = Long.SIZE + 1;
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+    /**
+     * The number of calls by duration: bucket {@code i} counts the durations below {@code 2^i} nanoseconds and not
+     * below {@code 2^(i - 1)}.
+     */
+    private final AtomicLongArray histogram = new AtomicLongArray(TreeOperationStats.BUCKETS);
+    private final LongAdder nodesVisited = new LongAdder();
+    private final AtomicLong maxNodesVisited = new AtomicLong();
+    private final AtomicInteger maxDepth = new AtomicInteger(-1);
+    private final AtomicInteger maxFrontier = new AtomicInteger();
+    private final LongAdder outputLength = new LongAdder();
+    private final AtomicLong maxOutputLength = new AtomicLong();
+
+    /**
+     * Add the sample of a call.
+     *
+     * @param sample the sample
+     */
+    public void add(final TreeOperationSample sample) {
+        final long nanos = Math.max(sample.getNanos(), 0);
+        this.count.increment();
+        this.totalNanos.add(nanos);
+        this.maxNanos.accumulateAndGet(nanos, Math::max);
+        this.histogram.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(nanos));
+        this.nodesVisited.add(sample.getNodesVisited());
+        this.maxNodesVisited.accumulateAndGet(sample.getNodesVisited(), Math::max);
+        this.maxDepth.accumulateAndGet(sample.getMaxDepth(), Math::max);
+        this.maxFrontier.accumulateAndGet(sample.getMaxFrontier(), Math::max);
+        if (sample.getOutputLength() >= 0) {
+            this.outputLength.add(sample.getOutputLength());
+            this.maxOutputLength.accumulateAndGet(sample.getOutputLength(), Math::max);
+        }
+    }
+
+    @Override
+    public long getCount() {
+        return this.count.sum();
+    }
+
+    @Override
+    public long getTotalNanos() {
+        return this.totalNanos.sum();
+    }
+
+    @Override
+    public long getMeanNanos() {
+        final long calls = this.count.sum();
+        return calls == 0 ? 0 : this.totalNanos.sum() / calls;
+    }
+
+    @Override
+    public long getMaxNanos() {
+        return this.maxNanos.get();
+    }
+
+    @Override
+    public long getP50Nanos() {
+        return this.getPercentileNanos(0.5);
+    }
+
+    @Override
+    public long getP90Nanos() {
+        return this.getPercentileNanos(0.9);
+    }
+
+    @Override
+    public long getP99Nanos() {
+        return this.getPercentileNanos(0.99);
+    }
+
+    /**
+     * Gets a percentile of the duration of the calls, from the latency histogram.
+     *
+     * @param quantile the quantile, between 0 and 1
+     * @return the upper bound of the histogram bucket in nanoseconds, capped by the longest duration, 0 without call
+     */
+    public long getPercentileNanos(final double quantile) {
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("quantile must be between 0 and 1: " + quantile);
+        }
+        long total = 0;
+        for (int i = 0; i < TreeOperationStats.BUCKETS; i++) {
+            total += this.histogram.get(i);
+        }
+        final long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < TreeOperationStats.BUCKETS; i++) {
+            seen += this.histogram.get(i);
+            if (seen >= rank && seen > 0) {
+                final long upper = i == Long.SIZE ? Long.MAX_VALUE : (1L << i) - 1;
+                return Math.min(upper, this.maxNanos.get());
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public long getNodesVisited() {
+        return this.nodesVisited.sum();
+    }
+
+    @Override
+    public long getMaxNodesVisited() {
+        return this.maxNodesVisited.get();
+    }
+
+    @Override
+    public int getMaxDepth() {
+        return this.maxDepth.get();
+    }
+
+    @Override
+    public int getMaxFrontier() {
+        return this.maxFrontier.get();
+    }
+
+    @Override
+    public long getOutputLength() {
+        return this.outputLength.sum();
+    }
+
+    @Override
+    public long getMaxOutputLength() {
+        return this.maxOutputLength.get();
+    }
+}
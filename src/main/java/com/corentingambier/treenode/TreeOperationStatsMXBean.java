@@ -0,0 +1,97 @@
+package com.corentingambier.treenode;
+
+/**
+ * Management interface of the {@link TreeOperationStats} of an operation, registered by {@link JmxTreeMetrics}.
+ */
+public interface TreeOperationStatsMXBean {
+    /**
+     * Gets the number of calls.
+     *
+     * @return the number of calls
+     */
+    long getCount();
+
+    /**
+     * Gets the total duration of the calls.
+     *
+     * @return the duration in nanoseconds
+     */
+    long getTotalNanos();
+
+    /**
+     * Gets the mean duration of the calls.
+     *
+     * @return the duration in nanoseconds, 0 without call
+     */
+    long getMeanNanos();
+
+    /**
+     * Gets the longest duration of a call.
+     *
+     * @return the duration in nanoseconds
+     */
+    long getMaxNanos();
+
+    /**
+     * Gets the median duration of the calls, from the latency histogram.
+     *
+     * @return the upper bound of the histogram bucket in nanoseconds
+     */
+    long getP50Nanos();
+
+    /**
+     * Gets the 90th percentile of the duration of the calls, from the latency histogram.
+     *
+     * @return the upper bound of the histogram bucket in nanoseconds
+     */
+    long getP90Nanos();
+
+    /**
+     * Gets the 99th percentile of the duration of the calls, from the latency histogram.
+     *
+     * @return the upper bound of the histogram bucket in nanoseconds
+     */
+    long getP99Nanos();
+
+    /**
+     * Gets the number of nodes visited by all the calls.
+     *
+     * @return the number of nodes
+     */
+    long getNodesVisited();
+
+    /**
+     * Gets the largest number of nodes visited by a call.
+     *
+     * @return the number of nodes
+     */
+    long getMaxNodesVisited();
+
+    /**
+     * Gets the depth of the deepest node visited by a call.
+     *
+     * @return the depth, -1 if no node was visited
+     */
+    int getMaxDepth();
+
+    /**
+     * Gets the largest breadth-first queue of a call.
+     *
+     * @return the number of nodes
+     */
+    int getMaxFrontier();
+
+    /**
+     * Gets the length of the output of all the calls.
+     *
+     * @return the characters or bytes, see {@link TreeOperationSample#getOutputLength()}
+     */
+    long getOutputLength();
+
+    /**
+     * Gets the longest output of a call.
+     *
+     * @return the characters or bytes, see {@link TreeOperationSample#getOutputLength()}
+     */
+    long getMaxOutputLength();
+}
@@ -0,0 +1,289 @@
+package com.corentingambier.treenode;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Edit script turning a tree into another one, computed by {@link NaryTreeNode#diff(NaryTreeNode)} and replayed by
+ * {@link NaryTreeNode#apply(TreePatch)}.
+ * <p>
+ * The operations refer to nodes by handle. A handle is either a node of the tree the patch is applied to, named by
+ * its path of child indices from the root, or the root of a subtree inserted by an earlier operation. The paths are
+ * resolved once, before the first operation, so that they stay valid while the tree changes. Indices of children are
+ * those of the tree when the operation runs, and the inserted subtrees are copied, so that a patch can be applied to
+ * several copies of the same tree.
+ *
+ * @param <E> the type parameter
+ */
+public final class TreePatch<E> {
+    private final List<int[]> paths;
+    private final List<Operation<E>> operations;
+
+    /**
+     * Instantiates a new patch.
+     *
+     * @param paths      the path of every handle, null for the handles of inserted subtrees
+     * @param operations the operations
+     */
+    TreePatch(final List<int[]> paths, final List<Operation<E>> operations) {
+        this.paths = paths;
+        this.operations = operations;
+    }
+
+    /**
+     * Gets the operations, in the order they are applied.
+     *
+     * @return the unmodifiable operations
+     */
+    public List<Operation<E>> getOperations() {
+        return Collections.unmodifiableList(this.operations);
+    }
+
+    /**
+     * Gets the number of handles.
+     *
+     * @return the number of handles
+     */
+    public int getHandleCount() {
+        return this.paths.size();
+    }
+
+    /**
+     * Gets the path of the node of a handle, from the root of the tree the patch is applied to.
+     *
+     * @param handle the handle
+     * @return a copy of the path, empty for the root, null for the handle of an inserted subtree
+     */
+    public int[] getPath(final int handle) {
+        final int[] path = this.paths.get(handle);
+        return path == null ? null : path.clone();
+    }
+
+    /**
+     * Is the patch empty, the two trees being equal.
+     *
+     * @return the boolean
+     */
+    public boolean isEmpty() {
+        return this.operations.isEmpty();
+    }
+
+    /**
+     * Apply the patch to a tree equal to the source of the diff.
+     *
+     * @param root the root of the tree
+     */
+    @SuppressWarnings("unchecked")
+    void applyTo(final NaryTreeNode<E> root) {
+        final NaryTreeNode<E>[] nodes = new NaryTreeNode[this.paths.size()];
+        for (int handle = 0; handle < nodes.length; handle++) {
+            final int[] path = this.paths.get(handle);
+            if (path == null) {
+                continue;
+            }
+            NaryTreeNode<E> node = root;
+            for (final int index : path) {
+                if (index >= node.getChildrenCount()) {
+                    throw new IllegalArgumentException("The patch does not apply: no node at path "
+                            + Arrays.toString(path));
+                }
+                node = node.getChild(index);
+            }
+            nodes[handle] = node;
+        }
+        for (final Operation<E> operation : this.operations) {
+            switch (operation.kind) {
+                case UPDATE -> nodes[operation.node].setValue(operation.value);
+                case INSERT -> {
+                    final NaryTreeNode<E> subtree = operation.subtree.map(Function.identity());
+                    nodes[operation.parent].insertChild(operation.index, subtree);
+                    nodes[operation.node] = subtree;
+                }
+                case MOVE -> nodes[operation.parent].insertChild(operation.index, nodes[operation.node]);
+                case DELETE -> nodes[operation.node].detach();
+            }
+        }
+    }
+
+    /**
+     * To json string, in the format read by {@link #fromJson(Reader, TypeAdapter)}: an object with the
+     * {@code "paths"} of the handles and the {@code "operations"}, the inserted subtrees in the format of
+     * {@link NaryTreeNode#toJson()}.
+     *
+     * @return the string
+     */
+    public String toJson() {
+        final StringWriter writer = new StringWriter();
+        try {
+            NaryTreeJson.write(this, new JsonWriter(writer));
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Read a patch in the format of {@link #toJson()}.
+     *
+     * @param <E>    the type parameter
+     * @param reader the reader
+     * @param type   the type of the values
+     * @return the patch
+     * @throws IOException if the reader fails or the json is malformed
+     */
+    public static <E> TreePatch<E> fromJson(final Reader reader, final Class<E> type) throws IOException {
+        return TreePatch.fromJson(reader, NaryTreeJson.adapter(type));
+    }
+
+    /**
+     * Read a patch in the format of {@link #toJson()}.
+     *
+     * @param <E>     the type parameter
+     * @param reader  the reader
+     * @param adapter the adapter reading the values
+     * @return the patch
+     * @throws IOException if the reader fails or the json is malformed
+     */
+    public static <E> TreePatch<E> fromJson(final Reader reader, final TypeAdapter<E> adapter) throws IOException {
+        final JsonReader jsonReader = new JsonReader(reader);
+        final TreePatch<E> patch = NaryTreeJson.readPatch(jsonReader, adapter);
+        NaryTreeJson.endDocument(jsonReader);
+        return patch;
+    }
+
+    @Override
+    public String toString() {
+        return "TreePatch" + this.operations;
+    }
+
+    /**
+     * The kind of an operation.
+     */
+    public enum Kind {
+        /**
+         * Set the value of a node.
+         */
+        UPDATE,
+        /**
+         * Insert a copy of a subtree at an index of the children of a node.
+         */
+        INSERT,
+        /**
+         * Move a node and its subtree to an index of the children of a node.
+         */
+        MOVE,
+        /**
+         * Remove a node and its subtree from its parent.
+         */
+        DELETE
+    }
+
+    /**
+     * Operation of a patch.
+     *
+     * @param <E> the type parameter
+     */
+    public static final class Operation<E> {
+        private final Kind kind;
+        private final int node;
+        private final int parent;
+        private final int index;
+        private final E value;
+        private final NaryTreeNode<E> subtree;
+
+        /**
+         * Instantiates a new operation.
+         *
+         * @param kind    the kind
+         * @param node    the handle of the node, the handle given to the inserted subtree for an insertion
+         * @param parent  the handle of the new parent for an insertion or a move, -1 otherwise
+         * @param index   the index in the children of the new parent for an insertion or a move, -1 otherwise
+         * @param value   the new value for an update
+         * @param subtree the inserted subtree for an insertion
+         */
+        Operation(final Kind kind, final int node, final int parent, final int index, final E value,
+                  final NaryTreeNode<E> subtree) {
+            this.kind = kind;
+            this.node = node;
+            this.parent = parent;
+            this.index = index;
+            this.value = value;
+            this.subtree = subtree;
+        }
+
+        /**
+         * Gets kind.
+         *
+         * @return the kind
+         */
+        public Kind getKind() {
+            return this.kind;
+        }
+
+        /**
+         * Gets the handle of the node, the handle given to the inserted subtree for an insertion.
+         *
+         * @return the handle
+         */
+        public int getNode() {
+            return this.node;
+        }
+
+        /**
+         * Gets the handle of the new parent.
+         *
+         * @return the handle for an insertion or a move, -1 otherwise
+         */
+        public int getParent() {
+            return this.parent;
+        }
+
+        /**
+         * Gets the index in the children of the new parent.
+         *
+         * @return the index for an insertion or a move, -1 otherwise
+         */
+        public int getIndex() {
+            return this.index;
+        }
+
+        /**
+         * Gets the new value.
+         *
+         * @return the value for an update, null otherwise
+         */
+        public E getValue() {
+            return this.value;
+        }
+
+        /**
+         * Gets the inserted subtree. It belongs to the patch and must not be modified.
+         *
+         * @return the subtree for an insertion, null otherwise
+         */
+        public NaryTreeNode<E> getSubtree() {
+            return this.subtree;
+        }
+
+        @Override
+        public String toString() {
+            return switch (this.kind) {
+                case UPDATE -> "UPDATE " + this.node + " " + this.value;
+                case INSERT -> "INSERT " + this.node + " " + this.subtree.generateText() + " in " + this.parent
+                        + " at " + this.index;
+                case MOVE -> "MOVE " + this.node + " to " + this.parent + " at " + this.index;
+                case DELETE -> "DELETE " + this.node;
+            };
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.corentingambier.treenode;
+
+import java.io.IOException;
+
+/**
+ * Single-pass renderer of a tree of {@link NaryTreeNode} as text, into an {@link Appendable}.
+ * <p>
+ * The tree is walked once with a depth-first {@link TreeCursor}, every piece of text being appended to the same
+ * output, so the rendering allocates nothing per node but the text of the values. The indents of the pretty text are
+ * cached up to {@link #CACHED_INDENTS} levels. The rendering can be truncated to a maximum depth, the root being at
+ * depth 0, and to a maximum number of nodes: the elided nodes are then replaced by {@link #ELLIPSIS}, once for the
+ * children of a node cut by the depth limit, and once where the node limit is reached.
+ */
+final class TreeRenderer {
+    /**
+     * No limit on the depth or the number of rendered nodes.
+     */
+    static final int UNLIMITED = Integer.MAX_VALUE;
+    /**
+     * The text standing for elided nodes.
+     */
+    static final String ELLIPSIS = "...";
+    private static final String CHILDREN_SEPARATOR = ", ";
+    private static final String CHILDREN_PREFIX = "(";
+    private static final String CHILDREN_SUFFIX = ")";
+    private static final String VALUE_SEPARATOR = " ";
+    private static final String VALUE_PREFIX = "[";
+    private static final String VALUE_SUFFIX = "]";
+    private static final String VALUE_NULL = "null";
+    private static final String VALUE_PRETTY_DEPTH = "  ";
+    private static final String VALUE_PRETTY_CHILDREN_PREFIX = "|-";
+    private static final String DEBUG_PREFIX = "NaryTreeNode{value=";
+    private static final String DEBUG_CHILDREN = ", children=[";
+    private static final String DEBUG_SUFFIX = "]}";
+    private static final int CACHED_INDENTS = 32;
+    /**
+     * The indent of the pretty text for every depth from 1, before the value.
+     */
+    private static final String[] PRETTY_INDENTS = new String[TreeRenderer.CACHED_INDENTS];
+
+    static {
+        for (int depth = 1; depth < TreeRenderer.CACHED_INDENTS; depth++) {
+            TreeRenderer.PRETTY_INDENTS[depth] = TreeRenderer.VALUE_PRETTY_DEPTH.repeat(depth - 1)
+                    + TreeRenderer.VALUE_PRETTY_CHILDREN_PREFIX;
+        }
+    }
+
+    private TreeRenderer() {
+    }
+
+    /**
+     * Render a tree.
+     *
+     * @param <E>      the type parameter
+     * @param root     the root
+     * @param style    the style of the text
+     * @param out      the output
+     * @param maxDepth the depth of the deepest rendered nodes
+     * @param maxNodes the maximum number of rendered nodes
+     * @param sample   the sample of the operation, null if not measured
+     * @throws IOException if the output fails
+     */
+    static <E> void render(final NaryTreeNode<E> root, final Style style, final Appendable out, final int maxDepth,
+                           final int maxNodes, final TreeOperationSample sample) throws IOException {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("maxDepth must not be negative: " + maxDepth);
+        }
+        if (maxNodes < 1) {
+            throw new IllegalArgumentException("maxNodes must be positive: " + maxNodes);
+        }
+        int rendered = 0;
+        final TreeCursor<E> cursor = TreeCursor.depthFirst(root, sample);
+        while (cursor.next()) {
+            final NaryTreeNode<E> node = cursor.node();
+            final int depth = cursor.depth();
+            if (!cursor.isEntering()) {
+                TreeRenderer.exit(style, out, node);
+            } else if (rendered == maxNodes) {
+                TreeRenderer.ellipsis(style, out, depth, cursor.index());
+                // The ancestors of the node are the open nodes left to close
+                for (int i = 0; i < depth; i++) {
+                    TreeRenderer.exit(style, out, root);
+                }
+                return;
+            } else {
+                rendered++;
+                TreeRenderer.enter(style, out, node, depth, cursor.index());
+                if (depth == maxDepth && !node.isLeaf()) {
+                    cursor.skipChildren();
+                    TreeRenderer.ellipsis(style, out, depth + 1, 0);
+                }
+            }
+        }
+    }
+
+    private static void enter(final Style style, final Appendable out, final NaryTreeNode<?> node, final int depth,
+                              final int index) throws IOException {
+        final Object value = node.getValue();
+        switch (style) {
+            case TEXT -> {
+                if (index > 0) {
+                    out.append(TreeRenderer.CHILDREN_SEPARATOR);
+                }
+                out.append(TreeRenderer.VALUE_PREFIX)
+                        .append(value == null ? TreeRenderer.VALUE_NULL : value.toString())
+                        .append(TreeRenderer.VALUE_SUFFIX);
+                if (!node.isLeaf()) {
+                    out.append(TreeRenderer.VALUE_SEPARATOR).append(TreeRenderer.CHILDREN_PREFIX);
+                }
+            }
+            case PRETTY -> {
+                TreeRenderer.indent(out, depth);
+                out.append(String.valueOf(value)).append('\n');
+            }
+            case DEBUG -> {
+                if (index > 0) {
+                    out.append(TreeRenderer.CHILDREN_SEPARATOR);
+                }
+                out.append(TreeRenderer.DEBUG_PREFIX).append(String.valueOf(value)).append(TreeRenderer.DEBUG_CHILDREN);
+            }
+        }
+    }
+
+    private static void exit(final Style style, final Appendable out, final NaryTreeNode<?> node)
+            throws IOException {
+        switch (style) {
+            case TEXT -> {
+                if (!node.isLeaf()) {
+                    out.append(TreeRenderer.CHILDREN_SUFFIX);
+                }
+            }
+            case PRETTY -> {
+            }
+            case DEBUG -> out.append(TreeRenderer.DEBUG_SUFFIX);
+        }
+    }
+
+    private static void ellipsis(final Style style, final Appendable out, final int depth, final int index)
+            throws IOException {
+        switch (style) {
+            case TEXT, DEBUG -> {
+                if (index > 0) {
+                    out.append(TreeRenderer.CHILDREN_SEPARATOR);
+                }
+                out.append(TreeRenderer.ELLIPSIS);
+            }
+            case PRETTY -> {
+                TreeRenderer.indent(out, depth);
+                out.append(TreeRenderer.ELLIPSIS).append('\n');
+            }
+        }
+    }
+
+    private static void indent(final Appendable out, final int depth) throws IOException {
+        if (depth == 0) {
+            return;
+        }
+        if (depth < TreeRenderer.CACHED_INDENTS) {
+            out.append(TreeRenderer.PRETTY_INDENTS[depth]);
+            return;
+        }
+        final String longest = TreeRenderer.PRETTY_INDENTS[TreeRenderer.CACHED_INDENTS - 1];
+        out.append(longest, 0, longest.length() - TreeRenderer.VALUE_PRETTY_CHILDREN_PREFIX.length());
+        for (int i = TreeRenderer.CACHED_INDENTS - 1; i < depth; i++) {
+            out.append(TreeRenderer.VALUE_PRETTY_DEPTH);
+        }
+        out.append(TreeRenderer.VALUE_PRETTY_CHILDREN_PREFIX);
+    }
+
+    /**
+     * The texts a tree can be rendered as.
+     */
+    enum Style {
+        /**
+         * The text of {@link NaryTreeNode#generateText()}: {@code [root] ([child], [child] ([leaf]))}.
+         */
+        TEXT,
+        /**
+         * The text of {@link NaryTreeNode#toPrettyText()}: one line per node, indented by depth.
+         */
+        PRETTY,
+        /**
+         * The text of {@link NaryTreeNode#toString()}.
+         */
+        DEBUG
+    }
+}
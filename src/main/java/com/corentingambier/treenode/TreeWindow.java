@@ -0,0 +1,160 @@
+package com.corentingambier.treenode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Bounded traversals of a tree of {@link NaryTreeNode}: down to a maximum depth, up to a maximum number of nodes, and
+ * through a window of the children of every node.
+ * <p>
+ * The traversals only read the children inside the windows and stop as soon as the maximum number of nodes is
+ * reached, so that a query touches the nodes it returns, plus their ancestors for a post-order query: its cost does
+ * not depend on the size of the tree.
+ */
+final class TreeWindow {
+    private static final int INITIAL_STACK_CAPACITY = 16;
+
+    private TreeWindow() {
+    }
+
+    /**
+     * Check the bounds of a query.
+     *
+     * @param maxDepth    the depth of the deepest returned nodes, 0 for the root
+     * @param maxNodes    the maximum number of returned nodes
+     * @param childOffset the index of the first child visited for every node
+     * @param childLimit  the maximum number of children visited for every node
+     */
+    static void checkBounds(final int maxDepth, final int maxNodes, final int childOffset, final int childLimit) {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("maxDepth must not be negative: " + maxDepth);
+        }
+        if (maxNodes < 0) {
+            throw new IllegalArgumentException("maxNodes must not be negative: " + maxNodes);
+        }
+        TreeWindow.checkWindow(childOffset, childLimit);
+    }
+
+    /**
+     * Check a window of children.
+     *
+     * @param childOffset the index of the first child
+     * @param childLimit  the maximum number of children
+     */
+    static void checkWindow(final int childOffset, final int childLimit) {
+        if (childOffset < 0) {
+            throw new IllegalArgumentException("childOffset must not be negative: " + childOffset);
+        }
+        if (childLimit < 0) {
+            throw new IllegalArgumentException("childLimit must not be negative: " + childLimit);
+        }
+    }
+
+    /**
+     * Gets the end of the window of the children of a node.
+     *
+     * @param node        the node
+     * @param childOffset the index of the first child
+     * @param childLimit  the maximum number of children
+     * @return the index after the last child of the window, not below the offset
+     */
+    static int windowEnd(final NaryTreeNode<?> node, final int childOffset, final int childLimit) {
+        final int count = node.getChildrenCount();
+        if (childOffset >= count) {
+            return childOffset;
+        }
+        return childLimit >= count - childOffset ? count : childOffset + childLimit;
+    }
+
+    /**
+     * List the nodes of a bounded traversal.
+     *
+     * @param <E>         the type parameter
+     * @param root        the root
+     * @param order       the order
+     * @param maxDepth    the depth of the deepest returned nodes, 0 for the root
+     * @param maxNodes    the maximum number of returned nodes
+     * @param childOffset the index of the first child visited for every node
+     * @param childLimit  the maximum number of children visited for every node
+     * @return the nodes
+     */
+    static <E> List<NaryTreeNode<E>> query(final NaryTreeNode<E> root, final NaryTreeNode.Order order,
+                                           final int maxDepth, final int maxNodes, final int childOffset,
+                                           final int childLimit) {
+        TreeWindow.checkBounds(maxDepth, maxNodes, childOffset, childLimit);
+        final List<NaryTreeNode<E>> nodes = new ArrayList<>();
+        if (maxNodes == 0) {
+            return nodes;
+        }
+        if (order == NaryTreeNode.Order.BY_WIDTH) {
+            TreeWindow.byWidth(root, maxDepth, maxNodes, childOffset, childLimit, nodes);
+        } else {
+            TreeWindow.depthFirst(root, order == NaryTreeNode.Order.PREFIX, maxDepth, maxNodes, childOffset,
+                    childLimit, nodes);
+        }
+        return nodes;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> void depthFirst(final NaryTreeNode<E> root, final boolean prefix, final int maxDepth,
+                                       final int maxNodes, final int childOffset, final int childLimit,
+                                       final List<NaryTreeNode<E>> nodes) {
+        NaryTreeNode<E>[] path = new NaryTreeNode[TreeWindow.INITIAL_STACK_CAPACITY];
+        int[] nextChild = new int[TreeWindow.INITIAL_STACK_CAPACITY];
+        int[] end = new int[TreeWindow.INITIAL_STACK_CAPACITY];
+        path[0] = root;
+        nextChild[0] = childOffset;
+        end[0] = TreeWindow.windowEnd(root, childOffset, childLimit);
+        int top = 0;
+        if (prefix) {
+            nodes.add(root);
+        }
+        while (top >= 0 && nodes.size() < maxNodes) {
+            if (top < maxDepth && nextChild[top] < end[top]) {
+                final NaryTreeNode<E> child = path[top].getChild(nextChild[top]++);
+                if (++top == path.length) {
+                    path = Arrays.copyOf(path, top << 1);
+                    nextChild = Arrays.copyOf(nextChild, top << 1);
+                    end = Arrays.copyOf(end, top << 1);
+                }
+                path[top] = child;
+                nextChild[top] = childOffset;
+                end[top] = TreeWindow.windowEnd(child, childOffset, childLimit);
+                if (prefix) {
+                    nodes.add(child);
+                }
+            } else {
+                if (!prefix) {
+                    nodes.add(path[top]);
+                }
+                path[top--] = null;
+            }
+        }
+    }
+
+    /**
+     * The returned nodes are the queue: the children of the node at a given index are appended after the nodes of
+     * its level, so that no other memory is needed.
+     */
+    private static <E> void byWidth(final NaryTreeNode<E> root, final int maxDepth, final int maxNodes,
+                                    final int childOffset, final int childLimit, final List<NaryTreeNode<E>> nodes) {
+        nodes.add(root);
+        int depth = 0;
+        int levelEnd = 1;
+        for (int i = 0; i < nodes.size() && nodes.size() < maxNodes; i++) {
+            if (i == levelEnd) {
+                depth++;
+                levelEnd = nodes.size();
+            }
+            if (depth == maxDepth) {
+                return;
+            }
+            final NaryTreeNode<E> node = nodes.get(i);
+            final int end = TreeWindow.windowEnd(node, childOffset, childLimit);
+            for (int j = childOffset; j < end && nodes.size() < maxNodes; j++) {
+                nodes.add(node.getChild(j));
+            }
+        }
+    }
+}
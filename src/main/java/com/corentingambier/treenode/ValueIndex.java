@@ -0,0 +1,82 @@
+package com.corentingambier.treenode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hash index from a value to the nodes holding it. Null values are indexed like any other value.
+ * <p>
+ * A value held by a single node maps to the node itself, and only values held by several nodes pay for a list.
+ *
+ * @param <E> the type parameter
+ */
+final class ValueIndex<E> {
+    private final Map<E, Object> nodes = new HashMap<>();
+
+    /**
+     * Index a node.
+     *
+     * @param value the value of the node
+     * @param node  the node
+     */
+    @SuppressWarnings("unchecked")
+    void add(final E value, final NaryTreeNode<E> node) {
+        final Object indexed = this.nodes.get(value);
+        if (indexed == null) {
+            this.nodes.put(value, node);
+        } else if (indexed instanceof NaryTreeNode) {
+            final List<NaryTreeNode<E>> list = new ArrayList<>(2);
+            list.add((NaryTreeNode<E>) indexed);
+            list.add(node);
+            this.nodes.put(value, list);
+        } else {
+            ((List<NaryTreeNode<E>>) indexed).add(node);
+        }
+    }
+
+    /**
+     * Remove a node from the index.
+     *
+     * @param value the value of the node
+     * @param node  the node
+     */
+    @SuppressWarnings("unchecked")
+    void remove(final E value, final NaryTreeNode<E> node) {
+        final Object indexed = this.nodes.get(value);
+        if (indexed == node) {
+            this.nodes.remove(value);
+        } else if (indexed instanceof List) {
+            final List<NaryTreeNode<E>> list = (List<NaryTreeNode<E>>) indexed;
+            for (int i = 0; i < list.size(); i++) {
+                if (list.get(i) == node) {
+                    list.remove(i);
+                    break;
+                }
+            }
+            if (list.size() == 1) {
+                this.nodes.put(value, list.get(0));
+            }
+        }
+    }
+
+    /**
+     * Gets the nodes holding a value, in the order they were indexed.
+     *
+     * @param value the value
+     * @return the nodes
+     */
+    @SuppressWarnings("unchecked")
+    List<NaryTreeNode<E>> get(final Object value) {
+        final Object indexed = this.nodes.get(value);
+        if (indexed == null) {
+            return Collections.emptyList();
+        }
+        if (indexed instanceof NaryTreeNode) {
+            return Collections.singletonList((NaryTreeNode<E>) indexed);
+        }
+        return Collections.unmodifiableList((List<NaryTreeNode<E>>) indexed);
+    }
+}
@@ -0,0 +1,192 @@
+package com.corentingambier.treenode;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AncestryIndexTest {
+    private static List<String> values(final List<NaryTreeNode<String>> nodes) {
+        return nodes.stream().map(NaryTreeNode::getValue).toList();
+    }
+
+    private static void assertAlphabetQueries(final NaryTreeNode<String> a) {
+        // A(B(D(G),E),C(F))
+        final NaryTreeNode<String> b = a.getChild(0);
+        final NaryTreeNode<String> c = a.getChild(1);
+        final NaryTreeNode<String> d = b.getChild(0);
+        final NaryTreeNode<String> e = b.getChild(1);
+        final NaryTreeNode<String> f = c.getChild(0);
+        final NaryTreeNode<String> g = d.getChild(0);
+        assertEquals(0, a.getDepth());
+        assertEquals(3, g.getDepth());
+        assertTrue(a.isAncestorOf(g));
+        assertTrue(b.isAncestorOf(g));
+        assertFalse(g.isAncestorOf(b));
+        assertFalse(c.isAncestorOf(g));
+        assertFalse(b.isAncestorOf(b));
+        assertSame(b, g.lowestCommonAncestor(e).orElseThrow());
+        assertSame(a, g.lowestCommonAncestor(f).orElseThrow());
+        assertSame(d, d.lowestCommonAncestor(g).orElseThrow());
+        assertSame(e, e.lowestCommonAncestor(e).orElseThrow());
+        assertEquals(List.of("G", "D", "B", "A", "C", "F"), AncestryIndexTest.values(g.pathBetween(f)));
+        assertEquals(List.of("B", "D", "G"), AncestryIndexTest.values(b.pathBetween(g)));
+        assertEquals(List.of("G", "D", "B"), AncestryIndexTest.values(g.pathBetween(b)));
+        assertEquals(List.of("E"), AncestryIndexTest.values(e.pathBetween(e)));
+    }
+
+    @Test
+    public void queries() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        AncestryIndexTest.assertAlphabetQueries(a);
+        a.enableAncestryIndex();
+        assertTrue(a.getChild(0).isAncestryIndexEnabled());
+        AncestryIndexTest.assertAlphabetQueries(a);
+        a.disableAncestryIndex();
+        assertFalse(a.isAncestryIndexEnabled());
+        AncestryIndexTest.assertAlphabetQueries(a);
+    }
+
+    @Test
+    public void matchesParentWalks() {
+        final NaryTreeNode<Integer> root = ParallelTreeScanTest.randomTree(5000, 37L);
+        final List<NaryTreeNode<Integer>> nodes = root.nodeStream(NaryTreeNode.Order.PREFIX).toList();
+        final Random random = new Random(37L);
+        final int[][] pairs = new int[2000][];
+        final Object[][] expected = new Object[pairs.length][];
+        for (int i = 0; i < pairs.length; i++) {
+            pairs[i] = new int[]{random.nextInt(nodes.size()), random.nextInt(nodes.size())};
+            final NaryTreeNode<Integer> first = nodes.get(pairs[i][0]);
+            final NaryTreeNode<Integer> second = nodes.get(pairs[i][1]);
+            expected[i] = new Object[]{first.getDepth(), first.isAncestorOf(second),
+                    first.lowestCommonAncestor(second).orElseThrow(), first.pathBetween(second)};
+        }
+        root.enableAncestryIndex();
+        for (int i = 0; i < pairs.length; i++) {
+            final NaryTreeNode<Integer> first = nodes.get(pairs[i][0]);
+            final NaryTreeNode<Integer> second = nodes.get(pairs[i][1]);
+            assertEquals(expected[i][0], first.getDepth());
+            assertEquals(expected[i][1], first.isAncestorOf(second));
+            assertSame(expected[i][2], first.lowestCommonAncestor(second).orElseThrow());
+            assertEquals(expected[i][3], first.pathBetween(second));
+        }
+    }
+
+    @Test
+    public void rebuiltOnMutation() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        final NaryTreeNode<String> b = a.getChild(0);
+        final NaryTreeNode<String> c = a.getChild(1);
+        final NaryTreeNode<String> g = b.getChild(0).getChild(0);
+        a.enableAncestryIndex();
+        assertTrue(b.isAncestorOf(g));
+        g.moveTo(c.getChild(0));
+        assertFalse(b.isAncestorOf(g));
+        assertTrue(c.isAncestorOf(g));
+        assertEquals(3, g.getDepth());
+        assertSame(c, g.lowestCommonAncestor(c).orElseThrow());
+
+        final NaryTreeNode<String> h = new NaryTreeNode<>("H");
+        h.addChild("I");
+        b.addChild(h);
+        assertTrue(h.isAncestryIndexEnabled());
+        assertEquals(3, h.getChild(0).getDepth());
+        assertSame(b, h.getChild(0).lowestCommonAncestor(b.getChild(0)).orElseThrow());
+
+        a.removeChild(b);
+        assertFalse(h.isAncestryIndexEnabled());
+        assertFalse(a.isAncestorOf(h));
+        assertTrue(b.isAncestorOf(h));
+        assertTrue(a.lowestCommonAncestor(h).isEmpty());
+        assertTrue(a.pathBetween(h).isEmpty());
+        assertEquals(2, h.getChild(0).getDepth());
+
+        c.spliceChildren(0, b);
+        assertEquals(List.of("I", "H", "C", "F", "G"), AncestryIndexTest.values(h.getChild(0).pathBetween(g)));
+        c.removeChildrenIf(child -> child.getValue().equals("D"));
+        assertEquals(List.of("C", "E", "H", "F"), c.stream(NaryTreeNode.Order.BY_WIDTH).limit(4).toList());
+        assertTrue(c.isAncestorOf(h));
+    }
+
+    @Test
+    public void indexedSubtree() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        final NaryTreeNode<String> b = a.getChild(0);
+        final NaryTreeNode<String> g = b.getChild(0).getChild(0);
+        final NaryTreeNode<String> f = a.getChild(1).getChild(0);
+        b.enableAncestryIndex();
+        assertFalse(a.isAncestryIndexEnabled());
+        assertEquals(3, g.getDepth());
+        assertTrue(a.isAncestorOf(g));
+        assertSame(a, g.lowestCommonAncestor(f).orElseThrow());
+        assertEquals(List.of("F", "C", "A", "B", "D", "G"), AncestryIndexTest.values(f.pathBetween(g)));
+    }
+
+    @Test
+    public void nestedWithValueIndex() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        final NaryTreeNode<String> b = a.getChild(0);
+        final NaryTreeNode<String> g = b.getChild(0).getChild(0);
+        a.getChild(1).getChild(0).setValue("G");
+        b.enableIndex();
+        a.enableAncestryIndex();
+        assertTrue(b.isIndexEnabled());
+        assertTrue(a.isIndexEnabled());
+        assertTrue(a.isAncestryIndexEnabled());
+        assertEquals(2, a.findAll("G").size());
+        assertEquals(List.of(g), b.findAll("G"));
+        assertEquals(3, g.getDepth());
+
+        final NaryTreeNode<String> other = NaryTreeNodeTest.alphabetTree();
+        final NaryTreeNode<String> c = other.getChild(1);
+        c.enableAncestryIndex();
+        other.enableIndex();
+        assertTrue(c.isAncestryIndexEnabled());
+        assertTrue(other.isAncestryIndexEnabled());
+        assertTrue(other.isIndexEnabled());
+        assertTrue(other.isAncestorOf(c.getChild(0)));
+        assertEquals(List.of("A", "C", "F"), AncestryIndexTest.values(other.pathTo("F")));
+        other.disableIndex();
+        assertTrue(c.isAncestryIndexEnabled());
+        other.disableAncestryIndex();
+        assertFalse(c.isAncestryIndexEnabled());
+    }
+
+    @Test
+    public void withValueIndex() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        a.getChild(1).getChild(0).setValue("G");
+        a.enableIndex();
+        a.enableAncestryIndex();
+        assertEquals(2, a.findAll("G").size());
+        assertEquals(1, a.getChild(0).findAll("G").size());
+        a.disableIndex();
+        assertTrue(a.isAncestryIndexEnabled());
+        assertEquals(1, a.getChild(1).findAll("G").size());
+        a.disableAncestryIndex();
+        assertFalse(a.isAncestryIndexEnabled());
+    }
+
+    @Test
+    public void deepChain() {
+        final NaryTreeNode<Integer> root = new NaryTreeNode<>(0);
+        NaryTreeNode<Integer> node = root;
+        NaryTreeNode<Integer> middle = null;
+        for (int i = 1; i < 100_000; i++) {
+            final NaryTreeNode<Integer> child = new NaryTreeNode<>(i);
+            node.addChild(child);
+            node = child;
+            if (i == 50_000) {
+                middle = child;
+                middle.addChild(-1);
+            }
+        }
+        root.enableAncestryIndex();
+        assertEquals(99_999, node.getDepth());
+        assertSame(middle, node.lowestCommonAncestor(middle.getChild(0)).orElseThrow());
+        assertEquals(50_001, node.pathBetween(middle.getChild(0)).size());
+        assertTrue(root.isAncestorOf(node));
+    }
+}
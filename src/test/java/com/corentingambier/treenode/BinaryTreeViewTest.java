@@ -0,0 +1,68 @@
+package com.corentingambier.treenode;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinaryTreeViewTest {
+    @Test
+    public void navigation() throws IOException {
+        final NaryTreeNode<String> root = new NaryTreeNode<>("a");
+        final NaryTreeNode<String> b = new NaryTreeNode<>("b");
+        root.addChild(b);
+        root.addChild((String) null);
+        root.addChild("d");
+        b.addChild("e");
+        b.addChild("f");
+        final BinaryTreeView<String> view = BinaryTreeView.of(
+                ByteBuffer.wrap(NaryTreeBinaryTest.toBytes(root, BinaryValueCodec.STRING)), BinaryValueCodec.STRING);
+        assertEquals(6, view.size());
+        assertEquals(3, view.getChildrenCount(0));
+        assertEquals(1, view.getChild(0, 0));
+        assertEquals(4, view.getChild(0, 1));
+        assertEquals(5, view.getChild(0, 2));
+        assertNull(view.getValue(4));
+        assertEquals("d", view.getValue(5));
+        assertEquals("f", view.getValue(view.getChild(1, 1)));
+        assertEquals(-1, view.getParent(0));
+        assertEquals(1, view.getParent(3));
+        assertEquals(3, view.getSubtreeSize(1));
+        assertTrue(view.isLeaf(5));
+        assertFalse(view.isLeaf(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> view.getChild(0, 3));
+        assertThrows(IndexOutOfBoundsException.class, () -> view.getValue(6));
+        assertEquals(root.toJson(), view.toNaryTreeNode().toJson());
+        assertEquals(b.toJson(), view.toNaryTreeNode(1).toJson());
+    }
+
+    @Test
+    public void mappedFile(@TempDir final Path directory) throws IOException {
+        final NaryTreeNode<Integer> root = ParallelTreeScanTest.randomTree(20_000, 11);
+        final Path file = directory.resolve("tree.bin");
+        root.writeBinary(file, BinaryValueCodec.INTEGER);
+        final BinaryTreeView<Integer> view = BinaryTreeView.map(file, BinaryValueCodec.INTEGER);
+        assertEquals(root.getSize(), view.size());
+        assertEquals(root.getSize(), view.getSubtreeSize(0));
+        final List<Integer> prefix = new ArrayList<>();
+        for (int i = 0; i < view.size(); i++) {
+            prefix.add(view.getValue(i));
+        }
+        assertEquals(root.toPrefixList(), prefix);
+        assertEquals(root.toJson(), view.toNaryTreeNode().toJson());
+    }
+
+    @Test
+    public void malformed() {
+        final byte[] missingChild = {'N', 'T', 'R', 'E', 1, 0, 0, 0, 2, 2, 0, 0, 0};
+        assertThrows(StreamCorruptedException.class,
+                () -> BinaryTreeView.of(ByteBuffer.wrap(missingChild), BinaryValueCodec.INTEGER));
+    }
+}
@@ -0,0 +1,183 @@
+package com.corentingambier.treenode;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentNaryTreeNodeTest {
+    private static final int THREADS = 8;
+
+    /**
+     * Check that every node is reached once and is the child of its parent.
+     */
+    private static <E> int checkStructure(final ConcurrentNaryTreeNode<E> root) {
+        final Map<ConcurrentNaryTreeNode<E>, Boolean> seen = new IdentityHashMap<>();
+        final Iterator<ConcurrentNaryTreeNode<E>> nodes = root.nodeIterator(NaryTreeNode.Order.PREFIX);
+        while (nodes.hasNext()) {
+            final ConcurrentNaryTreeNode<E> node = nodes.next();
+            assertNull(seen.put(node, Boolean.TRUE));
+            for (final ConcurrentNaryTreeNode<E> child : node.getChildren()) {
+                assertSame(node, child.getParent());
+            }
+        }
+        return seen.size();
+    }
+
+    private static void runAll(final List<Runnable> tasks) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        try {
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Future<?>> futures = new ArrayList<>();
+            for (final Runnable task : tasks) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (final Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void sequential() {
+        final NaryTreeNode<Integer> tree = ParallelTreeScanTest.randomTree(500, 3L);
+        final ConcurrentNaryTreeNode<Integer> root = ConcurrentNaryTreeNode.copyOf(tree);
+        assertEquals(tree.toPrefixList(), root.toPrefixList());
+        assertEquals(tree.toPostfixList(), root.toPostfixList());
+        assertEquals(tree.toByWidthList(), root.toByWidthList());
+        assertEquals(tree.getSize(), root.getSize());
+        assertEquals(tree.getHeight(), root.getHeight());
+        assertTrue(root.contains(499));
+        assertFalse(root.contains(500));
+        assertEquals(tree.toJson(), root.toNaryTreeNode().toJson());
+        assertEquals(tree.getSize(), ConcurrentNaryTreeNodeTest.checkStructure(root));
+
+        final ConcurrentNaryTreeNode<Integer> child = root.getChild(0);
+        final List<ConcurrentNaryTreeNode<Integer>> before = root.getChildren();
+        root.getChild(root.getChildrenCount() - 1).addChild(child);
+        assertSame(child, before.get(0));
+        assertNotSame(child, root.getChild(0));
+        assertThrows(UnsupportedOperationException.class, () -> before.remove(0));
+        assertThrows(IllegalArgumentException.class, () -> child.addChild(root));
+        assertSame(child, child.getParent().removeChild(child.getParent().getChildrenCount() - 1));
+        assertNull(child.getParent());
+        assertFalse(root.removeChild(child));
+    }
+
+    @Test
+    public void concurrentAddsAreAllKept() throws Exception {
+        final ConcurrentNaryTreeNode<Integer> root = new ConcurrentNaryTreeNode<>(-1);
+        final List<ConcurrentNaryTreeNode<Integer>> parents = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            parents.add(root.addChild(-1));
+        }
+        final int perThread = 5_000;
+        final List<Runnable> tasks = new ArrayList<>();
+        for (int t = 0; t < ConcurrentNaryTreeNodeTest.THREADS; t++) {
+            final int thread = t;
+            tasks.add(() -> {
+                final Random random = new Random(thread);
+                for (int i = 0; i < perThread; i++) {
+                    parents.get(random.nextInt(parents.size())).addChild(thread * perThread + i);
+                }
+            });
+        }
+        ConcurrentNaryTreeNodeTest.runAll(tasks);
+        assertEquals(1 + parents.size() + ConcurrentNaryTreeNodeTest.THREADS * perThread,
+                ConcurrentNaryTreeNodeTest.checkStructure(root));
+        for (int i = 0; i < ConcurrentNaryTreeNodeTest.THREADS * perThread; i += 997) {
+            assertTrue(root.contains(i));
+        }
+    }
+
+    @Test
+    public void concurrentMovesKeepEveryNodeOnce() throws Exception {
+        final ConcurrentNaryTreeNode<Integer> root = new ConcurrentNaryTreeNode<>(-1);
+        final List<ConcurrentNaryTreeNode<Integer>> parents = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            parents.add(root.addChild(-1));
+        }
+        final List<ConcurrentNaryTreeNode<Integer>> moving = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            moving.add(parents.get(i % parents.size()).addChild(i));
+        }
+        final AtomicBoolean writing = new AtomicBoolean(true);
+        final ConcurrentLinkedQueue<Throwable> readerErrors = new ConcurrentLinkedQueue<>();
+        final List<Runnable> tasks = new ArrayList<>();
+        final CountDownLatch writers = new CountDownLatch(ConcurrentNaryTreeNodeTest.THREADS / 2);
+        for (int t = 0; t < ConcurrentNaryTreeNodeTest.THREADS / 2; t++) {
+            final int thread = t;
+            tasks.add(() -> {
+                final Random random = new Random(thread);
+                for (int i = 0; i < 20_000; i++) {
+                    final ConcurrentNaryTreeNode<Integer> node = moving.get(random.nextInt(moving.size()));
+                    final ConcurrentNaryTreeNode<Integer> parent = parents.get(random.nextInt(parents.size()));
+                    if (random.nextInt(4) == 0) {
+                        parent.setValue(i);
+                    }
+                    parent.addChild(node);
+                }
+                writers.countDown();
+            });
+        }
+        for (int t = 0; t < ConcurrentNaryTreeNodeTest.THREADS / 2; t++) {
+            tasks.add(() -> {
+                try {
+                    while (writing.get()) {
+                        // A node being moved may be missed or seen twice, but never breaks a traversal
+                        for (final NaryTreeNode.Order order : NaryTreeNode.Order.values()) {
+                            final List<Integer> values = new ArrayList<>();
+                            root.stream(order).forEach(values::add);
+                            assertFalse(values.isEmpty());
+                        }
+                        root.getHeight();
+                        root.contains(-2);
+                        for (final ConcurrentNaryTreeNode<Integer> parent : parents) {
+                            for (final ConcurrentNaryTreeNode<Integer> child : parent.getChildren()) {
+                                assertNotNull(child);
+                            }
+                        }
+                    }
+                } catch (final Throwable e) {
+                    readerErrors.add(e);
+                }
+            });
+        }
+        tasks.add(() -> {
+            try {
+                writers.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            writing.set(false);
+        });
+        ConcurrentNaryTreeNodeTest.runAll(tasks);
+        assertEquals(Collections.emptyList(), new ArrayList<>(readerErrors));
+        assertEquals(1 + parents.size() + moving.size(), ConcurrentNaryTreeNodeTest.checkStructure(root));
+        for (final ConcurrentNaryTreeNode<Integer> node : moving) {
+            assertTrue(parents.contains(node.getParent()));
+            assertTrue(node.getParent().getChildren().contains(node));
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.corentingambier.treenode;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DoubleNaryTreeNodeTest {
+    @Test
+    public void containsLikeDoubleEquals() {
+        final DoubleNaryTreeNode root = new DoubleNaryTreeNode(Double.NaN);
+        root.addChild(0.0);
+        assertTrue(root.contains(Double.NaN));
+        assertTrue(root.contains(0.0));
+        assertFalse(root.contains(-0.0));
+        final NaryTreeNode<Double> generic = new NaryTreeNode<>(Double.NaN);
+        generic.addChild(0.0);
+        assertEquals(generic.contains(Double.NaN), root.contains(Double.NaN));
+        assertEquals(generic.contains(-0.0), root.contains(-0.0));
+    }
+
+    @Test
+    public void valuesAndJson() throws IOException {
+        final DoubleNaryTreeNode root = new DoubleNaryTreeNode(1.5);
+        root.addChild(-2.0);
+        root.addChild(1e300);
+        root.getChild(0).addChild(0.1);
+        assertArrayEquals(new double[]{1.5, -2.0, 0.1, 1e300}, root.toPrefixArray());
+        assertArrayEquals(new double[]{1.5, -2.0, 1e300, 0.1}, root.toByWidthArray());
+        assertEquals(4, root.stream(NaryTreeNode.Order.POSTFIX).count());
+        final NaryTreeNode<Double> generic = new NaryTreeNode<>(1.5);
+        generic.addChild(-2.0);
+        generic.addChild(1e300);
+        generic.getChild(0).addChild(0.1);
+        assertEquals(generic.toJson(), root.toJson());
+        assertArrayEquals(root.toPrefixArray(), DoubleNaryTreeNode.fromJson(new StringReader(root.toJson()))
+                .toPrefixArray());
+        assertTrue(Double.isNaN(DoubleNaryTreeNode.fromJson(new StringReader("{\"value\":NaN}")).getValue()));
+    }
+
+    @Test
+    public void nonFiniteValuesAreNotJson() {
+        for (final double value : new double[]{Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY}) {
+            final DoubleNaryTreeNode root = new DoubleNaryTreeNode(0.0);
+            root.addChild(value);
+            assertThrows(IllegalArgumentException.class, root::toJson);
+            assertThrows(IllegalArgumentException.class, () -> root.writeJson(new StringBuilder()));
+            final NaryTreeNode<Double> generic = new NaryTreeNode<>(0.0);
+            generic.addChild(value);
+            assertThrows(IllegalArgumentException.class, generic::toJson);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.corentingambier.treenode;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FrozenNaryTreeTest {
+    @Test
+    public void navigation() {
+        final FrozenNaryTree<String> tree = NaryTreeNodeTest.alphabetTree().freeze();
+        // A(B(D(G), E), C(F)) in pre-order: A0 B1 D2 G3 E4 C5 F6
+        assertEquals(7, tree.getSize());
+        assertEquals(4, tree.getHeight());
+        assertEquals(3, tree.getNumberOfLeaves());
+        assertEquals("A", tree.getValue(0));
+        assertEquals(2, tree.getChildrenCount(0));
+        assertEquals(1, tree.getChild(0, 0));
+        assertEquals(5, tree.getChild(0, 1));
+        assertEquals(4, tree.getChild(1, 1));
+        assertEquals("E", tree.getValue(tree.getChild(1, 1)));
+        assertEquals(-1, tree.getParent(0));
+        assertEquals(2, tree.getParent(3));
+        assertEquals(3, tree.getDepth(3));
+        assertEquals(4, tree.getSubtreeSize(1));
+        assertEquals(3, tree.getHeight(1));
+        assertEquals(1, tree.getHeight(6));
+        assertTrue(tree.isLeaf(6));
+        assertFalse(tree.isLeaf(5));
+        assertThrows(IndexOutOfBoundsException.class, () -> tree.getChild(0, 2));
+        assertThrows(IndexOutOfBoundsException.class, () -> tree.getValue(7));
+    }
+
+    @Test
+    public void matchesTree() {
+        final NaryTreeNode<Integer> root = ParallelTreeScanTest.randomTree(10_000, 21);
+        final FrozenNaryTree<Integer> tree = root.freeze();
+        assertEquals(root.getSize(), tree.getSize());
+        assertEquals(root.getHeight(), tree.getHeight());
+        assertEquals(root.getNumberOfLeaves(), tree.getNumberOfLeaves());
+        assertEquals(root.toPrefixList(), tree.toPrefixList());
+        assertEquals(root.toPostfixList(), tree.toPostfixList());
+        assertEquals(root.toByWidthList(), tree.toByWidthList());
+        for (final NaryTreeNode.Order order : NaryTreeNode.Order.values()) {
+            final List<Integer> iterated = new ArrayList<>();
+            tree.iterator(order).forEachRemaining(iterated::add);
+            assertEquals(root.stream(order).toList(), iterated);
+            assertEquals(root.stream(order).toList(), tree.stream(order).toList());
+        }
+        assertTrue(tree.contains(9_999));
+        assertFalse(tree.contains(10_000));
+        assertEquals(root.toJson(), tree.toJson());
+    }
+
+    @Test
+    public void snapshotIsIndependent() {
+        final NaryTreeNode<String> root = NaryTreeNodeTest.alphabetTree();
+        final FrozenNaryTree<String> tree = root.freeze();
+        root.addChild("H");
+        root.setValue("Z");
+        assertEquals(7, tree.getSize());
+        assertEquals("A", tree.getValue(0));
+        assertThrows(UnsupportedOperationException.class, () -> tree.toPrefixList().add("H"));
+        tree.toPrefixList().set(0, "Y");
+        assertEquals("A", tree.getValue(0));
+    }
+
+    @Test
+    public void nullValues() throws IOException {
+        final NaryTreeNode<String> root = new NaryTreeNode<>();
+        root.addChild((String) null);
+        root.addChild("b");
+        final FrozenNaryTree<String> tree = root.freeze();
+        assertTrue(tree.contains(null));
+        assertEquals(0, tree.indexOf(null));
+        assertEquals(2, tree.indexOf("b"));
+        final StringWriter writer = new StringWriter();
+        tree.writeJson(writer);
+        assertEquals(root.toJson(), writer.toString());
+    }
+
+    @Test
+    public void thaw() {
+        final NaryTreeNode<Integer> root = ParallelTreeScanTest.randomTree(5_000, 23);
+        final FrozenNaryTree<Integer> tree = root.freeze();
+        final NaryTreeNode<Integer> thawed = tree.thaw();
+        assertEquals(root.toJson(), thawed.toJson());
+        assertNull(thawed.getParent());
+        thawed.addChild(-1);
+        assertEquals(5_001, thawed.getSize());
+        final int child = tree.getChild(0, 0);
+        assertEquals(root.getChild(0).toJson(), tree.thaw(child).toJson());
+        assertNull(tree.thaw(child).getParent());
+    }
+
+    @Test
+    public void deepChain() {
+        final NaryTreeNode<Integer> root = new NaryTreeNode<>(0);
+        NaryTreeNode<Integer> last = root;
+        for (int i = 1; i < 100_000; i++) {
+            final NaryTreeNode<Integer> child = new NaryTreeNode<>(i);
+            last.addChild(child);
+            last = child;
+        }
+        final FrozenNaryTree<Integer> tree = root.freeze();
+        assertEquals(100_000, tree.getHeight());
+        assertEquals(99_999, tree.toPostfixList().get(0));
+        assertEquals(root.toJson(), tree.toJson());
+        assertEquals(100_000, tree.thaw().getHeight());
+    }
+}
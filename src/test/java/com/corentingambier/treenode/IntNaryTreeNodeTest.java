@@ -0,0 +1,144 @@
+package com.corentingambier.treenode;
+
+import com.google.gson.JsonSyntaxException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntNaryTreeNodeTest {
+    /**
+     * Copy a generic tree into an int tree of the same shape.
+     */
+    static IntNaryTreeNode copyOf(final NaryTreeNode<Integer> root) {
+        final IntNaryTreeNode copy = new IntNaryTreeNode(root.getValue());
+        final ArrayDeque<Object[]> pending = new ArrayDeque<>();
+        pending.push(new Object[]{root, copy});
+        while (!pending.isEmpty()) {
+            final Object[] entry = pending.pop();
+            @SuppressWarnings("unchecked") final NaryTreeNode<Integer> node = (NaryTreeNode<Integer>) entry[0];
+            for (final NaryTreeNode<Integer> child : node.getChildren()) {
+                final IntNaryTreeNode childCopy = new IntNaryTreeNode(child.getValue());
+                ((IntNaryTreeNode) entry[1]).addChild(childCopy);
+                pending.push(new Object[]{child, childCopy});
+            }
+        }
+        return copy;
+    }
+
+    private static int[] toIntArray(final List<Integer> values) {
+        return values.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    @Test
+    public void structure() {
+        final IntNaryTreeNode root = new IntNaryTreeNode(1);
+        final IntNaryTreeNode child = new IntNaryTreeNode(2);
+        root.addChild(child);
+        root.addChild(3);
+        child.addChild(4);
+        assertEquals(1, root.getValue());
+        assertEquals(2, root.getChildrenCount());
+        assertSame(child, root.getChild(0));
+        assertSame(root, child.getParent());
+        assertEquals(List.of(2, 3), root.getChildren().stream().map(IntNaryTreeNode::getValue).toList());
+        assertThrows(UnsupportedOperationException.class, () -> root.getChildren().clear());
+        assertThrows(IndexOutOfBoundsException.class, () -> root.getChild(2));
+        assertEquals(4, root.getSize());
+        assertEquals(4, root.getNumberOfNodes());
+        assertEquals(2, root.getNumberOfLeaves());
+        assertEquals(3, root.getHeight());
+        final IntNaryTreeNode other = new IntNaryTreeNode(5);
+        other.addChild(child);
+        assertEquals(1, root.getChildrenCount());
+        assertSame(other, child.getParent());
+        other.removeChild(0);
+        assertNull(child.getParent());
+        assertEquals(0, other.getChildrenCount());
+        root.setValue(-1);
+        assertEquals(-1, root.getValue());
+        assertThrows(IllegalArgumentException.class, () -> new IntNaryTreeNode(0, -1));
+    }
+
+    @Test
+    public void addChildRefusesCycles() {
+        final IntNaryTreeNode root = new IntNaryTreeNode(1);
+        final IntNaryTreeNode child = new IntNaryTreeNode(2);
+        root.addChild(child);
+        child.addChild(3);
+        assertThrows(IllegalArgumentException.class, () -> child.addChild(root));
+        assertThrows(IllegalArgumentException.class, () -> child.getChild(0).addChild(child));
+        assertThrows(IllegalArgumentException.class, () -> root.addChild(root));
+        assertNull(root.getParent());
+        assertSame(root, child.getParent());
+        assertEquals(3, root.getSize());
+        assertEquals(3, root.getHeight());
+    }
+
+    @Test
+    public void traversalsMatchGeneric() {
+        final NaryTreeNode<Integer> generic = ParallelTreeScanTest.randomTree(5_000, 13);
+        final IntNaryTreeNode root = IntNaryTreeNodeTest.copyOf(generic);
+        assertArrayEquals(IntNaryTreeNodeTest.toIntArray(generic.toPrefixList()), root.toPrefixArray());
+        assertArrayEquals(IntNaryTreeNodeTest.toIntArray(generic.toPostfixList()), root.toPostfixArray());
+        assertArrayEquals(IntNaryTreeNodeTest.toIntArray(generic.toByWidthList()), root.toByWidthArray());
+        assertArrayEquals(root.toPostfixArray(), root.stream(NaryTreeNode.Order.POSTFIX).toArray());
+        assertEquals(generic.getSize(), root.getSize());
+        assertEquals(generic.getHeight(), root.getHeight());
+        assertEquals(generic.getNumberOfLeaves(), root.getNumberOfLeaves());
+        assertTrue(root.contains(4_999));
+        assertFalse(root.contains(5_000));
+        assertEquals(generic.getSize(), root.nodeStream(NaryTreeNode.Order.BY_WIDTH).count());
+    }
+
+    @Test
+    public void json() throws IOException {
+        final NaryTreeNode<Integer> generic = ParallelTreeScanTest.randomTree(1_000, 17);
+        final IntNaryTreeNode root = IntNaryTreeNodeTest.copyOf(generic);
+        assertEquals(generic.toJson(), root.toJson());
+        final StringWriter writer = new StringWriter();
+        root.writeJson(writer);
+        assertEquals(root.toJson(), writer.toString());
+        final IntNaryTreeNode read = IntNaryTreeNode.fromJson(new StringReader(root.toJson()));
+        assertArrayEquals(root.toPrefixArray(), read.toPrefixArray());
+        assertEquals("{\"value\":0}", new IntNaryTreeNode().toJson());
+        assertThrows(JsonSyntaxException.class, () -> IntNaryTreeNode.fromJson(new StringReader("{\"value\":1.5}")));
+        assertThrows(JsonSyntaxException.class, () -> IntNaryTreeNode.fromJson(new StringReader("{\"value\":null}")));
+    }
+
+    @Test
+    public void deepChain() throws IOException {
+        final IntNaryTreeNode root = new IntNaryTreeNode(0);
+        IntNaryTreeNode last = root;
+        for (int i = 1; i < 100_000; i++) {
+            final IntNaryTreeNode child = new IntNaryTreeNode(i);
+            last.addChild(child);
+            last = child;
+        }
+        assertEquals(100_000, root.getHeight());
+        assertEquals(99_999, root.toPostfixArray()[0]);
+        assertEquals(100_000, IntNaryTreeNode.fromJson(new StringReader(root.toJson())).getSize());
+    }
+
+    @Test
+    public void iterator() {
+        final IntNaryTreeNode root = new IntNaryTreeNode(1);
+        root.addChild(2);
+        root.addChild(3);
+        assertEquals("1,2,3", root.stream(NaryTreeNode.Order.PREFIX).mapToObj(Integer::toString)
+                .collect(Collectors.joining(",")));
+        final var iterator = root.iterator(NaryTreeNode.Order.BY_WIDTH);
+        assertEquals(1, iterator.nextInt());
+        assertEquals(2, iterator.nextInt());
+        assertEquals(3, iterator.nextInt());
+        assertFalse(iterator.hasNext());
+        assertThrows(NoSuchElementException.class, iterator::nextInt);
+    }
+}
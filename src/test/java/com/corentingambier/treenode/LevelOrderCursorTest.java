@@ -0,0 +1,32 @@
+package com.corentingambier.treenode;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LevelOrderCursorTest {
+    @Test
+    public void levelOrder() {
+        final NaryTreeNode<String> a = new NaryTreeNode<>("A");
+        final NaryTreeNode<String> b = new NaryTreeNode<>("B");
+        final NaryTreeNode<String> c = new NaryTreeNode<>("C");
+        a.addChild(b);
+        a.addChild(c);
+        b.addChild("D");
+        c.addChild("E");
+        c.addChild("F");
+        final List<String> values = new ArrayList<>();
+        final List<Integer> depths = new ArrayList<>();
+        final LevelOrderCursor<String> cursor = new LevelOrderCursor<>(a);
+        while (cursor.next()) {
+            values.add(cursor.node().getValue());
+            depths.add(cursor.depth());
+        }
+        assertFalse(cursor.next());
+        assertEquals(List.of("A", "B", "C", "D", "E", "F"), values);
+        assertEquals(List.of(0, 1, 1, 2, 2, 2), depths);
+    }
+}
@@ -0,0 +1,29 @@
+package com.corentingambier.treenode;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LongNaryTreeNodeTest {
+    @Test
+    public void valuesAndJson() throws IOException {
+        final LongNaryTreeNode root = new LongNaryTreeNode(Long.MAX_VALUE);
+        final LongNaryTreeNode child = new LongNaryTreeNode(Long.MIN_VALUE);
+        root.addChild(child);
+        child.addChild(42L);
+        assertTrue(root.contains(Long.MIN_VALUE));
+        assertFalse(root.contains(0L));
+        assertArrayEquals(new long[]{Long.MAX_VALUE, Long.MIN_VALUE, 42L}, root.toPrefixArray());
+        assertArrayEquals(new long[]{42L, Long.MIN_VALUE, Long.MAX_VALUE}, root.toPostfixArray());
+        assertEquals(Long.MAX_VALUE + Long.MIN_VALUE + 42L, root.stream(NaryTreeNode.Order.BY_WIDTH).sum());
+        final NaryTreeNode<Long> generic = new NaryTreeNode<>(Long.MAX_VALUE);
+        generic.addChild(Long.MIN_VALUE);
+        generic.getChild(0).addChild(42L);
+        assertEquals(generic.toJson(), root.toJson());
+        assertArrayEquals(root.toPrefixArray(), LongNaryTreeNode.fromJson(new StringReader(root.toJson()))
+                .toPrefixArray());
+    }
+}
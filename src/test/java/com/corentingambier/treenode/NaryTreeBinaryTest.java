@@ -0,0 +1,196 @@
+package com.corentingambier.treenode;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NaryTreeBinaryTest {
+    static <E> byte[] toBytes(final NaryTreeNode<E> root, final BinaryValueCodec<? super E> codec)
+            throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        root.writeBinary(Channels.newChannel(outputStream), codec);
+        return outputStream.toByteArray();
+    }
+
+    private static NaryTreeNode<String> stringTree() {
+        final NaryTreeNode<String> root = new NaryTreeNode<>("root é");
+        final NaryTreeNode<String> child = new NaryTreeNode<>("");
+        root.addChild(child);
+        root.addChild((String) null);
+        child.addChild("🌳 tree");
+        return root;
+    }
+
+    @Test
+    public void format() throws IOException {
+        final NaryTreeNode<Integer> root = new NaryTreeNode<>(1);
+        root.addChild(2);
+        root.addChild((Integer) null);
+        assertArrayEquals(new byte[]{'N', 'T', 'R', 'E', 1, 0, 0, 0, 3,
+                2, 5, 0, 0, 0, 1,
+                0, 5, 0, 0, 0, 2,
+                0, 0}, NaryTreeBinaryTest.toBytes(root, BinaryValueCodec.INTEGER));
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        final NaryTreeNode<Integer> root = ParallelTreeScanTest.randomTree(10_000, 3);
+        final NaryTreeNode<Integer> read = NaryTreeNode.readBinary(
+                ByteBuffer.wrap(NaryTreeBinaryTest.toBytes(root, BinaryValueCodec.INTEGER)), BinaryValueCodec.INTEGER);
+        assertEquals(root.toJson(), read.toJson());
+        assertEquals(root.toPrefixList(), read.toPrefixList());
+    }
+
+    @Test
+    public void roundTripStrings() throws IOException {
+        final NaryTreeNode<String> root = NaryTreeBinaryTest.stringTree();
+        root.getChild(0).addChild("lone \uD800 surrogate");
+        final NaryTreeNode<String> read = NaryTreeNode.readBinary(
+                ByteBuffer.wrap(NaryTreeBinaryTest.toBytes(root, BinaryValueCodec.STRING)), BinaryValueCodec.STRING);
+        assertEquals(Arrays.asList("root é", "", "🌳 tree", "lone ? surrogate", null),
+                read.toPrefixList());
+    }
+
+    @Test
+    public void roundTripLongsAndDoubles() throws IOException {
+        final NaryTreeNode<Long> longs = new NaryTreeNode<>(Long.MIN_VALUE);
+        longs.addChild(Long.MAX_VALUE);
+        assertEquals(longs.toPrefixList(), NaryTreeNode.readBinary(
+                ByteBuffer.wrap(NaryTreeBinaryTest.toBytes(longs, BinaryValueCodec.LONG)), BinaryValueCodec.LONG)
+                .toPrefixList());
+        final NaryTreeNode<Double> doubles = new NaryTreeNode<>(Double.NaN);
+        doubles.addChild(-0.0);
+        assertEquals(doubles.toPrefixList(), NaryTreeNode.readBinary(
+                ByteBuffer.wrap(NaryTreeBinaryTest.toBytes(doubles, BinaryValueCodec.DOUBLE)), BinaryValueCodec.DOUBLE)
+                .toPrefixList());
+    }
+
+    @Test
+    public void valueLargerThanBuffer() throws IOException {
+        final String large = "x".repeat(200_000);
+        final NaryTreeNode<String> root = new NaryTreeNode<>("a");
+        root.addChild(large);
+        root.addChild("b");
+        final NaryTreeNode<String> read = NaryTreeNode.readBinary(
+                ByteBuffer.wrap(NaryTreeBinaryTest.toBytes(root, BinaryValueCodec.STRING)), BinaryValueCodec.STRING);
+        assertEquals(Arrays.asList("a", large, "b"), read.toPrefixList());
+    }
+
+    @Test
+    public void exactChildrenCapacity() throws IOException {
+        final NaryTreeNode<Integer> root = new NaryTreeNode<>(0);
+        for (int i = 1; i <= 5; i++) {
+            root.addChild(i);
+        }
+        final NaryTreeNode<Integer> read = NaryTreeNode.readBinary(
+                ByteBuffer.wrap(NaryTreeBinaryTest.toBytes(root, BinaryValueCodec.INTEGER)), BinaryValueCodec.INTEGER);
+        assertEquals(5, read.getChildrenCount());
+        assertSame(read, read.getChild(4).getParent());
+    }
+
+    @Test
+    public void deepChain() throws IOException {
+        final NaryTreeNode<Integer> root = new NaryTreeNode<>(0);
+        NaryTreeNode<Integer> last = root;
+        for (int i = 1; i < 100_000; i++) {
+            final NaryTreeNode<Integer> child = new NaryTreeNode<>(i);
+            last.addChild(child);
+            last = child;
+        }
+        final NaryTreeNode<Integer> read = NaryTreeNode.readBinary(
+                ByteBuffer.wrap(NaryTreeBinaryTest.toBytes(root, BinaryValueCodec.INTEGER)), BinaryValueCodec.INTEGER);
+        assertEquals(100_000, read.getHeight());
+    }
+
+    @Test
+    public void readFromStreamChannel() throws IOException {
+        final NaryTreeNode<Integer> root = ParallelTreeScanTest.randomTree(50_000, 5);
+        final NaryTreeNode<Integer> read = NaryTreeNode.readBinary(Channels.newChannel(new ByteArrayInputStream(
+                NaryTreeBinaryTest.toBytes(root, BinaryValueCodec.INTEGER))), BinaryValueCodec.INTEGER);
+        assertEquals(root.toPrefixList(), read.toPrefixList());
+    }
+
+    @Test
+    public void fileRoundTrip(@TempDir final Path directory) throws IOException {
+        final NaryTreeNode<Integer> root = ParallelTreeScanTest.randomTree(10_000, 9);
+        final Path file = directory.resolve("tree.bin");
+        root.writeBinary(file, BinaryValueCodec.INTEGER);
+        assertEquals(root.toPrefixList(), NaryTreeNode.readBinary(file, BinaryValueCodec.INTEGER).toPrefixList());
+    }
+
+    @Test
+    public void consecutiveTreesInFileChannel(@TempDir final Path directory) throws IOException {
+        final NaryTreeNode<String> first = NaryTreeBinaryTest.stringTree();
+        final NaryTreeNode<String> second = new NaryTreeNode<>("second");
+        final Path file = directory.resolve("trees.bin");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            first.writeBinary(channel, BinaryValueCodec.STRING);
+            second.writeBinary(channel, BinaryValueCodec.STRING);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            assertEquals(first.toPrefixList(),
+                    NaryTreeNode.readBinary(channel, BinaryValueCodec.STRING).toPrefixList());
+            assertEquals(second.toPrefixList(),
+                    NaryTreeNode.readBinary(channel, BinaryValueCodec.STRING).toPrefixList());
+            assertEquals(channel.size(), channel.position());
+        }
+    }
+
+    @Test
+    public void codecWritingWrongSize() {
+        final BinaryValueCodec<Integer> codec = new BinaryValueCodec<>() {
+            @Override
+            public int encodedSize(final Integer value) {
+                return 2;
+            }
+
+            @Override
+            public void encode(final Integer value, final ByteBuffer buffer) {
+                buffer.putInt(value);
+            }
+
+            @Override
+            public Integer decode(final ByteBuffer buffer, final int offset, final int length) {
+                return buffer.getInt(offset);
+            }
+        };
+        assertThrows(IllegalStateException.class, () -> NaryTreeBinaryTest.toBytes(new NaryTreeNode<>(1), codec));
+    }
+
+    @Test
+    public void malformed() throws IOException {
+        final byte[] bytes = NaryTreeBinaryTest.toBytes(ParallelTreeScanTest.randomTree(100, 1),
+                BinaryValueCodec.INTEGER);
+        final byte[] badMagic = bytes.clone();
+        badMagic[0] = 'X';
+        assertThrows(StreamCorruptedException.class,
+                () -> NaryTreeNode.readBinary(ByteBuffer.wrap(badMagic), BinaryValueCodec.INTEGER));
+        final byte[] badVersion = bytes.clone();
+        badVersion[4] = 9;
+        assertThrows(StreamCorruptedException.class,
+                () -> NaryTreeNode.readBinary(ByteBuffer.wrap(badVersion), BinaryValueCodec.INTEGER));
+        assertThrows(EOFException.class, () -> NaryTreeNode.readBinary(
+                ByteBuffer.wrap(bytes, 0, bytes.length - 3), BinaryValueCodec.INTEGER));
+        final byte[] tooManyChildren = bytes.clone();
+        tooManyChildren[9] = 127;
+        assertThrows(StreamCorruptedException.class,
+                () -> NaryTreeNode.readBinary(ByteBuffer.wrap(tooManyChildren), BinaryValueCodec.INTEGER));
+        // A single leaf announced as two nodes
+        final byte[] extraNode = {'N', 'T', 'R', 'E', 1, 0, 0, 0, 2, 0, 0, 0, 0};
+        assertThrows(StreamCorruptedException.class,
+                () -> NaryTreeNode.readBinary(ByteBuffer.wrap(extraNode), BinaryValueCodec.INTEGER));
+    }
+}
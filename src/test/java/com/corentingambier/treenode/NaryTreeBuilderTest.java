@@ -0,0 +1,131 @@
+package com.corentingambier.treenode;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NaryTreeBuilderTest {
+    private static ForkJoinPool pool;
+
+    @BeforeAll
+    public static void setUp() {
+        NaryTreeBuilderTest.pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        NaryTreeBuilderTest.pool.shutdown();
+    }
+
+    /**
+     * The parent of every node of {@code randomTree}, whose node i has value i.
+     */
+    private static int[] parentsOf(final NaryTreeNode<Integer> root) {
+        final int[] parents = new int[root.getSize()];
+        final TreeCursor<Integer> cursor = TreeCursor.preOrder(root);
+        while (cursor.next()) {
+            final NaryTreeNode<Integer> parent = cursor.node().getParent();
+            parents[cursor.node().getValue()] = parent == null ? -1 : parent.getValue();
+        }
+        return parents;
+    }
+
+    private static List<Integer> identity(final int size) {
+        return IntStream.range(0, size).boxed().toList();
+    }
+
+    @Test
+    public void fromParentArray() {
+        final NaryTreeNode<Integer> tree = ParallelTreeScanTest.randomTree(2000, 5L);
+        final int[] parents = NaryTreeBuilderTest.parentsOf(tree);
+        final List<Integer> values = NaryTreeBuilderTest.identity(parents.length);
+        // randomTree adds the children of a node in increasing order
+        assertEquals(tree.toJson(), NaryTreeNode.fromParentArray(values, parents).toJson());
+        assertEquals(tree.toJson(), NaryTreeNode.fromParentArray(values, parents, NaryTreeBuilderTest.pool).toJson());
+    }
+
+    @Test
+    public void fromParentArrayExactCapacities() {
+        final NaryTreeNode<String> root = NaryTreeNode.fromParentArray(List.of("b", "a", "c"), new int[]{1, -1, 1});
+        assertEquals("[a] ([b], [c])", root.generateText());
+        assertNull(root.getParent());
+        assertSame(root, root.getChild(1).getParent());
+        root.addChild("d");
+        assertEquals(3, root.getChildrenCount());
+    }
+
+    @Test
+    public void fromParentArrayInvalid() {
+        final List<Integer> values = List.of(0, 1, 2);
+        assertThrows(IllegalArgumentException.class, () -> NaryTreeNode.fromParentArray(values, new int[]{-1, 0}));
+        assertThrows(IllegalArgumentException.class,
+                () -> NaryTreeNode.fromParentArray(values, new int[]{-1, -1, 0}));
+        assertThrows(IllegalArgumentException.class, () -> NaryTreeNode.fromParentArray(values, new int[]{1, 2, 0}));
+        assertThrows(IllegalArgumentException.class, () -> NaryTreeNode.fromParentArray(values, new int[]{-1, 2, 1}));
+        assertThrows(IllegalArgumentException.class, () -> NaryTreeNode.fromParentArray(values, new int[]{-1, 3, 0}));
+        assertThrows(IllegalArgumentException.class, () -> NaryTreeNode.fromParentArray(values, new int[]{-1, 1, 0}));
+    }
+
+    @Test
+    public void fromEdges() {
+        final NaryTreeNode<String> root = NaryTreeNode.fromEdges(List.of("A", "B", "C", "D"),
+                new int[]{0, 1, 0}, new int[]{3, 2, 1});
+        assertEquals("[A] ([B] ([C]), [D])", root.generateText());
+        assertThrows(IllegalArgumentException.class, () -> NaryTreeNode.fromEdges(List.of("A", "B", "C"),
+                new int[]{0, 1}, new int[]{1, 1}));
+        assertThrows(IllegalArgumentException.class, () -> NaryTreeNode.fromEdges(List.of("A", "B"),
+                new int[]{-1}, new int[]{1}));
+    }
+
+    @Test
+    public void fromPrefix() {
+        final NaryTreeNode<String> tree = NaryTreeNodeTest.alphabetTree();
+        final List<String> values = tree.toPrefixList();
+        final int[] childrenCounts = tree.nodeStream(NaryTreeNode.Order.PREFIX)
+                .mapToInt(NaryTreeNode::getChildrenCount).toArray();
+        assertEquals(tree.toJson(), NaryTreeNode.fromPrefix(values, childrenCounts).toJson());
+        assertThrows(IllegalArgumentException.class, () -> NaryTreeNode.fromPrefix(List.of("A", "B"),
+                new int[]{0, 0}));
+        assertThrows(IllegalArgumentException.class, () -> NaryTreeNode.fromPrefix(List.of("A", "B"),
+                new int[]{2, 0}));
+        assertThrows(IllegalArgumentException.class, () -> NaryTreeNode.fromPrefix(List.of("A", "B", "C"),
+                new int[]{2, 1, 0}));
+    }
+
+    @Test
+    public void fromRows() {
+        final NaryTreeNode<Integer> tree = ParallelTreeScanTest.randomTree(3000, 9L);
+        final int[] parents = NaryTreeBuilderTest.parentsOf(tree);
+        // Sparse ids, rows in reverse order
+        final List<long[]> rows = new ArrayList<>();
+        for (int i = 0; i < parents.length; i++) {
+            rows.add(new long[]{i * 1_000_003L + 17, parents[i] < 0 ? 0 : parents[i] * 1_000_003L + 17, i});
+        }
+        Collections.reverse(rows);
+        final NaryTreeNode<Integer> root = NaryTreeNode.fromRows(rows.stream(), row -> row[0], row -> row[1],
+                row -> (int) row[2]);
+        assertEquals(tree.getSize(), root.getSize());
+        assertEquals(tree.getHeight(), root.getHeight());
+        final List<Integer> sorted = new ArrayList<>(root.toPrefixList());
+        Collections.sort(sorted);
+        assertEquals(NaryTreeBuilderTest.identity(parents.length), sorted);
+        assertEquals(0, root.getValue());
+        // The rows are reversed, so are the children
+        final int lastChild = root.getChild(0).getValue();
+        assertTrue(root.getChildren().stream().allMatch(child -> child.getValue() <= lastChild));
+
+        assertThrows(IllegalArgumentException.class, () -> NaryTreeNode.fromRows(
+                Stream.of(new long[]{1, 0}, new long[]{1, 1}), row -> row[0], row -> row[1], row -> row[0]));
+        assertThrows(IllegalArgumentException.class, () -> NaryTreeNode.fromRows(
+                Stream.of(new long[]{1, 0}, new long[]{2, 0}), row -> row[0], row -> row[1], row -> row[0]));
+    }
+}
@@ -0,0 +1,175 @@
+package com.corentingambier.treenode;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.google.gson.stream.MalformedJsonException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NaryTreeJsonTest {
+    /**
+     * The recursive serialization toJson() used to implement, serializing every value with its own Gson.
+     */
+    private static String reference(final NaryTreeNode<?> node) {
+        if (node.isLeaf()) {
+            return "{\"value\":" + new Gson().toJson(node.getValue()) + "}";
+        }
+        return "{\"value\":" + new Gson().toJson(node.getValue()) + ",\"children\":[" +
+                node.getChildren().stream().map(NaryTreeJsonTest::reference).collect(Collectors.joining(",")) + "]}";
+    }
+
+    private static NaryTreeNode<Object> mixedTree() {
+        final NaryTreeNode<Object> root = new NaryTreeNode<>("<root & 'quotes' \"=\">");
+        final NaryTreeNode<Object> child = new NaryTreeNode<>(42);
+        root.addChild(child);
+        root.addChild((Object) null);
+        child.addChild(3.5);
+        child.addChild(List.of("a", "b"));
+        child.addChild(new Point(1, null));
+        root.addChild(Map.of("key", "é "));
+        return root;
+    }
+
+    @Test
+    public void sameOutputAsPerValueGson() {
+        final NaryTreeNode<Object> root = NaryTreeJsonTest.mixedTree();
+        assertEquals(NaryTreeJsonTest.reference(root), root.toJson());
+        assertEquals("{\"value\":null}", new NaryTreeNode<>().toJson());
+    }
+
+    @Test
+    public void writeJsonToAppendable() throws IOException {
+        final NaryTreeNode<Object> root = NaryTreeJsonTest.mixedTree();
+        final StringBuilder builder = new StringBuilder();
+        root.writeJson(builder);
+        assertEquals(root.toJson(), builder.toString());
+        final StringWriter writer = new StringWriter();
+        root.writeJson(writer);
+        assertEquals(root.toJson(), writer.toString());
+    }
+
+    @Test
+    public void writeJsonToOutputStream() throws IOException {
+        final NaryTreeNode<Object> root = NaryTreeJsonTest.mixedTree();
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        root.writeJson(outputStream);
+        assertArrayEquals(root.toJson().getBytes(StandardCharsets.UTF_8), outputStream.toByteArray());
+    }
+
+    @Test
+    public void writeJsonRestoresWriterSettings() throws IOException {
+        final StringWriter out = new StringWriter();
+        final JsonWriter writer = new JsonWriter(out);
+        writer.setHtmlSafe(false);
+        writer.setSerializeNulls(true);
+        writer.beginArray();
+        NaryTreeJsonTest.mixedTree().writeJson(writer);
+        writer.endArray();
+        assertFalse(writer.isHtmlSafe());
+        assertTrue(writer.getSerializeNulls());
+        assertFalse(writer.isLenient());
+        assertEquals("[" + NaryTreeJsonTest.reference(NaryTreeJsonTest.mixedTree()) + "]", out.toString());
+    }
+
+    @Test
+    public void fromJsonRoundTrip() throws IOException {
+        final NaryTreeNode<String> root = new NaryTreeNode<>("root");
+        final NaryTreeNode<String> child = new NaryTreeNode<>("<child>");
+        root.addChild(child);
+        root.addChild((String) null);
+        child.addChild("subChild");
+        final NaryTreeNode<String> read = NaryTreeNode.fromJson(new StringReader(root.toJson()), String.class);
+        assertEquals(root.toJson(), read.toJson());
+        assertSame(read, read.getChild(0).getParent());
+        final NaryTreeNode<String> fromStream = NaryTreeNode.fromJson(
+                new ByteArrayInputStream(root.toJson().getBytes(StandardCharsets.UTF_8)), String.class);
+        assertEquals(root.toJson(), fromStream.toJson());
+    }
+
+    @Test
+    public void fromJsonDeepTree() throws IOException {
+        final int depth = 100_000;
+        final NaryTreeNode<Integer> root = new NaryTreeNode<>(0);
+        NaryTreeNode<Integer> last = root;
+        for (int i = 1; i < depth; i++) {
+            final NaryTreeNode<Integer> child = new NaryTreeNode<>(i);
+            last.addChild(child);
+            last = child;
+        }
+        final NaryTreeNode<Integer> read = NaryTreeNode.fromJson(new StringReader(root.toJson()), Integer.class);
+        assertEquals(depth, read.getHeight());
+        assertEquals(root.toPostfixList(), read.toPostfixList());
+    }
+
+    @Test
+    public void fromJsonAnyPropertyOrder() throws IOException {
+        final NaryTreeNode<Point> read = NaryTreeNode.fromJson(new StringReader(
+                "{\"children\":[{\"value\":{\"x\":1}},{\"extra\":[1,{\"a\":2}],\"value\":null}]," +
+                        "\"value\":{\"x\":0,\"y\":0}}"), Point.class);
+        assertEquals(new Point(0, 0), read.getValue());
+        assertEquals(new Point(1, null), read.getChild(0).getValue());
+        assertNull(read.getChild(1).getValue());
+        assertEquals(2, read.getChildrenCount());
+    }
+
+    @Test
+    public void fromJsonCustomAdapter() throws IOException {
+        final TypeAdapter<Integer> doubling = new TypeAdapter<>() {
+            @Override
+            public void write(final JsonWriter out, final Integer value) throws IOException {
+                out.value(value);
+            }
+
+            @Override
+            public Integer read(final JsonReader in) throws IOException {
+                return in.nextInt() * 2;
+            }
+        };
+        final NaryTreeNode<Integer> read = NaryTreeNode.fromJson(
+                new StringReader("{\"value\":1,\"children\":[{\"value\":2}]}"), doubling);
+        assertEquals(List.of(2, 4), read.toPrefixList());
+    }
+
+    @Test
+    public void fromJsonMalformed() {
+        assertThrows(JsonSyntaxException.class, () -> NaryTreeNode.fromJson(new StringReader("[]"), String.class));
+        assertThrows(IOException.class,
+                () -> NaryTreeNode.fromJson(new StringReader("{\"value\":\"a\",\"children\":["), String.class));
+        assertThrows(MalformedJsonException.class,
+                () -> NaryTreeNode.fromJson(new StringReader("{\"value\":\"a\"]"), String.class));
+    }
+
+    @Test
+    public void fromJsonTrailingData() throws IOException {
+        final String json = "{\"value\":1,\"children\":[]}";
+        assertEquals(List.of(1), NaryTreeNode.fromJson(new StringReader(json + " \n"), Integer.class).toPrefixList());
+        assertThrows(JsonSyntaxException.class,
+                () -> NaryTreeNode.fromJson(new StringReader(json + " garbage"), Integer.class));
+        assertThrows(JsonSyntaxException.class,
+                () -> NaryTreeNode.fromJson(new StringReader(json + json), Integer.class));
+        assertThrows(JsonSyntaxException.class, () -> NaryTreeNode.fromJson(
+                new ByteArrayInputStream((json + "]").getBytes(StandardCharsets.UTF_8)), Integer.class));
+        assertThrows(JsonSyntaxException.class, () -> IntNaryTreeNode.fromJson(new StringReader(json + "1")));
+        final String patch = new NaryTreeNode<>(1).diff(new NaryTreeNode<>(2)).toJson();
+        assertEquals(1, TreePatch.fromJson(new StringReader(patch), Integer.class).getOperations().size());
+        assertThrows(JsonSyntaxException.class,
+                () -> TreePatch.fromJson(new StringReader(patch + "{}"), Integer.class));
+    }
+
+    private record Point(Integer x, Integer y) {
+    }
+}
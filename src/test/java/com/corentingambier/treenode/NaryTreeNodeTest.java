@@ -2,8 +2,18 @@ package com.corentingambier.treenode;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -80,6 +90,81 @@ public class NaryTreeNodeTest {
         assertEquals(0, treeNode.getChildrenCount());
     }
 
+    @Test
+    public void getChildOutOfBounds() {
+        final NaryTreeNode<String> treeNode = new NaryTreeNode<>("root", 4);
+        treeNode.addChild("child");
+        assertThrows(IndexOutOfBoundsException.class, () -> treeNode.getChild(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> treeNode.getChild(-1));
+        assertThrows(IndexOutOfBoundsException.class, () -> treeNode.removeChild(1));
+    }
+
+    @Test
+    public void getChildrenIsLive() {
+        final NaryTreeNode<String> treeNode = new NaryTreeNode<>();
+        final List<NaryTreeNode<String>> children = treeNode.getChildren();
+        assertTrue(children.isEmpty());
+        treeNode.addChild("child");
+        assertEquals(1, children.size());
+        assertEquals("child", children.get(0).getValue());
+    }
+
+    @Test
+    public void getChildrenFailsFast() {
+        final NaryTreeNode<Integer> treeNode = new NaryTreeNode<>(-1);
+        for (int i = 0; i < 6; i++) {
+            treeNode.addChild(i);
+        }
+        assertThrows(ConcurrentModificationException.class, () -> {
+            for (final NaryTreeNode<Integer> child : treeNode.getChildren()) {
+                treeNode.removeChild(child);
+            }
+        });
+        assertEquals(5, treeNode.getChildrenCount());
+        final Iterator<NaryTreeNode<Integer>> sorted = treeNode.getChildren().iterator();
+        sorted.next();
+        treeNode.sortChildren(Comparator.comparing(NaryTreeNode::getValue, Comparator.reverseOrder()));
+        assertThrows(ConcurrentModificationException.class, sorted::next);
+        final Iterator<NaryTreeNode<Integer>> iterator = treeNode.getChildren().iterator();
+        treeNode.getChild(0).setValue(10);
+        while (iterator.hasNext()) {
+            iterator.next();
+        }
+        assertThrows(NoSuchElementException.class, iterator::next);
+        assertThrows(UnsupportedOperationException.class, iterator::remove);
+    }
+
+    @Test
+    public void removeChildKeepsOrder() {
+        final int nbChildren = 10;
+        final NaryTreeNode<Integer> treeNode = new NaryTreeNode<>(-1);
+        for (int i = 0; i < nbChildren; i++) {
+            treeNode.addChild(i);
+        }
+        treeNode.removeChild(3);
+        treeNode.removeChild(treeNode.getChild(nbChildren - 2));
+        assertEquals(nbChildren - 2, treeNode.getChildrenCount());
+        assertEquals(List.of(-1, 0, 1, 2, 4, 5, 6, 7, 8), treeNode.toPrefixList());
+    }
+
+    @Test
+    public void initialCapacityAndTrimToSize() {
+        assertThrows(IllegalArgumentException.class, () -> new NaryTreeNode<>("root", -1));
+        final NaryTreeNode<Integer> treeNode = new NaryTreeNode<>(0, 2);
+        for (int i = 1; i <= 5; i++) {
+            treeNode.addChild(i);
+        }
+        treeNode.trimToSize();
+        assertEquals(5, treeNode.getChildrenCount());
+        treeNode.addChild(6);
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6), treeNode.toPrefixList());
+        for (int i = treeNode.getChildrenCount() - 1; i >= 0; i--) {
+            treeNode.removeChild(i);
+        }
+        treeNode.trimToSize();
+        assertTrue(treeNode.isLeaf());
+    }
+
     @Test
     public void getChildrenCount() {
         final int nbChildren = 10;
@@ -340,4 +425,431 @@ public class NaryTreeNodeTest {
         List<String> byWidthListExpected = List.of("A", "B", "C", "D", "E", "F", "G", "H", "I", "J", "K", "L", "M");
         assertEquals(byWidthListExpected, a.toByWidthList());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void deepTree() {
+        final int depth = 200_000;
+        final NaryTreeNode<Integer> root = new NaryTreeNode<>(0);
+        NaryTreeNode<Integer> last = root;
+        for (int i = 1; i < depth; i++) {
+            final NaryTreeNode<Integer> child = new NaryTreeNode<>(i);
+            last.addChild(child);
+            last = child;
+        }
+        assertEquals(depth, root.getSize());
+        assertEquals(depth, root.getNumberOfNodes());
+        assertEquals(depth, root.getHeight());
+        assertEquals(1, root.getNumberOfLeaves());
+        assertTrue(root.contains(depth - 1));
+        assertFalse(root.contains(depth));
+        assertEquals(depth - 1, root.toPostfixList().get(0));
+        assertEquals(depth - 1, root.toPrefixList().get(depth - 1));
+        assertEquals(depth - 1, root.toByWidthList().get(depth - 1));
+        assertTrue(root.toJson().endsWith("{\"value\":" + (depth - 1) + "}" + "]}".repeat(depth - 1)));
+        assertTrue(root.generateText().endsWith("[" + (depth - 1) + "]" + ")".repeat(depth - 1)));
+        assertTrue(root.toString().startsWith("NaryTreeNode{value=0, children=[NaryTreeNode{value=1, "));
+    }
+
+    static NaryTreeNode<String> alphabetTree() {
+        final NaryTreeNode<String> a = new NaryTreeNode<>("A");
+        final NaryTreeNode<String> b = new NaryTreeNode<>("B");
+        final NaryTreeNode<String> c = new NaryTreeNode<>("C");
+        final NaryTreeNode<String> d = new NaryTreeNode<>("D");
+        a.addChild(b);
+        a.addChild(c);
+        b.addChild(d);
+        b.addChild("E");
+        c.addChild("F");
+        d.addChild("G");
+        return a;
+    }
+
+    @Test
+    public void iterators() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        final List<String> prefix = new ArrayList<>();
+        a.prefixIterator().forEachRemaining(prefix::add);
+        assertEquals(List.of("A", "B", "D", "G", "E", "C", "F"), prefix);
+        final List<String> postfix = new ArrayList<>();
+        a.postfixIterator().forEachRemaining(postfix::add);
+        assertEquals(List.of("G", "D", "E", "B", "F", "C", "A"), postfix);
+        final List<String> byWidth = new ArrayList<>();
+        a.breadthFirstIterator().forEachRemaining(byWidth::add);
+        assertEquals(List.of("A", "B", "C", "D", "E", "F", "G"), byWidth);
+        final Iterator<NaryTreeNode<String>> nodes = a.nodeIterator(NaryTreeNode.Order.PREFIX);
+        assertTrue(nodes.hasNext());
+        assertTrue(nodes.hasNext());
+        assertSame(a, nodes.next());
+    }
+
+    @Test
+    public void iteratorExhausted() {
+        final Iterator<String> iterator = new NaryTreeNode<>("A").prefixIterator();
+        assertEquals("A", iterator.next());
+        assertFalse(iterator.hasNext());
+        assertThrows(NoSuchElementException.class, iterator::next);
+    }
+
+    @Test
+    public void stream() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        assertEquals("GDEBFCA", a.stream(NaryTreeNode.Order.POSTFIX).collect(Collectors.joining()));
+        assertEquals(a.toByWidthList(), a.stream(NaryTreeNode.Order.BY_WIDTH).collect(Collectors.toList()));
+        assertEquals(3, a.nodeStream(NaryTreeNode.Order.PREFIX).filter(NaryTreeNode::isLeaf).count());
+    }
+
+    @Test
+    public void streamTerminatesEarly() {
+        final NaryTreeNode<Integer> root = new NaryTreeNode<>(0);
+        for (int i = 1; i <= 1000; i++) {
+            root.addChild(i);
+        }
+        final AtomicInteger visited = new AtomicInteger();
+        assertEquals(3, root.stream(NaryTreeNode.Order.PREFIX).peek(v -> visited.incrementAndGet())
+                .filter(v -> v == 3).findFirst().orElseThrow());
+        assertEquals(4, visited.get());
+    }
+
+    @Test
+    public void parallelAggregations() {
+        final NaryTreeNode<Integer> root = ParallelTreeScanTest.randomTree(50_000, 11);
+        assertEquals(root.getSize(), root.getSizeParallel());
+        assertEquals(root.getNumberOfNodes(), root.getNumberOfNodesParallel());
+        assertEquals(root.getHeight(), root.getHeightParallel());
+        assertEquals(root.getNumberOfLeaves(), root.getNumberOfLeavesParallel());
+        assertTrue(root.containsParallel(49_999));
+        assertFalse(root.containsParallel(50_000));
+        assertEquals(root.getSize(), root.getSizeParallel(ForkJoinPool.commonPool(), 1));
+    }
+
+    @Test
+    public void parallelStream() {
+        final NaryTreeNode<Integer> root = ParallelTreeScanTest.randomTree(50_000, 13);
+        assertEquals(49_999L * 50_000 / 2, root.parallelStream().mapToLong(Integer::longValue).sum());
+        assertEquals(root.getNumberOfLeaves(), root.parallelNodeStream().filter(NaryTreeNode::isLeaf).count());
+    }
+
+    @Test
+    public void getParent() {
+        final NaryTreeNode<String> root = new NaryTreeNode<>("root");
+        final NaryTreeNode<String> other = new NaryTreeNode<>("other");
+        final NaryTreeNode<String> child = new NaryTreeNode<>("child");
+        assertNull(root.getParent());
+        root.addChild(child);
+        assertSame(root, child.getParent());
+        other.addChild(child);
+        assertSame(other, child.getParent());
+        assertTrue(root.isLeaf());
+        other.removeChild(0);
+        assertNull(child.getParent());
+    }
+
+    @Test
+    public void addChildRefusesCycles() {
+        final NaryTreeNode<String> parent = new NaryTreeNode<>("parent");
+        final NaryTreeNode<String> child = new NaryTreeNode<>("child");
+        final NaryTreeNode<String> grandChild = new NaryTreeNode<>("grandChild");
+        parent.addChild(child);
+        child.addChild(grandChild);
+        assertThrows(IllegalArgumentException.class, () -> parent.addChild(parent));
+        assertThrows(IllegalArgumentException.class, () -> grandChild.addChild(parent));
+        assertNull(parent.getParent());
+        assertEquals(3, parent.getSize());
+        parent.enableStatistics();
+        assertThrows(IllegalArgumentException.class, () -> grandChild.addChild(child));
+        assertSame(child, grandChild.getParent());
+        assertEquals(3, parent.getSize());
+        assertEquals(2, grandChild.getDepth());
+    }
+
+    @Test
+    public void statistics() {
+        final NaryTreeNode<String> root = new NaryTreeNode<>("root");
+        final NaryTreeNode<String> child = new NaryTreeNode<>("child");
+        root.addChild(child);
+        assertFalse(root.isStatisticsEnabled());
+        root.enableStatistics();
+        assertTrue(root.isStatisticsEnabled());
+        assertTrue(child.isStatisticsEnabled());
+        assertEquals(2, root.getSize());
+        final NaryTreeNode<String> subChild = new NaryTreeNode<>("subChild");
+        subChild.addChild("leaf1");
+        subChild.addChild("leaf2");
+        child.addChild(subChild);
+        assertTrue(subChild.isStatisticsEnabled());
+        assertEquals(5, root.getSize());
+        assertEquals(5, root.getNumberOfNodes());
+        assertEquals(4, root.getHeight());
+        assertEquals(2, root.getNumberOfLeaves());
+        child.removeChild(subChild);
+        assertEquals(2, root.getSize());
+        assertEquals(2, root.getHeight());
+        assertEquals(1, root.getNumberOfLeaves());
+        assertEquals(3, subChild.getSize());
+        assertThrows(IllegalStateException.class, child::disableStatistics);
+        root.disableStatistics();
+        assertFalse(child.isStatisticsEnabled());
+        assertEquals(2, root.getSize());
+    }
+
+    @Test
+    public void statisticsStayConsistent() {
+        final Random random = new Random(5);
+        final NaryTreeNode<Integer> root = new NaryTreeNode<>(0);
+        root.enableStatistics();
+        final List<NaryTreeNode<Integer>> nodes = new ArrayList<>(List.of(root));
+        for (int i = 1; i < 5_000; i++) {
+            final NaryTreeNode<Integer> parent = nodes.get(random.nextInt(nodes.size()));
+            if (i % 4 == 0 && !parent.isLeaf()) {
+                final NaryTreeNode<Integer> removed = parent.getChild(random.nextInt(parent.getChildrenCount()));
+                parent.removeChild(removed);
+                removed.prefixIterator().forEachRemaining(v -> nodes.removeIf(n -> n.getValue().equals(v)));
+            } else {
+                final NaryTreeNode<Integer> child = new NaryTreeNode<>(i);
+                parent.addChild(child);
+                nodes.add(child);
+            }
+            if (i % 500 == 0) {
+                final int size = root.getSize();
+                final int height = root.getHeight();
+                final int leaves = root.getNumberOfLeaves();
+                root.disableStatistics();
+                assertEquals(root.getSize(), size);
+                assertEquals(root.getHeight(), height);
+                assertEquals(root.getNumberOfLeaves(), leaves);
+                root.enableStatistics();
+            }
+        }
+        assertEquals(nodes.size(), root.getSize());
+    }
+
+    @Test
+    public void containsNullValue() {
+        final NaryTreeNode<String> treeNode = new NaryTreeNode<>();
+        treeNode.addChild("child");
+        assertTrue(treeNode.contains(null));
+        assertTrue(treeNode.contains("child"));
+        assertFalse(treeNode.getChild(0).contains(null));
+    }
+
+    @Test
+    public void findWithoutIndex() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        a.getChild(1).getChild(0).setValue("D");
+        assertSame(a.getChild(0).getChild(0), a.findFirst("D").orElseThrow());
+        assertEquals(List.of("B", "C"), a.findAll("D").stream().map(n -> n.getParent().getValue()).toList());
+        assertEquals(List.of("A", "B", "D", "G"), a.pathTo("G").stream().map(NaryTreeNode::getValue).toList());
+        assertTrue(a.pathTo("Z").isEmpty());
+        assertTrue(a.findFirst("Z").isEmpty());
+    }
+
+    @Test
+    public void index() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        final NaryTreeNode<String> b = a.getChild(0);
+        final NaryTreeNode<String> c = a.getChild(1);
+        a.enableIndex();
+        assertTrue(a.isIndexEnabled());
+        assertTrue(b.isIndexEnabled());
+        assertTrue(a.contains("G"));
+        assertEquals(List.of("A", "B", "D", "G"), a.pathTo("G").stream().map(NaryTreeNode::getValue).toList());
+        assertEquals(List.of("B", "D", "G"), b.pathTo("G").stream().map(NaryTreeNode::getValue).toList());
+        assertFalse(c.contains("G"));
+        c.getChild(0).setValue("G");
+        assertFalse(a.contains("F"));
+        assertEquals(2, a.findAll("G").size());
+        assertEquals(1, c.findAll("G").size());
+        c.addChild((String) null);
+        assertTrue(a.contains(null));
+        final NaryTreeNode<String> removed = a.getChild(0);
+        a.removeChild(0);
+        assertFalse(removed.isIndexEnabled());
+        assertEquals(List.of(c.getChild(0)), a.findAll("G"));
+        assertFalse(a.contains("D"));
+        assertTrue(removed.contains("D"));
+        final NaryTreeNode<String> other = new NaryTreeNode<>("other");
+        other.enableIndex();
+        other.addChild(removed);
+        assertTrue(other.contains("D"));
+        c.addChild(removed);
+        assertFalse(other.contains("D"));
+        assertTrue(a.contains("D"));
+        a.disableIndex();
+        assertFalse(c.isIndexEnabled());
+        assertTrue(a.contains("D"));
+    }
+
+    /**
+     * Check the statistics of a tree against a recomputation without them.
+     */
+    private static void assertStatisticsConsistent(final NaryTreeNode<?> root) {
+        final int size = root.getSize();
+        final int height = root.getHeight();
+        final int leaves = root.getNumberOfLeaves();
+        root.disableStatistics();
+        assertEquals(root.getSize(), size);
+        assertEquals(root.getHeight(), height);
+        assertEquals(root.getNumberOfLeaves(), leaves);
+        root.enableStatistics();
+    }
+
+    @Test
+    public void insertChild() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        final NaryTreeNode<String> b = a.getChild(0);
+        final NaryTreeNode<String> c = a.getChild(1);
+        a.insertChild(0, new NaryTreeNode<>("H"));
+        assertEquals("[A] ([H], [B] ([D] ([G]), [E]), [C] ([F]))", a.generateText());
+        // Moving a child within its parent does not count it twice
+        a.insertChild(2, a.getChild(0));
+        assertEquals("[A] ([B] ([D] ([G]), [E]), [C] ([F]), [H])", a.generateText());
+        assertThrows(IndexOutOfBoundsException.class, () -> a.insertChild(3, b));
+        assertThrows(IndexOutOfBoundsException.class, () -> a.insertChild(4, new NaryTreeNode<>("I")));
+        assertThrows(IllegalArgumentException.class, () -> b.getChild(0).insertChild(0, a));
+        c.insertChild(1, b.getChild(0));
+        assertEquals("[A] ([B] ([E]), [C] ([F], [D] ([G])), [H])", a.generateText());
+        assertSame(c, c.getChild(1).getParent());
+    }
+
+    @Test
+    public void addChildren() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        final NaryTreeNode<String> b = a.getChild(0);
+        final NaryTreeNode<String> c = a.getChild(1);
+        final NaryTreeNode<String> h = new NaryTreeNode<>("H");
+        c.addChildren(List.of(b.getChild(1), h, h, b.getChild(0)));
+        assertEquals("[A] ([B], [C] ([F], [E], [H], [D] ([G])))", a.generateText());
+        assertTrue(b.isLeaf());
+        assertSame(c, h.getParent());
+        c.addChildren(List.of());
+        assertEquals(4, c.getChildrenCount());
+        assertThrows(IllegalArgumentException.class, () -> h.addChildren(List.of(a)));
+    }
+
+    @Test
+    public void removeChildrenIf() {
+        final NaryTreeNode<Integer> root = new NaryTreeNode<>(-1);
+        final List<NaryTreeNode<Integer>> children = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            final NaryTreeNode<Integer> child = new NaryTreeNode<>(i);
+            root.addChild(child);
+            children.add(child);
+        }
+        assertTrue(root.removeChildrenIf(child -> child.getValue() % 3 == 0));
+        assertEquals(List.of(-1, 1, 2, 4, 5, 7, 8), root.toPrefixList());
+        assertNull(children.get(3).getParent());
+        assertFalse(root.removeChildrenIf(child -> child.getValue() > 100));
+        // A failing predicate leaves the children untouched
+        assertThrows(IllegalStateException.class, () -> root.removeChildrenIf(child -> {
+            if (child.getValue() == 5) {
+                throw new IllegalStateException();
+            }
+            return true;
+        }));
+        assertEquals(List.of(-1, 1, 2, 4, 5, 7, 8), root.toPrefixList());
+        assertTrue(root.retainChildren(Set.of(children.get(2), children.get(7))));
+        assertEquals(List.of(-1, 2, 7), root.toPrefixList());
+        assertFalse(root.retainChildren(List.of(children.get(2), children.get(7))));
+    }
+
+    @Test
+    public void sortChildren() {
+        final NaryTreeNode<String> root = new NaryTreeNode<>("root");
+        for (final String value : List.of("b2", "a1", "c1", "b1", "a2")) {
+            root.addChild(value);
+        }
+        // Stable: the children of the same letter keep their order
+        root.sortChildren(Comparator.comparing(child -> child.getValue().charAt(0)));
+        assertEquals(List.of("root", "a1", "a2", "b2", "b1", "c1"), root.toPrefixList());
+        root.sortChildren(Comparator.comparing(NaryTreeNode::getValue));
+        assertEquals(List.of("root", "a1", "a2", "b1", "b2", "c1"), root.toPrefixList());
+    }
+
+    @Test
+    public void detachAndMove() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        final NaryTreeNode<String> b = a.getChild(0);
+        final NaryTreeNode<String> c = a.getChild(1);
+        final NaryTreeNode<String> d = b.getChild(0);
+        d.moveTo(c);
+        assertEquals("[A] ([B] ([E]), [C] ([F], [D] ([G])))", a.generateText());
+        d.moveTo(c, 0);
+        assertEquals("[A] ([B] ([E]), [C] ([D] ([G]), [F]))", a.generateText());
+        assertThrows(IllegalArgumentException.class, () -> c.moveTo(d));
+        d.detach();
+        assertNull(d.getParent());
+        assertEquals("[A] ([B] ([E]), [C] ([F]))", a.generateText());
+        d.detach();
+        assertEquals("[D] ([G])", d.generateText());
+    }
+
+    @Test
+    public void spliceChildren() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        final NaryTreeNode<String> b = a.getChild(0);
+        final NaryTreeNode<String> c = a.getChild(1);
+        c.spliceChildren(0, b);
+        assertEquals("[A] ([B], [C] ([D] ([G]), [E], [F]))", a.generateText());
+        assertTrue(b.isLeaf());
+        assertSame(c, c.getChild(1).getParent());
+        final NaryTreeNode<String> other = new NaryTreeNode<>("X");
+        other.addChild("Y");
+        c.spliceChildren(3, other);
+        assertEquals("[A] ([B], [C] ([D] ([G]), [E], [F], [Y]))", a.generateText());
+        assertThrows(IllegalArgumentException.class, () -> c.getChild(0).spliceChildren(0, a));
+        assertThrows(IllegalArgumentException.class, () -> c.spliceChildren(0, c));
+        assertThrows(IndexOutOfBoundsException.class, () -> b.spliceChildren(1, c));
+        assertEquals(4, c.getChildrenCount());
+    }
+
+    @Test
+    public void batchOperationsKeepStatistics() {
+        final NaryTreeNode<Integer> root = ParallelTreeScanTest.randomTree(3000, 13L);
+        root.enableStatistics();
+        final Random random = new Random(13);
+        final List<NaryTreeNode<Integer>> nodes = root.nodeStream(NaryTreeNode.Order.PREFIX).toList();
+        for (int i = 0; i < 300; i++) {
+            final NaryTreeNode<Integer> node = nodes.get(random.nextInt(nodes.size()));
+            final NaryTreeNode<Integer> target = nodes.get(random.nextInt(nodes.size()));
+            try {
+                switch (i % 5) {
+                    case 0 -> node.moveTo(target);
+                    case 1 -> target.spliceChildren(0, node);
+                    case 2 -> target.addChildren(node.getChildren());
+                    case 3 -> node.removeChildrenIf(child -> child.getValue() % 7 == 0);
+                    default -> node.sortChildren(Comparator.comparing(NaryTreeNode::getValue));
+                }
+            } catch (final IllegalArgumentException e) {
+                // The target was in the subtree of the node
+            }
+            if (i % 30 == 0) {
+                NaryTreeNodeTest.assertStatisticsConsistent(root);
+            }
+        }
+        NaryTreeNodeTest.assertStatisticsConsistent(root);
+    }
+
+    @Test
+    public void batchOperationsKeepIndex() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        final NaryTreeNode<String> b = a.getChild(0);
+        final NaryTreeNode<String> c = a.getChild(1);
+        a.enableIndex();
+        b.getChild(0).moveTo(c);
+        assertEquals(List.of("A", "C", "D", "G"), a.pathTo("G").stream().map(NaryTreeNode::getValue).toList());
+        c.spliceChildren(0, b);
+        assertEquals(List.of(c), a.findFirst("E").map(NaryTreeNode::getParent).stream().toList());
+        final NaryTreeNode<String> removed = c.getChild(0);
+        c.removeChildrenIf(child -> child.getValue().equals("E"));
+        assertFalse(a.contains("E"));
+        assertFalse(removed.isIndexEnabled());
+        final NaryTreeNode<String> other = new NaryTreeNode<>("X");
+        other.addChild("Y");
+        c.addChildren(List.of(removed, other));
+        assertTrue(a.contains("E"));
+        assertTrue(a.contains("Y"));
+        other.detach();
+        assertFalse(a.contains("Y"));
+        assertTrue(a.contains("G"));
+    }
+}
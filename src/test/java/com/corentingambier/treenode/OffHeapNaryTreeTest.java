@@ -0,0 +1,136 @@
+package com.corentingambier.treenode;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OffHeapNaryTreeTest {
+    private static LongNaryTreeNode randomTree(final int size, final long seed) {
+        final Random random = new Random(seed);
+        final LongNaryTreeNode[] nodes = new LongNaryTreeNode[size];
+        nodes[0] = new LongNaryTreeNode(random.nextLong());
+        for (int i = 1; i < size; i++) {
+            nodes[i] = new LongNaryTreeNode(random.nextLong());
+            nodes[random.nextInt(i)].addChild(nodes[i]);
+        }
+        return nodes[0];
+    }
+
+    @Test
+    public void matchesLongNaryTreeNode() {
+        final LongNaryTreeNode root = OffHeapNaryTreeTest.randomTree(1000, 7L);
+        try (OffHeapNaryTree tree = OffHeapNaryTree.of(root)) {
+            assertEquals(root.getSize(), tree.size());
+            assertEquals(root.getSize(), tree.getSize(tree.getRoot()));
+            assertEquals(root.getHeight(), tree.getHeight());
+            assertArrayEquals(root.toPrefixArray(), tree.toPrefixArray());
+            assertArrayEquals(root.toPostfixArray(), tree.toPostfixArray());
+            assertArrayEquals(root.toByWidthArray(), tree.toByWidthArray());
+            assertTrue(tree.contains(root.getChild(0).getValue()));
+            final int child = tree.getChild(tree.getRoot(), 0);
+            assertEquals(root.getChild(0).getValue(), tree.getValue(child));
+            assertEquals(root.getChild(0).getSize(), tree.getSize(child));
+            assertEquals(root.getChild(0).getHeight(), tree.getHeight(child));
+        }
+    }
+
+    @Test
+    public void navigation() {
+        try (OffHeapNaryTree tree = new OffHeapNaryTree(1L, 2)) {
+            final int root = tree.getRoot();
+            final int a = tree.addChild(root, 2L);
+            final int b = tree.addChild(root, 3L);
+            final int c = tree.addChild(root, 4L);
+            final int d = tree.addChild(b, 5L);
+            assertEquals(OffHeapNaryTree.NIL, tree.getParent(root));
+            assertEquals(b, tree.getParent(d));
+            assertEquals(root, tree.getParent(b));
+            assertEquals(3, tree.getChildrenCount(root));
+            assertEquals(a, tree.getChild(root, 0));
+            assertEquals(b, tree.getChild(root, 1));
+            assertEquals(c, tree.getChild(root, 2));
+            assertEquals(a, tree.getFirstChild(root));
+            assertEquals(b, tree.getNextSibling(a));
+            assertEquals(OffHeapNaryTree.NIL, tree.getNextSibling(c));
+            assertTrue(tree.isLeaf(d));
+            assertThrows(IndexOutOfBoundsException.class, () -> tree.getChild(root, 3));
+            tree.setValue(d, 50L);
+            assertArrayEquals(new long[]{1L, 2L, 3L, 50L, 4L}, tree.toPrefixArray());
+            assertArrayEquals(new long[]{2L, 50L, 3L, 4L, 1L}, tree.toPostfixArray());
+            assertArrayEquals(new long[]{1L, 2L, 3L, 4L, 50L}, tree.toByWidthArray());
+            assertEquals(3, tree.getHeight());
+            assertEquals(3L * 2 * 32, tree.getReservedBytes());
+        }
+    }
+
+    @Test
+    public void removeFreesAndReusesRecords() {
+        try (OffHeapNaryTree tree = new OffHeapNaryTree(0L, 4)) {
+            final int root = tree.getRoot();
+            final int a = tree.addChild(root, 1L);
+            final int b = tree.addChild(a, 2L);
+            tree.addChild(a, 3L);
+            final int c = tree.addChild(root, 4L);
+            final long reserved = tree.getReservedBytes();
+            tree.removeChild(root, 0);
+            assertEquals(2, tree.size());
+            assertArrayEquals(new long[]{0L, 4L}, tree.toPrefixArray());
+            assertEquals(c, tree.getFirstChild(root));
+            assertThrows(IllegalArgumentException.class, () -> tree.getValue(b));
+            for (int i = 0; i < 3; i++) {
+                tree.addChild(c, i);
+            }
+            assertEquals(reserved, tree.getReservedBytes());
+            assertArrayEquals(new long[]{0L, 4L, 0L, 1L, 2L}, tree.toPrefixArray());
+            tree.remove(tree.getChild(c, 2));
+            tree.remove(tree.getChild(c, 0));
+            assertArrayEquals(new long[]{0L, 4L, 1L}, tree.toPrefixArray());
+            assertEquals(tree.getChild(c, 0), tree.getChild(c, tree.getChildrenCount(c) - 1));
+            assertThrows(IllegalArgumentException.class, () -> tree.remove(root));
+        }
+    }
+
+    @Test
+    public void closed() {
+        final OffHeapNaryTree tree = new OffHeapNaryTree(1L);
+        tree.close();
+        tree.close();
+        assertThrows(IllegalStateException.class, tree::size);
+        assertThrows(IllegalStateException.class, () -> tree.getValue(0));
+        assertThrows(IllegalStateException.class, () -> tree.addChild(0, 2L));
+    }
+
+    @Test
+    public void closeFreesChunks() {
+        final BufferPoolMXBean direct = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(pool -> "direct".equals(pool.getName())).findFirst().orElseThrow();
+        final long usedBefore = direct.getMemoryUsed();
+        final OffHeapNaryTree tree = new OffHeapNaryTree(0L, 1 << 10);
+        for (int i = 1; i < 10_000; i++) {
+            tree.addChild(tree.getRoot(), i);
+        }
+        assertEquals(usedBefore + tree.getReservedBytes(), direct.getMemoryUsed());
+        tree.close();
+        // Freed at once, without waiting for a collection
+        assertEquals(usedBefore, direct.getMemoryUsed());
+    }
+
+    @Test
+    public void deepChain() {
+        try (OffHeapNaryTree tree = new OffHeapNaryTree(0L)) {
+            int node = tree.getRoot();
+            for (int i = 1; i < 100_000; i++) {
+                node = tree.addChild(node, i);
+            }
+            assertEquals(100_000, tree.getHeight());
+            assertEquals(99_999L, tree.toPostfixArray()[0]);
+            assertTrue(tree.contains(99_999L));
+            tree.removeChild(tree.getRoot(), 0);
+            assertEquals(1, tree.size());
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.corentingambier.treenode;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelTreeScanTest {
+    private static ForkJoinPool pool;
+
+    @BeforeAll
+    public static void setUp() {
+        ParallelTreeScanTest.pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        ParallelTreeScanTest.pool.shutdown();
+    }
+
+    static NaryTreeNode<Integer> randomTree(final int size, final long seed) {
+        final Random random = new Random(seed);
+        final List<NaryTreeNode<Integer>> nodes = new ArrayList<>(size);
+        nodes.add(new NaryTreeNode<>(0));
+        for (int i = 1; i < size; i++) {
+            final NaryTreeNode<Integer> node = new NaryTreeNode<>(i);
+            nodes.get(random.nextInt(nodes.size())).addChild(node);
+            nodes.add(node);
+        }
+        return nodes.get(0);
+    }
+
+    private static long scan(final ParallelTreeScan.Kind kind, final Integer target, final NaryTreeNode<Integer> root,
+                             final int threshold) {
+        return ParallelTreeScanTest.pool.invoke(new ParallelTreeScan<>(kind, target, root, threshold));
+    }
+
+    @Test
+    public void matchesSequential() {
+        final NaryTreeNode<Integer> root = ParallelTreeScanTest.randomTree(20_000, 7);
+        for (final int threshold : new int[]{1, 16, 1 << 20}) {
+            assertEquals(root.getSize(), ParallelTreeScanTest.scan(ParallelTreeScan.Kind.SIZE, null, root, threshold));
+            assertEquals(root.getHeight(),
+                    ParallelTreeScanTest.scan(ParallelTreeScan.Kind.HEIGHT, null, root, threshold));
+            assertEquals(root.getNumberOfLeaves(),
+                    ParallelTreeScanTest.scan(ParallelTreeScan.Kind.LEAVES, null, root, threshold));
+            assertEquals(1, ParallelTreeScanTest.scan(ParallelTreeScan.Kind.CONTAINS, 19_999, root, threshold));
+            assertEquals(0, ParallelTreeScanTest.scan(ParallelTreeScan.Kind.CONTAINS, -1, root, threshold));
+        }
+    }
+
+    @Test
+    public void deepChain() {
+        final NaryTreeNode<Integer> root = new NaryTreeNode<>(0);
+        NaryTreeNode<Integer> last = root;
+        for (int i = 1; i < 100_000; i++) {
+            final NaryTreeNode<Integer> child = new NaryTreeNode<>(i);
+            last.addChild(child);
+            last = child;
+        }
+        assertEquals(100_000, ParallelTreeScanTest.scan(ParallelTreeScan.Kind.HEIGHT, null, root, 1));
+    }
+
+    @Test
+    public void invalidThreshold() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new ParallelTreeScan<>(ParallelTreeScan.Kind.SIZE, null, new NaryTreeNode<>(0), 0));
+    }
+}
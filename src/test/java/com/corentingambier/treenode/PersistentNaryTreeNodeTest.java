@@ -0,0 +1,80 @@
+package com.corentingambier.treenode;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PersistentNaryTreeNodeTest {
+    @Test
+    public void copyOf() {
+        final NaryTreeNode<Integer> tree = ParallelTreeScanTest.randomTree(1000, 11L);
+        final PersistentNaryTreeNode<Integer> root = PersistentNaryTreeNode.copyOf(tree);
+        assertEquals(tree.getSize(), root.getSize());
+        assertEquals(tree.getHeight(), root.getHeight());
+        assertEquals(tree.toPrefixList(), root.toPrefixList());
+        assertEquals(tree.toJson(), root.toNaryTreeNode().toJson());
+        assertTrue(root.contains(999));
+        assertFalse(root.contains(1000));
+        assertEquals(root, PersistentNaryTreeNode.copyOf(tree));
+        assertEquals(root.hashCode(), PersistentNaryTreeNode.copyOf(tree).hashCode());
+    }
+
+    @Test
+    public void editsCopyOnlyThePath() {
+        final PersistentNaryTreeNode<String> v1 = PersistentNaryTreeNode.copyOf(NaryTreeNodeTest.alphabetTree());
+        // A(B(D(G),E),C(F))
+        final PersistentNaryTreeNode<String> v2 = v1.withValue(new int[]{0, 0, 0}, "g");
+        assertEquals(List.of("A", "B", "D", "G", "E", "C", "F"), v1.toPrefixList());
+        assertEquals(List.of("A", "B", "D", "g", "E", "C", "F"), v2.toPrefixList());
+        assertSame(v1.getChild(1), v2.getChild(1));
+        assertSame(v1.getNode(0, 1), v2.getNode(0, 1));
+        assertNotSame(v1.getNode(0, 0), v2.getNode(0, 0));
+        assertNotEquals(v1, v2);
+
+        final PersistentNaryTreeNode<String> v3 = v2.withChildAdded(new int[]{1}, PersistentNaryTreeNode.of("H"));
+        assertEquals(List.of("A", "B", "D", "g", "E", "C", "F", "H"), v3.toPrefixList());
+        assertSame(v2.getChild(0), v3.getChild(0));
+        assertEquals(8, v3.getSize());
+
+        final PersistentNaryTreeNode<String> v4 = v3.withNodeRemoved(new int[]{0});
+        assertEquals(List.of("A", "C", "F", "H"), v4.toPrefixList());
+        assertEquals(3, v4.getHeight());
+        assertSame(v3.getChild(1), v4.getChild(0));
+        assertThrows(IllegalArgumentException.class, () -> v4.withNodeRemoved(new int[0]));
+        assertThrows(IndexOutOfBoundsException.class, () -> v4.withValue(new int[]{1}, "X"));
+
+        assertEquals(v1, v2.withValue(new int[]{0, 0, 0}, "G"));
+        assertSame(v1, v1.withValue(v1.getValue()));
+        assertSame(v1, v1.withNode(new int[]{0}, node -> node));
+    }
+
+    @Test
+    public void childEdits() {
+        final PersistentNaryTreeNode<Integer> root = PersistentNaryTreeNode.of(0,
+                PersistentNaryTreeNode.of(1), PersistentNaryTreeNode.of(2));
+        assertEquals(List.of(0, 3, 1, 2), root.withChildAdded(0, PersistentNaryTreeNode.of(3)).toPrefixList());
+        assertEquals(List.of(0, 1, 2, 3), root.withChildAdded(3).toPrefixList());
+        assertEquals(List.of(0, 2), root.withChildRemoved(0).toPrefixList());
+        assertTrue(root.withChildRemoved(0).withChildRemoved(0).isLeaf());
+        assertEquals(List.of(0, 1, 4), root.withChildReplaced(1, PersistentNaryTreeNode.of(4)).toPrefixList());
+        assertThrows(UnsupportedOperationException.class, () -> root.getChildren().clear());
+        assertEquals(List.of(0, 1, 2), root.toPrefixList());
+    }
+
+    @Test
+    public void deepChain() {
+        PersistentNaryTreeNode<Integer> root = PersistentNaryTreeNode.of(0);
+        for (int i = 1; i < 50_000; i++) {
+            root = PersistentNaryTreeNode.of(i, root);
+        }
+        assertEquals(50_000, root.getHeight());
+        final int[] path = new int[49_999];
+        final PersistentNaryTreeNode<Integer> edited = root.withValue(path, -1);
+        assertEquals(-1, edited.getNode(path).getValue());
+        assertNotEquals(root, edited);
+        assertEquals(root, edited.withValue(path, 0));
+        assertEquals(50_000, root.toNaryTreeNode().getHeight());
+    }
+}
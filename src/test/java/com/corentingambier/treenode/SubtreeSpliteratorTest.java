@@ -0,0 +1,57 @@
+package com.corentingambier.treenode;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Spliterator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SubtreeSpliteratorTest {
+    @Test
+    public void splitsCoverEveryNodeOnce() {
+        final NaryTreeNode<Integer> root = ParallelTreeScanTest.randomTree(5_000, 3);
+        final Deque<Spliterator<Integer>> pending = new ArrayDeque<>();
+        pending.add(new SubtreeSpliterator<>(root, NaryTreeNode::getValue, 0));
+        final List<Integer> values = new ArrayList<>();
+        int splits = 0;
+        while (!pending.isEmpty()) {
+            final Spliterator<Integer> spliterator = pending.poll();
+            spliterator.tryAdvance(values::add);
+            final Spliterator<Integer> split = spliterator.trySplit();
+            if (split != null) {
+                splits++;
+                pending.add(split);
+                pending.add(spliterator);
+            } else {
+                spliterator.forEachRemaining(values::add);
+            }
+        }
+        assertTrue(splits > 100);
+        values.sort(Integer::compare);
+        assertEquals(root.toPrefixList().stream().sorted().toList(), values);
+    }
+
+    @Test
+    public void splitsRootBeforeConsuming() {
+        final NaryTreeNode<Integer> root = new NaryTreeNode<>(0);
+        root.addChild(1);
+        root.addChild(2);
+        final Spliterator<Integer> spliterator = new SubtreeSpliterator<>(root, NaryTreeNode::getValue, 0);
+        final Spliterator<Integer> split = spliterator.trySplit();
+        assertNotNull(split);
+        final List<Integer> values = new ArrayList<>();
+        split.forEachRemaining(values::add);
+        spliterator.forEachRemaining(values::add);
+        values.sort(Integer::compare);
+        assertEquals(List.of(0, 1, 2), values);
+    }
+
+    @Test
+    public void leafDoesNotSplit() {
+        assertNull(new SubtreeSpliterator<>(new NaryTreeNode<>(0), NaryTreeNode::getValue, 0).trySplit());
+    }
+}
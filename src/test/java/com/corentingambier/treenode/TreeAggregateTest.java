@@ -0,0 +1,192 @@
+package com.corentingambier.treenode;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TreeAggregateTest {
+    private static final BiFunction<Integer, List<Long>, Long> WEIGHTED_SUM = (value, children) -> {
+        long sum = value;
+        for (int i = 0; i < children.size(); i++) {
+            sum += (i + 1) * children.get(i);
+        }
+        return sum;
+    };
+
+    private static int[] countingCalls(final NaryTreeNode<Integer> root, final TreeAggregate<?, ?>[] aggregate) {
+        final int[] calls = new int[1];
+        aggregate[0] = root.aggregate((Integer value, List<Long> children) -> {
+            calls[0]++;
+            return TreeAggregateTest.WEIGHTED_SUM.apply(value, children);
+        });
+        return calls;
+    }
+
+    private static <E> NaryTreeNode<E> rootOf(final NaryTreeNode<E> node) {
+        NaryTreeNode<E> root = node;
+        while (root.getParent() != null) {
+            root = root.getParent();
+        }
+        return root;
+    }
+
+    @Test
+    public void dirtyPath() {
+        final NaryTreeNode<Integer> root = new NaryTreeNode<>(0);
+        NaryTreeNode<Integer> node = root;
+        for (int depth = 1; depth <= 10; depth++) {
+            node.addChild(depth);
+            node.addChild(-depth);
+            node = node.getChild(0);
+        }
+        final TreeAggregate<?, ?>[] holder = new TreeAggregate<?, ?>[1];
+        final int[] calls = TreeAggregateTest.countingCalls(root, holder);
+        @SuppressWarnings("unchecked")
+        final TreeAggregate<Integer, Long> aggregate = (TreeAggregate<Integer, Long>) holder[0];
+        assertEquals(root.fold(TreeAggregateTest.WEIGHTED_SUM), aggregate.get());
+        assertEquals(21, calls[0]);
+        assertEquals(root.fold(TreeAggregateTest.WEIGHTED_SUM), aggregate.get());
+        assertEquals(21, calls[0]);
+
+        // The deepest node and its 10 ancestors are combined again, not their siblings
+        node.setValue(100);
+        assertFalse(aggregate.isCached(root));
+        assertTrue(aggregate.isCached(root.getChild(1)));
+        assertEquals(root.fold(TreeAggregateTest.WEIGHTED_SUM), aggregate.get());
+        assertEquals(32, calls[0]);
+
+        // A subtree query only combines the subtree
+        node.getParent().addChild(7);
+        assertEquals(node.getParent().fold(TreeAggregateTest.WEIGHTED_SUM), aggregate.get(node.getParent()));
+        assertEquals(34, calls[0]);
+        assertEquals(root.fold(TreeAggregateTest.WEIGHTED_SUM), aggregate.get());
+        assertEquals(43, calls[0]);
+
+        root.getChild(0).sortChildren(Comparator.comparing(NaryTreeNode::getValue));
+        assertEquals(root.fold(TreeAggregateTest.WEIGHTED_SUM), aggregate.get());
+        assertEquals(45, calls[0]);
+    }
+
+    @Test
+    public void randomChanges() {
+        final Random random = new Random(44L);
+        final NaryTreeNode<Integer> root = ParallelTreeScanTest.randomTree(500, 44L);
+        final TreeAggregate<Integer, Long> aggregate = root.aggregate(TreeAggregateTest.WEIGHTED_SUM);
+        final TreeAggregate<Integer, Integer> height = root.aggregate((value, children) ->
+                1 + children.stream().mapToInt(Integer::intValue).max().orElse(0));
+        for (int i = 0; i < 2000; i++) {
+            final List<NaryTreeNode<Integer>> nodes = root.nodeStream(NaryTreeNode.Order.PREFIX).toList();
+            final NaryTreeNode<Integer> node = nodes.get(random.nextInt(nodes.size()));
+            final NaryTreeNode<Integer> other = nodes.get(random.nextInt(nodes.size()));
+            final boolean movable = node != root && node != other && !node.isAncestorOf(other);
+            switch (random.nextInt(8)) {
+                case 0 -> node.setValue(random.nextInt(100));
+                case 1 -> node.addChild(random.nextInt(100));
+                case 2 -> {
+                    if (node != root) {
+                        node.detach();
+                    }
+                }
+                case 3 -> {
+                    if (movable) {
+                        node.moveTo(other, 0);
+                    }
+                }
+                case 4 -> node.sortChildren(Comparator.comparing(NaryTreeNode::getValue));
+                case 5 -> node.removeChildrenIf(child -> child.getValue() % 3 == 0);
+                case 6 -> {
+                    if (movable && !other.isAncestorOf(node)) {
+                        other.spliceChildren(0, node);
+                    }
+                }
+                default -> {
+                    if (movable) {
+                        other.addChildren(List.of(node, new NaryTreeNode<>(random.nextInt(100))));
+                    }
+                }
+            }
+            if (i % 10 == 0) {
+                final NaryTreeNode<Integer> queried = nodes.get(random.nextInt(nodes.size()));
+                if (TreeAggregateTest.rootOf(queried) == root) {
+                    assertEquals(queried.fold(TreeAggregateTest.WEIGHTED_SUM), aggregate.get(queried));
+                }
+            }
+            if (i % 7 == 0) {
+                assertEquals(root.fold(TreeAggregateTest.WEIGHTED_SUM), aggregate.get());
+                assertEquals(root.getHeight(), height.get());
+            }
+        }
+        assertEquals(root.fold(TreeAggregateTest.WEIGHTED_SUM), aggregate.get());
+    }
+
+    @Test
+    public void nullResults() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        final TreeAggregate<String, String> aggregate = a.aggregate((value, children) ->
+                value.equals("D") ? null : value + children);
+        assertEquals("A[B[null, E[]], C[F[]]]", aggregate.get());
+        a.getChild(0).getChild(0).getChild(0).setValue("X");
+        assertFalse(aggregate.isCached(a));
+        assertTrue(aggregate.isCached(a.getChild(1)));
+        a.getChild(0).getChild(0).setValue("Y");
+        assertEquals("A[B[Y[X[]], E[]], C[F[]]]", aggregate.get());
+    }
+
+    @Test
+    public void scope() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        final NaryTreeNode<String> b = a.getChild(0);
+        final TreeAggregate<String, Integer> size = b.aggregate((value, children) ->
+                1 + children.stream().mapToInt(Integer::intValue).sum());
+        assertEquals(4, size.get());
+        assertEquals(1, size.get(b.getChild(1)));
+        // The aggregate covers the subtree of B
+        assertThrows(IllegalArgumentException.class, () -> size.get(a));
+        assertThrows(IllegalArgumentException.class, () -> size.get(new NaryTreeNode<>("Z")));
+
+        // The aggregate keeps following B when the whole tree gets a context
+        a.enableIndex();
+        b.addChild("H");
+        assertEquals(5, size.get());
+        assertEquals(8, size.get(a));
+
+        // A removed subtree leaves the tree of the aggregate
+        final NaryTreeNode<String> c = a.getChild(1);
+        a.removeChild(c);
+        assertEquals(6, size.get(a));
+        assertThrows(IllegalArgumentException.class, () -> size.get(c));
+        assertFalse(size.isCached(c));
+
+        size.close();
+        assertThrows(IllegalStateException.class, size::get);
+        size.close();
+        assertTrue(a.isIndexEnabled());
+        a.disableIndex();
+        a.addChild(c);
+        assertEquals(List.of("A", "B", "D", "G", "E", "H", "C", "F"), a.toPrefixList());
+    }
+
+    @Test
+    public void joinedTree() {
+        final NaryTreeNode<Integer> c = new NaryTreeNode<>(1);
+        c.addChild(2);
+        final TreeAggregate<Integer, Long> sum = c.aggregate(TreeAggregateTest.WEIGHTED_SUM);
+        assertEquals(3L, sum.get());
+        final NaryTreeNode<Integer> root = new NaryTreeNode<>(10);
+        root.enableIndex();
+        root.addChild(c);
+        c.getChild(0).setValue(5);
+        assertEquals(6L, sum.get());
+        assertEquals(16L, sum.get(root));
+        root.removeChild(c);
+        assertThrows(IllegalStateException.class, sum::get);
+        sum.close();
+        assertTrue(root.isIndexEnabled());
+        assertTrue(root.contains(10));
+    }
+}
@@ -0,0 +1,82 @@
+package com.corentingambier.treenode;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TreeCursorTest {
+    private static NaryTreeNode<String> sample() {
+        final NaryTreeNode<String> a = new NaryTreeNode<>("A");
+        final NaryTreeNode<String> b = new NaryTreeNode<>("B");
+        final NaryTreeNode<String> c = new NaryTreeNode<>("C");
+        a.addChild(b);
+        a.addChild(c);
+        b.addChild("D");
+        b.addChild("E");
+        c.addChild("F");
+        return a;
+    }
+
+    @Test
+    public void preOrder() {
+        final List<String> values = new ArrayList<>();
+        final List<Integer> depths = new ArrayList<>();
+        final TreeCursor<String> cursor = TreeCursor.preOrder(TreeCursorTest.sample());
+        while (cursor.next()) {
+            assertTrue(cursor.isEntering());
+            values.add(cursor.node().getValue());
+            depths.add(cursor.depth());
+        }
+        assertFalse(cursor.next());
+        assertEquals(List.of("A", "B", "D", "E", "C", "F"), values);
+        assertEquals(List.of(0, 1, 2, 2, 1, 2), depths);
+    }
+
+    @Test
+    public void postOrder() {
+        final List<String> values = new ArrayList<>();
+        final TreeCursor<String> cursor = TreeCursor.postOrder(TreeCursorTest.sample());
+        while (cursor.next()) {
+            assertFalse(cursor.isEntering());
+            values.add(cursor.node().getValue());
+        }
+        assertEquals(List.of("D", "E", "B", "F", "C", "A"), values);
+    }
+
+    @Test
+    public void depthFirst() {
+        final StringBuilder events = new StringBuilder();
+        final TreeCursor<String> cursor = TreeCursor.depthFirst(TreeCursorTest.sample());
+        while (cursor.next()) {
+            events.append(cursor.isEntering() ? "+" : "-").append(cursor.node().getValue()).append(cursor.index());
+        }
+        assertEquals("+A0+B0+D0-D0+E1-E1-B0+C1+F0-F0-C1-A0", events.toString());
+    }
+
+    @Test
+    public void skipChildren() {
+        final List<String> values = new ArrayList<>();
+        final TreeCursor<String> cursor = TreeCursor.depthFirst(TreeCursorTest.sample());
+        while (cursor.next()) {
+            if (cursor.isEntering()) {
+                values.add(cursor.node().getValue());
+                if ("B".equals(cursor.node().getValue())) {
+                    cursor.skipChildren();
+                }
+            }
+        }
+        assertEquals(List.of("A", "B", "C", "F"), values);
+    }
+
+    @Test
+    public void singleNode() {
+        final TreeCursor<String> cursor = TreeCursor.postOrder(new NaryTreeNode<>("A"));
+        assertTrue(cursor.next());
+        assertEquals("A", cursor.node().getValue());
+        assertEquals(0, cursor.depth());
+        assertFalse(cursor.next());
+    }
+}
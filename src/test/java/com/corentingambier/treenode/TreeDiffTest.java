@@ -0,0 +1,371 @@
+package com.corentingambier.treenode;
+
+import com.google.gson.JsonSyntaxException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TreeDiffTest {
+    private static <E> NaryTreeNode<E> copy(final NaryTreeNode<E> root) {
+        return root.map(Function.identity());
+    }
+
+    private static List<TreePatch.Kind> kinds(final TreePatch<?> patch) {
+        return patch.getOperations().stream().map(TreePatch.Operation::getKind).toList();
+    }
+
+    private static <E> TreePatch<E> assertPatches(final NaryTreeNode<E> source, final NaryTreeNode<E> target) {
+        final String sourceJson = source.toJson();
+        final TreePatch<E> patch = source.diff(target);
+        assertEquals(sourceJson, source.toJson());
+        final NaryTreeNode<E> patched = TreeDiffTest.copy(source);
+        patched.apply(patch);
+        assertEquals(target.toJson(), patched.toJson());
+        // The inserted subtrees are copied, so the patch applies again
+        final NaryTreeNode<E> again = TreeDiffTest.copy(source);
+        again.apply(patch);
+        assertEquals(target.toJson(), again.toJson());
+        return patch;
+    }
+
+    @Test
+    public void equalTrees() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        assertTrue(a.diff(NaryTreeNodeTest.alphabetTree()).isEmpty());
+        assertTrue(a.diff(a).isEmpty());
+        a.enableStatistics();
+        assertTrue(a.diff(NaryTreeNodeTest.alphabetTree()).isEmpty());
+    }
+
+    @Test
+    public void update() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        final NaryTreeNode<String> target = NaryTreeNodeTest.alphabetTree();
+        target.getChild(0).getChild(1).setValue("X");
+        target.setValue("R");
+        final TreePatch<String> patch = TreeDiffTest.assertPatches(a, target);
+        assertEquals(List.of(TreePatch.Kind.UPDATE, TreePatch.Kind.UPDATE), TreeDiffTest.kinds(patch));
+        assertEquals(0, patch.getPath(patch.getOperations().get(0).getNode()).length);
+    }
+
+    @Test
+    public void insertAndDelete() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        final NaryTreeNode<String> target = NaryTreeNodeTest.alphabetTree();
+        final NaryTreeNode<String> h = new NaryTreeNode<>("H");
+        h.addChild("I");
+        target.getChild(1).insertChild(0, h);
+        target.getChild(0).removeChild(0);
+        final TreePatch<String> patch = TreeDiffTest.assertPatches(a, target);
+        assertEquals(List.of(TreePatch.Kind.DELETE, TreePatch.Kind.INSERT), TreeDiffTest.kinds(patch));
+        assertEquals("[H] ([I])", patch.getOperations().get(1).getSubtree().generateText());
+        assertNull(patch.getPath(patch.getOperations().get(1).getNode()));
+        assertArrayEquals(new int[]{0, 0}, patch.getPath(patch.getOperations().get(0).getNode()));
+    }
+
+    @Test
+    public void move() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        final NaryTreeNode<String> target = NaryTreeNodeTest.alphabetTree();
+        // D(G) moves under C, after F
+        target.getChild(0).getChild(0).moveTo(target.getChild(1));
+        TreePatch<String> patch = TreeDiffTest.assertPatches(a, target);
+        assertEquals(List.of(TreePatch.Kind.MOVE), TreeDiffTest.kinds(patch));
+        final TreePatch.Operation<String> operation = patch.getOperations().get(0);
+        assertArrayEquals(new int[]{0, 0}, patch.getPath(operation.getNode()));
+        assertArrayEquals(new int[]{1}, patch.getPath(operation.getParent()));
+        assertEquals(1, operation.getIndex());
+
+        // Swapping B and C is one move
+        final NaryTreeNode<String> swapped = NaryTreeNodeTest.alphabetTree();
+        swapped.sortChildren(Comparator.comparing(NaryTreeNode<String>::getValue).reversed());
+        patch = TreeDiffTest.assertPatches(a, swapped);
+        assertEquals(List.of(TreePatch.Kind.MOVE), TreeDiffTest.kinds(patch));
+    }
+
+    @Test
+    public void moveUnderNewNode() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        final NaryTreeNode<String> target = NaryTreeNodeTest.alphabetTree();
+        final NaryTreeNode<String> h = new NaryTreeNode<>("H");
+        h.addChild("I");
+        target.addChild(h);
+        h.addChild(target.getChild(0).getChild(0));
+        final TreePatch<String> patch = TreeDiffTest.assertPatches(a, target);
+        assertEquals(List.of(TreePatch.Kind.INSERT, TreePatch.Kind.INSERT, TreePatch.Kind.MOVE),
+                TreeDiffTest.kinds(patch));
+        // H is inserted alone, then gets I and D(G)
+        assertEquals("[H]", patch.getOperations().get(0).getSubtree().generateText());
+    }
+
+    @Test
+    public void keepsNodes() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        final NaryTreeNode<String> target = NaryTreeNodeTest.alphabetTree();
+        target.getChild(0).getChild(0).setValue("X");
+        target.getChild(1).addChild("H");
+        final NaryTreeNode<String> b = a.getChild(0);
+        final NaryTreeNode<String> g = b.getChild(0).getChild(0);
+        final NaryTreeNode<String> f = a.getChild(1).getChild(0);
+        a.apply(a.diff(target));
+        assertEquals(target.toJson(), a.toJson());
+        assertSame(b, a.getChild(0));
+        assertSame(g, a.getChild(0).getChild(0).getChild(0));
+        assertSame(f, a.getChild(1).getChild(0));
+    }
+
+    @Test
+    public void collidingHashCodes() {
+        // "Aa" and "BB" have the same hash code
+        final NaryTreeNode<String> source = new NaryTreeNode<>("R");
+        source.addChild("Aa");
+        source.getChild(0).addChild("Aa");
+        final NaryTreeNode<String> target = new NaryTreeNode<>("R");
+        target.addChild("Aa");
+        target.getChild(0).addChild("BB");
+        source.enableStatistics();
+        target.enableStatistics();
+        assertEquals(source.getSubtreeHash(), target.getSubtreeHash());
+        final TreePatch<String> patch = TreeDiffTest.assertPatches(source, target);
+        assertEquals(List.of(TreePatch.Kind.UPDATE), TreeDiffTest.kinds(patch));
+    }
+
+    @Test
+    public void trustedHashes() {
+        final NaryTreeNode<String> source = new NaryTreeNode<>("R");
+        source.addChild("Aa");
+        source.getChild(0).addChild("Aa");
+        final NaryTreeNode<String> target = new NaryTreeNode<>("R");
+        target.addChild("Aa");
+        target.getChild(0).addChild("BB");
+        // Trusted, colliding hashes hide the change
+        assertTrue(source.diff(target, String::hashCode).isEmpty());
+        final ToLongFunction<String> strong = TreeDiffTest::fnv;
+        final TreePatch<String> patch = source.diff(target, strong);
+        assertEquals(List.of(TreePatch.Kind.UPDATE), TreeDiffTest.kinds(patch));
+        source.apply(patch);
+        assertEquals(target.toJson(), source.toJson());
+        assertThrows(NullPointerException.class, () -> source.diff(target, null));
+    }
+
+    private static long fnv(final String value) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001B3L;
+        }
+        return hash;
+    }
+
+    @Test
+    public void trustedRandomEdits() {
+        final Random random = new Random(42L);
+        final ToLongFunction<Integer> hasher = Integer::longValue;
+        for (int round = 0; round < 100; round++) {
+            final NaryTreeNode<Integer> source = ParallelTreeScanTest.randomTree(1 + random.nextInt(300),
+                    random.nextLong());
+            final NaryTreeNode<Integer> target = TreeDiffTest.copy(source);
+            if (round % 2 == 0) {
+                source.enableStatistics();
+                target.enableStatistics();
+                // The hashes cached for another function are not reused
+                source.diff(target);
+            }
+            for (int i = 0; i < 2; i++) {
+                TreeDiffTest.edit(target, random, 1 + random.nextInt(20));
+                final NaryTreeNode<Integer> patched = TreeDiffTest.copy(source);
+                patched.apply(source.diff(target, hasher));
+                assertEquals(target.toJson(), patched.toJson());
+            }
+        }
+    }
+
+    @Test
+    public void trustedHashesSkipEqualSubtrees() {
+        final NaryTreeNode<Counted> source = ParallelTreeScanTest.randomTree(5000, 7L).map(Counted::new);
+        final NaryTreeNode<Counted> target = source.map(counted -> new Counted(counted.value));
+        source.enableStatistics();
+        target.enableStatistics();
+        final ToLongFunction<Counted> hasher = counted -> counted.value;
+        assertTrue(source.diff(target, hasher).isEmpty());
+        final NaryTreeNode<Counted> leaf = target.nodeStream(NaryTreeNode.Order.PREFIX).filter(NaryTreeNode::isLeaf)
+                .skip(2000).findFirst().orElseThrow();
+        leaf.setValue(new Counted(-1));
+        Counted.comparisons = 0;
+        assertEquals(1, source.diff(target, hasher).getOperations().size());
+        final int trusted = Counted.comparisons;
+        Counted.comparisons = 0;
+        assertEquals(1, source.diff(target).getOperations().size());
+        // Confirming compares the unchanged siblings along the path node by node
+        assertTrue(trusted < 100, "compared " + trusted);
+        assertTrue(Counted.comparisons > 1000, "compared " + Counted.comparisons);
+    }
+
+    /**
+     * A value counting its comparisons.
+     */
+    private static final class Counted {
+        private static int comparisons;
+        private final int value;
+
+        Counted(final int value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            Counted.comparisons++;
+            return other instanceof Counted counted && counted.value == this.value;
+        }
+
+        @Override
+        public int hashCode() {
+            return this.value;
+        }
+
+        @Override
+        public String toString() {
+            return Integer.toString(this.value);
+        }
+    }
+
+    @Test
+    public void cachedHashes() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        a.enableStatistics();
+        final long hash = a.getSubtreeHash();
+        assertEquals(hash, a.getSubtreeHash());
+        final NaryTreeNode<String> g = a.getChild(0).getChild(0).getChild(0);
+        g.setValue("X");
+        assertNotEquals(hash, a.getSubtreeHash());
+        g.setValue("G");
+        assertEquals(hash, a.getSubtreeHash());
+        a.getChild(1).addChild("H");
+        final long added = a.getSubtreeHash();
+        assertNotEquals(hash, added);
+        a.getChild(1).removeChild(1);
+        assertEquals(hash, a.getSubtreeHash());
+        a.getChild(0).sortChildren(Comparator.comparing(NaryTreeNode<String>::getValue).reversed());
+        assertNotEquals(hash, a.getSubtreeHash());
+        final NaryTreeNode<String> fresh = TreeDiffTest.copy(a);
+        fresh.enableStatistics();
+        assertEquals(fresh.getSubtreeHash(), a.getSubtreeHash());
+    }
+
+    @Test
+    public void randomEdits() {
+        final Random random = new Random(41L);
+        for (int round = 0; round < 200; round++) {
+            final NaryTreeNode<Integer> source = ParallelTreeScanTest.randomTree(1 + random.nextInt(300),
+                    random.nextLong());
+            final NaryTreeNode<Integer> target = TreeDiffTest.copy(source);
+            if (round % 2 == 0) {
+                source.enableStatistics();
+                target.enableStatistics();
+            }
+            TreeDiffTest.edit(target, random, 1 + random.nextInt(20));
+            TreeDiffTest.assertPatches(source, target);
+            // The cached hashes follow the edits
+            TreeDiffTest.edit(target, random, 1 + random.nextInt(5));
+            TreeDiffTest.assertPatches(source, target);
+        }
+    }
+
+    private static void edit(final NaryTreeNode<Integer> root, final Random random, final int edits) {
+        for (int i = 0; i < edits; i++) {
+            final List<NaryTreeNode<Integer>> nodes = root.nodeStream(NaryTreeNode.Order.PREFIX).toList();
+            final NaryTreeNode<Integer> node = nodes.get(random.nextInt(nodes.size()));
+            final NaryTreeNode<Integer> other = nodes.get(random.nextInt(nodes.size()));
+            switch (random.nextInt(6)) {
+                case 0 -> node.setValue(random.nextInt(10));
+                case 1 -> node.insertChild(random.nextInt(node.getChildrenCount() + 1),
+                        ParallelTreeScanTest.randomTree(1 + random.nextInt(5), random.nextLong()));
+                case 2 -> {
+                    if (node != root) {
+                        node.detach();
+                    }
+                }
+                case 3 -> {
+                    if (node != root && !node.isAncestorOf(other) && node != other) {
+                        node.moveTo(other, random.nextInt(other.getChildrenCount()
+                                + (node.getParent() == other ? 0 : 1)));
+                    }
+                }
+                case 4 -> node.sortChildren(Comparator.comparing(NaryTreeNode<Integer>::getValue).reversed());
+                default -> {
+                    if (!node.isLeaf()) {
+                        node.getChild(0).moveTo(node);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void json() throws IOException {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        final NaryTreeNode<String> target = NaryTreeNodeTest.alphabetTree();
+        target.getChild(0).getChild(0).moveTo(target.getChild(1));
+        target.getChild(1).getChild(0).setValue(null);
+        target.addChild("H");
+        target.getChild(0).removeChild(0);
+        final TreePatch<String> patch = a.diff(target);
+        final TreePatch<String> read = TreePatch.fromJson(new StringReader(patch.toJson()), String.class);
+        assertEquals(patch.toString(), read.toString());
+        a.apply(read);
+        assertEquals(target.toJson(), a.toJson());
+        assertThrows(JsonSyntaxException.class, () -> TreePatch.fromJson(
+                new StringReader("{\"paths\":[[]],\"operations\":[{\"kind\":\"MOVE\",\"node\":0}]}"), String.class));
+        assertThrows(JsonSyntaxException.class, () -> TreePatch.fromJson(
+                new StringReader("{\"paths\":[[]],\"operations\":[{\"kind\":\"SWAP\",\"node\":0}]}"), String.class));
+    }
+
+    @Test
+    public void notApplicable() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        final NaryTreeNode<String> target = NaryTreeNodeTest.alphabetTree();
+        target.getChild(0).getChild(0).getChild(0).setValue("X");
+        final TreePatch<String> patch = a.diff(target);
+        assertThrows(IllegalArgumentException.class, () -> new NaryTreeNode<>("A").apply(patch));
+    }
+
+    @Test
+    public void subtree() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        final NaryTreeNode<String> target = TreeDiffTest.copy(a.getChild(0));
+        target.getChild(0).addChild("H");
+        final TreePatch<String> patch = a.getChild(0).diff(target);
+        assertArrayEquals(new int[]{0}, patch.getPath(patch.getOperations().get(0).getParent()));
+        a.getChild(0).apply(patch);
+        assertEquals("[A] ([B] ([D] ([G], [H]), [E]), [C] ([F]))", a.generateText());
+    }
+
+    @Test
+    public void deepChain() {
+        final NaryTreeNode<Integer> source = new NaryTreeNode<>(0);
+        NaryTreeNode<Integer> node = source;
+        for (int i = 1; i < 100_000; i++) {
+            final NaryTreeNode<Integer> child = new NaryTreeNode<>(i);
+            node.addChild(child);
+            node = child;
+        }
+        final NaryTreeNode<Integer> target = TreeDiffTest.copy(source);
+        NaryTreeNode<Integer> leaf = target;
+        while (!leaf.isLeaf()) {
+            leaf = leaf.getChild(0);
+        }
+        leaf.setValue(-1);
+        leaf.addChild(-2);
+        final TreePatch<Integer> patch = source.diff(target);
+        assertEquals(List.of(TreePatch.Kind.UPDATE, TreePatch.Kind.INSERT), TreeDiffTest.kinds(patch));
+        source.apply(patch);
+        assertEquals(100_001, source.getSize());
+    }
+}
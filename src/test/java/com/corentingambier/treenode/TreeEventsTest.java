@@ -0,0 +1,439 @@
+package com.corentingambier.treenode;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TreeEventsTest {
+    private static <E> List<String> describe(final List<List<TreeChangeEvent<E>>> calls) {
+        return calls.stream().flatMap(List::stream).map(TreeChangeEvent::toString).toList();
+    }
+
+    @Test
+    public void events() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        final List<List<TreeChangeEvent<String>>> calls = new ArrayList<>();
+        a.addTreeListener(calls::add);
+        final NaryTreeNode<String> d = a.getChild(0).getChild(0);
+        d.getChild(0).setValue("X");
+        d.addChild("H");
+        a.getChild(1).removeChild(0);
+        a.getChild(0).sortChildren(Comparator.comparing(NaryTreeNode<String>::getValue).reversed());
+        d.moveTo(a.getChild(1));
+        assertEquals(List.of("VALUE_CHANGED [0, 0, 0] G -> X", "CHILD_ADDED [0, 0] at 1 H",
+                "CHILD_REMOVED [1] at 0 F", "CHILDREN_REORDERED [0] [1, 0]", "CHILD_REMOVED [0] at 1 D",
+                "CHILD_ADDED [1] at 0 D"), TreeEventsTest.describe(calls));
+        assertEquals(6, calls.size());
+        final TreeChangeEvent<String> added = calls.get(1).get(0);
+        assertSame(d, added.getNode());
+        assertEquals("H", added.getChild().getValue());
+        assertNull(added.getOldValue());
+        assertEquals(-1, calls.get(0).get(0).getIndex());
+        assertThrows(UnsupportedOperationException.class, () -> calls.get(0).clear());
+    }
+
+    @Test
+    public void scope() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        final NaryTreeNode<String> b = a.getChild(0);
+        final List<List<TreeChangeEvent<String>>> calls = new ArrayList<>();
+        b.addTreeListener(calls::add);
+        a.getChild(1).getChild(0).setValue("X");
+        a.setValue("R");
+        b.getChild(1).setValue("Y");
+        b.setValue("Z");
+        b.getChild(0).addChild("H");
+        assertEquals(List.of("VALUE_CHANGED [1] E -> Y", "VALUE_CHANGED [] B -> Z", "CHILD_ADDED [0] at 1 H"),
+                TreeEventsTest.describe(calls));
+        // The listener of B keeps listening once the whole tree is listened to
+        a.addTreeListener(events -> calls.add(List.of()));
+        b.setValue("B");
+        assertEquals(5, calls.size());
+        // B left the tree its listener was added in
+        a.removeChild(b);
+        b.setValue("W");
+        assertEquals(6, calls.size());
+
+        // A listened tree added to another one keeps its listener
+        final NaryTreeNode<String> c = new NaryTreeNode<>("C");
+        final List<List<TreeChangeEvent<String>>> cCalls = new ArrayList<>();
+        c.addTreeListener(cCalls::add);
+        a.addChild(c);
+        c.addChild("H");
+        assertEquals(List.of("CHILD_ADDED [] at 0 H"), TreeEventsTest.describe(cCalls));
+        assertEquals(8, calls.size());
+    }
+
+    @Test
+    public void bulkOperations() {
+        final NaryTreeNode<Integer> root = new NaryTreeNode<>(0);
+        for (int i = 1; i <= 6; i++) {
+            root.addChild(i);
+        }
+        final NaryTreeNode<Integer> other = new NaryTreeNode<>(10);
+        root.addChild(other);
+        final NaryTreeNode<Integer> mirror = root.map(Function.identity());
+        root.addTreeListener(events -> events.forEach(event -> TreeEventsTest.replay(mirror, event)));
+        root.removeChildrenIf(child -> child.getValue() % 2 == 0);
+        assertEquals(root.toJson(), mirror.toJson());
+        other.addChildren(List.of(root.getChild(0), root.getChild(2), new NaryTreeNode<>(20)));
+        assertEquals(root.toJson(), mirror.toJson());
+        root.spliceChildren(0, other);
+        assertEquals(root.toJson(), mirror.toJson());
+        root.insertChild(0, root.getChild(3));
+        root.getChild(1).moveTo(root.getChild(2), 0);
+        assertEquals(root.toJson(), mirror.toJson());
+    }
+
+    private static <E> void replay(final NaryTreeNode<E> mirror, final TreeChangeEvent<E> event) {
+        NaryTreeNode<E> node = mirror;
+        for (final int index : event.getPath()) {
+            node = node.getChild(index);
+        }
+        switch (event.getKind()) {
+            case VALUE_CHANGED -> node.setValue(event.getNewValue());
+            case CHILD_ADDED -> node.insertChild(event.getIndex(), event.getAddedSubtree().thaw());
+            case CHILD_REMOVED -> node.removeChild(event.getIndex());
+            case CHILDREN_REORDERED -> {
+                // The new index of every child, from the former index of the child at every index
+                final int[] permutation = event.getPermutation();
+                final Map<NaryTreeNode<E>, Integer> indices = new IdentityHashMap<>();
+                for (int i = 0; i < permutation.length; i++) {
+                    indices.put(node.getChild(permutation[i]), i);
+                }
+                node.sortChildren(Comparator.comparing(indices::get));
+            }
+            case RESYNC -> fail("No change is dropped");
+        }
+    }
+
+    @Test
+    public void randomReplay() {
+        final NaryTreeNode<Integer> root = ParallelTreeScanTest.randomTree(500, 43L);
+        final NaryTreeNode<Integer> mirror = root.map(Function.identity());
+        root.addTreeListener(events -> events.forEach(event -> TreeEventsTest.replay(mirror, event)));
+        TreeEventsTest.randomChanges(root, new Random(43L), false);
+        assertEquals(root.toJson(), mirror.toJson());
+    }
+
+    @Test
+    public void randomReplayInBatches() {
+        final NaryTreeNode<Integer> root = ParallelTreeScanTest.randomTree(500, 44L);
+        final NaryTreeNode<Integer> mirror = root.map(Function.identity());
+        root.addTreeListener(events -> events.forEach(event -> TreeEventsTest.replay(mirror, event)));
+        TreeEventsTest.randomChanges(root, new Random(44L), true);
+        assertEquals(root.toJson(), mirror.toJson());
+    }
+
+    @Test
+    public void randomReplayOnExecutor() throws InterruptedException {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final NaryTreeNode<Integer> root = ParallelTreeScanTest.randomTree(500, 45L);
+        final NaryTreeNode<Integer> mirror = root.map(Function.identity());
+        root.addTreeListener(events -> events.forEach(event -> TreeEventsTest.replay(mirror, event)), executor);
+        TreeEventsTest.randomChanges(root, new Random(45L), true);
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(root.toJson(), mirror.toJson());
+    }
+
+    /**
+     * Apply random changes to a tree, possibly in batches of random sizes.
+     */
+    private static void randomChanges(final NaryTreeNode<Integer> root, final Random random, final boolean batches) {
+        for (int i = 0; i < 2000; i++) {
+            if (batches && i % 20 == 0) {
+                if (i > 0) {
+                    root.commit();
+                }
+                root.beginBatch();
+            }
+            final List<NaryTreeNode<Integer>> nodes = root.nodeStream(NaryTreeNode.Order.PREFIX).toList();
+            final NaryTreeNode<Integer> node = nodes.get(random.nextInt(nodes.size()));
+            final NaryTreeNode<Integer> other = nodes.get(random.nextInt(nodes.size()));
+            switch (random.nextInt(5)) {
+                case 0 -> node.setValue(random.nextInt(100));
+                case 4 -> node.sortChildren(random.nextBoolean() ? Comparator.comparing(NaryTreeNode::getValue)
+                        : Comparator.comparing(child -> -child.getChildrenCount()));
+                case 1 -> node.addChild(random.nextInt(100));
+                case 2 -> {
+                    if (node != root) {
+                        node.detach();
+                    }
+                }
+                default -> {
+                    if (node != root && node != other && !node.isAncestorOf(other)) {
+                        node.moveTo(other);
+                    }
+                }
+            }
+        }
+        if (batches) {
+            root.commit();
+        }
+    }
+
+    @Test
+    public void replayAddedSubtree() {
+        final NaryTreeNode<String> root = new NaryTreeNode<>("R");
+        final NaryTreeNode<String> mirror = new NaryTreeNode<>("R");
+        final List<List<TreeChangeEvent<String>>> calls = new ArrayList<>();
+        root.addTreeListener(calls::add);
+        root.addTreeListener(events -> events.forEach(event -> TreeEventsTest.replay(mirror, event)));
+        final NaryTreeNode<String> x = new NaryTreeNode<>("X");
+        root.beginBatch();
+        root.addChild(x);
+        x.addChild("Y");
+        root.commit();
+        assertEquals(List.of("CHILD_ADDED [] at 0 X", "CHILD_ADDED [0] at 0 Y"), TreeEventsTest.describe(calls));
+        // The child is live, its snapshot is not
+        assertSame(x, calls.get(0).get(0).getChild());
+        assertEquals(1, calls.get(0).get(0).getAddedSubtree().getSize());
+        assertEquals(root.toJson(), mirror.toJson());
+    }
+
+    @Test
+    public void snapshotOnDemand() {
+        final NaryTreeNode<String> root = new NaryTreeNode<>("R");
+        final List<TreeChangeEvent<String>> received = new ArrayList<>();
+        final List<FrozenNaryTree<String>> snapshots = new ArrayList<>();
+        root.addTreeListener(events -> {
+            received.addAll(events);
+            if (events.get(0).getChild().getValue().equals("X")) {
+                snapshots.add(events.get(0).getAddedSubtree());
+            }
+        });
+        final NaryTreeNode<String> x = new NaryTreeNode<>("X");
+        x.addChild("Y");
+        root.addChild(x);
+        root.addChild(new NaryTreeNode<>("Z"));
+        x.addChild("W");
+        // Taken during the call, the snapshot does not follow the later changes
+        assertEquals(2, snapshots.get(0).getSize());
+        assertSame(snapshots.get(0), received.get(0).getAddedSubtree());
+        // Not taken during the call, it can no longer be
+        assertThrows(IllegalStateException.class, () -> received.get(1).getAddedSubtree());
+        assertNull(received.get(0).getPermutation());
+    }
+
+    @Test
+    public void coalescedReorderings() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        final List<List<TreeChangeEvent<String>>> calls = new ArrayList<>();
+        a.addTreeListener(calls::add);
+        final Comparator<NaryTreeNode<String>> reversed =
+                Comparator.comparing(NaryTreeNode<String>::getValue).reversed();
+        // The index of the added child relies on the first sorting
+        a.beginBatch();
+        a.sortChildren(reversed);
+        a.addChild("D");
+        a.sortChildren(Comparator.comparing(NaryTreeNode::getValue));
+        a.commit();
+        assertEquals(List.of("CHILDREN_REORDERED [] [1, 0]", "CHILD_ADDED [] at 2 D",
+                "CHILDREN_REORDERED [] [1, 0, 2]"), TreeEventsTest.describe(calls));
+        calls.clear();
+        // So does the path of a value change below the sorted node
+        a.beginBatch();
+        a.sortChildren(reversed);
+        a.getChild(0).setValue("X");
+        a.sortChildren(Comparator.comparing(NaryTreeNode::getValue));
+        a.commit();
+        assertEquals(List.of("CHILDREN_REORDERED [] [2, 1, 0]", "VALUE_CHANGED [0] D -> X",
+                "CHILDREN_REORDERED [] [2, 1, 0]"), TreeEventsTest.describe(calls));
+        calls.clear();
+        // But not a value change of the sorted node itself: the sortings are composed
+        a.beginBatch();
+        a.sortChildren(reversed);
+        a.setValue("Z");
+        a.sortChildren(Comparator.comparing(child -> child.getValue().equals("C") ? 0 : 1));
+        a.commit();
+        assertEquals(List.of("VALUE_CHANGED [] A -> Z", "CHILDREN_REORDERED [] [1, 2, 0]"),
+                TreeEventsTest.describe(calls));
+        assertEquals(List.of("C", "X", "B"), a.getChildren().stream().map(NaryTreeNode::getValue).toList());
+        calls.clear();
+        // And sortings cancelling out are dropped
+        a.beginBatch();
+        a.sortChildren(reversed);
+        a.sortChildren(Comparator.comparing(child -> child.getValue().equals("C") ? 0 : 1));
+        a.commit();
+        assertTrue(calls.isEmpty());
+    }
+
+    @Test
+    public void failingListener() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        final List<TreeChangeEvent<String>> received = new ArrayList<>();
+        a.addTreeListener(events -> {
+            throw new IllegalStateException("first");
+        });
+        a.addTreeListener(events -> {
+            throw new IllegalArgumentException("second");
+        });
+        a.addTreeListener(received::addAll);
+        final IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> a.setValue("X"));
+        assertEquals("first", thrown.getMessage());
+        assertEquals(1, thrown.getSuppressed().length);
+        assertEquals("X", a.getValue());
+        assertEquals(1, received.size());
+
+        a.beginBatch();
+        a.setValue("Y");
+        a.getChild(0).setValue("Z");
+        assertThrows(IllegalStateException.class, a::commit);
+        assertEquals(3, received.size());
+        // The failed batch is closed
+        assertThrows(IllegalStateException.class, a::commit);
+    }
+
+    @Test
+    public void boundedQueue() {
+        final List<Runnable> tasks = new ArrayList<>();
+        final NaryTreeNode<Integer> root = new NaryTreeNode<>(0);
+        final List<List<TreeChangeEvent<Integer>>> calls = new ArrayList<>();
+        root.addTreeListener(calls::add, tasks::add, 3);
+        for (int i = 0; i < 5; i++) {
+            root.addChild(i);
+        }
+        assertEquals(1, tasks.size());
+        root.addChild(5);
+        tasks.remove(0).run();
+        // The fourth change overflowed the queue
+        assertEquals(List.of("RESYNC", "CHILD_ADDED [] at 4 4", "CHILD_ADDED [] at 5 5"),
+                TreeEventsTest.describe(calls));
+        assertSame(root, calls.get(0).get(0).getNode());
+        calls.clear();
+        root.setValue(1);
+        root.setValue(2);
+        tasks.remove(0).run();
+        assertEquals(List.of("VALUE_CHANGED [] 0 -> 2"), TreeEventsTest.describe(calls));
+        assertThrows(IllegalArgumentException.class, () -> root.addTreeListener(calls::add, tasks::add, 0));
+    }
+
+    @Test
+    public void batch() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        final List<List<TreeChangeEvent<String>>> calls = new ArrayList<>();
+        a.addTreeListener(calls::add);
+        final NaryTreeNode<String> g = a.getChild(0).getChild(0).getChild(0);
+        a.beginBatch();
+        for (int i = 0; i < 100; i++) {
+            g.setValue("G" + i);
+        }
+        a.getChild(1).addChild("H");
+        a.beginBatch();
+        a.getChild(1).setValue("X");
+        a.getChild(1).setValue("C");
+        a.sortChildren(Comparator.comparing(NaryTreeNode<String>::getValue).reversed());
+        a.sortChildren(Comparator.comparing(NaryTreeNode<String>::getValue));
+        a.commit();
+        assertTrue(calls.isEmpty());
+        g.commit();
+        assertEquals(1, calls.size());
+        // The two sortings cancel out
+        assertEquals(List.of("VALUE_CHANGED [0, 0, 0] G -> G99", "CHILD_ADDED [1] at 1 H"),
+                TreeEventsTest.describe(calls));
+        assertThrows(IllegalStateException.class, a::commit);
+
+        // A batch whose changes cancel out is not delivered
+        a.beginBatch();
+        g.setValue("Y");
+        g.setValue("G99");
+        a.commit();
+        assertEquals(1, calls.size());
+    }
+
+    @Test
+    public void batchWithoutListener() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        a.beginBatch();
+        a.setValue("X");
+        a.commit();
+        assertThrows(IllegalStateException.class, a::commit);
+        assertThrows(IllegalStateException.class, () -> new NaryTreeNode<>("A").commit());
+    }
+
+    @Test
+    public void removeListener() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        final List<List<TreeChangeEvent<String>>> calls = new ArrayList<>();
+        final TreeListener<String> listener = calls::add;
+        a.enableIndex();
+        a.getChild(0).addTreeListener(listener);
+        a.getChild(1).addTreeListener(listener);
+        a.getChild(0).setValue("X");
+        a.getChild(1).setValue("Y");
+        assertEquals(2, calls.size());
+        assertTrue(a.getChild(1).removeTreeListener(listener));
+        assertFalse(a.removeTreeListener(listener));
+        a.getChild(0).setValue("B");
+        assertEquals(2, calls.size());
+        // The index keeps working once the listeners are gone
+        assertEquals(1, a.findAll("Y").size());
+        a.disableIndex();
+        assertFalse(a.isIndexEnabled());
+    }
+
+    @Test
+    public void listenerChangingTree() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        final List<String> seen = new ArrayList<>();
+        a.addTreeListener(new TreeListener<>() {
+            @Override
+            public void treeChanged(final List<TreeChangeEvent<String>> events) {
+                seen.add(events.get(0).toString());
+                a.removeTreeListener(this);
+                a.setValue("Z");
+            }
+        });
+        a.beginBatch();
+        a.setValue("X");
+        a.commit();
+        assertEquals(List.of("VALUE_CHANGED [] A -> X"), seen);
+        assertEquals("Z", a.getValue());
+    }
+
+    @Test
+    public void executor() throws InterruptedException {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final NaryTreeNode<Integer> root = new NaryTreeNode<>(0);
+        final List<Integer> added = new ArrayList<>();
+        final int[] calls = new int[1];
+        root.addTreeListener(events -> {
+            calls[0]++;
+            events.forEach(event -> added.add(event.getIndex()));
+        }, executor);
+        for (int i = 0; i < 10_000; i++) {
+            root.addChild(i);
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(10_000, added.size());
+        for (int i = 0; i < added.size(); i++) {
+            assertEquals(i, added.get(i));
+        }
+        assertTrue(calls[0] <= 10_000);
+
+        final NaryTreeNode<Integer> rejected = new NaryTreeNode<>(0);
+        final List<TreeChangeEvent<Integer>> received = new ArrayList<>();
+        rejected.addTreeListener(events -> fail("Never called"), command -> {
+            throw new RejectedExecutionException();
+        });
+        rejected.addTreeListener(received::addAll);
+        assertThrows(RejectedExecutionException.class, () -> rejected.addChild(1));
+        assertEquals(1, rejected.getChildrenCount());
+        // The other listeners were called
+        assertEquals(1, received.size());
+    }
+}
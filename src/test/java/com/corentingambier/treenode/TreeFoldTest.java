@@ -0,0 +1,159 @@
+package com.corentingambier.treenode;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TreeFoldTest {
+    private static final BiFunction<Integer, List<Integer>, Integer> HEIGHT = (value, heights) ->
+            1 + heights.stream().mapToInt(Integer::intValue).max().orElse(0);
+
+    private static ForkJoinPool pool;
+
+    @BeforeAll
+    public static void setUp() {
+        TreeFoldTest.pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        TreeFoldTest.pool.shutdown();
+    }
+
+    @Test
+    public void map() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        final NaryTreeNode<String> copy = a.map(String::toLowerCase);
+        assertEquals("[a] ([b] ([d] ([g]), [e]), [c] ([f]))", copy.generateText());
+        assertNull(copy.getParent());
+        assertSame(copy, copy.getChild(1).getParent());
+        assertEquals("[A] ([B] ([D] ([G]), [E]), [C] ([F]))", a.generateText());
+        assertEquals(List.of(1, 1, 1, 1, 1, 1, 1), a.map(String::length).toPrefixList());
+        // The copies are independent trees
+        copy.getChild(0).addChild("h");
+        assertEquals(7, a.getSize());
+    }
+
+    @Test
+    public void mapParallel() {
+        final NaryTreeNode<Integer> tree = ParallelTreeScanTest.randomTree(20_000, 17L);
+        final String expected = tree.map(value -> value * 2).toJson();
+        for (final int threshold : new int[]{1, 16, 1 << 20}) {
+            assertEquals(expected, tree.mapParallel(value -> value * 2, TreeFoldTest.pool, threshold).toJson());
+        }
+        assertEquals(expected, tree.mapParallel(value -> value * 2).toJson());
+        assertThrows(IllegalArgumentException.class, () -> tree.mapParallel(value -> value, TreeFoldTest.pool, 0));
+    }
+
+    @Test
+    public void prune() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        final List<String> tested = new ArrayList<>();
+        final Optional<NaryTreeNode<String>> pruned = a.prune(value -> {
+            tested.add(value);
+            return !value.equals("B");
+        });
+        assertEquals("[A] ([C] ([F]))", pruned.orElseThrow().generateText());
+        // The descendants of B are not tested
+        assertEquals(List.of("A", "B", "C", "F"), tested);
+        assertTrue(a.prune(value -> !value.equals("A")).isEmpty());
+        assertEquals(a.toJson(), a.prune(value -> true).orElseThrow().toJson());
+
+        final NaryTreeNode<Integer> tree = ParallelTreeScanTest.randomTree(20_000, 19L);
+        final String expected = tree.prune(value -> value % 5 != 1).orElseThrow().toJson();
+        for (final int threshold : new int[]{1, 16, 1 << 20}) {
+            assertEquals(expected, tree.pruneParallel(value -> value % 5 != 1, TreeFoldTest.pool, threshold)
+                    .orElseThrow().toJson());
+        }
+    }
+
+    @Test
+    public void filterKeepingAncestors() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        assertEquals("[A] ([B] ([D] ([G])))", a.filterKeepingAncestors("G"::equals).orElseThrow().generateText());
+        assertEquals("[A] ([B] ([E]), [C])",
+                a.filterKeepingAncestors(value -> value.equals("E") || value.equals("C")).orElseThrow()
+                        .generateText());
+        assertEquals("[A]", a.filterKeepingAncestors("A"::equals).orElseThrow().generateText());
+        assertTrue(a.filterKeepingAncestors("Z"::equals).isEmpty());
+
+        final NaryTreeNode<Integer> tree = ParallelTreeScanTest.randomTree(20_000, 23L);
+        final NaryTreeNode<Integer> filtered = tree.filterKeepingAncestors(value -> value % 97 == 0).orElseThrow();
+        assertTrue(filtered.nodeStream(NaryTreeNode.Order.PREFIX)
+                .allMatch(node -> node.getValue() % 97 == 0 || !node.isLeaf()));
+        for (final int threshold : new int[]{1, 16, 1 << 20}) {
+            assertEquals(filtered.toJson(), tree.filterKeepingAncestorsParallel(value -> value % 97 == 0,
+                    TreeFoldTest.pool, threshold).orElseThrow().toJson());
+        }
+    }
+
+    @Test
+    public void fold() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        assertEquals("A(B(D(G),E),C(F))", a.<String>fold((value, children) ->
+                children.isEmpty() ? value : value + "(" + String.join(",", children) + ")"));
+        final NaryTreeNode<Integer> tree = ParallelTreeScanTest.randomTree(20_000, 29L);
+        assertEquals(tree.getHeight(), (int) tree.<Integer>fold(TreeFoldTest.HEIGHT));
+        final AtomicInteger calls = new AtomicInteger();
+        for (final int threshold : new int[]{1, 16, 1 << 20}) {
+            assertEquals(tree.getHeight(), (int) tree.<Integer>foldParallel((value, heights) -> {
+                calls.incrementAndGet();
+                return TreeFoldTest.HEIGHT.apply(value, heights);
+            }, TreeFoldTest.pool, threshold));
+        }
+        assertEquals(3 * tree.getSize(), calls.get());
+        assertThrows(UnsupportedOperationException.class, () -> a.<List<String>>fold((value, children) -> {
+            children.clear();
+            return List.of();
+        }));
+    }
+
+    @Test
+    public void deepChain() {
+        final NaryTreeNode<Integer> root = new NaryTreeNode<>(0);
+        NaryTreeNode<Integer> node = root;
+        for (int i = 1; i < 100_000; i++) {
+            final NaryTreeNode<Integer> child = new NaryTreeNode<>(i);
+            node.addChild(child);
+            node = child;
+        }
+        assertEquals(100_000, (int) root.<Integer>fold(TreeFoldTest.HEIGHT));
+        assertEquals(100_000, (int) root.<Integer>foldParallel(TreeFoldTest.HEIGHT, TreeFoldTest.pool, 64));
+        assertEquals(100_000, root.map(value -> -value).getHeight());
+        assertEquals(1000, root.prune(value -> value < 1000).orElseThrow().getHeight());
+        assertEquals(100_000, root.filterKeepingAncestors(value -> value == 99_999).orElseThrow().getHeight());
+    }
+
+    @Test
+    public void deepComb() {
+        // Every node of the spine has a leaf after its spine child, so that the spine children are forked
+        final NaryTreeNode<Integer> root = new NaryTreeNode<>(0);
+        NaryTreeNode<Integer> node = root;
+        for (int i = 1; i < 100_000; i++) {
+            final NaryTreeNode<Integer> child = new NaryTreeNode<>(i);
+            node.addChild(child);
+            node.addChild(-i);
+            node = child;
+        }
+        for (final int threshold : new int[]{1, 64}) {
+            assertEquals(100_000, (int) root.<Integer>foldParallel(TreeFoldTest.HEIGHT, TreeFoldTest.pool, threshold));
+            assertEquals(root.getSize(), root.mapParallel(value -> value, TreeFoldTest.pool, threshold).getSize());
+        }
+    }
+
+    @Test
+    public void reduce() {
+        final NaryTreeNode<Integer> tree = ParallelTreeScanTest.randomTree(10_000, 31L);
+        assertEquals(Long.valueOf(49_995_000L), tree.reduce(0L, (sum, value) -> sum + value, Long::sum));
+        assertEquals(Long.valueOf(49_995_000L), tree.reduceParallel(0L, (sum, value) -> sum + value, Long::sum));
+    }
+}
@@ -0,0 +1,181 @@
+package com.corentingambier.treenode;
+
+import com.google.gson.stream.JsonWriter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TreeMetricsTest {
+    private final List<String> samples = new ArrayList<>();
+    private final List<TreeOperationSample> recorded = new ArrayList<>();
+
+    private void record() {
+        NaryTreeNode.setMetrics(sample -> {
+            this.recorded.add(sample);
+            this.samples.add(sample.getOperation() + " " + sample.getNodesVisited() + " " + sample.getMaxDepth() + " "
+                    + sample.getMaxFrontier() + " " + sample.getOutputLength());
+        });
+    }
+
+    @AfterEach
+    public void tearDown() {
+        NaryTreeNode.setMetrics(TreeMetrics.NONE);
+    }
+
+    @Test
+    public void disabled() {
+        assertSame(TreeMetrics.NONE, NaryTreeNode.getMetrics());
+        assertNull(TreeOperationSample.start(TreeMetrics.Operation.CONTAINS));
+        assertThrows(NullPointerException.class, () -> NaryTreeNode.setMetrics(null));
+    }
+
+    @Test
+    public void searches() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        this.record();
+        // Pre-order: A B D G E C F
+        assertTrue(a.contains("E"));
+        assertFalse(a.contains("Z"));
+        assertEquals("F", a.findFirst("F").orElseThrow().getValue());
+        assertEquals(1, a.findAll("G").size());
+        assertEquals(3, a.pathTo("F").size());
+        assertEquals(List.of("CONTAINS 5 3 0 -1", "CONTAINS 7 3 0 -1", "FIND_FIRST 7 3 0 -1", "FIND_ALL 7 3 0 -1",
+                "PATH_TO 7 3 0 -1"), this.samples);
+        this.samples.clear();
+        a.getChild(0).contains("G");
+        assertEquals(List.of("CONTAINS 3 2 0 -1"), this.samples);
+        this.samples.clear();
+        // The index answers without visiting the tree
+        a.enableIndex();
+        assertTrue(a.contains("G"));
+        assertEquals(List.of("CONTAINS 0 -1 0 -1"), this.samples);
+        assertTrue(this.recorded.stream().allMatch(sample -> sample.getNanos() >= 0));
+    }
+
+    @Test
+    public void lists() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        this.record();
+        assertEquals(List.of("A", "B", "C", "D", "E", "F", "G"), a.toByWidthList());
+        a.toPrefixList();
+        a.toPostfixList();
+        assertEquals(List.of("TO_BY_WIDTH_LIST 7 3 3 -1", "TO_PREFIX_LIST 7 3 0 -1", "TO_POSTFIX_LIST 7 3 0 -1"),
+                this.samples);
+        // Not measured
+        a.breadthFirstIterator().next();
+        a.stream(NaryTreeNode.Order.PREFIX).count();
+        assertEquals(3, this.samples.size());
+    }
+
+    @Test
+    public void serialisations() throws IOException {
+        final NaryTreeNode<String> root = new NaryTreeNode<>("é");
+        root.addChild("A");
+        root.getChild(0).addChild("B");
+        this.record();
+        final String json = root.toJson();
+        final StringBuilder builder = new StringBuilder();
+        root.writeJson(builder);
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        root.writeJson(outputStream);
+        root.writeJson(new JsonWriter(new StringWriter()));
+        final ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        root.writeBinary(Channels.newChannel(binary), BinaryValueCodec.STRING);
+        final String text = root.generateText();
+        final String truncated = root.toPrettyText(0, 10);
+        final StringBuilder written = new StringBuilder();
+        root.writeText(written, 1, 1);
+        assertEquals(List.of("TO_JSON 3 2 0 " + json.length(), "WRITE_JSON 3 2 0 " + json.length(),
+                "WRITE_JSON 3 2 0 " + json.getBytes(StandardCharsets.UTF_8).length, "WRITE_JSON 3 2 0 -1",
+                "WRITE_BINARY 3 2 0 " + binary.size(), "TO_TEXT 3 2 0 " + text.length(),
+                "TO_TEXT 1 0 0 " + truncated.length(), "TO_TEXT 2 1 0 " + written.length()),
+                this.samples);
+        assertEquals(json.length() + 1, outputStream.size());
+        // toString is not measured
+        root.toString();
+        assertEquals(8, this.samples.size());
+    }
+
+    @Test
+    public void failures() throws IOException {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        this.record();
+        final Appendable failing = new Appendable() {
+            @Override
+            public Appendable append(final CharSequence csq) throws IOException {
+                throw new IOException("full");
+            }
+
+            @Override
+            public Appendable append(final CharSequence csq, final int start, final int end) throws IOException {
+                throw new IOException("full");
+            }
+
+            @Override
+            public Appendable append(final char c) throws IOException {
+                throw new IOException("full");
+            }
+        };
+        assertThrows(IOException.class, () -> a.writeJson(failing));
+        assertThrows(IOException.class, () -> a.writeText(failing, 5, 5));
+        // The failed operations are measured too
+        assertEquals(2, this.recorded.size());
+        assertEquals(TreeMetrics.Operation.WRITE_JSON, this.recorded.get(0).getOperation());
+        assertEquals(TreeMetrics.Operation.TO_TEXT, this.recorded.get(1).getOperation());
+        assertEquals(0, this.recorded.get(1).getOutputLength());
+        final StringBuilder written = new StringBuilder();
+        a.getChild(1).getChild(0).writeText(written, 0, 1);
+        assertEquals(written.length(), this.recorded.get(2).getOutputLength());
+    }
+
+    @Test
+    public void jmx() throws JMException {
+        final JmxTreeMetrics metrics = new JmxTreeMetrics();
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName name = JmxTreeMetrics.getObjectName(TreeMetrics.Operation.CONTAINS);
+        metrics.register();
+        try {
+            assertThrows(JMException.class, () -> new JmxTreeMetrics().register());
+            NaryTreeNode.setMetrics(metrics);
+            final NaryTreeNode<Integer> root = ParallelTreeScanTest.randomTree(1000, 42L);
+            for (int i = 0; i < 100; i++) {
+                root.contains(-1);
+            }
+            root.toByWidthList();
+            assertEquals(100L, server.getAttribute(name, "Count"));
+            assertEquals(100_000L, server.getAttribute(name, "NodesVisited"));
+            assertEquals(1000L, server.getAttribute(name, "MaxNodesVisited"));
+            assertEquals(root.getHeight() - 1, server.getAttribute(name, "MaxDepth"));
+            assertEquals(0L, server.getAttribute(name, "OutputLength"));
+
+            final TreeOperationStats stats = metrics.getStats(TreeMetrics.Operation.CONTAINS);
+            assertTrue(stats.getMeanNanos() > 0);
+            assertTrue(stats.getP50Nanos() <= stats.getP90Nanos());
+            assertTrue(stats.getP90Nanos() <= stats.getP99Nanos());
+            assertTrue(stats.getP99Nanos() <= stats.getMaxNanos());
+            assertEquals(stats.getMaxNanos(), stats.getPercentileNanos(1));
+            assertThrows(IllegalArgumentException.class, () -> stats.getPercentileNanos(1.5));
+            assertEquals(1, metrics.getStats(TreeMetrics.Operation.TO_BY_WIDTH_LIST).getCount());
+            assertTrue(metrics.getStats(TreeMetrics.Operation.TO_BY_WIDTH_LIST).getMaxFrontier() > 1);
+            assertEquals(0, metrics.getStats(TreeMetrics.Operation.TO_JSON).getCount());
+            assertEquals(0, metrics.getStats(TreeMetrics.Operation.TO_JSON).getP99Nanos());
+            assertEquals(-1, metrics.getStats(TreeMetrics.Operation.TO_JSON).getMaxDepth());
+        } finally {
+            metrics.unregister();
+        }
+        assertFalse(server.isRegistered(name));
+    }
+}
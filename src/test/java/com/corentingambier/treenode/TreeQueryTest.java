@@ -0,0 +1,158 @@
+package com.corentingambier.treenode;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TreeQueryTest {
+    private static List<String> values(final List<NaryTreeNode<String>> nodes) {
+        return nodes.stream().map(NaryTreeNode::getValue).toList();
+    }
+
+    @Test
+    public void childrenWindow() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        assertEquals(List.of("B", "C"), TreeQueryTest.values(a.getChildren(0, Integer.MAX_VALUE)));
+        assertEquals(List.of("C"), TreeQueryTest.values(a.getChildren(1, 5)));
+        assertEquals(List.of("B"), TreeQueryTest.values(a.getChildren(0, 1)));
+        assertTrue(a.getChildren(2, 1).isEmpty());
+        assertTrue(a.getChildren(0, 0).isEmpty());
+        assertTrue(a.getChildren(1, 1).get(0).getChildren(3, 1).isEmpty());
+        assertThrows(UnsupportedOperationException.class, () -> a.getChildren(0, 2).remove(0));
+        assertThrows(IllegalArgumentException.class, () -> a.getChildren(-1, 1));
+        assertThrows(IllegalArgumentException.class, () -> a.getChildren(0, -1));
+    }
+
+    @Test
+    public void unboundedQueries() {
+        final NaryTreeNode<Integer> root = ParallelTreeScanTest.randomTree(500, 7L);
+        final int max = Integer.MAX_VALUE;
+        for (final NaryTreeNode.Order order : NaryTreeNode.Order.values()) {
+            assertEquals(root.nodeStream(order).toList(), root.query(order, max, max, 0, max));
+        }
+    }
+
+    @Test
+    public void boundedQueries() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        final int max = Integer.MAX_VALUE;
+        // A(B(D(G), E), C(F))
+        assertEquals(List.of("A", "B", "D", "E", "C", "F"),
+                TreeQueryTest.values(a.query(NaryTreeNode.Order.PREFIX, 2, max, 0, max)));
+        assertEquals(List.of("D", "E", "B", "F", "C", "A"),
+                TreeQueryTest.values(a.query(NaryTreeNode.Order.POSTFIX, 2, max, 0, max)));
+        assertEquals(List.of("A", "B", "C", "D", "E", "F"),
+                TreeQueryTest.values(a.query(NaryTreeNode.Order.BY_WIDTH, 2, max, 0, max)));
+        assertEquals(List.of("A", "B", "D"), TreeQueryTest.values(a.query(NaryTreeNode.Order.PREFIX, max, 3, 0, max)));
+        assertEquals(List.of("G", "D"), TreeQueryTest.values(a.query(NaryTreeNode.Order.POSTFIX, max, 2, 0, max)));
+        assertEquals(List.of("A", "B", "C", "D"),
+                TreeQueryTest.values(a.query(NaryTreeNode.Order.BY_WIDTH, max, 4, 0, max)));
+        // First child only, then second child only
+        assertEquals(List.of("A", "B", "D", "G"),
+                TreeQueryTest.values(a.query(NaryTreeNode.Order.PREFIX, max, max, 0, 1)));
+        assertEquals(List.of("A", "C"), TreeQueryTest.values(a.query(NaryTreeNode.Order.BY_WIDTH, max, max, 1, 1)));
+        assertEquals(List.of("A"), TreeQueryTest.values(a.query(NaryTreeNode.Order.POSTFIX, 0, max, 0, max)));
+        assertEquals(List.of("B", "D", "E"),
+                TreeQueryTest.values(a.getChild(0).query(NaryTreeNode.Order.BY_WIDTH, 1, max, 0, max)));
+        assertTrue(a.query(NaryTreeNode.Order.PREFIX, max, 0, 0, max).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> a.query(NaryTreeNode.Order.PREFIX, -1, 1, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> a.query(NaryTreeNode.Order.PREFIX, 1, -1, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> a.query(NaryTreeNode.Order.PREFIX, 1, 1, -1, 1));
+        assertThrows(IllegalArgumentException.class, () -> a.query(NaryTreeNode.Order.PREFIX, 1, 1, 0, -1));
+    }
+
+    @Test
+    public void levelCursor() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        final TreeLevelCursor<String> cursor = a.levelCursor(0, Integer.MAX_VALUE);
+        final List<List<String>> levels = new ArrayList<>();
+        do {
+            assertEquals(levels.size(), cursor.getDepth());
+            levels.add(TreeQueryTest.values(cursor.nextPage(Integer.MAX_VALUE)));
+        } while (cursor.nextLevel());
+        assertEquals(List.of(List.of("A"), List.of("B", "C"), List.of("D", "E", "F"), List.of("G")), levels);
+        assertFalse(cursor.hasNext());
+        assertThrows(NoSuchElementException.class, cursor::next);
+        assertThrows(NoSuchElementException.class, cursor::getPosition);
+        assertFalse(cursor.nextLevel());
+
+        final TreeLevelCursor<String> windowed = a.levelCursor(1, 1);
+        assertTrue(windowed.nextLevel());
+        assertEquals(List.of("C"), TreeQueryTest.values(windowed.nextPage(10)));
+        // F is the first child of C, out of the window
+        assertFalse(windowed.nextLevel());
+        assertTrue(windowed.nextPage(10).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> windowed.nextPage(-1));
+        assertThrows(IllegalArgumentException.class, () -> a.levelCursor(-1, 1));
+    }
+
+    @Test
+    public void levelCursorFromLevelAbove() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        final TreeLevelCursor<String> cursor = a.levelCursor(0, Integer.MAX_VALUE);
+        // The first node of every level, skipping the rest of the level
+        final List<String> firsts = new ArrayList<>();
+        do {
+            firsts.add(cursor.next().getValue());
+        } while (cursor.nextLevel());
+        assertEquals(List.of("A", "B", "D", "G"), firsts);
+
+        final TreeLevelCursor<String> positions = a.levelCursor(0, Integer.MAX_VALUE);
+        positions.nextLevel();
+        positions.nextLevel();
+        assertArrayEquals(new int[]{0, 0}, positions.getPosition());
+        positions.next();
+        positions.next();
+        assertArrayEquals(new int[]{1, 0}, positions.getPosition());
+
+        // Every level is read from the level above, not walked again from the root
+        final NaryTreeNode<Integer> root = new NaryTreeNode<>(0);
+        NaryTreeNode<Integer> last = root;
+        for (int i = 1; i < 100_000; i++) {
+            final NaryTreeNode<Integer> child = new NaryTreeNode<>(i);
+            last.addChild(child);
+            last = child;
+        }
+        final TreeLevelCursor<Integer> chain = root.levelCursor(0, 1);
+        int depth = 0;
+        while (chain.nextLevel()) {
+            depth++;
+            assertEquals(depth, chain.next().getValue());
+        }
+        assertEquals(99_999, depth);
+    }
+
+    @Test
+    public void resume() {
+        final NaryTreeNode<Integer> root = ParallelTreeScanTest.randomTree(2000, 11L);
+        final int max = Integer.MAX_VALUE;
+        final List<Integer> expected = root.toByWidthList();
+        final List<Integer> paged = new ArrayList<>();
+        int[] position = new int[0];
+        // Serve pages of 7 nodes, each from a new cursor resuming at the position left by the previous page
+        while (position != null) {
+            final TreeLevelCursor<Integer> cursor = root.levelCursor(0, max, position);
+            cursor.nextPage(7).forEach(node -> paged.add(node.getValue()));
+            if (!cursor.hasNext() && !cursor.nextLevel()) {
+                position = null;
+            } else {
+                position = cursor.getPosition();
+            }
+        }
+        assertEquals(expected, paged);
+
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        assertEquals("E", a.levelCursor(0, max, new int[]{0, 1}).next().getValue());
+        final TreeLevelCursor<String> resumed = a.levelCursor(0, max, new int[]{0, 1});
+        assertArrayEquals(new int[]{0, 1}, resumed.getPosition());
+        resumed.next();
+        assertArrayEquals(new int[]{1, 0}, resumed.getPosition());
+        assertThrows(IllegalArgumentException.class, () -> a.levelCursor(0, max, new int[]{2}));
+        assertThrows(IllegalArgumentException.class, () -> a.levelCursor(1, 1, new int[]{0}));
+        assertThrows(IllegalArgumentException.class, () -> a.levelCursor(0, max, new int[]{0, 0, 0, 0}));
+    }
+}
@@ -0,0 +1,85 @@
+package com.corentingambier.treenode;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TreeRendererTest {
+    @Test
+    public void maxDepth() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        assertEquals("""
+                A
+                |-B
+                  |-...
+                |-C
+                  |-...
+                """, a.toPrettyText(1, TreeRenderer.UNLIMITED));
+        assertEquals("[A] ([B] (...), [C] (...))", a.generateText(1, TreeRenderer.UNLIMITED));
+        assertEquals("[A] (...)", a.generateText(0, TreeRenderer.UNLIMITED));
+        assertEquals(a.toPrettyText(), a.toPrettyText(3, TreeRenderer.UNLIMITED));
+        assertEquals(a.generateText(), a.generateText(3, TreeRenderer.UNLIMITED));
+    }
+
+    @Test
+    public void maxNodes() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        assertEquals("""
+                A
+                |-B
+                  |-D
+                    |-G
+                  |-...
+                """, a.toPrettyText(TreeRenderer.UNLIMITED, 4));
+        assertEquals("[A] ([B] ([D] ([G]), ...))", a.generateText(TreeRenderer.UNLIMITED, 4));
+        assertEquals("[A] (...)", a.generateText(TreeRenderer.UNLIMITED, 1));
+        assertEquals(a.generateText(), a.generateText(TreeRenderer.UNLIMITED, 7));
+    }
+
+    @Test
+    public void invalidLimits() {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        assertThrows(IllegalArgumentException.class, () -> a.toPrettyText(-1, 1));
+        assertThrows(IllegalArgumentException.class, () -> a.generateText(1, 0));
+    }
+
+    @Test
+    public void deepIndents() {
+        final NaryTreeNode<Integer> root = new NaryTreeNode<>(0);
+        NaryTreeNode<Integer> last = root;
+        final StringBuilder expected = new StringBuilder("0\n");
+        for (int i = 1; i < 100; i++) {
+            final NaryTreeNode<Integer> child = new NaryTreeNode<>(i);
+            last.addChild(child);
+            last = child;
+            expected.append("  ".repeat(i - 1)).append("|-").append(i).append('\n');
+        }
+        assertEquals(expected.toString(), root.toPrettyText());
+    }
+
+    @Test
+    public void nullValues() {
+        final NaryTreeNode<String> root = new NaryTreeNode<>();
+        root.addChild((String) null);
+        assertEquals("""
+                null
+                |-null
+                """, root.toPrettyText());
+        assertEquals("NaryTreeNode{value=null, children=[NaryTreeNode{value=null, children=[]}]}", root.toString());
+        assertEquals("[null] ([null])", root.generateText());
+    }
+
+    @Test
+    public void writeToAppendable() throws IOException {
+        final NaryTreeNode<String> a = NaryTreeNodeTest.alphabetTree();
+        final StringWriter writer = new StringWriter();
+        a.writePrettyText(writer, TreeRenderer.UNLIMITED, TreeRenderer.UNLIMITED);
+        assertEquals(a.toPrettyText(), writer.toString());
+        final StringBuilder builder = new StringBuilder();
+        a.writeText(builder, 1, 2);
+        assertEquals("[A] ([B] (...), ...)", builder.toString());
+    }
+}
@@ -0,0 +1,40 @@
+package com.corentingambier.treenode;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ValueIndexTest {
+    @Test
+    public void addAndRemove() {
+        final ValueIndex<String> index = new ValueIndex<>();
+        final NaryTreeNode<String> first = new NaryTreeNode<>("value");
+        final NaryTreeNode<String> second = new NaryTreeNode<>("value");
+        final NaryTreeNode<String> third = new NaryTreeNode<>("value");
+        assertTrue(index.get("value").isEmpty());
+        index.add("value", first);
+        assertEquals(List.of(first), index.get("value"));
+        index.add("value", second);
+        index.add("value", third);
+        assertEquals(List.of(first, second, third), index.get("value"));
+        index.remove("value", second);
+        assertEquals(List.of(first, third), index.get("value"));
+        index.remove("value", first);
+        assertEquals(List.of(third), index.get("value"));
+        index.remove("value", first);
+        index.remove("value", third);
+        assertTrue(index.get("value").isEmpty());
+    }
+
+    @Test
+    public void nullValue() {
+        final ValueIndex<String> index = new ValueIndex<>();
+        final NaryTreeNode<String> node = new NaryTreeNode<>();
+        index.add(null, node);
+        assertEquals(List.of(node), index.get(null));
+        index.remove(null, node);
+        assertTrue(index.get(null).isEmpty());
+    }
+}